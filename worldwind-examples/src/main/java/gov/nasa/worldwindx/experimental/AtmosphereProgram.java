@@ -50,6 +50,8 @@ public class AtmosphereProgram extends ShaderProgram {
 
     protected int vertexOriginId;
 
+    protected int vertexScaleId;
+
     protected int eyePointId;
 
     protected int eyeMagnitudeId;
@@ -121,6 +123,9 @@ public class AtmosphereProgram extends ShaderProgram {
         Arrays.fill(this.array, 0);
         GLES20.glUniform3fv(this.vertexOriginId, 1, this.array, 0);
 
+        this.vertexScaleId = GLES20.glGetUniformLocation(this.programId, "vertexScale");
+        GLES20.glUniform3f(this.vertexScaleId, 1, 1, 1);
+
         this.eyePointId = GLES20.glGetUniformLocation(this.programId, "eyePoint");
         Arrays.fill(this.array, 0);
         GLES20.glUniform3fv(this.eyePointId, 1, this.array, 0);
@@ -206,6 +211,11 @@ public class AtmosphereProgram extends ShaderProgram {
         GLES20.glUniform3f(this.vertexOriginId, (float) x, (float) y, (float) z);
     }
 
+    public void loadVertexScale(Vec3 scale) {
+        scale.toArray(this.array, 0);
+        GLES20.glUniform3fv(this.vertexScaleId, 1, this.array, 0);
+    }
+
     public void loadLightDirection(Vec3 direction) {
         direction.toArray(this.array, 0);
         GLES20.glUniform3fv(this.lightDirectionId, 1, this.array, 0);
@@ -91,13 +91,16 @@ public class DrawableGroundAtmosphere implements Drawable {
                 continue; // vertex buffer failed to bind
             }
 
-            // Use the vertex origin for the terrain.
+            // Use the vertex origin and vertex scale for the terrain.
             Vec3 terrainOrigin = terrain.getVertexOrigin();
+            Vec3 terrainScale = terrain.getVertexScale();
             this.program.loadVertexOrigin(terrainOrigin);
+            this.program.loadVertexScale(terrainScale);
 
             // Use the draw context's modelview projection matrix, transformed to terrain local coordinates.
             this.mvpMatrix.set(dc.modelviewProjection);
             this.mvpMatrix.multiplyByTranslation(terrainOrigin.x, terrainOrigin.y, terrainOrigin.z);
+            this.mvpMatrix.multiplyByScale(terrainScale.x, terrainScale.y, terrainScale.z);
             this.program.loadModelviewProjection(this.mvpMatrix);
 
             // Use a tex coord matrix that registers the night texture correctly on each terrain.
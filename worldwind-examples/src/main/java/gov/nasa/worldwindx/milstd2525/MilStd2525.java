@@ -185,6 +185,9 @@ public class MilStd2525 {
         SymbolBitmapFactory factory = new SymbolBitmapFactory(symbolCode, modifiers, attributes, placemarkAttributes);
         placemarkAttributes.setImageSource(ImageSource.fromBitmapFactory(factory));
 
+        // Display the symbol from the shared icon atlas, so that large numbers of symbols draw with few draw calls.
+        placemarkAttributes.setEnableIconAtlas(true);
+
         return placemarkAttributes;
     }
 
@@ -10,6 +10,7 @@ uniform int fragMode;
 uniform mat4 mvpMatrix;
 uniform mat3 texCoordMatrix;
 uniform vec3 vertexOrigin;
+uniform vec3 vertexScale;
 uniform vec3 eyePoint;
 uniform float eyeMagnitude;	        /* The eye point's magnitude */
 uniform float eyeMagnitude2;	    /* eyeMagnitude^2 */
@@ -42,7 +43,7 @@ float scaleFunc(float cos) {
 void main() {
     /* Get the ray from the camera to the vertex and its length (which is the far point of the ray passing through the
     atmosphere) */
-    vec3 point = vertexPoint.xyz + vertexOrigin;
+    vec3 point = vertexPoint.xyz * vertexScale + vertexOrigin;
     vec3 ray = point - eyePoint;
     float far = length(ray);
     ray /= far;
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import android.content.res.Resources;
+import android.opengl.GLES20;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import gov.nasa.worldwind.render.ImageOptions;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.render.RenderResourceCache;
+import gov.nasa.worldwind.render.Texture;
+
+/**
+ * Render resource cache for running the render stage on a plain JVM. Texture retrievals complete immediately with a
+ * fake texture of a fixed size, and no Android handler or image retrievers are created. Textures, buffer objects and
+ * shader programs are never bound to an OpenGL context, so they hold no OpenGL objects.
+ */
+public class BenchmarkResourceCache extends RenderResourceCache {
+
+    protected int textureSize = 256;
+
+    public BenchmarkResourceCache(int capacity) {
+        super(capacity);
+    }
+
+    public int getTextureSize() {
+        return this.textureSize;
+    }
+
+    public void setTextureSize(int textureSize) {
+        this.textureSize = textureSize;
+    }
+
+    @Override
+    protected void init() {
+        this.evictionQueue = new ConcurrentLinkedQueue<>();
+    }
+
+    @Override
+    public void setResources(Resources res) {
+        this.resources = res;
+    }
+
+    @Override
+    public Texture retrieveTexture(ImageSource imageSource, ImageOptions options) {
+        if (imageSource == null) {
+            return null; // a null image source corresponds to a null texture
+        }
+
+        Texture texture = new Texture(this.textureSize, this.textureSize, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE);
+        this.put(imageSource, texture, texture.getByteCount());
+        return texture;
+    }
+
+    /**
+     * Discards the resources evicted from this cache. Evicted resources are normally released on the OpenGL thread,
+     * which does not exist when benchmarking the render stage.
+     */
+    public void discardEvictedResources() {
+        this.evictionQueue.clear();
+    }
+}
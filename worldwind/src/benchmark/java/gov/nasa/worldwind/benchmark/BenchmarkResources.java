@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import android.content.res.Resources;
+import android.util.DisplayMetrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * Android resources for running the render stage on a plain JVM. Provides the display metrics used by tile
+ * subdivision and empty raw resources in place of shader sources, which are only compiled on the OpenGL thread.
+ */
+public class BenchmarkResources extends Resources {
+
+    protected DisplayMetrics displayMetrics = new DisplayMetrics();
+
+    public BenchmarkResources(int densityDpi) {
+        super(null, null, null);
+        this.displayMetrics.densityDpi = densityDpi;
+        this.displayMetrics.density = densityDpi / (float) DisplayMetrics.DENSITY_DEFAULT;
+    }
+
+    @Override
+    public DisplayMetrics getDisplayMetrics() {
+        return this.displayMetrics;
+    }
+
+    @Override
+    public InputStream openRawResource(int id) {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.globe.Globe;
+import gov.nasa.worldwind.globe.ProjectionWgs84;
+import gov.nasa.worldwind.layer.IndexedRenderableLayer;
+import gov.nasa.worldwind.layer.Layer;
+import gov.nasa.worldwind.layer.LayerList;
+import gov.nasa.worldwind.layer.PlacemarkClusterLayer;
+import gov.nasa.worldwind.layer.RenderableLayer;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.render.ImageTile;
+import gov.nasa.worldwind.shape.Path;
+import gov.nasa.worldwind.shape.Placemark;
+import gov.nasa.worldwind.shape.PlacemarkAttributes;
+import gov.nasa.worldwind.shape.Polygon;
+import gov.nasa.worldwind.shape.ShapeAttributes;
+import gov.nasa.worldwind.shape.TiledSurfaceImage;
+import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.util.Tile;
+import gov.nasa.worldwind.util.TileFactory;
+
+/**
+ * Configurable benchmark scene: a globe with optional synthetic elevation, and layers of placemarks, paths, polygons
+ * and tiled imagery. Shapes are placed pseudo-randomly within the scene's sector using a fixed seed, so a scene's
+ * contents are identical from run to run.
+ */
+public class BenchmarkScene {
+
+    protected Sector sector = new Sector(20, -130, 40, 160); // spans the CameraScript.benchmarkTour flight path
+
+    protected long seed = 1;
+
+    protected int placemarkCount;
+
+    protected int pathCount;
+
+    protected int pathPositionCount = 32;
+
+    protected int polygonCount;
+
+    protected int polygonPositionCount = 16;
+
+    protected int imageryLayerCount;
+
+    protected boolean elevation;
+
+    protected boolean indexed;
+
+    protected boolean clustered;
+
+    public BenchmarkScene() {
+    }
+
+    public Sector getSector() {
+        return this.sector;
+    }
+
+    public BenchmarkScene setSector(Sector sector) {
+        this.sector.set(sector);
+        return this;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public BenchmarkScene setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public int getPlacemarkCount() {
+        return this.placemarkCount;
+    }
+
+    public BenchmarkScene setPlacemarkCount(int count) {
+        this.placemarkCount = count;
+        return this;
+    }
+
+    public int getPathCount() {
+        return this.pathCount;
+    }
+
+    public BenchmarkScene setPathCount(int count, int positionCount) {
+        this.pathCount = count;
+        this.pathPositionCount = positionCount;
+        return this;
+    }
+
+    public int getPolygonCount() {
+        return this.polygonCount;
+    }
+
+    public BenchmarkScene setPolygonCount(int count, int positionCount) {
+        this.polygonCount = count;
+        this.polygonPositionCount = positionCount;
+        return this;
+    }
+
+    public int getImageryLayerCount() {
+        return this.imageryLayerCount;
+    }
+
+    public BenchmarkScene setImageryLayerCount(int count) {
+        this.imageryLayerCount = count;
+        return this;
+    }
+
+    public boolean isElevation() {
+        return this.elevation;
+    }
+
+    public BenchmarkScene setElevation(boolean elevation) {
+        this.elevation = elevation;
+        return this;
+    }
+
+    public boolean isIndexed() {
+        return this.indexed;
+    }
+
+    /**
+     * Indicates whether the scene's shape layers are IndexedRenderableLayers rather than RenderableLayers.
+     *
+     * @param indexed true to use indexed layers
+     *
+     * @return this scene
+     */
+    public BenchmarkScene setIndexed(boolean indexed) {
+        this.indexed = indexed;
+        return this;
+    }
+
+    public boolean isClustered() {
+        return this.clustered;
+    }
+
+    /**
+     * Indicates whether the scene's placemark layer is a PlacemarkClusterLayer. Takes precedence over the indexed flag
+     * for the placemark layer.
+     *
+     * @param clustered true to cluster placemarks
+     *
+     * @return this scene
+     */
+    public BenchmarkScene setClustered(boolean clustered) {
+        this.clustered = clustered;
+        return this;
+    }
+
+    public Globe createGlobe() {
+        Globe globe = new Globe(WorldWind.WGS84_ELLIPSOID, new ProjectionWgs84());
+        if (this.elevation) {
+            globe.getElevationModel().addCoverage(new SyntheticElevationCoverage(2000));
+        }
+
+        return globe;
+    }
+
+    public LayerList createLayers() {
+        LayerList layers = new LayerList();
+        Random random = new Random(this.seed);
+
+        for (int idx = 0; idx < this.imageryLayerCount; idx++) {
+            layers.addLayer(this.createImageryLayer("imagery" + idx));
+        }
+
+        if (this.polygonCount > 0) {
+            layers.addLayer(this.createPolygonLayer(random));
+        }
+
+        if (this.pathCount > 0) {
+            layers.addLayer(this.createPathLayer(random));
+        }
+
+        if (this.placemarkCount > 0) {
+            layers.addLayer(this.createPlacemarkLayer(random));
+        }
+
+        return layers;
+    }
+
+    protected Layer createImageryLayer(final String name) {
+        TiledSurfaceImage surfaceImage = new TiledSurfaceImage();
+        surfaceImage.setLevelSet(new LevelSet(new Sector().setFullSphere(), 45, 16, 256, 256));
+        surfaceImage.setTileFactory(new TileFactory() {
+            @Override
+            public Tile createTile(Sector sector, Level level, int row, int column) {
+                ImageTile tile = new ImageTile(sector, level, row, column);
+                tile.setImageSource(ImageSource.fromUrl("http://benchmark/" + name + "/" + level.levelNumber + "/" + row + "/" + column));
+                return tile;
+            }
+        });
+
+        RenderableLayer layer = new RenderableLayer(name);
+        layer.addRenderable(surfaceImage);
+        layer.setPickEnabled(false);
+        return layer;
+    }
+
+    protected Layer createPlacemarkLayer(Random random) {
+        // Placemarks share an attribute bundle, and therefore a texture, as is typical of a large placemark layer.
+        PlacemarkAttributes attrs = PlacemarkAttributes.createWithImage(ImageSource.fromUrl("http://benchmark/placemark.png"));
+
+        RenderableLayer layer = this.clustered ? new PlacemarkClusterLayer("placemarks") : this.createShapeLayer("placemarks");
+        for (int idx = 0; idx < this.placemarkCount; idx++) {
+            Placemark placemark = new Placemark(this.randomPosition(random, 0), attrs);
+            placemark.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+            layer.addRenderable(placemark);
+        }
+
+        return layer;
+    }
+
+    protected Layer createPathLayer(Random random) {
+        ShapeAttributes attrs = new ShapeAttributes();
+
+        RenderableLayer layer = this.createShapeLayer("paths");
+        for (int idx = 0; idx < this.pathCount; idx++) {
+            List<Position> positions = this.randomWalk(random, this.pathPositionCount, 0.05, 1000);
+            Path path = new Path(positions, attrs);
+            path.setAltitudeMode(WorldWind.RELATIVE_TO_GROUND);
+            path.setExtrude(idx % 2 == 0); // exercise both the line and the extruded outline geometry
+            layer.addRenderable(path);
+        }
+
+        return layer;
+    }
+
+    protected Layer createPolygonLayer(Random random) {
+        ShapeAttributes attrs = new ShapeAttributes();
+
+        RenderableLayer layer = this.createShapeLayer("polygons");
+        for (int idx = 0; idx < this.polygonCount; idx++) {
+            Position center = this.randomPosition(random, 0);
+            double radius = 0.05 + random.nextDouble() * 0.2;
+            List<Position> positions = new ArrayList<>(this.polygonPositionCount);
+            for (int pidx = 0; pidx < this.polygonPositionCount; pidx++) {
+                double angle = 2 * Math.PI * pidx / this.polygonPositionCount;
+                double r = radius * (0.6 + 0.4 * random.nextDouble()); // star shaped, concave
+                positions.add(new Position(center.latitude + r * Math.sin(angle), center.longitude + r * Math.cos(angle), 0));
+            }
+
+            Polygon polygon = new Polygon(positions, attrs);
+            polygon.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+            polygon.setFollowTerrain(true); // surface polygons are the common case
+            layer.addRenderable(polygon);
+        }
+
+        return layer;
+    }
+
+    protected RenderableLayer createShapeLayer(String name) {
+        return this.indexed ? new IndexedRenderableLayer(name) : new RenderableLayer(name);
+    }
+
+    protected Position randomPosition(Random random, double altitude) {
+        double lat = this.sector.minLatitude() + random.nextDouble() * this.sector.deltaLatitude();
+        double lon = this.sector.minLongitude() + random.nextDouble() * this.sector.deltaLongitude();
+        return new Position(lat, lon, altitude);
+    }
+
+    protected List<Position> randomWalk(Random random, int count, double stepDegrees, double altitude) {
+        List<Position> positions = new ArrayList<>(count);
+        Position pos = this.randomPosition(random, altitude);
+        double heading = random.nextDouble() * 2 * Math.PI;
+        for (int idx = 0; idx < count; idx++) {
+            positions.add(new Position(pos));
+            heading += (random.nextDouble() - 0.5) * 0.5;
+            pos.latitude += stepDegrees * Math.sin(heading);
+            pos.longitude += stepDegrees * Math.cos(heading);
+        }
+
+        return positions;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Camera;
+import gov.nasa.worldwind.geom.Location;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.WWMath;
+
+/**
+ * Scripted sequence of camera positions, one per benchmark frame. Scripts are composed of animations between camera
+ * keyframes, interpolated the same way as the camera animations in the examples' performance benchmark activity.
+ */
+public class CameraScript {
+
+    protected List<Camera> frames = new ArrayList<>();
+
+    protected Camera current = new Camera();
+
+    /**
+     * Constructs a camera script that begins at a specified camera.
+     *
+     * @param start the script's initial camera
+     *
+     * @throws IllegalArgumentException If the camera is null
+     */
+    public CameraScript(Camera start) {
+        if (start == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CameraScript", "constructor", "missingCamera"));
+        }
+
+        this.current.set(start);
+    }
+
+    /**
+     * Returns the script used by the examples' performance benchmark activity: a flight from NASA Ames Research Center
+     * to NASA Goddard Space Flight Center to ESA Centre for Earth Observation, with a mix of zooms, turns and tilted
+     * views near the surface.
+     *
+     * @return a new camera script
+     */
+    public static CameraScript benchmarkTour() {
+        Location arc = new Location(37.415229, -122.06265);
+        Location gsfc = new Location(38.996944, -76.848333);
+        Location esrin = new Location(41.826947, 12.674122);
+
+        CameraScript script = new CameraScript(new Camera(arc.latitude, arc.longitude, 10e6, WorldWind.ABSOLUTE, 0, 0, 0));
+        script.animateTo(new Camera(arc.latitude, arc.longitude, 10e3, WorldWind.ABSOLUTE, 0, 0, 0), 100);
+
+        double azimuth = arc.greatCircleAzimuth(gsfc);
+        script.animateTo(new Camera(arc.latitude, arc.longitude, 10e3, WorldWind.ABSOLUTE, azimuth, 70, 0), 50);
+
+        Location midLoc = arc.interpolateAlongPath(gsfc, WorldWind.GREAT_CIRCLE, 0.5, new Location());
+        azimuth = midLoc.greatCircleAzimuth(gsfc);
+        script.animateTo(new Camera(midLoc.latitude, midLoc.longitude, 1000e3, WorldWind.ABSOLUTE, azimuth, 0, 0), 100);
+        script.animateTo(new Camera(gsfc.latitude, gsfc.longitude, 10e3, WorldWind.ABSOLUTE, azimuth, 70, 0), 100);
+
+        azimuth = gsfc.greatCircleAzimuth(esrin);
+        script.animateTo(new Camera(gsfc.latitude, gsfc.longitude, 10e3, WorldWind.ABSOLUTE, azimuth, 90, 0), 50);
+
+        midLoc = gsfc.interpolateAlongPath(esrin, WorldWind.GREAT_CIRCLE, 0.5, new Location());
+        script.animateTo(new Camera(midLoc.latitude, midLoc.longitude, 1000e3, WorldWind.ABSOLUTE, azimuth, 60, 0), 100);
+        script.animateTo(new Camera(esrin.latitude, esrin.longitude, 100e3, WorldWind.ABSOLUTE, azimuth, 30, 0), 100);
+        script.animateTo(new Camera(esrin.latitude, esrin.longitude, 2000e3, WorldWind.ABSOLUTE, 0, 0, 0), 100);
+
+        return script;
+    }
+
+    /**
+     * Returns a script that orbits a location at a fixed altitude and tilt, completing one revolution.
+     *
+     * @param center   the location to orbit
+     * @param altitude the camera altitude in meters
+     * @param tilt     the camera tilt in degrees
+     * @param steps    the number of frames in the revolution
+     *
+     * @return a new camera script
+     */
+    public static CameraScript orbit(Location center, double altitude, double tilt, int steps) {
+        if (center == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CameraScript", "orbit", "missingLocation"));
+        }
+
+        CameraScript script = new CameraScript(new Camera(center.latitude, center.longitude, altitude, WorldWind.ABSOLUTE, 0, tilt, 0));
+        for (int idx = 1; idx <= 4; idx++) { // four quarter turns; heading interpolation takes the shortest path
+            script.animateTo(new Camera(center.latitude, center.longitude, altitude, WorldWind.ABSOLUTE, idx * 90, tilt, 0), steps / 4);
+        }
+
+        return script;
+    }
+
+    /**
+     * Appends an animation from the script's most recent camera to a specified camera. The animation's last frame
+     * matches the specified camera.
+     *
+     * @param end   the animation's final camera
+     * @param steps the number of frames in the animation
+     *
+     * @return this camera script
+     *
+     * @throws IllegalArgumentException If the camera is null
+     */
+    public CameraScript animateTo(Camera end, int steps) {
+        if (end == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CameraScript", "animateTo", "missingCamera"));
+        }
+
+        Position beginPos = new Position(this.current.latitude, this.current.longitude, this.current.altitude);
+        Position endPos = new Position(end.latitude, end.longitude, end.altitude);
+        Position curPos = new Position();
+
+        for (int idx = 1; idx <= steps; idx++) {
+            double amount = (double) idx / (double) steps;
+            beginPos.interpolateAlongPath(endPos, WorldWind.GREAT_CIRCLE, amount, curPos);
+
+            Camera camera = new Camera();
+            camera.latitude = curPos.latitude;
+            camera.longitude = curPos.longitude;
+            camera.altitude = curPos.altitude;
+            camera.heading = WWMath.interpolateAngle360(amount, this.current.heading, end.heading);
+            camera.tilt = WWMath.interpolateAngle180(amount, this.current.tilt, end.tilt);
+            camera.roll = WWMath.interpolateAngle180(amount, this.current.roll, end.roll);
+            this.frames.add(camera);
+        }
+
+        this.current.set(end);
+
+        return this;
+    }
+
+    /**
+     * Returns the number of frames in this script.
+     *
+     * @return the frame count
+     */
+    public int getFrameCount() {
+        return this.frames.size();
+    }
+
+    /**
+     * Returns the camera for a specified frame.
+     *
+     * @param index the frame index, in the range [0, getFrameCount() - 1]
+     *
+     * @return the frame's camera
+     */
+    public Camera getCamera(int index) {
+        return this.frames.get(index);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Runs the JMH micro-benchmarks as a JVM unit test. These are excluded from the regular unit test run; run them with:
+ * <pre>
+ * ./gradlew :worldwind:testDebugUnitTest -Pbenchmark --tests 'gov.nasa.worldwind.benchmark.MicroBenchmarkTest'
+ * </pre>
+ * JMH reports each benchmark's throughput in operations per second, and the GC profiler reports its allocation rate
+ * in bytes per operation (gc.alloc.rate.norm). The following system properties configure the run:
+ * <ul>
+ * <li>benchmark.include - a regular expression selecting the benchmarks to run; all micro-benchmarks by default</li>
+ * <li>benchmark.result - a file to write the results to in JSON format, for comparison between runs</li>
+ * </ul>
+ */
+public class MicroBenchmarkTest {
+
+    @Test
+    public void testMicroBenchmarks() throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+            .include(System.getProperty("benchmark.include", "gov\\.nasa\\.worldwind\\..*Benchmark\\."))
+            .addProfiler(GCProfiler.class)
+            .shouldFailOnError(true);
+
+        String resultFile = System.getProperty("benchmark.result");
+        if (resultFile != null) {
+            options.result(resultFile).resultFormat(ResultFormatType.JSON);
+        }
+
+        Collection<RunResult> results = new Runner(options.build()).run();
+        assertFalse("benchmark results", results.isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import org.junit.Test;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Camera;
+import gov.nasa.worldwind.geom.Location;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares RenderableLayer with PlacemarkClusterLayer for a layer of 100k placemarks viewed at regional zoom, from a
+ * camera orbiting NASA Goddard Space Flight Center and from a stationary camera. Run with:
+ * <pre>
+ * ./gradlew :worldwind:testDebugUnitTest -Pbenchmark --tests 'gov.nasa.worldwind.benchmark.PlacemarkClusterBenchmarkTest'
+ * </pre>
+ */
+public class PlacemarkClusterBenchmarkTest {
+
+    protected static final Location GSFC = new Location(38.996944, -76.848333);
+
+    @Test
+    public void testOrbit() throws Exception {
+        this.runComparison("orbit", CameraScript.orbit(GSFC, 2000e3, 30, 60));
+    }
+
+    @Test
+    public void testStationary() throws Exception {
+        Camera camera = new Camera(GSFC.latitude, GSFC.longitude, 2000e3, WorldWind.ABSOLUTE, 0, 30, 0);
+        CameraScript script = new CameraScript(camera).animateTo(camera, 60); // the view is stable; clusters are reused
+        this.runComparison("stationary", script);
+    }
+
+    protected void runComparison(String name, CameraScript script) {
+        SceneBenchmark.Result linear = this.runBenchmark(false, script);
+        System.out.println("PlacemarkClusterBenchmark " + name + " RenderableLayer " + linear);
+
+        SceneBenchmark.Result clustered = this.runBenchmark(true, script);
+        System.out.println("PlacemarkClusterBenchmark " + name + " PlacemarkClusterLayer " + clustered);
+
+        assertTrue("drawable count", clustered.getDrawableCountAverage() < linear.getDrawableCountAverage());
+    }
+
+    protected SceneBenchmark.Result runBenchmark(boolean clustered, CameraScript script) {
+        BenchmarkScene scene = new BenchmarkScene().setElevation(true).setPlacemarkCount(100000).setClustered(clustered);
+        return new SceneBenchmark(scene).run(script);
+    }
+}
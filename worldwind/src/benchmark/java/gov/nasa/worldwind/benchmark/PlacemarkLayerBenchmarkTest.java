@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import org.junit.Test;
+
+import gov.nasa.worldwind.geom.Location;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares RenderableLayer with IndexedRenderableLayer for placemark layers of 10k, 100k and 1M placemarks spread over
+ * North America, Europe and the Atlantic, viewed from a camera orbiting NASA Goddard Space Flight Center. Run with:
+ * <pre>
+ * ./gradlew :worldwind:testDebugUnitTest -Pbenchmark --tests 'gov.nasa.worldwind.benchmark.PlacemarkLayerBenchmarkTest'
+ * </pre>
+ */
+public class PlacemarkLayerBenchmarkTest {
+
+    @Test
+    public void testPlacemarks10k() throws Exception {
+        this.runComparison(10000);
+    }
+
+    @Test
+    public void testPlacemarks100k() throws Exception {
+        this.runComparison(100000);
+    }
+
+    @Test
+    public void testPlacemarks1M() throws Exception {
+        this.runComparison(1000000);
+    }
+
+    protected void runComparison(int placemarkCount) {
+        SceneBenchmark.Result linear = this.runBenchmark(placemarkCount, false);
+        System.out.println("PlacemarkLayerBenchmark " + placemarkCount + " RenderableLayer " + linear);
+
+        SceneBenchmark.Result indexed = this.runBenchmark(placemarkCount, true);
+        System.out.println("PlacemarkLayerBenchmark " + placemarkCount + " IndexedRenderableLayer " + indexed);
+
+        // Both layers must produce the same frames; the index only skips placemarks that would be culled anyway.
+        assertEquals("drawable count", linear.getDrawableCountAverage(), indexed.getDrawableCountAverage(), 0);
+    }
+
+    protected SceneBenchmark.Result runBenchmark(int placemarkCount, boolean indexed) {
+        BenchmarkScene scene = new BenchmarkScene().setElevation(true).setPlacemarkCount(placemarkCount).setIndexed(indexed);
+        CameraScript script = CameraScript.orbit(new Location(38.996944, -76.848333), 50e3, 60, 60);
+        return new SceneBenchmark(scene).run(script);
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import android.util.DisplayMetrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+import gov.nasa.worldwind.BasicFrameController;
+import gov.nasa.worldwind.Frame;
+import gov.nasa.worldwind.FrameController;
+import gov.nasa.worldwind.FrameMetrics;
+import gov.nasa.worldwind.Navigator;
+import gov.nasa.worldwind.geom.Camera;
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.geom.Viewport;
+import gov.nasa.worldwind.globe.BasicTessellator;
+import gov.nasa.worldwind.globe.Globe;
+import gov.nasa.worldwind.globe.Tessellator;
+import gov.nasa.worldwind.layer.LayerList;
+import gov.nasa.worldwind.render.LabelDeclutter;
+import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.util.BasicPool;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Pool;
+
+/**
+ * Headless benchmark of the render stage: the CPU work WorldWindow performs on the render thread to assemble a frame's
+ * drawables. SceneBenchmark sets up a render context the same way WorldWindow.renderFrame does, using a {@link
+ * BenchmarkResourceCache} in place of OpenGL resources, and runs a frame controller over each frame of a {@link
+ * CameraScript}. Frames are discarded after rendering; nothing is drawn.
+ * <p/>
+ * Each run measures every frame's wall time, thread CPU time and the bytes allocated by the render thread, and
+ * collects the per-layer render stage times recorded in {@link FrameMetrics}. Thread CPU time and allocation
+ * measurement depend on the JVM; unsupported measurements are reported as -1.
+ */
+public class SceneBenchmark {
+
+    protected Globe globe;
+
+    protected LayerList layers;
+
+    protected Tessellator tessellator = new BasicTessellator();
+
+    protected FrameController frameController = new BasicFrameController();
+
+    protected Navigator navigator = new Navigator();
+
+    protected Viewport viewport = new Viewport(0, 0, 1920, 1080);
+
+    protected double fieldOfView = 45;
+
+    protected int depthBits = 24;
+
+    protected RenderContext rc = new RenderContext();
+
+    protected BenchmarkResources resources = new BenchmarkResources(DisplayMetrics.DENSITY_HIGH);
+
+    protected BenchmarkResourceCache renderResourceCache = new BenchmarkResourceCache(1024 * 1024 * 256);
+
+    protected Pool<Frame> framePool = new BasicPool<>();
+
+    protected FrameMetrics frameMetrics = new FrameMetrics();
+
+    protected LabelDeclutter labelDeclutter;
+
+    protected ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Constructs a benchmark of a specified scene.
+     *
+     * @param scene the scene to render
+     *
+     * @throws IllegalArgumentException If the scene is null
+     */
+    public SceneBenchmark(BenchmarkScene scene) {
+        if (scene == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SceneBenchmark", "constructor", "missingScene"));
+        }
+
+        this.globe = scene.createGlobe();
+        this.layers = scene.createLayers();
+
+        if (this.threadBean.isCurrentThreadCpuTimeSupported()) {
+            this.threadBean.setThreadCpuTimeEnabled(true);
+        }
+
+        if (this.threadBean instanceof com.sun.management.ThreadMXBean) {
+            ((com.sun.management.ThreadMXBean) this.threadBean).setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    public Viewport getViewport() {
+        return this.viewport;
+    }
+
+    public void setViewport(Viewport viewport) {
+        this.viewport.set(viewport);
+    }
+
+    public FrameController getFrameController() {
+        return this.frameController;
+    }
+
+    public void setFrameController(FrameController frameController) {
+        this.frameController = frameController;
+    }
+
+    public FrameMetrics getFrameMetrics() {
+        return this.frameMetrics;
+    }
+
+    public LabelDeclutter getLabelDeclutter() {
+        return this.labelDeclutter;
+    }
+
+    public void setLabelDeclutter(LabelDeclutter labelDeclutter) {
+        this.labelDeclutter = labelDeclutter;
+    }
+
+    /**
+     * Renders every frame of a camera script without measurement, then renders the script again and measures each
+     * frame. The first pass warms the JIT and fills the tile and resource caches, so the measured pass reflects steady
+     * state rendering.
+     *
+     * @param script the camera script to render
+     *
+     * @return the measurements from the second pass
+     *
+     * @throws IllegalArgumentException If the script is null
+     */
+    public Result run(CameraScript script) {
+        if (script == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SceneBenchmark", "run", "missingScript"));
+        }
+
+        for (int idx = 0, len = script.getFrameCount(); idx < len; idx++) {
+            this.renderFrame(script.getCamera(idx));
+        }
+
+        this.frameMetrics.reset();
+
+        Result result = new Result(script.getFrameCount());
+        for (int idx = 0, len = script.getFrameCount(); idx < len; idx++) {
+            long cpuTime = this.currentThreadCpuTime();
+            long allocatedBytes = this.currentThreadAllocatedBytes();
+            long wallTime = System.nanoTime();
+
+            result.drawableCount[idx] = this.renderFrame(script.getCamera(idx));
+
+            result.wallTime[idx] = System.nanoTime() - wallTime;
+            result.cpuTime[idx] = (cpuTime < 0) ? -1 : this.currentThreadCpuTime() - cpuTime;
+            result.allocatedBytes[idx] = (allocatedBytes < 0) ? -1 : this.currentThreadAllocatedBytes() - allocatedBytes;
+        }
+
+        result.frameMetrics = this.frameMetrics;
+
+        return result;
+    }
+
+    /**
+     * Renders a single frame with the navigator set to a specified camera, returning the number of drawables the frame
+     * controller produced.
+     *
+     * @param camera the frame's camera
+     *
+     * @return the number of terrain and shape drawables in the frame
+     */
+    protected int renderFrame(Camera camera) {
+        this.navigator.setAsCamera(this.globe, camera);
+
+        Frame frame = Frame.obtain(this.framePool);
+        this.frameMetrics.beginRendering(this.rc);
+
+        // Setup the render context the same way as WorldWindow.renderFrame.
+        this.rc.globe = this.globe;
+        this.rc.terrainTessellator = this.tessellator;
+        this.rc.layers = this.layers;
+        this.rc.verticalExaggeration = 1;
+        this.rc.fieldOfView = this.fieldOfView;
+        this.rc.horizonDistance = this.globe.horizonDistance(this.navigator.getAltitude());
+        this.rc.camera = this.navigator.getAsCamera(this.globe, this.rc.camera);
+        this.rc.cameraPoint = this.globe.geographicToCartesian(this.rc.camera.latitude, this.rc.camera.longitude, this.rc.camera.altitude, this.rc.cameraPoint);
+        this.rc.renderResourceCache = this.renderResourceCache;
+        this.rc.renderResourceCache.setResources(this.resources);
+        this.rc.resources = this.resources;
+
+        this.computeViewingTransform(frame.projection, frame.modelview);
+        frame.viewport.set(this.viewport);
+        frame.infiniteProjection.setToInfiniteProjection(this.viewport.width, this.viewport.height, this.fieldOfView, 1.0);
+        frame.infiniteProjection.multiplyByMatrix(frame.modelview);
+        this.rc.viewport.set(frame.viewport);
+        this.rc.projection.set(frame.projection);
+        this.rc.modelview.set(frame.modelview);
+        this.rc.modelviewProjection.setToMultiply(frame.projection, frame.modelview);
+        this.rc.frustum.setToModelviewProjection(frame.projection, frame.modelview, frame.viewport);
+
+        this.rc.drawableQueue = frame.drawableQueue;
+        this.rc.drawableTerrain = frame.drawableTerrain;
+        this.rc.pickedObjects = frame.pickedObjects;
+        this.rc.pickViewport = frame.pickViewport;
+        this.rc.pickPoint = frame.pickPoint;
+        this.rc.pickRay = frame.pickRay;
+        this.rc.pickMode = frame.pickMode;
+        this.rc.frameMetrics = this.frameMetrics;
+        this.rc.labelDeclutter = this.labelDeclutter;
+
+        this.frameController.renderFrame(this.rc);
+
+        int drawableCount = frame.drawableQueue.count() + frame.drawableTerrain.count();
+
+        this.frameMetrics.endRendering(this.rc);
+        this.rc.reset();
+
+        // Discard the frame in place of drawing it on the OpenGL thread, and discard any resources evicted from the
+        // cache in place of releasing them on the OpenGL thread.
+        frame.recycle();
+        this.renderResourceCache.discardEvictedResources();
+
+        return drawableCount;
+    }
+
+    protected void computeViewingTransform(Matrix4 projection, Matrix4 modelview) {
+        // Compute the clip plane distances the same way as WorldWindow.computeViewingTransform.
+        double eyeAltitude = this.navigator.getAltitude();
+        double eyeHorizon = this.globe.horizonDistance(eyeAltitude);
+        double atmosphereHorizon = this.globe.horizonDistance(160000);
+        double near = eyeAltitude * 0.5;
+        double far = eyeHorizon + atmosphereHorizon;
+
+        if (this.depthBits != 0) {
+            double maxDepthValue = (1 << this.depthBits) - 1;
+            double farResolution = 10.0;
+            double nearDistance = far / (maxDepthValue / (1 - farResolution / far) - maxDepthValue + 1);
+            if (near > nearDistance) {
+                near = nearDistance;
+            }
+        }
+
+        projection.setToPerspectiveProjection(this.viewport.width, this.viewport.height, this.fieldOfView, near, far);
+        this.navigator.getAsViewingMatrix(this.globe, modelview);
+    }
+
+    protected long currentThreadCpuTime() {
+        return this.threadBean.isThreadCpuTimeEnabled() ? this.threadBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    protected long currentThreadAllocatedBytes() {
+        if (this.threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) this.threadBean;
+            if (bean.isThreadAllocatedMemoryEnabled()) {
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Per-frame measurements from a benchmark run.
+     */
+    public static class Result {
+
+        protected long[] wallTime;
+
+        protected long[] cpuTime;
+
+        protected long[] allocatedBytes;
+
+        protected int[] drawableCount;
+
+        protected FrameMetrics frameMetrics;
+
+        public Result(int frameCount) {
+            this.wallTime = new long[frameCount];
+            this.cpuTime = new long[frameCount];
+            this.allocatedBytes = new long[frameCount];
+            this.drawableCount = new int[frameCount];
+        }
+
+        public int getFrameCount() {
+            return this.wallTime.length;
+        }
+
+        /**
+         * Returns a percentile of the frame wall times in milliseconds.
+         *
+         * @param percentile the percentile in the range [0, 100]
+         *
+         * @return the wall time percentile
+         */
+        public double getWallTimePercentile(double percentile) {
+            return percentile(this.wallTime, percentile) / 1.0e6;
+        }
+
+        /**
+         * Returns a percentile of the frame thread CPU times in milliseconds, or -1 if CPU time is not supported.
+         *
+         * @param percentile the percentile in the range [0, 100]
+         *
+         * @return the CPU time percentile
+         */
+        public double getCpuTimePercentile(double percentile) {
+            long value = percentile(this.cpuTime, percentile);
+            return (value < 0) ? -1 : value / 1.0e6;
+        }
+
+        /**
+         * Returns a percentile of the bytes allocated per frame, or -1 if allocation measurement is not supported.
+         *
+         * @param percentile the percentile in the range [0, 100]
+         *
+         * @return the allocated bytes percentile
+         */
+        public long getAllocatedBytesPercentile(double percentile) {
+            return percentile(this.allocatedBytes, percentile);
+        }
+
+        public double getAllocatedBytesAverage() {
+            double sum = 0;
+            for (long value : this.allocatedBytes) {
+                if (value < 0) {
+                    return -1;
+                }
+                sum += value;
+            }
+
+            return (this.allocatedBytes.length > 0) ? sum / this.allocatedBytes.length : 0;
+        }
+
+        public double getDrawableCountAverage() {
+            double sum = 0;
+            for (int value : this.drawableCount) {
+                sum += value;
+            }
+
+            return (this.drawableCount.length > 0) ? sum / this.drawableCount.length : 0;
+        }
+
+        public FrameMetrics getFrameMetrics() {
+            return this.frameMetrics;
+        }
+
+        protected static long percentile(long[] values, double percentile) {
+            if (values.length == 0) {
+                return 0;
+            }
+
+            long[] sorted = Arrays.copyOf(values, values.length);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1; // nearest rank
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.US, "frames=%d drawables=%.0f", this.getFrameCount(), this.getDrawableCountAverage()));
+            sb.append(String.format(Locale.US, " wall[ms] p50=%.3f p95=%.3f p99=%.3f",
+                this.getWallTimePercentile(50), this.getWallTimePercentile(95), this.getWallTimePercentile(99)));
+            sb.append(String.format(Locale.US, " cpu[ms] p50=%.3f p95=%.3f p99=%.3f",
+                this.getCpuTimePercentile(50), this.getCpuTimePercentile(95), this.getCpuTimePercentile(99)));
+            sb.append(String.format(Locale.US, " alloc[KB] avg=%.1f p95=%.1f",
+                this.getAllocatedBytesAverage() / 1024.0, this.getAllocatedBytesPercentile(95) / 1024.0));
+
+            if (this.frameMetrics != null) {
+                for (String name : this.frameMetrics.getRenderStageNames()) {
+                    sb.append(String.format(Locale.US, "\n  %s avg=%.3fms p95=%.3fms", name,
+                        this.frameMetrics.getRenderStageTimeAverage(name), this.frameMetrics.getRenderStageTimePercentile(name, 95)));
+                }
+            }
+
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import org.junit.Test;
+
+import gov.nasa.worldwind.geom.Location;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Render stage benchmarks run as JVM unit tests. These are excluded from the regular unit test run; run them with:
+ * <pre>
+ * ./gradlew :worldwind:testDebugUnitTest -Pbenchmark --tests 'gov.nasa.worldwind.benchmark.*'
+ * </pre>
+ * Each benchmark prints its per-frame CPU time, wall time and allocation summary. Setting the system property
+ * benchmark.maxCpuP95 to a number of milliseconds fails any benchmark whose 95th percentile frame CPU time exceeds it,
+ * for use as a regression gate in continuous integration.
+ */
+public class SceneBenchmarkTest {
+
+    @Test
+    public void testTerrain() throws Exception {
+        this.runBenchmark("terrain", new BenchmarkScene().setElevation(true), CameraScript.benchmarkTour());
+    }
+
+    @Test
+    public void testImagery() throws Exception {
+        this.runBenchmark("imagery", new BenchmarkScene().setElevation(true).setImageryLayerCount(3), CameraScript.benchmarkTour());
+    }
+
+    @Test
+    public void testPlacemarks() throws Exception {
+        this.runBenchmark("placemarks", new BenchmarkScene().setElevation(true).setPlacemarkCount(10000), CameraScript.benchmarkTour());
+    }
+
+    @Test
+    public void testShapes() throws Exception {
+        this.runBenchmark("shapes", new BenchmarkScene().setElevation(true).setPathCount(500, 32).setPolygonCount(500, 16), CameraScript.benchmarkTour());
+    }
+
+    @Test
+    public void testMixedOrbit() throws Exception {
+        BenchmarkScene scene = new BenchmarkScene()
+            .setElevation(true)
+            .setImageryLayerCount(2)
+            .setPlacemarkCount(5000)
+            .setPathCount(200, 32)
+            .setPolygonCount(200, 16);
+        this.runBenchmark("mixedOrbit", scene, CameraScript.orbit(new Location(38.996944, -76.848333), 50e3, 60, 200));
+    }
+
+    protected void runBenchmark(String name, BenchmarkScene scene, CameraScript script) {
+        SceneBenchmark.Result result = new SceneBenchmark(scene).run(script);
+        System.out.println("SceneBenchmark " + name + " " + result);
+
+        assertTrue(name + " drawables", result.getDrawableCountAverage() > 0);
+
+        String maxCpuP95 = System.getProperty("benchmark.maxCpuP95");
+        if (maxCpuP95 != null) {
+            double cpuP95 = result.getCpuTimePercentile(95);
+            assertTrue(name + " cpu p95 " + cpuP95 + "ms exceeds " + maxCpuP95 + "ms", cpuP95 <= Double.parseDouble(maxCpuP95));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.globe.AbstractElevationCoverage;
+
+/**
+ * Elevation coverage with procedural heights. Provides terrain relief without elevation data, at a cost comparable to
+ * reading heights from an in-memory elevation tile.
+ */
+public class SyntheticElevationCoverage extends AbstractElevationCoverage {
+
+    protected double amplitude;
+
+    /**
+     * Constructs a synthetic elevation coverage.
+     *
+     * @param amplitude the maximum height in meters; heights range from -amplitude to +amplitude
+     */
+    public SyntheticElevationCoverage(double amplitude) {
+        this.amplitude = amplitude;
+        this.setDisplayName("Synthetic Elevation");
+    }
+
+    public double getAmplitude() {
+        return this.amplitude;
+    }
+
+    public void setAmplitude(double amplitude) {
+        this.amplitude = amplitude;
+        this.updateTimestamp();
+    }
+
+    public double heightAt(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double height = Math.sin(lat * 7) * Math.cos(lon * 5) * 0.5
+            + Math.sin(lat * 53 + 1.3) * Math.sin(lon * 47) * 0.3
+            + Math.cos(lat * 331) * Math.sin(lon * 293 + 0.7) * 0.2;
+        return height * this.amplitude;
+    }
+
+    @Override
+    protected void doGetHeightGrid(Sector gridSector, int gridWidth, int gridHeight, float[] result) {
+        double minLat = gridSector.minLatitude();
+        double minLon = gridSector.minLongitude();
+        double deltaLat = (gridHeight > 1) ? gridSector.deltaLatitude() / (gridHeight - 1) : 0;
+        double deltaLon = (gridWidth > 1) ? gridSector.deltaLongitude() / (gridWidth - 1) : 0;
+
+        int index = 0;
+        for (int row = 0; row < gridHeight; row++) {
+            double lat = minLat + row * deltaLat;
+            for (int col = 0; col < gridWidth; col++) {
+                double lon = minLon + col * deltaLon;
+                result[index++] = (float) this.heightAt(lat, lon);
+            }
+        }
+    }
+
+    @Override
+    protected void doGetHeightLimits(Sector sector, float[] result) {
+        float min = (float) -this.amplitude;
+        float max = (float) this.amplitude;
+        if (result[0] > min) {
+            result[0] = min;
+        }
+        if (result[1] < max) {
+            result[1] = max;
+        }
+    }
+}
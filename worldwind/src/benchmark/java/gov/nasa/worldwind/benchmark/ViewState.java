@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+import gov.nasa.worldwind.Navigator;
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Frustum;
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.geom.Viewport;
+import gov.nasa.worldwind.globe.Globe;
+import gov.nasa.worldwind.globe.ProjectionWgs84;
+
+/**
+ * JMH state shared by the geometry micro-benchmarks: a WGS84 globe and the viewing transforms of a tilted camera 10km
+ * above NASA Goddard Space Flight Center, computed the same way as WorldWindow.computeViewingTransform. Also provides
+ * a set of points on the globe's surface around the camera, some of which lie outside the view frustum.
+ */
+@State(Scope.Thread)
+public class ViewState {
+
+    public static final int POINT_COUNT = 1024; // a power of two, so benchmarks can cycle through the points with a mask
+
+    public Globe globe;
+
+    public Navigator navigator;
+
+    public Viewport viewport;
+
+    public Matrix4 projection;
+
+    public Matrix4 modelview;
+
+    public Matrix4 modelviewProjection;
+
+    public Frustum frustum;
+
+    public Vec3 cameraPoint;
+
+    public Vec3[] points;
+
+    @Setup
+    public void setup() {
+        this.globe = new Globe(WorldWind.WGS84_ELLIPSOID, new ProjectionWgs84());
+        this.navigator = new Navigator().setLatitude(38.996944).setLongitude(-76.848333).setAltitude(10e3).setHeading(30).setTilt(60);
+        this.viewport = new Viewport(0, 0, 1920, 1080);
+
+        double near = this.navigator.getAltitude() * 0.5;
+        double far = this.globe.horizonDistance(this.navigator.getAltitude()) + this.globe.horizonDistance(160000);
+        this.projection = new Matrix4().setToPerspectiveProjection(this.viewport.width, this.viewport.height, 45, near, far);
+        this.modelview = this.navigator.getAsViewingMatrix(this.globe, new Matrix4());
+        this.modelviewProjection = new Matrix4().setToMultiply(this.projection, this.modelview);
+        this.frustum = new Frustum().setToModelviewProjection(this.projection, this.modelview, this.viewport);
+        this.cameraPoint = this.globe.geographicToCartesian(this.navigator.getLatitude(), this.navigator.getLongitude(), this.navigator.getAltitude(), new Vec3());
+
+        Random random = new Random(1);
+        this.points = new Vec3[POINT_COUNT];
+        for (int idx = 0; idx < POINT_COUNT; idx++) {
+            double lat = this.navigator.getLatitude() + (random.nextDouble() - 0.5) * 2;
+            double lon = this.navigator.getLongitude() + (random.nextDouble() - 0.5) * 2;
+            this.points[idx] = this.globe.geographicToCartesian(lat, lon, random.nextDouble() * 1000, new Vec3());
+        }
+    }
+}
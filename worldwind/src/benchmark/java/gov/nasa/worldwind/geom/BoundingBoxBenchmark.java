@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.geom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import gov.nasa.worldwind.benchmark.ViewState;
+import gov.nasa.worldwind.globe.Globe;
+
+/**
+ * Micro-benchmarks of the BoundingBox operations performed on every terrain and imagery tile considered for a frame:
+ * computing the tile's extent, testing it against the view frustum and computing its distance to the camera. Each
+ * invocation operates on the next of a set of level 6 tiles around the camera, some of which lie outside the view
+ * frustum.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoundingBoxBenchmark {
+
+    protected static final int BOX_COUNT = 256;
+
+    protected Sector[] sectors = new Sector[BOX_COUNT];
+
+    protected BoundingBox[] boxes = new BoundingBox[BOX_COUNT];
+
+    protected float[] tilePoints;
+
+    protected BoundingBox result = new BoundingBox();
+
+    protected int index;
+
+    @Setup
+    public void setup(ViewState view) {
+        Globe globe = view.globe;
+        double delta = 90.0 / (1 << 6);
+        double minLat = Math.floor(view.navigator.getLatitude() / delta) * delta - 8 * delta;
+        double minLon = Math.floor(view.navigator.getLongitude() / delta) * delta - 8 * delta;
+        for (int idx = 0; idx < BOX_COUNT; idx++) {
+            this.sectors[idx] = new Sector(minLat + (idx / 16) * delta, minLon + (idx % 16) * delta, delta, delta);
+            this.boxes[idx] = new BoundingBox().setToSector(this.sectors[idx], globe, -100, 1000);
+        }
+
+        // The points of a 32x32 terrain tile, the input BoundingBox.setToPoints receives for tessellated geometry.
+        Sector tileSector = this.sectors[BOX_COUNT / 2];
+        Vec3 origin = globe.geographicToCartesian(tileSector.centroidLatitude(), tileSector.centroidLongitude(), 0, new Vec3());
+        this.tilePoints = globe.geographicToCartesianGrid(tileSector, 32, 32, null, 1, origin, new float[32 * 32 * 3], 0, 0);
+    }
+
+    protected int nextIndex() {
+        return this.index = (this.index + 1) & (BOX_COUNT - 1);
+    }
+
+    @Benchmark
+    public BoundingBox setToSector(ViewState view) {
+        return this.result.setToSector(this.sectors[this.nextIndex()], view.globe, -100, 1000);
+    }
+
+    @Benchmark
+    public BoundingBox setToPoints() {
+        return this.result.setToPoints(this.tilePoints, 32 * 32, 3);
+    }
+
+    @Benchmark
+    public boolean intersectsFrustum(ViewState view) {
+        return this.boxes[this.nextIndex()].intersectsFrustum(view.frustum);
+    }
+
+    @Benchmark
+    public double distanceTo(ViewState view) {
+        return this.boxes[this.nextIndex()].distanceTo(view.cameraPoint);
+    }
+}
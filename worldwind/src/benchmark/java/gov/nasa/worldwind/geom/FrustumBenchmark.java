@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.geom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import gov.nasa.worldwind.benchmark.ViewState;
+
+/**
+ * Micro-benchmarks of computing a view frustum and testing points and segments against it. Roughly half of the test
+ * points lie outside the frustum.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrustumBenchmark {
+
+    protected Frustum result = new Frustum();
+
+    protected Viewport pickViewport = new Viewport(955, 535, 10, 10);
+
+    protected int index;
+
+    protected Vec3 nextPoint(ViewState view) {
+        this.index = (this.index + 1) & (ViewState.POINT_COUNT - 1);
+        return view.points[this.index];
+    }
+
+    @Benchmark
+    public Frustum setToModelviewProjection(ViewState view) {
+        return this.result.setToModelviewProjection(view.projection, view.modelview, view.viewport);
+    }
+
+    @Benchmark
+    public Frustum setToModelviewProjection_PickViewport(ViewState view) {
+        return this.result.setToModelviewProjection(view.projection, view.modelview, view.viewport, this.pickViewport);
+    }
+
+    @Benchmark
+    public boolean containsPoint(ViewState view) {
+        return view.frustum.containsPoint(this.nextPoint(view));
+    }
+
+    @Benchmark
+    public boolean intersectsSegment(ViewState view) {
+        Vec3 pointA = this.nextPoint(view);
+        Vec3 pointB = this.nextPoint(view);
+        return view.frustum.intersectsSegment(pointA, pointB);
+    }
+}
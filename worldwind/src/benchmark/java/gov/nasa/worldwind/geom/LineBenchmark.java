@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.geom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import gov.nasa.worldwind.benchmark.ViewState;
+import gov.nasa.worldwind.globe.BasicTessellator;
+import gov.nasa.worldwind.globe.Globe;
+
+/**
+ * Micro-benchmarks of Line.triStripIntersection against a terrain tile's triangle strip, as performed by terrain
+ * picking for every tile in the frame. The tile has the same 34x34 point layout BasicTessellator produces, including
+ * the tile's border points. The hit case intersects near the center of the tile, and the miss case tests every
+ * triangle in the strip.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LineBenchmark {
+
+    protected static final int NUM_LAT = 34;
+
+    protected static final int NUM_LON = 34;
+
+    protected float[] points;
+
+    protected short[] elements;
+
+    protected Line hitLine = new Line();
+
+    protected Line missLine = new Line();
+
+    protected Vec3 result = new Vec3();
+
+    @Setup
+    public void setup(ViewState view) {
+        Globe globe = view.globe;
+        double delta = 90.0 / (1 << 9); // a level 9 terrain tile; roughly the level viewed from 10km
+        Sector sector = new Sector(view.navigator.getLatitude(), view.navigator.getLongitude(), delta, delta);
+        Vec3 origin = globe.geographicToCartesian(sector.centroidLatitude(), sector.centroidLongitude(), 0, new Vec3());
+
+        this.points = globe.geographicToCartesianGrid(sector, NUM_LAT, NUM_LON, null, 1, origin, new float[NUM_LAT * NUM_LON * 3], 0, 0);
+        this.elements = new TriStripTessellator().assembleTriStripElements(NUM_LAT, NUM_LON);
+
+        // Lines are expressed in the tile's local coordinate system, as in BasicTerrain.intersect.
+        Vec3 above = globe.geographicToCartesian(sector.centroidLatitude() + delta * 0.1, sector.centroidLongitude() + delta * 0.1, 10e3, new Vec3());
+        Vec3 below = globe.geographicToCartesian(sector.centroidLatitude() + delta * 0.1, sector.centroidLongitude() + delta * 0.1, -10e3, new Vec3());
+        this.hitLine.setToSegment(above.subtract(origin), below.subtract(origin));
+        this.missLine.set(this.hitLine.origin, new Vec3(this.hitLine.direction).negate());
+    }
+
+    @Benchmark
+    public boolean triStripIntersection_Hit() {
+        return this.hitLine.triStripIntersection(this.points, 3, this.elements, this.elements.length, this.result);
+    }
+
+    @Benchmark
+    public boolean triStripIntersection_Miss() {
+        return this.missLine.triStripIntersection(this.points, 3, this.elements, this.elements.length, this.result);
+    }
+
+    protected static class TriStripTessellator extends BasicTessellator {
+
+        @Override
+        protected short[] assembleTriStripElements(int numLat, int numLon) {
+            return super.assembleTriStripElements(numLat, numLon);
+        }
+    }
+}
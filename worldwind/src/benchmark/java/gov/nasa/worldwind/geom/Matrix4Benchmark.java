@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.geom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import gov.nasa.worldwind.benchmark.ViewState;
+
+/**
+ * Micro-benchmarks of the Matrix4 operations performed each frame to compute the viewing transforms and to prepare
+ * shape and terrain drawables.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Matrix4Benchmark {
+
+    protected Matrix4 result = new Matrix4();
+
+    protected Vec3 point = new Vec3();
+
+    protected float[] array = new float[16];
+
+    @Benchmark
+    public Matrix4 multiplyByMatrix(ViewState view) {
+        return this.result.set(view.projection).multiplyByMatrix(view.modelview);
+    }
+
+    @Benchmark
+    public Matrix4 setToMultiply(ViewState view) {
+        return this.result.setToMultiply(view.projection, view.modelview);
+    }
+
+    @Benchmark
+    public Matrix4 multiplyByTranslation(ViewState view) {
+        return this.result.set(view.modelview).multiplyByTranslation(view.cameraPoint.x, view.cameraPoint.y, view.cameraPoint.z);
+    }
+
+    @Benchmark
+    public Matrix4 multiplyByRotation(ViewState view) {
+        return this.result.set(view.modelview).multiplyByRotation(0, 0, 1, 30);
+    }
+
+    @Benchmark
+    public Matrix4 invertMatrix(ViewState view) {
+        return this.result.invertMatrix(view.modelviewProjection);
+    }
+
+    @Benchmark
+    public Matrix4 invertOrthonormalMatrix(ViewState view) {
+        return this.result.invertOrthonormalMatrix(view.modelview);
+    }
+
+    @Benchmark
+    public Matrix4 setToPerspectiveProjection(ViewState view) {
+        return this.result.setToPerspectiveProjection(view.viewport.width, view.viewport.height, 45, 5e3, 1.5e6);
+    }
+
+    @Benchmark
+    public float[] transposeToArray(ViewState view) {
+        return view.modelviewProjection.transposeToArray(this.array, 0);
+    }
+
+    @Benchmark
+    public boolean project(ViewState view) {
+        return view.modelviewProjection.project(view.cameraPoint.x, view.cameraPoint.y, view.cameraPoint.z - 1000, view.viewport, this.point);
+    }
+}
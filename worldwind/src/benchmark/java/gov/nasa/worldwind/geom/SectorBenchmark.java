@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.geom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmarks of the Sector operations used to select tiles and to compute shape bounds. Each invocation operates
+ * on the next of a set of tile sized sectors around North America.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SectorBenchmark {
+
+    protected static final int SECTOR_COUNT = 256;
+
+    protected Sector[] sectors = new Sector[SECTOR_COUNT];
+
+    protected Sector region = new Sector(25, -125, 25, 60);
+
+    protected float[] locations = new float[64 * 2];
+
+    protected Sector result = new Sector();
+
+    protected int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        for (int idx = 0; idx < SECTOR_COUNT; idx++) {
+            double delta = 90.0 / (1 << (4 + random.nextInt(4))); // tile sizes from level 4 to level 7
+            double lat = 10 + random.nextDouble() * 50;
+            double lon = -140 + random.nextDouble() * 80;
+            this.sectors[idx] = new Sector(lat, lon, delta, delta);
+        }
+
+        // A path of 64 longitude, latitude pairs, the same layout that shapes pass to Sector.union.
+        double lat = 38, lon = -77;
+        for (int idx = 0; idx < this.locations.length; idx += 2) {
+            this.locations[idx] = (float) (lon += random.nextDouble() * 0.1);
+            this.locations[idx + 1] = (float) (lat += (random.nextDouble() - 0.5) * 0.1);
+        }
+    }
+
+    protected Sector nextSector() {
+        this.index = (this.index + 1) & (SECTOR_COUNT - 1);
+        return this.sectors[this.index];
+    }
+
+    @Benchmark
+    public boolean intersects() {
+        return this.region.intersects(this.nextSector());
+    }
+
+    @Benchmark
+    public boolean intersectsOrNextTo() {
+        return this.region.intersectsOrNextTo(this.nextSector());
+    }
+
+    @Benchmark
+    public boolean intersect() {
+        return this.result.set(this.region).intersect(this.nextSector());
+    }
+
+    @Benchmark
+    public boolean containsLocation() {
+        Sector sector = this.nextSector();
+        return this.region.contains(sector.centroidLatitude(), sector.centroidLongitude());
+    }
+
+    @Benchmark
+    public Sector unionSector() {
+        return this.result.set(this.region).union(this.nextSector());
+    }
+
+    @Benchmark
+    public Sector unionArray() {
+        return this.result.setEmpty().union(this.locations, this.locations.length / 2, 2);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.geom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import gov.nasa.worldwind.benchmark.ViewState;
+
+/**
+ * Micro-benchmarks of the Vec3 operations used to transform and compare Cartesian points. Each invocation operates on
+ * the next of a set of points on the globe's surface.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Vec3Benchmark {
+
+    protected Vec3 result = new Vec3();
+
+    protected int index;
+
+    protected Vec3 nextPoint(ViewState view) {
+        this.index = (this.index + 1) & (ViewState.POINT_COUNT - 1);
+        return view.points[this.index];
+    }
+
+    @Benchmark
+    public Vec3 multiplyByMatrix(ViewState view) {
+        return this.result.set(this.nextPoint(view)).multiplyByMatrix(view.modelview);
+    }
+
+    @Benchmark
+    public Vec3 normalize(ViewState view) {
+        return this.result.set(this.nextPoint(view)).normalize();
+    }
+
+    @Benchmark
+    public Vec3 cross(ViewState view) {
+        return this.result.cross(this.nextPoint(view), view.cameraPoint);
+    }
+
+    @Benchmark
+    public double dot(ViewState view) {
+        return this.nextPoint(view).dot(view.cameraPoint);
+    }
+
+    @Benchmark
+    public double distanceTo(ViewState view) {
+        return this.nextPoint(view).distanceTo(view.cameraPoint);
+    }
+
+    @Benchmark
+    public Vec3 mix(ViewState view) {
+        return this.result.set(this.nextPoint(view)).mix(view.cameraPoint, 0.5);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.globe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import gov.nasa.worldwind.benchmark.ViewState;
+import gov.nasa.worldwind.geom.Line;
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.geom.Vec3;
+
+/**
+ * Micro-benchmarks of the WGS84 projection's conversions between geographic and Cartesian coordinates, performed for
+ * every shape position and every terrain tile point. Single point conversions operate on the next of a set of
+ * positions around the camera.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProjectionWgs84Benchmark {
+
+    protected static final int POSITION_COUNT = 1024;
+
+    protected ProjectionWgs84 projection = new ProjectionWgs84();
+
+    protected Position[] positions = new Position[POSITION_COUNT];
+
+    protected Sector tileSector;
+
+    protected Vec3 tileOrigin = new Vec3();
+
+    protected float[] tileHeights = new float[32 * 32];
+
+    protected float[] tilePoints = new float[34 * 34 * 3];
+
+    protected Line pickRay = new Line();
+
+    protected Vec3 vec = new Vec3();
+
+    protected Matrix4 matrix = new Matrix4();
+
+    protected Position position = new Position();
+
+    protected int index;
+
+    @Setup
+    public void setup(ViewState view) {
+        Random random = new Random(1);
+        for (int idx = 0; idx < POSITION_COUNT; idx++) {
+            double lat = view.navigator.getLatitude() + (random.nextDouble() - 0.5) * 2;
+            double lon = view.navigator.getLongitude() + (random.nextDouble() - 0.5) * 2;
+            this.positions[idx] = new Position(lat, lon, random.nextDouble() * 1000);
+        }
+
+        double delta = 90.0 / (1 << 9); // a level 9 terrain tile; roughly the level viewed from 10km
+        this.tileSector = new Sector(view.navigator.getLatitude(), view.navigator.getLongitude(), delta, delta);
+        this.projection.geographicToCartesian(view.globe, this.tileSector.centroidLatitude(), this.tileSector.centroidLongitude(), 0, this.tileOrigin);
+        for (int idx = 0; idx < this.tileHeights.length; idx++) {
+            this.tileHeights[idx] = random.nextFloat() * 100;
+        }
+
+        // A ray from the camera through the center of the viewport.
+        Matrix4 inverse = new Matrix4(view.modelviewProjection).invert();
+        Vec3 near = new Vec3(), far = new Vec3();
+        inverse.unProject(view.viewport.width / 2.0, view.viewport.height / 2.0, view.viewport, near, far);
+        this.pickRay.set(near, far.subtract(near).normalize());
+    }
+
+    protected Position nextPosition() {
+        this.index = (this.index + 1) & (POSITION_COUNT - 1);
+        return this.positions[this.index];
+    }
+
+    @Benchmark
+    public Vec3 geographicToCartesian(ViewState view) {
+        Position pos = this.nextPosition();
+        return this.projection.geographicToCartesian(view.globe, pos.latitude, pos.longitude, pos.altitude, this.vec);
+    }
+
+    @Benchmark
+    public Vec3 geographicToCartesianNormal(ViewState view) {
+        Position pos = this.nextPosition();
+        return this.projection.geographicToCartesianNormal(view.globe, pos.latitude, pos.longitude, this.vec);
+    }
+
+    @Benchmark
+    public Matrix4 geographicToCartesianTransform(ViewState view) {
+        Position pos = this.nextPosition();
+        return this.projection.geographicToCartesianTransform(view.globe, pos.latitude, pos.longitude, pos.altitude, this.matrix);
+    }
+
+    @Benchmark
+    public float[] geographicToCartesianGrid(ViewState view) {
+        // The interior points of a 32x32 terrain tile, laid out the same way as in BasicTessellator.
+        int rowStride = 34 * 3;
+        return this.projection.geographicToCartesianGrid(view.globe, this.tileSector, 32, 32, this.tileHeights, 1,
+            this.tileOrigin, this.tilePoints, rowStride + 3, rowStride);
+    }
+
+    @Benchmark
+    public float[] geographicToCartesianBorder(ViewState view) {
+        return this.projection.geographicToCartesianBorder(view.globe, this.tileSector, 34, 34, -100,
+            this.tileOrigin, this.tilePoints);
+    }
+
+    @Benchmark
+    public Position cartesianToGeographic(ViewState view) {
+        this.index = (this.index + 1) & (ViewState.POINT_COUNT - 1);
+        Vec3 point = view.points[this.index];
+        return this.projection.cartesianToGeographic(view.globe, point.x, point.y, point.z, this.position);
+    }
+
+    @Benchmark
+    public boolean intersect(ViewState view) {
+        return this.projection.intersect(view.globe, this.pickRay, this.vec);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import gov.nasa.worldwind.util.glu.GLU;
+import gov.nasa.worldwind.util.glu.GLUtessellator;
+import gov.nasa.worldwind.util.glu.GLUtessellatorCallbackAdapter;
+
+/**
+ * Compares EarClipTriangulator with the GLU tessellator on the boundary of a coastline-like polygon with two holes, as
+ * Polygon.assembleGeometry uses them. The boundary is a fractal generated by midpoint displacement in geographic
+ * coordinates around Chesapeake Bay, which has the self-similar detail of real-world coastlines and administrative
+ * boundaries without self-intersections.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EarClipTriangulatorBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int vertexCount;
+
+    protected double[][] contours;
+
+    protected EarClipTriangulator triangulator = new EarClipTriangulator();
+
+    protected GLUtessellator tessellator = GLU.gluNewTess();
+
+    protected double[] tessCoords = new double[3];
+
+    protected ShortArray elements = new ShortArray();
+
+    protected GLUtessellatorCallbackAdapter tessCallback = new GLUtessellatorCallbackAdapter() {
+        @Override
+        public void combineData(double[] coords, Object[] data, float[] weight, Object[] outData, Object polygonData) {
+            outData[0] = data[0];
+        }
+
+        @Override
+        public void vertexData(Object vertexData, Object polygonData) {
+            elements.add((short) (int) vertexData);
+        }
+
+        @Override
+        public void edgeFlagData(boolean boundaryEdge, Object polygonData) {
+        }
+    };
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        int holeVertexCount = Math.max(3, this.vertexCount / 20);
+        this.contours = new double[][]{
+            fractalBoundary(38.0, -76.0, 1.0, this.vertexCount - 2 * holeVertexCount, random),
+            fractalBoundary(38.2, -76.2, 0.1, holeVertexCount, random),
+            fractalBoundary(37.8, -75.8, 0.1, holeVertexCount, random)};
+    }
+
+    @Benchmark
+    public int earClip() {
+        EarClipTriangulator triangulator = this.triangulator;
+        triangulator.reset();
+
+        int index = 0;
+        for (double[] contour : this.contours) {
+            triangulator.beginContour();
+            for (int idx = 0; idx < contour.length; idx += 2) {
+                triangulator.addVertex(contour[idx + 1] /*lon*/, contour[idx] /*lat*/, 0, index++);
+            }
+            triangulator.endContour();
+        }
+
+        this.elements.clear();
+        triangulator.triangulate(this.elements);
+        return this.elements.size();
+    }
+
+    @Benchmark
+    public int gluTessellator() {
+        GLUtessellator tess = this.tessellator;
+        GLU.gluTessNormal(tess, 0, 0, 1);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_COMBINE_DATA, this.tessCallback);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_VERTEX_DATA, this.tessCallback);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_EDGE_FLAG_DATA, this.tessCallback);
+        GLU.gluTessBeginPolygon(tess, null);
+
+        this.elements.clear();
+        int index = 0;
+        for (double[] contour : this.contours) {
+            GLU.gluTessBeginContour(tess);
+            for (int idx = 0; idx < contour.length; idx += 2) {
+                this.tessCoords[0] = contour[idx + 1]; // longitude
+                this.tessCoords[1] = contour[idx]; // latitude
+                this.tessCoords[2] = 0;
+                GLU.gluTessVertex(tess, this.tessCoords, 0 /*coords_offset*/, index++);
+            }
+            GLU.gluTessEndContour(tess);
+        }
+
+        GLU.gluTessEndPolygon(tess);
+        return this.elements.size();
+    }
+
+    /**
+     * Generates a closed boundary of interleaved latitude and longitude coordinates by starting with a regular polygon
+     * of up to eight sides, then repeatedly displacing the midpoint of each edge perpendicular to the edge by up to an
+     * eighth of the edge's length.
+     */
+    protected static double[] fractalBoundary(double centerLat, double centerLon, double radius, int count, Random random) {
+        int size = Math.min(8, count);
+        double[] coords = new double[count * 2];
+        for (int idx = 0; idx < size; idx++) {
+            double angle = 2 * Math.PI * idx / size;
+            coords[idx * 2] = centerLat + radius * Math.sin(angle);
+            coords[idx * 2 + 1] = centerLon + radius * Math.cos(angle);
+        }
+
+        double[] scratch = new double[count * 2];
+        while (size < count) {
+            int splitCount = Math.min(size, count - size);
+            int dst = 0;
+            for (int idx = 0; idx < size; idx++) {
+                double lat = coords[idx * 2], lon = coords[idx * 2 + 1];
+                scratch[dst++] = lat;
+                scratch[dst++] = lon;
+
+                if (idx < splitCount) {
+                    int next = (idx + 1) % size;
+                    double nextLat = coords[next * 2], nextLon = coords[next * 2 + 1];
+                    double displacement = 0.25 * (random.nextDouble() - 0.5);
+                    scratch[dst++] = (lat + nextLat) * 0.5 + (nextLon - lon) * displacement;
+                    scratch[dst++] = (lon + nextLon) * 0.5 - (nextLat - lat) * displacement;
+                }
+            }
+
+            double[] swap = coords;
+            coords = scratch;
+            scratch = swap;
+            size += splitCount;
+        }
+
+        return coords;
+    }
+}
@@ -7,8 +7,6 @@ package gov.nasa.worldwind;
 
 import android.opengl.GLES20;
 
-import java.util.Set;
-
 import gov.nasa.worldwind.draw.DrawContext;
 import gov.nasa.worldwind.draw.Drawable;
 import gov.nasa.worldwind.draw.DrawableSurfaceColor;
@@ -17,8 +15,10 @@ import gov.nasa.worldwind.geom.Vec3;
 import gov.nasa.worldwind.render.BasicShaderProgram;
 import gov.nasa.worldwind.render.Color;
 import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.util.IntSet;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.Pool;
+import gov.nasa.worldwind.util.Tracer;
 
 public class BasicFrameController implements FrameController {
 
@@ -28,19 +28,44 @@ public class BasicFrameController implements FrameController {
 
     private Position pickPos = new Position();
 
+    private IntSet pickIdentifiers = new IntSet();
+
     public BasicFrameController() {
     }
 
     @Override
     public void renderFrame(RenderContext rc) {
+        WorldWind.tracer().begin(Tracer.FRAME, FrameMetrics.TESSELLATE_STAGE);
+        long begin = System.nanoTime();
         rc.terrainTessellator.tessellate(rc);
+        WorldWind.tracer().end(Tracer.FRAME, FrameMetrics.TESSELLATE_STAGE);
+        if (rc.frameMetrics != null) {
+            rc.frameMetrics.recordRenderStage(FrameMetrics.TESSELLATE_STAGE, System.nanoTime() - begin);
+        }
 
         if (rc.pickMode) {
             this.renderTerrainPickedObject(rc);
         }
 
-        rc.layers.render(rc);
+        rc.layers.render(rc); // records each layer's render stage
+
+        if (rc.labelDeclutter != null) {
+            WorldWind.tracer().begin(Tracer.FRAME, FrameMetrics.DECLUTTER_STAGE);
+            begin = System.nanoTime();
+            rc.labelDeclutter.declutter(rc);
+            WorldWind.tracer().end(Tracer.FRAME, FrameMetrics.DECLUTTER_STAGE);
+            if (rc.frameMetrics != null) {
+                rc.frameMetrics.recordRenderStage(FrameMetrics.DECLUTTER_STAGE, System.nanoTime() - begin);
+            }
+        }
+
+        WorldWind.tracer().begin(Tracer.FRAME, FrameMetrics.SORT_DRAWABLES_STAGE);
+        begin = System.nanoTime();
         rc.sortDrawables();
+        WorldWind.tracer().end(Tracer.FRAME, FrameMetrics.SORT_DRAWABLES_STAGE);
+        if (rc.frameMetrics != null) {
+            rc.frameMetrics.recordRenderStage(FrameMetrics.SORT_DRAWABLES_STAGE, System.nanoTime() - begin);
+        }
     }
 
     protected void renderTerrainPickedObject(RenderContext rc) {
@@ -89,8 +114,24 @@ public class BasicFrameController implements FrameController {
     protected void drawDrawables(DrawContext dc) {
         dc.rewindDrawables();
 
+        // When frame metrics are enabled, measure the time spent drawing each class of drawable. Consecutive drawables
+        // of the same class are measured as a single run to limit the overhead of System.nanoTime.
+        FrameMetrics metrics = dc.frameMetrics;
+        long drawBegin = (metrics != null) ? System.nanoTime() : 0;
+        long runBegin = drawBegin;
+        Class<?> runClass = null;
+
         Drawable next;
         while ((next = dc.pollDrawable()) != null) {
+            if (metrics != null && runClass != next.getClass()) {
+                long now = System.nanoTime();
+                if (runClass != null) {
+                    metrics.recordDrawStage(runClass, now - runBegin);
+                }
+                runClass = next.getClass();
+                runBegin = now;
+            }
+
             try {
                 next.draw(dc);
             } catch (Exception e) {
@@ -99,6 +140,14 @@ public class BasicFrameController implements FrameController {
                 // Keep going. Draw the remaining drawables.
             }
         }
+
+        if (metrics != null) {
+            long now = System.nanoTime();
+            if (runClass != null) {
+                metrics.recordDrawStage(runClass, now - runBegin);
+            }
+            metrics.recordDrawStage(FrameMetrics.DRAW_DRAWABLES_STAGE, now - drawBegin);
+        }
     }
 
     protected void resolvePick(DrawContext dc) {
@@ -133,18 +182,15 @@ public class BasicFrameController implements FrameController {
             return; // no eligible objects; avoid expensive calls to glReadPixels
         }
 
-        // Read the unique fragment colors in the pick rectangle.
-        Set<Color> pickColors = dc.readPixelColors(dc.pickViewport.x, dc.pickViewport.y, dc.pickViewport.width, dc.pickViewport.height);
-
-        for (Color pickColor : pickColors) {
-            // Convert the fragment color to a picked object ID. This returns zero if the color cannot indicate a picked
-            // object ID.
-            int topObjectId = PickedObject.uniqueColorToIdentifier(pickColor);
-            if (topObjectId != 0) {
-                PickedObject topObject = dc.pickedObjects.pickedObjectWithId(topObjectId);
-                if (topObject != null) {
-                    topObject.markOnTop();
-                }
+        // Read the unique picked object IDs in the pick rectangle. Fragment colors that cannot indicate a picked object
+        // ID are omitted.
+        IntSet pickIdentifiers = dc.readPixelIdentifiers(dc.pickViewport.x, dc.pickViewport.y,
+            dc.pickViewport.width, dc.pickViewport.height, this.pickIdentifiers.clear());
+
+        for (int idx = 0, len = pickIdentifiers.size(); idx < len; idx++) {
+            PickedObject topObject = dc.pickedObjects.pickedObjectWithId(pickIdentifiers.get(idx));
+            if (topObject != null) {
+                topObject.markOnTop();
             }
         }
 
@@ -5,27 +5,111 @@
 
 package gov.nasa.worldwind;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.layer.Layer;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.util.LruMemoryCache;
 
+/**
+ * Collects performance metrics for WorldWindow frames. Frame times are measured with System.nanoTime and reported in
+ * fractional milliseconds. In addition to whole-frame render and draw times, FrameMetrics records the time spent in
+ * individual frame stages, such as terrain tessellation, each layer's render method, drawable sorting, and drawing
+ * each class of drawable. Each time metric retains a rolling window of recent frames from which percentiles are
+ * computed.
+ * <p/>
+ * Render stages are identified by the stage name constants defined in this class or by a {@link Layer}. Draw stages
+ * are identified by the stage name constants defined in this class or by a {@link gov.nasa.worldwind.draw.Drawable}
+ * class. Stage metrics are reported by name; see {@link #getRenderStageNames()} and {@link #getDrawStageNames()}.
+ * <p/>
+ * Draw counters record per-frame quantities such as the number of OpenGL draw calls issued by a class of drawable.
+ * Counters are identified by the counter name constants defined in this class or by any other name; see {@link
+ * #getDrawCounterNames()}.
+ * <p/>
+ * Terrain metrics record the number of terrain tiles in each frame and the size of their vertex buffers, along with
+ * the size those buffers would have without vertex quantization; see {@link #getTerrainVertexByteCount()}.
+ */
 public class FrameMetrics {
 
+    /**
+     * Render stage measuring the terrain tessellator.
+     */
+    public static final String TESSELLATE_STAGE = "tessellate";
+
+    /**
+     * Render stage measuring label decluttering, including rendering the labels that are not suppressed.
+     */
+    public static final String DECLUTTER_STAGE = "declutter";
+
+    /**
+     * Render stage measuring drawable sorting.
+     */
+    public static final String SORT_DRAWABLES_STAGE = "sortDrawables";
+
+    /**
+     * Draw stage measuring the drawables in the frame's drawable queue, collectively.
+     */
+    public static final String DRAW_DRAWABLES_STAGE = "drawDrawables";
+
+    /**
+     * Draw stage measuring the release of render resources evicted from the render resource cache.
+     */
+    public static final String RELEASE_EVICTED_RESOURCES_STAGE = "releaseEvictedResources";
+
+    /**
+     * Draw counter measuring the number of surface textures drawn onto terrain tiles. Each pair of a surface texture
+     * and a terrain tile it intersects is counted once.
+     */
+    public static final String SURFACE_TEXTURE_COUNTER = "surfaceTextures";
+
+    /**
+     * Draw counter measuring the number of OpenGL draw calls used to draw surface textures onto terrain tiles.
+     */
+    public static final String SURFACE_TEXTURE_DRAW_CALL_COUNTER = "surfaceTextureDrawCalls";
+
+    /**
+     * The number of recent frames retained by each time metric for computing percentiles.
+     */
+    protected static final int SAMPLE_WINDOW = 256;
+
+    protected static final double NANOS_PER_MILLI = 1.0e6;
+
+    private final Object renderLock = new Object();
+
     private final Object drawLock = new Object();
 
-    protected TimeMetrics renderMetrics = new TimeMetrics();
+    protected TimeMetrics renderMetrics = new TimeMetrics("render");
 
-    protected TimeMetrics drawMetrics = new TimeMetrics();
+    protected TimeMetrics drawMetrics = new TimeMetrics("draw");
 
     protected CacheMetrics renderResourceCacheMetrics = new CacheMetrics();
 
+    protected TerrainMetrics terrainMetrics = new TerrainMetrics();
+
+    protected StageList renderStages = new StageList();
+
+    protected StageList drawStages = new StageList();
+
+    protected Map<String, CounterMetrics> drawCounters = new HashMap<>();
+
+    protected ArrayList<CounterMetrics> drawCounterList = new ArrayList<>();
+
+    private final long[] renderScratchSamples = new long[SAMPLE_WINDOW]; // guarded by renderLock
+
+    private final long[] drawScratchSamples = new long[SAMPLE_WINDOW]; // guarded by drawLock
+
     public FrameMetrics() {
     }
 
     public long getRenderTime() {
-        return this.renderMetrics.time;
+        return this.nanosToMillis(this.renderMetrics.time);
     }
 
     public double getRenderTimeAverage() {
@@ -36,8 +120,21 @@ public class FrameMetrics {
         return this.computeTimeStdDev(this.renderMetrics);
     }
 
+    /**
+     * Returns a percentile of the render time across recent frames, in milliseconds.
+     *
+     * @param percentile the percentile to compute, in the range [0, 100], e.g. 50, 95 or 99
+     *
+     * @return the render time percentile in milliseconds, or 0 if no frames have been rendered
+     */
+    public double getRenderTimePercentile(double percentile) {
+        synchronized (this.renderLock) {
+            return this.computeTimePercentile(this.renderMetrics, percentile, this.renderScratchSamples);
+        }
+    }
+
     public long getRenderTimeTotal() {
-        return this.renderMetrics.timeSum;
+        return this.nanosToMillis(this.renderMetrics.timeSum);
     }
 
     public long getRenderCount() {
@@ -46,7 +143,7 @@ public class FrameMetrics {
 
     public long getDrawTime() {
         synchronized (this.drawLock) {
-            return this.drawMetrics.time;
+            return this.nanosToMillis(this.drawMetrics.time);
         }
     }
 
@@ -62,9 +159,22 @@ public class FrameMetrics {
         }
     }
 
+    /**
+     * Returns a percentile of the draw time across recent frames, in milliseconds.
+     *
+     * @param percentile the percentile to compute, in the range [0, 100], e.g. 50, 95 or 99
+     *
+     * @return the draw time percentile in milliseconds, or 0 if no frames have been drawn
+     */
+    public double getDrawTimePercentile(double percentile) {
+        synchronized (this.drawLock) {
+            return this.computeTimePercentile(this.drawMetrics, percentile, this.drawScratchSamples);
+        }
+    }
+
     public long getDrawTimeTotal() {
         synchronized (this.drawLock) {
-            return this.drawMetrics.timeSum;
+            return this.nanosToMillis(this.drawMetrics.timeSum);
         }
     }
 
@@ -86,34 +196,243 @@ public class FrameMetrics {
         return this.renderResourceCacheMetrics.entryCount;
     }
 
+    /**
+     * Returns the number of terrain tiles in the most recent frame.
+     *
+     * @return the terrain tile count
+     */
+    public int getTerrainTileCount() {
+        synchronized (this.renderLock) {
+            return this.terrainMetrics.tileCount;
+        }
+    }
+
+    /**
+     * Returns the total size of the vertex buffers of the terrain tiles in the most recent frame, in bytes.
+     *
+     * @return the terrain vertex buffer size in bytes
+     */
+    public long getTerrainVertexByteCount() {
+        synchronized (this.renderLock) {
+            return this.terrainMetrics.byteCount;
+        }
+    }
+
+    /**
+     * Returns the total size the vertex buffers of the terrain tiles in the most recent frame would have with 32-bit
+     * floating point vertex points, in bytes. This equals the terrain vertex byte count unless the tessellator
+     * quantizes terrain vertex points, in which case the difference is the memory saved by quantization.
+     *
+     * @return the unquantized terrain vertex buffer size in bytes
+     */
+    public long getTerrainVertexFloatByteCount() {
+        synchronized (this.renderLock) {
+            return this.terrainMetrics.floatByteCount;
+        }
+    }
+
+    /**
+     * Returns the names of the render stages measured since this frame metrics was created, in the order they were
+     * first measured. Layer stages are named "layer:" followed by the layer's display name.
+     *
+     * @return a new list containing the render stage names
+     */
+    public List<String> getRenderStageNames() {
+        synchronized (this.renderLock) {
+            return this.renderStages.names();
+        }
+    }
+
+    /**
+     * Returns the render stage's time during the most recent frame in which it was measured, in milliseconds.
+     *
+     * @param stageName the render stage's name
+     *
+     * @return the stage time in milliseconds, or 0 if the stage has not been measured
+     */
+    public double getRenderStageTime(String stageName) {
+        synchronized (this.renderLock) {
+            TimeMetrics metrics = this.renderStages.get(stageName);
+            return (metrics != null) ? metrics.time / NANOS_PER_MILLI : 0;
+        }
+    }
+
+    public double getRenderStageTimeAverage(String stageName) {
+        synchronized (this.renderLock) {
+            TimeMetrics metrics = this.renderStages.get(stageName);
+            return (metrics != null) ? this.computeTimeAverage(metrics) : 0;
+        }
+    }
+
+    public double getRenderStageTimeStdDev(String stageName) {
+        synchronized (this.renderLock) {
+            TimeMetrics metrics = this.renderStages.get(stageName);
+            return (metrics != null) ? this.computeTimeStdDev(metrics) : 0;
+        }
+    }
+
+    public double getRenderStageTimePercentile(String stageName, double percentile) {
+        synchronized (this.renderLock) {
+            TimeMetrics metrics = this.renderStages.get(stageName);
+            return (metrics != null) ? this.computeTimePercentile(metrics, percentile, this.renderScratchSamples) : 0;
+        }
+    }
+
+    public long getRenderStageCount(String stageName) {
+        synchronized (this.renderLock) {
+            TimeMetrics metrics = this.renderStages.get(stageName);
+            return (metrics != null) ? metrics.count : 0;
+        }
+    }
+
+    /**
+     * Returns the names of the draw stages measured since this frame metrics was created, in the order they were first
+     * measured. Drawable class stages are named "draw:" followed by the class' simple name.
+     *
+     * @return a new list containing the draw stage names
+     */
+    public List<String> getDrawStageNames() {
+        synchronized (this.drawLock) {
+            return this.drawStages.names();
+        }
+    }
+
+    /**
+     * Returns the draw stage's time during the most recent frame in which it was measured, in milliseconds.
+     *
+     * @param stageName the draw stage's name
+     *
+     * @return the stage time in milliseconds, or 0 if the stage has not been measured
+     */
+    public double getDrawStageTime(String stageName) {
+        synchronized (this.drawLock) {
+            TimeMetrics metrics = this.drawStages.get(stageName);
+            return (metrics != null) ? metrics.time / NANOS_PER_MILLI : 0;
+        }
+    }
+
+    public double getDrawStageTimeAverage(String stageName) {
+        synchronized (this.drawLock) {
+            TimeMetrics metrics = this.drawStages.get(stageName);
+            return (metrics != null) ? this.computeTimeAverage(metrics) : 0;
+        }
+    }
+
+    public double getDrawStageTimeStdDev(String stageName) {
+        synchronized (this.drawLock) {
+            TimeMetrics metrics = this.drawStages.get(stageName);
+            return (metrics != null) ? this.computeTimeStdDev(metrics) : 0;
+        }
+    }
+
+    public double getDrawStageTimePercentile(String stageName, double percentile) {
+        synchronized (this.drawLock) {
+            TimeMetrics metrics = this.drawStages.get(stageName);
+            return (metrics != null) ? this.computeTimePercentile(metrics, percentile, this.drawScratchSamples) : 0;
+        }
+    }
+
+    public long getDrawStageCount(String stageName) {
+        synchronized (this.drawLock) {
+            TimeMetrics metrics = this.drawStages.get(stageName);
+            return (metrics != null) ? metrics.count : 0;
+        }
+    }
+
+    /**
+     * Returns the names of the draw counters recorded since this frame metrics was created, in the order they were
+     * first recorded.
+     *
+     * @return a new list containing the draw counter names
+     */
+    public List<String> getDrawCounterNames() {
+        synchronized (this.drawLock) {
+            ArrayList<String> names = new ArrayList<>(this.drawCounterList.size());
+            for (int idx = 0, len = this.drawCounterList.size(); idx < len; idx++) {
+                names.add(this.drawCounterList.get(idx).name);
+            }
+
+            return names;
+        }
+    }
+
+    /**
+     * Returns the draw counter's value during the most recent frame.
+     *
+     * @param counterName the draw counter's name
+     *
+     * @return the counter's value, or 0 if the counter has not been recorded
+     */
+    public long getDrawCounter(String counterName) {
+        synchronized (this.drawLock) {
+            CounterMetrics metrics = this.drawCounters.get(counterName);
+            return (metrics != null) ? metrics.value : 0;
+        }
+    }
+
+    /**
+     * Returns the draw counter's average value per frame, over the frames drawn since the counter was first recorded
+     * or since this frame metrics was last reset.
+     *
+     * @param counterName the draw counter's name
+     *
+     * @return the counter's average value, or 0 if the counter has not been recorded
+     */
+    public double getDrawCounterAverage(String counterName) {
+        synchronized (this.drawLock) {
+            CounterMetrics metrics = this.drawCounters.get(counterName);
+            return (metrics != null && metrics.count > 0) ? metrics.valueSum / (double) metrics.count : 0;
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("FrameMetrics");
         sb.append("{renderMetrics={");
-        this.printTimeMetrics(this.renderMetrics, sb);
+        synchronized (this.renderLock) {
+            this.printTimeMetrics(this.renderMetrics, this.renderScratchSamples, sb);
+            sb.append("}, renderStages={");
+            this.printStageMetrics(this.renderStages, this.renderScratchSamples, sb);
+        }
         sb.append("}, drawMetrics={");
-        this.printTimeMetrics(this.drawMetrics, sb);
+        synchronized (this.drawLock) {
+            this.printTimeMetrics(this.drawMetrics, this.drawScratchSamples, sb);
+            sb.append("}, drawStages={");
+            this.printStageMetrics(this.drawStages, this.drawScratchSamples, sb);
+            sb.append("}, drawCounters={");
+            this.printCounterMetrics(this.drawCounterList, sb);
+        }
         sb.append("}, renderResourceCacheMetrics={");
         this.printCacheMetrics(this.renderResourceCacheMetrics, sb);
+        sb.append("}, terrainMetrics={");
+        synchronized (this.renderLock) {
+            this.printTerrainMetrics(this.terrainMetrics, sb);
+        }
         sb.append("}");
 
         return sb.toString();
     }
 
     public void beginRendering(RenderContext rc) {
-        long now = System.currentTimeMillis();
+        long now = System.nanoTime();
 
         this.markBegin(this.renderMetrics, now);
     }
 
     public void endRendering(RenderContext rc) {
-        long now = System.currentTimeMillis();
-        this.markEnd(this.renderMetrics, now);
+        long now = System.nanoTime();
+
+        synchronized (this.renderLock) {
+            this.markEnd(this.renderMetrics, now);
+            this.commitStages(this.renderStages);
+            this.commitTerrainMetrics(this.terrainMetrics);
+        }
+
         this.assembleCacheMetrics(this.renderResourceCacheMetrics, rc.renderResourceCache);
     }
 
     public void beginDrawing(DrawContext dc) {
-        long now = System.currentTimeMillis();
+        long now = System.nanoTime();
 
         synchronized (this.drawLock) {
             this.markBegin(this.drawMetrics, now);
@@ -121,30 +440,184 @@ public class FrameMetrics {
     }
 
     public void endDrawing(DrawContext dc) {
-        long now = System.currentTimeMillis();
+        long now = System.nanoTime();
 
         synchronized (this.drawLock) {
             this.markEnd(this.drawMetrics, now);
+            this.commitStages(this.drawStages);
+            this.commitCounters(this.drawCounterList);
         }
     }
 
+    /**
+     * Accumulates time spent in a render stage during the current frame. A stage may be recorded more than once per
+     * frame, in which case its times are summed. Accumulated stage times become visible when the frame ends.
+     * <p/>
+     * This must be called on the thread that renders frames, between beginRendering and endRendering.
+     *
+     * @param stage       the stage's identity; one of the render stage name constants, a Layer, or any other object
+     *                    whose string representation names the stage
+     * @param elapsedNanos the time spent in the stage, in nanoseconds, as measured by System.nanoTime
+     */
+    public void recordRenderStage(Object stage, long elapsedNanos) {
+        this.accumulateStage(this.renderStages, this.renderLock, stage, elapsedNanos);
+    }
+
+    /**
+     * Accumulates time spent in a draw stage during the current frame. A stage may be recorded more than once per
+     * frame, in which case its times are summed. Accumulated stage times become visible when the frame ends.
+     * <p/>
+     * This must be called on the OpenGL thread, between beginDrawing and endDrawing.
+     *
+     * @param stage       the stage's identity; one of the draw stage name constants, a Drawable class, or any other
+     *                    object whose string representation names the stage
+     * @param elapsedNanos the time spent in the stage, in nanoseconds, as measured by System.nanoTime
+     */
+    public void recordDrawStage(Object stage, long elapsedNanos) {
+        this.accumulateStage(this.drawStages, this.drawLock, stage, elapsedNanos);
+    }
+
+    /**
+     * Adds an amount to a draw counter during the current frame. A counter may be recorded more than once per frame, in
+     * which case its amounts are summed. Accumulated counter values become visible when the frame ends, and counters
+     * not recorded during a frame have the value 0 for that frame.
+     * <p/>
+     * This must be called on the OpenGL thread, between beginDrawing and endDrawing.
+     *
+     * @param counterName the counter's name; one of the draw counter name constants, or any other name
+     * @param amount      the amount to add to the counter
+     */
+    public void recordDrawCounter(String counterName, long amount) {
+        // The counter map is modified only by the OpenGL thread, so that thread may read it without locking.
+        CounterMetrics metrics = this.drawCounters.get(counterName);
+        if (metrics == null) {
+            synchronized (this.drawLock) {
+                metrics = new CounterMetrics(counterName);
+                this.drawCounters.put(counterName, metrics);
+                this.drawCounterList.add(metrics);
+            }
+        }
+
+        metrics.frameValue += amount;
+    }
+
+    /**
+     * Adds a terrain tile's vertex buffer to the terrain memory accounting for the current frame. Accumulated values
+     * become visible when the frame ends.
+     * <p/>
+     * This must be called on the thread that renders frames, between beginRendering and endRendering.
+     *
+     * @param byteCount      the size of the tile's vertex buffer in bytes
+     * @param floatByteCount the size the tile's vertex buffer would have with 32-bit floating point vertex points
+     */
+    public void recordTerrainVertexBytes(int byteCount, int floatByteCount) {
+        this.terrainMetrics.frameTileCount++;
+        this.terrainMetrics.frameByteCount += byteCount;
+        this.terrainMetrics.frameFloatByteCount += floatByteCount;
+    }
+
     public void reset() {
-        this.resetTimeMetrics(this.renderMetrics);
+        synchronized (this.renderLock) {
+            this.resetTimeMetrics(this.renderMetrics);
+            this.resetStages(this.renderStages);
+        }
 
         synchronized (this.drawLock) {
             this.resetTimeMetrics(this.drawMetrics);
+            this.resetStages(this.drawStages);
+            this.resetCounters(this.drawCounterList);
         }
     }
 
-    protected void markBegin(TimeMetrics metrics, long timeMillis) {
-        metrics.begin = timeMillis;
+    protected void markBegin(TimeMetrics metrics, long timeNanos) {
+        metrics.begin = timeNanos;
+    }
+
+    protected void markEnd(TimeMetrics metrics, long timeNanos) {
+        this.addSample(metrics, timeNanos - metrics.begin);
     }
 
-    protected void markEnd(TimeMetrics metrics, long timeMillis) {
-        metrics.time = timeMillis - metrics.begin;
-        metrics.timeSum += metrics.time;
-        metrics.timeSumOfSquares += (metrics.time * metrics.time);
+    protected void addSample(TimeMetrics metrics, long timeNanos) {
+        metrics.time = timeNanos;
+        metrics.timeSum += timeNanos;
+        metrics.timeSumOfSquares += ((double) timeNanos * (double) timeNanos);
         metrics.count++;
+        metrics.samples[metrics.sampleIndex] = timeNanos;
+        metrics.sampleIndex = (metrics.sampleIndex + 1) % metrics.samples.length;
+        if (metrics.sampleCount < metrics.samples.length) {
+            metrics.sampleCount++;
+        }
+    }
+
+    protected void accumulateStage(StageList stages, Object lock, Object stage, long elapsedNanos) {
+        TimeMetrics metrics;
+        if (stage instanceof Layer) {
+            metrics = this.layerStage(stages, lock, (Layer) stage);
+        } else {
+            // Drawable classes are keyed by class, since their names never change. Other stages are keyed by name.
+            Object key = (stage instanceof Class) ? stage : String.valueOf(stage);
+            metrics = this.stage(stages, lock, key, stage);
+        }
+
+        metrics.frameTime += elapsedNanos;
+        metrics.frameMeasured = true;
+    }
+
+    protected TimeMetrics layerStage(StageList stages, Object lock, Layer layer) {
+        // Layers are mapped weakly to their stage, so that the stage list does not retain the layers it measures. The
+        // stage is looked up by name again only when the layer's display name changes, avoiding building the name for
+        // every layer in every frame.
+        String displayName = layer.getDisplayName();
+        LayerStage layerStage = stages.byLayer.get(layer);
+        if (layerStage == null || layerStage.displayName != displayName) {
+            layerStage = new LayerStage(displayName, this.stage(stages, lock, this.stageName(layer), layer));
+            stages.byLayer.put(layer, layerStage);
+        }
+
+        return layerStage.metrics;
+    }
+
+    protected TimeMetrics stage(StageList stages, Object lock, Object key, Object stage) {
+        // The stage map is modified only by the thread recording stages, so that thread may read it without locking.
+        // Modifications are made while holding the lock in order to keep readers on other threads consistent.
+        TimeMetrics metrics = stages.byKey.get(key);
+        if (metrics == null) {
+            synchronized (lock) {
+                metrics = stages.add(key, this.stageName(stage));
+            }
+        }
+
+        return metrics;
+    }
+
+    protected void commitStages(StageList stages) {
+        for (int idx = 0, len = stages.list.size(); idx < len; idx++) {
+            TimeMetrics metrics = stages.list.get(idx);
+            if (metrics.frameMeasured) {
+                this.addSample(metrics, metrics.frameTime);
+                metrics.frameTime = 0;
+                metrics.frameMeasured = false;
+            }
+        }
+    }
+
+    protected void commitCounters(ArrayList<CounterMetrics> counters) {
+        for (int idx = 0, len = counters.size(); idx < len; idx++) {
+            CounterMetrics metrics = counters.get(idx);
+            metrics.value = metrics.frameValue;
+            metrics.valueSum += metrics.frameValue;
+            metrics.count++;
+            metrics.frameValue = 0;
+        }
+    }
+
+    protected void commitTerrainMetrics(TerrainMetrics metrics) {
+        metrics.tileCount = metrics.frameTileCount;
+        metrics.byteCount = metrics.frameByteCount;
+        metrics.floatByteCount = metrics.frameFloatByteCount;
+        metrics.frameTileCount = 0;
+        metrics.frameByteCount = 0;
+        metrics.frameFloatByteCount = 0;
     }
 
     protected void resetTimeMetrics(TimeMetrics metrics) {
@@ -152,11 +625,42 @@ public class FrameMetrics {
         metrics.timeSum = 0;
         metrics.timeSumOfSquares = 0;
         metrics.count = 0;
+        metrics.sampleIndex = 0;
+        metrics.sampleCount = 0;
+    }
+
+    protected void resetStages(StageList stages) {
+        for (int idx = 0, len = stages.list.size(); idx < len; idx++) {
+            this.resetTimeMetrics(stages.list.get(idx));
+        }
+    }
+
+    protected void resetCounters(ArrayList<CounterMetrics> counters) {
+        for (int idx = 0, len = counters.size(); idx < len; idx++) {
+            CounterMetrics metrics = counters.get(idx);
+            metrics.valueSum = 0;
+            metrics.count = 0;
+        }
+    }
+
+    protected String stageName(Object stage) {
+        if (stage instanceof Layer) {
+            String displayName = ((Layer) stage).getDisplayName();
+            return "layer:" + ((displayName != null) ? displayName : stage.getClass().getSimpleName());
+        } else if (stage instanceof Class) {
+            return "draw:" + ((Class<?>) stage).getSimpleName();
+        } else {
+            return String.valueOf(stage);
+        }
+    }
+
+    protected long nanosToMillis(long timeNanos) {
+        return timeNanos / 1000000L;
     }
 
     protected double computeTimeAverage(TimeMetrics metrics) {
         if (metrics.count > 0) {
-            return metrics.timeSum / (double) metrics.count;
+            return metrics.timeSum / (double) metrics.count / NANOS_PER_MILLI;
         } else {
             return 0;
         }
@@ -165,13 +669,29 @@ public class FrameMetrics {
     protected double computeTimeStdDev(TimeMetrics metrics) {
         if (metrics.count > 0) {
             double avg = (double) metrics.timeSum / (double) metrics.count;
-            double var = ((double) metrics.timeSumOfSquares / (double) metrics.count) - (avg * avg);
-            return Math.sqrt(var);
+            double var = (metrics.timeSumOfSquares / (double) metrics.count) - (avg * avg);
+            return Math.sqrt(Math.max(var, 0)) / NANOS_PER_MILLI;
         } else {
             return 0;
         }
     }
 
+    protected double computeTimePercentile(TimeMetrics metrics, double percentile, long[] scratch) {
+        int count = metrics.sampleCount;
+        if (count == 0) {
+            return 0;
+        }
+
+        // Sort a copy of the samples in the rolling window and select the nearest rank. The scratch array belongs to the
+        // lock guarding the metrics, so that the render thread and the OpenGL thread never share it.
+        System.arraycopy(metrics.samples, 0, scratch, 0, count);
+        Arrays.sort(scratch, 0, count);
+
+        double clamped = Math.max(0, Math.min(100, percentile));
+        int rank = (int) Math.ceil(clamped / 100.0 * count) - 1;
+        return scratch[Math.max(rank, 0)] / NANOS_PER_MILLI;
+    }
+
     protected void assembleCacheMetrics(CacheMetrics metrics, LruMemoryCache cache) {
         metrics.capacity = cache.getCapacity();
         metrics.usedCapacity = cache.getUsedCapacity();
@@ -184,12 +704,47 @@ public class FrameMetrics {
         out.append(", entryCount=").append(metrics.entryCount);
     }
 
-    protected void printTimeMetrics(TimeMetrics metrics, StringBuilder out) {
-        out.append("lastTime=").append(metrics.time).append("ms");
-        out.append(", totalTime=").append(metrics.timeSum).append("ms");
+    protected void printTerrainMetrics(TerrainMetrics metrics, StringBuilder out) {
+        out.append("tileCount=").append(metrics.tileCount);
+        out.append(", vertexBytes=").append(String.format(Locale.US, "%,.0f", metrics.byteCount / 1024.0)).append("KB");
+        out.append(", floatVertexBytes=").append(String.format(Locale.US, "%,.0f", metrics.floatByteCount / 1024.0)).append("KB");
+    }
+
+    protected void printTimeMetrics(TimeMetrics metrics, long[] scratch, StringBuilder out) {
+        out.append("lastTime=").append(String.format(Locale.US, "%.3f", metrics.time / NANOS_PER_MILLI)).append("ms");
+        out.append(", totalTime=").append(String.format(Locale.US, "%.1f", metrics.timeSum / NANOS_PER_MILLI)).append("ms");
         out.append(", count=").append(metrics.count);
-        out.append(", avg=").append(String.format(Locale.US, "%.1f", this.computeTimeAverage(metrics))).append("ms");
-        out.append(", stdDev=").append(String.format(Locale.US, "%.1f", this.computeTimeStdDev(metrics))).append("ms");
+        out.append(", avg=").append(String.format(Locale.US, "%.3f", this.computeTimeAverage(metrics))).append("ms");
+        out.append(", stdDev=").append(String.format(Locale.US, "%.3f", this.computeTimeStdDev(metrics))).append("ms");
+        out.append(", p50=").append(String.format(Locale.US, "%.3f", this.computeTimePercentile(metrics, 50, scratch))).append("ms");
+        out.append(", p95=").append(String.format(Locale.US, "%.3f", this.computeTimePercentile(metrics, 95, scratch))).append("ms");
+        out.append(", p99=").append(String.format(Locale.US, "%.3f", this.computeTimePercentile(metrics, 99, scratch))).append("ms");
+    }
+
+    protected void printStageMetrics(StageList stages, long[] scratch, StringBuilder out) {
+        for (int idx = 0, len = stages.list.size(); idx < len; idx++) {
+            TimeMetrics metrics = stages.list.get(idx);
+            if (idx > 0) {
+                out.append(", ");
+            }
+            out.append(metrics.name).append("={");
+            this.printTimeMetrics(metrics, scratch, out);
+            out.append("}");
+        }
+    }
+
+    protected void printCounterMetrics(ArrayList<CounterMetrics> counters, StringBuilder out) {
+        for (int idx = 0, len = counters.size(); idx < len; idx++) {
+            CounterMetrics metrics = counters.get(idx);
+            if (idx > 0) {
+                out.append(", ");
+            }
+            out.append(metrics.name).append("={");
+            out.append("lastValue=").append(metrics.value);
+            out.append(", avg=").append(String.format(Locale.US, "%.1f",
+                (metrics.count > 0) ? metrics.valueSum / (double) metrics.count : 0));
+            out.append("}");
+        }
     }
 
     protected static class CacheMetrics {
@@ -201,16 +756,117 @@ public class FrameMetrics {
         public int entryCount;
     }
 
+    protected static class TerrainMetrics {
+
+        public int tileCount;
+
+        public long byteCount;
+
+        public long floatByteCount;
+
+        public int frameTileCount;
+
+        public long frameByteCount;
+
+        public long frameFloatByteCount;
+    }
+
+    protected static class CounterMetrics {
+
+        public String name;
+
+        public long value;
+
+        public long valueSum;
+
+        public long count;
+
+        public long frameValue;
+
+        public CounterMetrics(String name) {
+            this.name = name;
+        }
+    }
+
     protected static class TimeMetrics {
 
+        public String name;
+
         public long begin;
 
         public long time;
 
         public long timeSum;
 
-        public long timeSumOfSquares;
+        public double timeSumOfSquares;
 
         public long count;
+
+        public long[] samples = new long[SAMPLE_WINDOW];
+
+        public int sampleIndex;
+
+        public int sampleCount;
+
+        public long frameTime;
+
+        public boolean frameMeasured;
+
+        public TimeMetrics(String name) {
+            this.name = name;
+        }
+    }
+
+    protected static class LayerStage {
+
+        public final String displayName;
+
+        public final TimeMetrics metrics;
+
+        public LayerStage(String displayName, TimeMetrics metrics) {
+            this.displayName = displayName;
+            this.metrics = metrics;
+        }
+    }
+
+    protected static class StageList {
+
+        public Map<Object, TimeMetrics> byKey = new HashMap<>();
+
+        public Map<Layer, LayerStage> byLayer = new WeakHashMap<>();
+
+        public ArrayList<TimeMetrics> list = new ArrayList<>();
+
+        public TimeMetrics add(Object key, String name) {
+            // Stages with the same name, such as two layers with the same display name, share one time metric.
+            TimeMetrics metrics = this.get(name);
+            if (metrics == null) {
+                metrics = new TimeMetrics(name);
+                this.list.add(metrics);
+            }
+
+            this.byKey.put(key, metrics);
+            return metrics;
+        }
+
+        public TimeMetrics get(String name) {
+            for (int idx = 0, len = this.list.size(); idx < len; idx++) {
+                TimeMetrics metrics = this.list.get(idx);
+                if (metrics.name.equals(name)) {
+                    return metrics;
+                }
+            }
+
+            return null;
+        }
+
+        public List<String> names() {
+            ArrayList<String> names = new ArrayList<>(this.list.size());
+            for (int idx = 0, len = this.list.size(); idx < len; idx++) {
+                names.add(this.list.get(idx).name);
+            }
+
+            return names;
+        }
     }
 }
@@ -44,6 +44,24 @@ public class PickedObject {
         return po;
     }
 
+    public static PickedObject fromUserObject(int identifier, Object userObject, Layer layer) {
+        if (userObject == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PickedObject", "fromUserObject", "missingObject"));
+        }
+
+        if (layer == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PickedObject", "fromUserObject", "missingLayer"));
+        }
+
+        PickedObject po = new PickedObject();
+        po.identifier = identifier;
+        po.userObject = userObject;
+        po.layer = layer;
+        return po;
+    }
+
     public static PickedObject fromTerrain(int identifier, Position position) {
         if (position == null) {
             throw new IllegalArgumentException(
@@ -7,8 +7,6 @@ package gov.nasa.worldwind;
 
 import android.util.SparseArray;
 
-import java.util.ArrayList;
-
 import gov.nasa.worldwind.util.Logger;
 
 public class PickedObjectList {
@@ -94,20 +92,13 @@ public class PickedObjectList {
     }
 
     public void keepTopObjects() {
-        ArrayList<Integer> removalList = new ArrayList<>();
-
-        // Collect the indices of picked objects not marked as on top.
-        for (int idx = 0, len = this.entries.size(); idx < len; idx++) {
+        // Remove the picked objects not marked as on top, iterating in reverse so that removing an entry does not
+        // shift the indices of entries yet to be visited.
+        for (int idx = this.entries.size() - 1; idx >= 0; idx--) {
             PickedObject po = this.entries.valueAt(idx);
             if (!po.isOnTop()) {
-                removalList.add(idx);
+                this.entries.removeAt(idx);
             }
         }
-
-        // Safely remove the picked objects not marked as on top (without iterating over the entries themselves).
-        for (int idx = 0, len = removalList.size(); idx < len; idx++) {
-            int indexToRemove = removalList.get(idx);
-            this.entries.removeAt(indexToRemove);
-        }
     }
 }
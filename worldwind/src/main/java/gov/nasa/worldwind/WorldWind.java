@@ -13,6 +13,7 @@ import java.lang.annotation.RetentionPolicy;
 import gov.nasa.worldwind.geom.Ellipsoid;
 import gov.nasa.worldwind.util.MessageService;
 import gov.nasa.worldwind.util.TaskService;
+import gov.nasa.worldwind.util.Tracer;
 
 public class WorldWind {
 
@@ -330,6 +331,12 @@ public class WorldWind {
      */
     protected static TaskService taskService = new TaskService();
 
+    /**
+     * Provides a global timeline of frame, layer, retrieval and resource events within the WorldWind library and
+     * WorldWind applications.
+     */
+    protected static Tracer tracer = new Tracer();
+
     /**
      * Returns a singleton MessageService instance that provides a mechanism for broadcasting notifications within the
      * WorldWind library and WorldWind applications.
@@ -350,6 +357,17 @@ public class WorldWind {
         return taskService;
     }
 
+    /**
+     * Returns a singleton Tracer instance that records a timeline of frame, layer, retrieval and resource events within
+     * the WorldWind library and WorldWind applications. Tracing is disabled by default; enable it with {@link
+     * Tracer#setEnabled(boolean)}.
+     *
+     * @return the singleton tracer
+     */
+    public static Tracer tracer() {
+        return tracer;
+    }
+
     /**
      * Requests that all WorldWindow instances update their display. Internally, this dispatches a REQUEST_REDRAW
      * message to the WorldWind message center.
@@ -39,12 +39,14 @@ import gov.nasa.worldwind.globe.Globe;
 import gov.nasa.worldwind.globe.ProjectionWgs84;
 import gov.nasa.worldwind.globe.Tessellator;
 import gov.nasa.worldwind.layer.LayerList;
+import gov.nasa.worldwind.render.LabelDeclutter;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.render.RenderResourceCache;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.MessageListener;
 import gov.nasa.worldwind.util.Pool;
 import gov.nasa.worldwind.util.SynchronizedPool;
+import gov.nasa.worldwind.util.Tracer;
 
 /**
  * Provides a WorldWind window that implements a virtual globe inside of the Android view hierarchy. By default, World
@@ -83,10 +85,16 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
 
     protected FrameMetrics frameMetrics = new FrameMetrics();
 
+    protected LabelDeclutter labelDeclutter;
+
     protected WorldWindowController worldWindowController = new BasicWorldWindowController();
 
     protected RenderResourceCache renderResourceCache;
 
+    protected int renderResourceCapacity;
+
+    protected int surfaceShapeTextureCapacity;
+
     protected RenderContext rc = new RenderContext();
 
     protected DrawContext dc = new DrawContext();
@@ -177,9 +185,13 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         // Initialize the WorldWindow's controller.
         this.worldWindowController.setWorldWindow(this);
 
-        // Initialize the WorldWindow's render resource cache.
-        int cacheCapacity = RenderResourceCache.recommendedCapacity(this.getContext());
-        this.renderResourceCache = new RenderResourceCache(cacheCapacity);
+        // Initialize the WorldWindow's render resource cache. Surface shape textures retained by the draw context share
+        // the recommended capacity: the render resource cache gives up the texture memory those textures actually
+        // hold, up to a quarter of the recommended capacity by default.
+        this.renderResourceCapacity = RenderResourceCache.recommendedCapacity(this.getContext());
+        this.renderResourceCache = new RenderResourceCache(this.renderResourceCapacity);
+        this.surfaceShapeTextureCapacity = this.renderResourceCapacity / 4;
+        this.dc.setSurfaceShapeTextureCapacity(this.surfaceShapeTextureCapacity);
 
         // Set up to render on demand to an OpenGL ES 2.x context
         // TODO Investigate and use the EGL chooser submitted by jgiovino
@@ -360,6 +372,25 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         this.frameMetrics = frameMetrics;
     }
 
+    /**
+     * Returns the declutter used to suppress overlapping labels, or null if labels are not decluttered.
+     *
+     * @return the label declutter, or null if labels are not decluttered
+     */
+    public LabelDeclutter getLabelDeclutter() {
+        return this.labelDeclutter;
+    }
+
+    /**
+     * Sets the declutter used to suppress overlapping labels. Labels are not decluttered by default.
+     *
+     * @param labelDeclutter the label declutter, or null to display all labels
+     */
+    public void setLabelDeclutter(LabelDeclutter labelDeclutter) {
+        this.labelDeclutter = labelDeclutter;
+        this.requestRedraw();
+    }
+
     public WorldWindowController getWorldWindowController() {
         return this.worldWindowController;
     }
@@ -387,6 +418,42 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
 
         // TODO provide a mechanism for the old cache to evict its entries
         this.renderResourceCache = cache;
+        this.renderResourceCapacity = cache.getCapacity();
+    }
+
+    /**
+     * Returns the maximum number of bytes of texture memory used to retain rasterized surface shapes across frames.
+     * See {@link #setSurfaceShapeTextureCapacity(int)}.
+     *
+     * @return the surface shape texture capacity, in bytes
+     */
+    public int getSurfaceShapeTextureCapacity() {
+        return this.surfaceShapeTextureCapacity;
+    }
+
+    /**
+     * Sets the maximum number of bytes of texture memory used to retain rasterized surface shapes across frames. The
+     * texture memory is taken from the render resource cache's capacity only while surface shapes are displayed, so
+     * WorldWindows without surface shapes keep the entire capacity for tiles and textures. The default is a quarter
+     * of the render resource cache's initial capacity.
+     *
+     * @param capacity the surface shape texture capacity, in bytes
+     *
+     * @throws IllegalArgumentException If the capacity is less than 1
+     */
+    public void setSurfaceShapeTextureCapacity(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "WorldWindow", "setSurfaceShapeTextureCapacity", "invalidCapacity"));
+        }
+
+        this.surfaceShapeTextureCapacity = capacity;
+        this.queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                dc.setSurfaceShapeTextureCapacity(capacity); // the draw context is used on the OpenGL thread
+            }
+        });
     }
 
     /**
@@ -893,12 +960,30 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         }
     }
 
+    /**
+     * Reduces the render resource cache's capacity by the texture memory the draw context's surface shape texture cache
+     * held at the end of the most recently drawn frame, so that together the caches stay within the WorldWindow's
+     * render resource capacity.
+     */
+    protected void updateRenderResourceCapacity() {
+        int capacity = Math.max(this.renderResourceCapacity - this.dc.getSurfaceShapeTextureUsedCapacity(), 1);
+        if (this.renderResourceCache.getCapacity() != capacity) {
+            this.renderResourceCache.setCapacity(capacity);
+        }
+    }
+
     protected void renderFrame(Frame frame) {
         // Mark the beginning of a frame render.
         boolean pickMode = frame.pickMode;
         if (!pickMode) {
             this.frameMetrics.beginRendering(this.rc);
         }
+        WorldWind.tracer().begin(Tracer.FRAME, pickMode ? "renderPickFrame" : "renderFrame");
+
+        // Take the texture memory held by surface shape textures from the render resource cache's capacity.
+        if (!pickMode) {
+            this.updateRenderResourceCapacity();
+        }
 
         // Setup the render context according to the WorldWindow's current state.
         this.rc.globe = this.globe;
@@ -936,6 +1021,8 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         this.rc.pickPoint = frame.pickPoint;
         this.rc.pickRay = frame.pickRay;
         this.rc.pickMode = frame.pickMode;
+        this.rc.frameMetrics = pickMode ? null : this.frameMetrics;
+        this.rc.labelDeclutter = this.labelDeclutter;
 
         // Let the frame controller render the WorldWindow's current state.
         this.frameController.renderFrame(this.rc);
@@ -964,6 +1051,7 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         if (!pickMode) {
             this.frameMetrics.endRendering(this.rc);
         }
+        WorldWind.tracer().end(Tracer.FRAME, pickMode ? "renderPickFrame" : "renderFrame");
 
         // Reset the render context's state in preparation for the next frame.
         this.rc.reset();
@@ -975,6 +1063,7 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         if (!pickMode) {
             this.frameMetrics.beginDrawing(this.dc);
         }
+        WorldWind.tracer().begin(Tracer.FRAME, pickMode ? "drawPickFrame" : "drawFrame");
 
         // Setup the draw context according to the frame's current state.
         this.dc.eyePoint = frame.modelview.extractEyePoint(this.dc.eyePoint);
@@ -992,17 +1081,25 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         this.dc.pickViewport = frame.pickViewport;
         this.dc.pickPoint = frame.pickPoint;
         this.dc.pickMode = frame.pickMode;
+        this.dc.frameMetrics = pickMode ? null : this.frameMetrics;
 
         // Let the frame controller draw the frame.
         this.frameController.drawFrame(this.dc);
 
         // Release resources evicted during the previous frame.
+        WorldWind.tracer().begin(Tracer.CACHE, FrameMetrics.RELEASE_EVICTED_RESOURCES_STAGE);
+        long releaseBegin = System.nanoTime();
         this.renderResourceCache.releaseEvictedResources(this.dc);
+        WorldWind.tracer().end(Tracer.CACHE, FrameMetrics.RELEASE_EVICTED_RESOURCES_STAGE);
+        if (!pickMode) {
+            this.frameMetrics.recordDrawStage(FrameMetrics.RELEASE_EVICTED_RESOURCES_STAGE, System.nanoTime() - releaseBegin);
+        }
 
         // Mark the end of a frame draw.
         if (!pickMode) {
             this.frameMetrics.endDrawing(this.dc);
         }
+        WorldWind.tracer().end(Tracer.FRAME, pickMode ? "drawPickFrame" : "drawFrame");
 
         // Reset the draw context's state in preparation for the next frame.
         this.dc.reset();
@@ -19,12 +19,18 @@ public class BasicDrawableTerrain implements DrawableTerrain {
 
     public Vec3 vertexOrigin = new Vec3();
 
+    public Vec3 vertexScale = new Vec3(1, 1, 1);
+
+    public int vertexPointType = GLES20.GL_FLOAT;
+
     public Range lineElementRange = new Range();
 
     public Range triStripElementRange = new Range();
 
     public BufferObject vertexPoints;
 
+    public int vertexPointsVersion;
+
     public BufferObject vertexTexCoords;
 
     public BufferObject elements;
@@ -66,11 +72,26 @@ public class BasicDrawableTerrain implements DrawableTerrain {
         return this.vertexOrigin;
     }
 
+    @Override
+    public Vec3 getVertexScale() {
+        return this.vertexScale;
+    }
+
+    @Override
+    public BufferObject getVertexPointBuffer() {
+        return this.vertexPoints;
+    }
+
+    @Override
+    public int getVertexPointVersion() {
+        return this.vertexPointsVersion;
+    }
+
     @Override
     public boolean useVertexPointAttrib(DrawContext dc, int attribLocation) {
-        boolean bufferBound = (this.vertexPoints != null && this.vertexPoints.bindBuffer(dc));
+        boolean bufferBound = (this.vertexPoints != null && this.vertexPoints.bindBuffer(dc, this.vertexPointsVersion));
         if (bufferBound) {
-            GLES20.glVertexAttribPointer(attribLocation, 3, GLES20.GL_FLOAT, false, 0, 0);
+            GLES20.glVertexAttribPointer(attribLocation, 3, this.vertexPointType, false, 0, 0);
         }
 
         return bufferBound;
@@ -15,6 +15,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
+import gov.nasa.worldwind.FrameMetrics;
 import gov.nasa.worldwind.PickedObjectList;
 import gov.nasa.worldwind.geom.Matrix4;
 import gov.nasa.worldwind.geom.Vec2;
@@ -24,9 +25,19 @@ import gov.nasa.worldwind.render.BufferObject;
 import gov.nasa.worldwind.render.Color;
 import gov.nasa.worldwind.render.Framebuffer;
 import gov.nasa.worldwind.render.Texture;
+import gov.nasa.worldwind.util.IntSet;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.SectorGrid;
 
 public class DrawContext {
 
+    /**
+     * The maximum number of pixels read from the framebuffer by a single call to glReadPixels in {@link
+     * #readPixelIdentifiers(int, int, int, int, IntSet)}. Larger rectangles are read in horizontal strips, bounding the
+     * size of the scratch buffer and pixel array to 1MB each.
+     */
+    protected static final int MAX_PIXEL_READ_COUNT = 262144;
+
     public Vec3 eyePoint = new Vec3();
 
     public Viewport viewport = new Viewport();
@@ -53,6 +64,8 @@ public class DrawContext {
 
     public boolean pickMode;
 
+    public FrameMetrics frameMetrics;
+
     private int framebufferId;
 
     private int programId;
@@ -67,14 +80,24 @@ public class DrawContext {
 
     private Framebuffer scratchFramebuffer;
 
+    private SurfaceShapeTextureCache surfaceShapeTextureCache;
+
+    private int surfaceShapeTextureCapacity = SurfaceShapeTextureCache.DEFAULT_CAPACITY;
+
+    private volatile int surfaceShapeTextureUsedCapacity;
+
     private BufferObject unitSquareBuffer;
 
     private ByteBuffer scratchBuffer = ByteBuffer.allocateDirect(4).order(ByteOrder.nativeOrder());
 
     private ArrayList<Object> scratchList = new ArrayList<>();
 
+    private SectorGrid scratchSectorGrid = new SectorGrid();
+
     private byte[] pixelArray = new byte[4];
 
+    private byte[] pixelStripArray = new byte[0];
+
     public DrawContext() {
     }
 
@@ -92,8 +115,15 @@ public class DrawContext {
         this.pickViewport = null;
         this.pickPoint = null;
         this.pickMode = false;
+        this.frameMetrics = null;
         this.scratchBuffer.clear();
         this.scratchList.clear();
+        this.scratchSectorGrid.clear();
+
+        if (this.surfaceShapeTextureCache != null) {
+            this.surfaceShapeTextureCache.endFrame(this);
+            this.surfaceShapeTextureUsedCapacity = this.surfaceShapeTextureCache.getUsedCapacity();
+        }
     }
 
     public void contextLost() {
@@ -106,6 +136,11 @@ public class DrawContext {
         this.scratchFramebuffer = null;
         this.unitSquareBuffer = null;
         Arrays.fill(this.textureId, 0);
+
+        if (this.surfaceShapeTextureCache != null) {
+            this.surfaceShapeTextureCache.contextLost();
+            this.surfaceShapeTextureUsedCapacity = 0;
+        }
     }
 
     public Drawable peekDrawable() {
@@ -185,6 +220,60 @@ public class DrawContext {
         return (this.scratchFramebuffer = framebuffer);
     }
 
+    /**
+     * Returns a cache of textures containing surface shapes rasterized for terrain tiles in previous frames. Textures
+     * in the cache are retained across frames, and are reassigned to new terrain tiles in least recently used order.
+     * <p>
+     * The cache is created on first use. Its OpenGL resources are discarded when the OpenGL context is lost. The
+     * texture memory the cache holds is taken from the WorldWindow's render resource cache capacity as the cache's
+     * textures are created; see {@link #getSurfaceShapeTextureUsedCapacity()} and {@link
+     * #setSurfaceShapeTextureCapacity(int)}.
+     *
+     * @return the draw context's surface shape texture cache
+     */
+    public SurfaceShapeTextureCache surfaceShapeTextureCache() {
+        if (this.surfaceShapeTextureCache == null) {
+            this.surfaceShapeTextureCache = new SurfaceShapeTextureCache(
+                SurfaceShapeTextureCache.DEFAULT_TEXTURE_SIZE, this.surfaceShapeTextureCapacity);
+        }
+
+        return this.surfaceShapeTextureCache;
+    }
+
+    public int getSurfaceShapeTextureCapacity() {
+        return this.surfaceShapeTextureCapacity;
+    }
+
+    /**
+     * Returns the number of bytes of texture memory held by the surface shape texture cache at the end of the most
+     * recently drawn frame. This is zero until surface shapes are drawn. May be called on any thread.
+     *
+     * @return the surface shape texture cache's used capacity, in bytes
+     */
+    public int getSurfaceShapeTextureUsedCapacity() {
+        return this.surfaceShapeTextureUsedCapacity;
+    }
+
+    /**
+     * Sets the number of bytes of texture memory available to the surface shape texture cache.
+     *
+     * @param capacity the surface shape texture cache's capacity, in bytes
+     *
+     * @throws IllegalArgumentException If the capacity is less than 1
+     */
+    public void setSurfaceShapeTextureCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "DrawContext", "setSurfaceShapeTextureCapacity", "invalidCapacity"));
+        }
+
+        this.surfaceShapeTextureCapacity = capacity;
+
+        if (this.surfaceShapeTextureCache != null) {
+            this.surfaceShapeTextureCache.setCapacity(capacity);
+        }
+    }
+
     /**
      * Returns the name of the OpenGL program object that is currently active.
      *
@@ -402,6 +491,68 @@ public class DrawContext {
         return resultSet;
     }
 
+    /**
+     * Reads the unique picked object identifiers within a screen rectangle in the currently active OpenGL frame buffer.
+     * Each fragment color is interpreted as a picked object identifier according to {@link
+     * gov.nasa.worldwind.PickedObject#uniqueColorToIdentifier(Color)}, and fragments that cannot indicate a picked
+     * object, i.e. those with identifier zero, are ignored. The components indicate OpenGL screen coordinates, which
+     * originate in the frame buffer's lower left corner.
+     * <p/>
+     * Unlike readPixelColors, this decodes fragments directly into primitive identifiers and allocates no objects once
+     * its scratch storage is large enough. The rectangle is read in horizontal strips of at most {@link
+     * #MAX_PIXEL_READ_COUNT} pixels in order to bound the memory required by large rectangles.
+     *
+     * @param x      the screen rectangle's X component
+     * @param y      the screen rectangle's Y component
+     * @param width  the screen rectangle's width
+     * @param height the screen rectangle's height
+     * @param result a pre-allocated set in which to accumulate the unique identifiers
+     *
+     * @return the result argument containing the unique picked object identifiers
+     */
+    public IntSet readPixelIdentifiers(int x, int y, int width, int height, IntSet result) {
+        if (result == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "DrawContext", "readPixelIdentifiers", "missingResult"));
+        }
+
+        if (width <= 0 || height <= 0) {
+            return result;
+        }
+
+        int stripHeight = Math.max(1, Math.min(height, MAX_PIXEL_READ_COUNT / width));
+        int stripBytes = width * stripHeight * 4;
+        ByteBuffer pixelBuffer = this.scratchBuffer(stripBytes);
+        if (this.pixelStripArray.length < stripBytes) {
+            this.pixelStripArray = new byte[stripBytes];
+        }
+
+        byte[] pixels = this.pixelStripArray;
+        int lastId = 0;
+
+        for (int rowY = y, rowMax = y + height; rowY < rowMax; rowY += stripHeight) {
+            // Read the fragment pixels in this strip as a tightly packed array of RGBA 8888 colors, then copy them from
+            // the NIO buffer to a heap array in bulk to avoid per-pixel buffer access overhead.
+            int rows = Math.min(stripHeight, rowMax - rowY);
+            int byteCount = width * rows * 4;
+            pixelBuffer.clear();
+            GLES20.glReadPixels(x, rowY, width, rows, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, pixelBuffer);
+            pixelBuffer.get(pixels, 0, byteCount);
+
+            for (int idx = 0; idx < byteCount; idx += 4) {
+                // Convert the RGB 888 components to a picked object identifier, ignoring the alpha component.
+                int id = ((pixels[idx] & 0xFF) << 16) | ((pixels[idx + 1] & 0xFF) << 8) | (pixels[idx + 2] & 0xFF);
+                // Adjacent fragments usually belong to the same object; skip the set lookup for runs of one identifier.
+                if (id != lastId && id != 0) {
+                    result.add(id);
+                }
+                lastId = id;
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns a scratch NIO buffer suitable for use during drawing. The returned buffer has capacity at least equal to
      * the specified capacity. The buffer is cleared before each frame, otherwise its contents, position, limit and mark
@@ -428,4 +579,14 @@ public class DrawContext {
     public ArrayList<Object> scratchList() {
         return this.scratchList;
     }
+
+    /**
+     * Returns a scratch sector grid suitable for indexing the sectors of drawables accumulated during drawing. The grid
+     * is cleared before each frame, otherwise its contents are undefined.
+     *
+     * @return the draw context's scratch sector grid
+     */
+    public SectorGrid scratchSectorGrid() {
+        return this.scratchSectorGrid;
+    }
 }
@@ -20,8 +20,12 @@ public class DrawShapeState {
 
     public BufferObject vertexBuffer;
 
+    public int vertexBufferVersion;
+
     public BufferObject elementBuffer;
 
+    public int elementBufferVersion;
+
     public Vec3 vertexOrigin = new Vec3();
 
     public int vertexStride;
@@ -55,7 +59,9 @@ public class DrawShapeState {
     public void reset() {
         this.program = null;
         this.vertexBuffer = null;
+        this.vertexBufferVersion = 0;
         this.elementBuffer = null;
+        this.elementBufferVersion = 0;
         this.vertexOrigin.set(0, 0, 0);
         this.vertexStride = 0;
         this.enableCullFace = true;
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.draw;
+
+import android.opengl.GLES20;
+
+import java.nio.FloatBuffer;
+
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.IconShaderProgram;
+import gov.nasa.worldwind.render.Texture;
+import gov.nasa.worldwind.util.Pool;
+
+/**
+ * Drawable for a screen icon displaying a region of an icon atlas page. Icons adjacent in the drawable queue that share
+ * an atlas page are drawn together with one vertex array and one draw call, each icon with its own color or pick
+ * color.
+ */
+public class DrawableIcon implements Drawable {
+
+    /**
+     * The maximum number of icons drawn with one draw call.
+     */
+    protected static final int MAX_BATCH_SIZE = 4096;
+
+    protected static final int VERTEX_STRIDE = 9; // x, y, z, s, t, r, g, b, a
+
+    public IconShaderProgram program = null;
+
+    public Texture texture = null;
+
+    /**
+     * The icon's screen corner points: bottom-left, bottom-right, top-left and top-right.
+     */
+    public float[] points = new float[12];
+
+    /**
+     * The icon's texture coordinates in its atlas page.
+     */
+    public float s0, t0, s1, t1;
+
+    /**
+     * The icon's premultiplied RGBA color.
+     */
+    public float[] color = new float[4];
+
+    public boolean enableDepthTest = true;
+
+    private Pool<DrawableIcon> pool;
+
+    private Vec3 scratchPoint = new Vec3();
+
+    public DrawableIcon() {
+    }
+
+    public static DrawableIcon obtain(Pool<DrawableIcon> pool) {
+        DrawableIcon instance = pool.acquire(); // get an instance from the pool
+        return (instance != null) ? instance.setPool(pool) : new DrawableIcon().setPool(pool);
+    }
+
+    private DrawableIcon setPool(Pool<DrawableIcon> pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Computes this icon's screen corner points by transforming the corners of a unit square.
+     *
+     * @param unitSquareTransform the transform from the unit square to screen coordinates
+     *
+     * @return this drawable
+     */
+    public DrawableIcon setUnitSquareTransform(Matrix4 unitSquareTransform) {
+        for (int idx = 0; idx < 4; idx++) {
+            this.scratchPoint.set(idx & 1, idx >> 1, 0).multiplyByMatrix(unitSquareTransform);
+            this.points[idx * 3] = (float) this.scratchPoint.x;
+            this.points[idx * 3 + 1] = (float) this.scratchPoint.y;
+            this.points[idx * 3 + 2] = (float) this.scratchPoint.z;
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets this icon's color.
+     *
+     * @param color the color, which is premultiplied by this method
+     *
+     * @return this drawable
+     */
+    public DrawableIcon setColor(Color color) {
+        color.premultiplyToArray(this.color, 0);
+        return this;
+    }
+
+    @Override
+    public void recycle() {
+        this.program = null;
+        this.texture = null;
+
+        if (this.pool != null) { // return this instance to the pool
+            this.pool.release(this);
+            this.pool = null;
+        }
+    }
+
+    @Override
+    public void draw(DrawContext dc) {
+        if (this.program == null || !this.program.useProgram(dc)) {
+            return; // program unspecified or failed to build
+        }
+
+        if (this.texture == null || !this.texture.bindTexture(dc)) {
+            return; // atlas page unspecified or failed to bind
+        }
+
+        // Use the draw context's pick mode, the atlas page's tex coord transform and the screen projection.
+        this.program.enablePickMode(dc.pickMode);
+        this.program.loadTexCoordMatrix(this.texture.getTexCoordTransform());
+        this.program.loadModelviewProjection(dc.screenProjection);
+
+        // Make multi-texture unit 0 active.
+        dc.activeTextureUnit(GLES20.GL_TEXTURE0);
+
+        // Disable writing to the depth buffer, and disable depth testing if requested.
+        GLES20.glDepthMask(false);
+        if (!this.enableDepthTest) {
+            GLES20.glDisable(GLES20.GL_DEPTH_TEST);
+        }
+
+        // Use client-side vertex arrays for the icon quads, which are recomputed every frame.
+        dc.bindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        GLES20.glEnableVertexAttribArray(1 /*vertexTexCoord*/); // only vertexPoint is enabled by default
+        GLES20.glEnableVertexAttribArray(2 /*vertexColor*/);
+
+        // Draw this icon and all DrawableIcons adjacent in the queue that share the same program, atlas page and depth
+        // test, in batches of up to MAX_BATCH_SIZE icons.
+        FloatBuffer buffer = dc.scratchBuffer(MAX_BATCH_SIZE * 6 * VERTEX_STRIDE * 4).asFloatBuffer();
+        buffer.clear();
+        this.putVertices(buffer, this);
+        int batchSize = 1;
+
+        Drawable next;
+        while ((next = dc.peekDrawable()) != null && this.canBatchWith(next)) { // check if the drawable at the front of the queue can be batched
+            if (batchSize == MAX_BATCH_SIZE) {
+                this.drawBatch(buffer, batchSize);
+                buffer.clear();
+                batchSize = 0;
+            }
+
+            DrawableIcon drawable = (DrawableIcon) dc.pollDrawable(); // take it off the queue
+            this.putVertices(buffer, drawable);
+            batchSize++;
+        }
+
+        this.drawBatch(buffer, batchSize);
+
+        // Restore the default WorldWind OpenGL state.
+        GLES20.glDepthMask(true);
+        if (!this.enableDepthTest) {
+            GLES20.glEnable(GLES20.GL_DEPTH_TEST);
+        }
+        GLES20.glDisableVertexAttribArray(1 /*vertexTexCoord*/); // only vertexPoint is enabled by default
+        GLES20.glDisableVertexAttribArray(2 /*vertexColor*/);
+    }
+
+    protected void putVertices(FloatBuffer buffer, DrawableIcon drawable) {
+        // Two triangles per icon: bottom-left, bottom-right, top-left and top-left, bottom-right, top-right.
+        this.putVertex(buffer, drawable, 0, drawable.s0, drawable.t0);
+        this.putVertex(buffer, drawable, 1, drawable.s1, drawable.t0);
+        this.putVertex(buffer, drawable, 2, drawable.s0, drawable.t1);
+        this.putVertex(buffer, drawable, 2, drawable.s0, drawable.t1);
+        this.putVertex(buffer, drawable, 1, drawable.s1, drawable.t0);
+        this.putVertex(buffer, drawable, 3, drawable.s1, drawable.t1);
+    }
+
+    protected void putVertex(FloatBuffer buffer, DrawableIcon drawable, int corner, float s, float t) {
+        buffer.put(drawable.points, corner * 3, 3);
+        buffer.put(s);
+        buffer.put(t);
+        buffer.put(drawable.color);
+    }
+
+    protected void drawBatch(FloatBuffer buffer, int batchSize) {
+        int stride = VERTEX_STRIDE * 4;
+        GLES20.glVertexAttribPointer(0 /*vertexPoint*/, 3, GLES20.GL_FLOAT, false, stride, buffer.position(0));
+        GLES20.glVertexAttribPointer(1 /*vertexTexCoord*/, 2, GLES20.GL_FLOAT, false, stride, buffer.position(3));
+        GLES20.glVertexAttribPointer(2 /*vertexColor*/, 4, GLES20.GL_FLOAT, false, stride, buffer.position(5));
+        GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, batchSize * 6);
+    }
+
+    protected boolean canBatchWith(Drawable that) {
+        if (this.getClass() != that.getClass()) {
+            return false;
+        }
+
+        DrawableIcon icon = (DrawableIcon) that;
+        return this.program == icon.program && this.texture == icon.texture && this.enableDepthTest == icon.enableDepthTest;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.draw;
+
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.render.BufferObject;
+import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.PointCloudProgram;
+import gov.nasa.worldwind.util.Pool;
+
+/**
+ * Drawable for the visible points of a point cloud. Points are drawn in vertex ranges, each with its own origin and
+ * one draw call. Ranges are drawn from vertex buffer objects, or in pick mode from a client-side vertex array of points
+ * colored with unique pick colors.
+ */
+public class DrawablePointCloud implements Drawable {
+
+    protected static final int VERTEX_STRIDE = 20; // x, y, z, size (float), r, g, b, a (unsigned byte)
+
+    public PointCloudProgram program = null;
+
+    public boolean enableDepthTest = true;
+
+    protected Range[] ranges = new Range[0];
+
+    protected int rangeCount;
+
+    protected ByteBuffer pickVertices;
+
+    protected int pickVertexCount;
+
+    private Matrix4 mvpMatrix = new Matrix4();
+
+    private Pool<DrawablePointCloud> pool;
+
+    public DrawablePointCloud() {
+    }
+
+    public static DrawablePointCloud obtain(Pool<DrawablePointCloud> pool) {
+        DrawablePointCloud instance = pool.acquire(); // get an instance from the pool
+        return (instance != null) ? instance.setPool(pool) : new DrawablePointCloud().setPool(pool);
+    }
+
+    private DrawablePointCloud setPool(Pool<DrawablePointCloud> pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Returns the number of vertex ranges drawn by this drawable.
+     *
+     * @return the range count
+     */
+    public int getRangeCount() {
+        return this.rangeCount;
+    }
+
+    /**
+     * Adds a range of vertices to draw.
+     *
+     * @param vertexBuffer the vertex buffer object containing the range, or null to draw from this drawable's pick
+     *                     vertices
+     * @param first        the index of the range's first vertex
+     * @param count        the number of vertices in the range
+     * @param origin       the Cartesian point that the range's vertex coordinates are relative to
+     */
+    public void addRange(BufferObject vertexBuffer, int first, int count, Vec3 origin) {
+        if (this.rangeCount == this.ranges.length) {
+            Range[] newArray = new Range[this.rangeCount + 16];
+            System.arraycopy(this.ranges, 0, newArray, 0, this.rangeCount);
+            for (int idx = this.rangeCount; idx < newArray.length; idx++) {
+                newArray[idx] = new Range();
+            }
+            this.ranges = newArray;
+        }
+
+        Range range = this.ranges[this.rangeCount++];
+        range.vertexBuffer = vertexBuffer;
+        range.first = first;
+        range.count = count;
+        range.origin.set(origin);
+    }
+
+    /**
+     * Appends a point to this drawable's pick vertices, copying the point's coordinates and size from a point cloud
+     * vertex buffer and replacing its color with a pick color.
+     *
+     * @param vertexBuffer the point cloud vertex buffer
+     * @param vertex       the index of the point's vertex
+     * @param pickColor    the point's unique pick color
+     */
+    public void putPickVertex(ByteBuffer vertexBuffer, int vertex, Color pickColor) {
+        int capacity = (this.pickVertices != null) ? this.pickVertices.capacity() : 0;
+        int offset = this.pickVertexCount * VERTEX_STRIDE;
+        if (offset + VERTEX_STRIDE > capacity) {
+            ByteBuffer newBuffer = ByteBuffer.allocateDirect(Math.max(capacity * 2, VERTEX_STRIDE * 64)).order(ByteOrder.nativeOrder());
+            if (this.pickVertices != null) {
+                this.pickVertices.clear();
+                newBuffer.put(this.pickVertices);
+                newBuffer.clear();
+            }
+            this.pickVertices = newBuffer;
+        }
+
+        int src = vertex * VERTEX_STRIDE;
+        for (int idx = 0; idx < 16; idx += 4) { // x, y, z, size
+            this.pickVertices.putFloat(offset + idx, vertexBuffer.getFloat(src + idx));
+        }
+        this.pickVertices.put(offset + 16, (byte) Math.round(pickColor.red * 0xFF));
+        this.pickVertices.put(offset + 17, (byte) Math.round(pickColor.green * 0xFF));
+        this.pickVertices.put(offset + 18, (byte) Math.round(pickColor.blue * 0xFF));
+        this.pickVertices.put(offset + 19, (byte) 0xFF);
+        this.pickVertexCount++;
+    }
+
+    @Override
+    public void recycle() {
+        for (int idx = 0; idx < this.rangeCount; idx++) {
+            this.ranges[idx].vertexBuffer = null;
+        }
+
+        this.program = null;
+        this.rangeCount = 0;
+        this.pickVertexCount = 0;
+
+        if (this.pool != null) { // return this instance to the pool
+            this.pool.release(this);
+            this.pool = null;
+        }
+    }
+
+    @Override
+    public void draw(DrawContext dc) {
+        if (this.program == null || !this.program.useProgram(dc)) {
+            return; // program unspecified or failed to build
+        }
+
+        // Disable depth testing if requested.
+        if (!this.enableDepthTest) {
+            GLES20.glDisable(GLES20.GL_DEPTH_TEST);
+        }
+
+        GLES20.glEnableVertexAttribArray(1 /*pointSize*/); // only vertexPoint is enabled by default
+        GLES20.glEnableVertexAttribArray(2 /*vertexColor*/);
+
+        for (int idx = 0; idx < this.rangeCount; idx++) {
+            Range range = this.ranges[idx];
+
+            if (range.vertexBuffer != null) {
+                if (!range.vertexBuffer.bindBuffer(dc)) {
+                    continue; // vertex buffer failed to bind
+                }
+
+                GLES20.glVertexAttribPointer(0 /*vertexPoint*/, 3, GLES20.GL_FLOAT, false, VERTEX_STRIDE, 0);
+                GLES20.glVertexAttribPointer(1 /*pointSize*/, 1, GLES20.GL_FLOAT, false, VERTEX_STRIDE, 12);
+                GLES20.glVertexAttribPointer(2 /*vertexColor*/, 4, GLES20.GL_UNSIGNED_BYTE, true, VERTEX_STRIDE, 16);
+            } else {
+                dc.bindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+                GLES20.glVertexAttribPointer(0 /*vertexPoint*/, 3, GLES20.GL_FLOAT, false, VERTEX_STRIDE, this.pickVertices.position(0));
+                GLES20.glVertexAttribPointer(1 /*pointSize*/, 1, GLES20.GL_FLOAT, false, VERTEX_STRIDE, this.pickVertices.position(12));
+                GLES20.glVertexAttribPointer(2 /*vertexColor*/, 4, GLES20.GL_UNSIGNED_BYTE, true, VERTEX_STRIDE, this.pickVertices.position(16));
+            }
+
+            // Use the draw context's modelview projection matrix, transformed to the range's local coordinates.
+            this.mvpMatrix.set(dc.modelviewProjection);
+            this.mvpMatrix.multiplyByTranslation(range.origin.x, range.origin.y, range.origin.z);
+            this.program.loadModelviewProjection(this.mvpMatrix);
+
+            GLES20.glDrawArrays(GLES20.GL_POINTS, range.first, range.count);
+        }
+
+        // Restore the default WorldWind OpenGL state.
+        if (!this.enableDepthTest) {
+            GLES20.glEnable(GLES20.GL_DEPTH_TEST);
+        }
+        GLES20.glDisableVertexAttribArray(1 /*pointSize*/);
+        GLES20.glDisableVertexAttribArray(2 /*vertexColor*/);
+    }
+
+    protected static class Range {
+
+        public BufferObject vertexBuffer;
+
+        public int first;
+
+        public int count;
+
+        public Vec3 origin = new Vec3();
+    }
+}
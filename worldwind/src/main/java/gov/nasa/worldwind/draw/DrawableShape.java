@@ -48,11 +48,11 @@ public class DrawableShape implements Drawable {
             return; // program unspecified or failed to build
         }
 
-        if (this.drawState.vertexBuffer == null || !this.drawState.vertexBuffer.bindBuffer(dc)) {
+        if (this.drawState.vertexBuffer == null || !this.drawState.vertexBuffer.bindBuffer(dc, this.drawState.vertexBufferVersion)) {
             return; // vertex buffer unspecified or failed to bind
         }
 
-        if (this.drawState.elementBuffer == null || !this.drawState.elementBuffer.bindBuffer(dc)) {
+        if (this.drawState.elementBuffer == null || !this.drawState.elementBuffer.bindBuffer(dc, this.drawState.elementBufferVersion)) {
             return; // element buffer unspecified or failed to bind
         }
 
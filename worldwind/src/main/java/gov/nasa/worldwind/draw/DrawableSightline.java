@@ -7,10 +7,14 @@ package gov.nasa.worldwind.draw;
 
 import android.opengl.GLES20;
 
+import java.util.ArrayList;
+
 import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.geom.Vec3;
 import gov.nasa.worldwind.render.Color;
 import gov.nasa.worldwind.render.Framebuffer;
+import gov.nasa.worldwind.render.SightlineDepthMap;
 import gov.nasa.worldwind.render.SightlineProgram;
 import gov.nasa.worldwind.render.Texture;
 import gov.nasa.worldwind.util.Pool;
@@ -21,12 +25,23 @@ public class DrawableSightline implements Drawable {
 
     public float range;
 
+    /**
+     * Geographic sector bounding the terrain within the sightline's range.
+     */
+    public Sector rangeSector = new Sector();
+
     public Color visibleColor = new Color(0, 0, 0, 0);
 
     public Color occludedColor = new Color(0, 0, 0, 0);
 
     public SightlineProgram program = null;
 
+    /**
+     * Depth textures retained across frames, or null to draw the sightline's depth using the draw context's scratch
+     * framebuffer.
+     */
+    public SightlineDepthMap depthMap = null;
+
     private Matrix4 sightlineView = new Matrix4();
 
     private Matrix4 matrix = new Matrix4();
@@ -42,6 +57,8 @@ public class DrawableSightline implements Drawable {
         new Matrix4() // negative Z
     };
 
+    private ArrayList<DrawableTerrain> rangeTerrain = new ArrayList<>();
+
     private Pool<DrawableSightline> pool;
 
     public DrawableSightline() {
@@ -57,11 +74,22 @@ public class DrawableSightline implements Drawable {
         return this;
     }
 
+    /**
+     * Returns the number of cube map faces drawn by this sightline, which is the number of depth textures required by
+     * its depth map.
+     *
+     * @return the cube map face count
+     */
+    public int cubeMapFaceCount() {
+        return this.cubeMapFace.length;
+    }
+
     @Override
     public void recycle() {
         this.visibleColor.set(0, 0, 0, 0);
         this.occludedColor.set(0, 0, 0, 0);
         this.program = null;
+        this.depthMap = null;
 
         if (this.pool != null) { // return this instance to the pool
             this.pool.release(this);
@@ -82,29 +110,62 @@ public class DrawableSightline implements Drawable {
         // Configure the cube map projection matrix to capture one face of the cube map as far as the sightline's range.
         this.cubeMapProjection.setToPerspectiveProjection(1, 1, 90, 1, this.range);
 
-        // TODO accumulate only the visible terrain, which can be used in both passes
         // TODO give terrain a bounding box, test with a frustum set using depthviewProjection
 
-        for (int idx = 0, len = this.cubeMapFace.length; idx < len; idx++) {
-            this.sightlineView.set(this.centerTransform);
-            this.sightlineView.multiplyByMatrix(this.cubeMapFace[idx]);
-            this.sightlineView.invertOrthonormal();
+        // Accumulate the terrain within the sightline's range. Terrain beyond the sightline's range is outside the cube
+        // map projection and cannot be occluded by or contribute to the sightline.
+        ArrayList<Object> contents = dc.scratchList();
+        long state = 0xCBF29CE484222325L; // FNV-1a offset basis
+        try {
+            for (int idx = 0, len = dc.getDrawableTerrainCount(); idx < len; idx++) {
+                DrawableTerrain terrain = dc.getDrawableTerrain(idx);
+                if (terrain.getSector().intersects(this.rangeSector)) {
+                    this.rangeTerrain.add(terrain);
+                    contents.add(terrain.getVertexPointBuffer());
+                    state = (state ^ terrain.getVertexPointVersion()) * 0x100000001B3L;
+                }
+            }
+
+            // Redraw the depth map only when the sightline or the terrain within its range has changed since the
+            // depth map was last drawn.
+            SightlineDepthMap depthMap = this.depthMap;
+            boolean depthValid = (depthMap != null && depthMap.hasContents(this.centerTransform, this.range, contents, state));
+            boolean depthComplete = true;
+
+            for (int idx = 0, len = this.cubeMapFace.length; idx < len; idx++) {
+                this.sightlineView.set(this.centerTransform);
+                this.sightlineView.multiplyByMatrix(this.cubeMapFace[idx]);
+                this.sightlineView.invertOrthonormal();
+
+                Framebuffer framebuffer = (depthMap != null) ? depthMap.faceFramebuffer(dc, idx) : dc.scratchFramebuffer();
+                Texture depthTexture = (depthMap != null) ? depthMap.getFaceTexture(idx) : framebuffer.getAttachedTexture(GLES20.GL_DEPTH_ATTACHMENT);
+                if (depthValid || this.drawSceneDepth(dc, framebuffer, depthTexture)) {
+                    this.drawSceneOcclusion(dc, depthTexture);
+                } else {
+                    depthComplete = false;
+                }
+            }
 
-            if (this.drawSceneDepth(dc)) {
-                this.drawSceneOcclusion(dc);
+            if (depthMap != null && !depthValid) {
+                if (depthComplete) {
+                    depthMap.setContents(this.centerTransform, this.range, contents, state);
+                } else {
+                    depthMap.clearContents(); // draw the depth map again in the next frame
+                }
             }
+        } finally {
+            this.rangeTerrain.clear();
+            contents.clear();
         }
     }
 
-    protected boolean drawSceneDepth(DrawContext dc) {
+    protected boolean drawSceneDepth(DrawContext dc, Framebuffer framebuffer, Texture depthTexture) {
         try {
-            Framebuffer framebuffer = dc.scratchFramebuffer();
             if (!framebuffer.bindFramebuffer(dc)) {
                 return false; // framebuffer failed to bind
             }
 
             // Clear the framebuffer.
-            Texture depthTexture = framebuffer.getAttachedTexture(GLES20.GL_DEPTH_ATTACHMENT);
             GLES20.glViewport(0, 0, depthTexture.getWidth(), depthTexture.getHeight());
             GLES20.glClear(GLES20.GL_DEPTH_BUFFER_BIT);
 
@@ -113,10 +174,11 @@ public class DrawableSightline implements Drawable {
             GLES20.glEnable(GLES20.GL_POLYGON_OFFSET_FILL);
             GLES20.glPolygonOffset(4, 4);
 
-            for (int idx = 0, len = dc.getDrawableTerrainCount(); idx < len; idx++) {
-                // Get the drawable terrain associated with the draw context.
-                DrawableTerrain terrain = dc.getDrawableTerrain(idx);
+            for (int idx = 0, len = this.rangeTerrain.size(); idx < len; idx++) {
+                // Get the drawable terrain within the sightline's range.
+                DrawableTerrain terrain = this.rangeTerrain.get(idx);
                 Vec3 terrainOrigin = terrain.getVertexOrigin();
+                Vec3 terrainScale = terrain.getVertexScale();
 
                 // Use the terrain's vertex point attribute.
                 if (!terrain.useVertexPointAttrib(dc, 0 /*vertexPoint*/)) {
@@ -126,6 +188,7 @@ public class DrawableSightline implements Drawable {
                 // Draw the terrain onto one face of the cube map, from the sightline's point of view.
                 this.matrix.setToMultiply(this.cubeMapProjection, this.sightlineView);
                 this.matrix.multiplyByTranslation(terrainOrigin.x, terrainOrigin.y, terrainOrigin.z);
+                this.matrix.multiplyByScale(terrainScale.x, terrainScale.y, terrainScale.z);
                 this.program.loadModelviewProjection(this.matrix);
 
                 // Draw the terrain as triangles.
@@ -143,19 +206,19 @@ public class DrawableSightline implements Drawable {
         return true;
     }
 
-    protected void drawSceneOcclusion(DrawContext dc) {
+    protected void drawSceneOcclusion(DrawContext dc, Texture depthTexture) {
         // Make multi-texture unit 0 active.
         dc.activeTextureUnit(GLES20.GL_TEXTURE0);
 
-        Texture depthTexture = dc.scratchFramebuffer().getAttachedTexture(GLES20.GL_DEPTH_ATTACHMENT);
         if (!depthTexture.bindTexture(dc)) {
             return; // framebuffer texture failed to bind
         }
 
-        for (int idx = 0, len = dc.getDrawableTerrainCount(); idx < len; idx++) {
-            // Get the drawable terrain associated with the draw context.
-            DrawableTerrain terrain = dc.getDrawableTerrain(idx);
+        for (int idx = 0, len = this.rangeTerrain.size(); idx < len; idx++) {
+            // Get the drawable terrain within the sightline's range.
+            DrawableTerrain terrain = this.rangeTerrain.get(idx);
             Vec3 terrainOrigin = terrain.getVertexOrigin();
+            Vec3 terrainScale = terrain.getVertexScale();
 
             // Use the terrain's vertex point attribute.
             if (!terrain.useVertexPointAttrib(dc, 0 /*vertexPoint*/)) {
@@ -165,11 +228,13 @@ public class DrawableSightline implements Drawable {
             // Use the draw context's modelview projection matrix, transformed to terrain local coordinates.
             this.matrix.set(dc.modelviewProjection);
             this.matrix.multiplyByTranslation(terrainOrigin.x, terrainOrigin.y, terrainOrigin.z);
+            this.matrix.multiplyByScale(terrainScale.x, terrainScale.y, terrainScale.z);
             this.program.loadModelviewProjection(this.matrix);
 
             // Map the terrain into one face of the cube map, from the sightline's point of view.
             this.matrix.set(this.sightlineView);
             this.matrix.multiplyByTranslation(terrainOrigin.x, terrainOrigin.y, terrainOrigin.z);
+            this.matrix.multiplyByScale(terrainScale.x, terrainScale.y, terrainScale.z);
             this.program.loadSightlineProjection(this.cubeMapProjection, this.matrix);
 
             // Draw the terrain as triangles.
@@ -65,8 +65,10 @@ public class DrawableSurfaceColor implements Drawable {
 
             // Use the draw context's modelview projection matrix, transformed to terrain local coordinates.
             Vec3 terrainOrigin = terrain.getVertexOrigin();
+            Vec3 terrainScale = terrain.getVertexScale();
             this.mvpMatrix.set(dc.modelviewProjection);
             this.mvpMatrix.multiplyByTranslation(terrainOrigin.x, terrainOrigin.y, terrainOrigin.z);
+            this.mvpMatrix.multiplyByScale(terrainScale.x, terrainScale.y, terrainScale.z);
             this.program.loadModelviewProjection(this.mvpMatrix);
 
             // Draw the terrain as triangles.
@@ -17,6 +17,7 @@ import gov.nasa.worldwind.render.Color;
 import gov.nasa.worldwind.render.Framebuffer;
 import gov.nasa.worldwind.render.Texture;
 import gov.nasa.worldwind.util.Pool;
+import gov.nasa.worldwind.util.SectorGrid;
 
 public class DrawableSurfaceShape implements Drawable {
 
@@ -32,6 +33,10 @@ public class DrawableSurfaceShape implements Drawable {
 
     private Color color = new Color();
 
+    private ArrayList<DrawableSurfaceShape> terrainShapes = new ArrayList<>();
+
+    private ArrayList<Object> contents = new ArrayList<>();
+
     private Pool<DrawableSurfaceShape> pool;
 
     public DrawableSurfaceShape() {
@@ -68,9 +73,10 @@ public class DrawableSurfaceShape implements Drawable {
         // Set up to use vertex tex coord attributes.
         GLES20.glEnableVertexAttribArray(1 /*vertexTexCoord*/); // only vertexPoint is enabled by default
 
-        // Accumulate shapes in the draw context's scratch list.
-        // TODO accumulate in a geospatial quadtree
+        // Accumulate shapes in the draw context's scratch list, and index their sectors in the draw context's scratch
+        // sector grid.
         ArrayList<Object> scratchList = dc.scratchList();
+        SectorGrid shapeGrid = dc.scratchSectorGrid();
 
         try {
             // Add this shape.
@@ -82,27 +88,173 @@ public class DrawableSurfaceShape implements Drawable {
                 scratchList.add(dc.pollDrawable()); // take it off the queue
             }
 
+            // Index the accumulated shapes by sector, so that each terrain considers only the shapes near its sector.
+            shapeGrid.clear();
+            for (int idx = 0, len = scratchList.size(); idx < len; idx++) {
+                shapeGrid.add(((DrawableSurfaceShape) scratchList.get(idx)).sector);
+            }
+            shapeGrid.build();
+
+            // Reuse textures rasterized in previous frames when drawing shapes for display. Pick mode draws shapes in
+            // unique pick colors, which are not retained across frames.
+            SurfaceShapeTextureCache textureCache = dc.pickMode ? null : dc.surfaceShapeTextureCache();
+            int batch = (textureCache != null) ? textureCache.nextBatch() : 0;
+
             // Draw the accumulated shapes on each drawable terrain.
             for (int idx = 0, len = dc.getDrawableTerrainCount(); idx < len; idx++) {
                 // Get the drawable terrain associated with the draw context.
                 DrawableTerrain terrain = dc.getDrawableTerrain(idx);
-                // Draw the accumulated surface shapes to a texture representing the terrain's sector.
-                if (this.drawShapesToTexture(dc, terrain) > 0) {
-                    // Draw the texture containing the rasterized shapes onto the terrain geometry.
-                    this.drawTextureToTerrain(dc, terrain);
+                // Collect the accumulated shapes intersecting the terrain's sector.
+                if (this.collectTerrainShapes(dc, terrain) == 0) {
+                    continue; // no shapes intersect the terrain's sector
+                }
+
+                // Get a texture containing the terrain's shapes rasterized for the terrain's sector.
+                Texture texture = null;
+                if (textureCache != null) {
+                    long state = this.assembleContents(dc, terrain, this.contents);
+                    texture = this.drawShapesToCachedTexture(dc, terrain, textureCache, batch, state);
+                }
+
+                // Draw the accumulated surface shapes to the scratch framebuffer when the cache has no texture to offer.
+                if (texture == null && this.drawShapesToTexture(dc, terrain) > 0) {
+                    texture = dc.scratchFramebuffer().getAttachedTexture(GLES20.GL_COLOR_ATTACHMENT0);
+                }
+
+                // Draw the texture containing the rasterized shapes onto the terrain geometry.
+                if (texture != null) {
+                    this.drawTextureToTerrain(dc, terrain, texture);
                 }
             }
         } finally {
             // Clear the accumulated shapes.
             scratchList.clear();
+            shapeGrid.clear();
+            this.terrainShapes.clear();
+            this.contents.clear();
             // Restore the default WorldWind OpenGL state.
             GLES20.glDisableVertexAttribArray(1 /*vertexTexCoord*/); // only vertexPoint is enabled by default
         }
     }
 
-    protected int drawShapesToTexture(DrawContext dc, DrawableTerrain terrain) {
-        // Shapes have been accumulated in the draw context's scratch list.
+    /**
+     * Collects the accumulated shapes intersecting a terrain's sector, in the order they were accumulated. The shapes
+     * are found by querying the draw context's scratch sector grid, which indexes the accumulated shapes by sector.
+     *
+     * @param dc      the current draw context
+     * @param terrain the terrain whose sector to consider
+     *
+     * @return the number of shapes intersecting the terrain's sector
+     */
+    protected int collectTerrainShapes(DrawContext dc, DrawableTerrain terrain) {
         ArrayList<Object> scratchList = dc.scratchList();
+        SectorGrid shapeGrid = dc.scratchSectorGrid();
+
+        this.terrainShapes.clear();
+        for (int idx = 0, len = shapeGrid.query(terrain.getSector()); idx < len; idx++) {
+            this.terrainShapes.add((DrawableSurfaceShape) scratchList.get(shapeGrid.getResult(idx)));
+        }
+
+        return this.terrainShapes.size();
+    }
+
+    /**
+     * Returns a texture from the surface shape texture cache containing the accumulated shapes rasterized for a
+     * terrain's sector. The cached texture is drawn again only when the shapes intersecting the terrain's sector have
+     * changed since the texture was last drawn.
+     *
+     * @param dc           the current draw context
+     * @param terrain      the terrain whose sector to rasterize
+     * @param textureCache the draw context's surface shape texture cache
+     * @param batch        this batch's identifier in the current frame
+     * @param state        the state of the shapes intersecting the terrain, as computed by assembleContents
+     *
+     * @return a texture containing the rasterized shapes, or null if the cache has no texture to offer
+     */
+    protected Texture drawShapesToCachedTexture(DrawContext dc, DrawableTerrain terrain,
+                                                SurfaceShapeTextureCache textureCache, int batch, long state) {
+        SurfaceShapeTextureCache.Entry entry = textureCache.obtainEntry(terrain.getSector(), batch);
+        if (entry == null) {
+            return null; // every cached texture is in use in the current frame
+        }
+
+        if (entry.hasContents(this.contents, state)) {
+            return entry.texture; // the texture already contains the shapes intersecting the terrain
+        }
+
+        Framebuffer framebuffer = textureCache.entryFramebuffer(dc, entry);
+        if (this.drawShapesToTexture(dc, terrain, framebuffer) > 0) {
+            entry.setContents(this.contents, state);
+            return entry.texture;
+        } else {
+            entry.clearContents();
+            return null;
+        }
+    }
+
+    /**
+     * Collects the OpenGL resources of the shapes intersecting a terrain's sector, and computes a hash of those shapes'
+     * draw state. Surface shapes update their OpenGL buffer objects in place whenever their geometry changes, so the
+     * hash includes the buffer object versions the shapes were assembled with. Together the resources and the hash
+     * identify the contents of the terrain's rasterized shape texture.
+     *
+     * @param dc      the current draw context
+     * @param terrain the terrain whose sector to consider
+     * @param result  a list in which to return the resources of the shapes intersecting the terrain
+     *
+     * @return a hash of the draw state of the shapes intersecting the terrain
+     */
+    protected long assembleContents(DrawContext dc, DrawableTerrain terrain, ArrayList<Object> result) {
+        // The shapes intersecting the terrain have been collected in the terrain shapes list.
+        ArrayList<DrawableSurfaceShape> terrainShapes = this.terrainShapes;
+        long state = 0xCBF29CE484222325L; // FNV-1a offset basis
+
+        result.clear();
+
+        for (int idx = 0, len = terrainShapes.size(); idx < len; idx++) {
+            DrawableSurfaceShape shape = terrainShapes.get(idx);
+            DrawShapeState drawState = shape.drawState;
+            result.add(drawState.vertexBuffer);
+            result.add(drawState.elementBuffer);
+            state = hash(state, drawState.vertexBufferVersion);
+            state = hash(state, drawState.elementBufferVersion);
+            state = hash(state, Double.doubleToLongBits(drawState.vertexOrigin.x));
+            state = hash(state, Double.doubleToLongBits(drawState.vertexOrigin.y));
+            state = hash(state, Double.doubleToLongBits(drawState.vertexOrigin.z));
+            state = hash(state, drawState.vertexStride);
+
+            for (int primIdx = 0; primIdx < drawState.primCount; primIdx++) {
+                DrawShapeState.DrawElements prim = drawState.prims[primIdx];
+                result.add(prim.texture);
+                state = hash(state, prim.mode);
+                state = hash(state, prim.count);
+                state = hash(state, prim.type);
+                state = hash(state, prim.offset);
+                state = hash(state, Float.floatToIntBits(prim.color.red));
+                state = hash(state, Float.floatToIntBits(prim.color.green));
+                state = hash(state, Float.floatToIntBits(prim.color.blue));
+                state = hash(state, Float.floatToIntBits(prim.color.alpha));
+                state = hash(state, Float.floatToIntBits(prim.lineWidth));
+                state = hash(state, prim.texCoordAttrib.size);
+                state = hash(state, prim.texCoordAttrib.offset);
+                if (prim.texture != null) {
+                    for (double value : prim.texCoordMatrix.m) {
+                        state = hash(state, Double.doubleToLongBits(value));
+                    }
+                }
+            }
+        }
+
+        return state;
+    }
+
+    protected int drawShapesToTexture(DrawContext dc, DrawableTerrain terrain) {
+        return this.drawShapesToTexture(dc, terrain, dc.scratchFramebuffer());
+    }
+
+    protected int drawShapesToTexture(DrawContext dc, DrawableTerrain terrain, Framebuffer framebuffer) {
+        // The shapes intersecting the terrain have been collected in the terrain shapes list.
+        ArrayList<DrawableSurfaceShape> terrainShapes = this.terrainShapes;
 
         // The terrain's sector defines the geographic region in which to draw.
         Sector terrainSector = terrain.getSector();
@@ -111,7 +263,6 @@ public class DrawableSurfaceShape implements Drawable {
         int shapeCount = 0;
 
         try {
-            Framebuffer framebuffer = dc.scratchFramebuffer();
             if (!framebuffer.bindFramebuffer(dc)) {
                 return 0; // framebuffer failed to bind
             }
@@ -133,19 +284,15 @@ public class DrawableSurfaceShape implements Drawable {
             this.textureMvpMatrix.multiplyByScale(2 / terrainSector.deltaLongitude(), 2 / terrainSector.deltaLatitude(), 0);
             this.textureMvpMatrix.multiplyByTranslation(-terrainSector.minLongitude(), -terrainSector.minLatitude(), 0);
 
-            for (int idx = 0, len = scratchList.size(); idx < len; idx++) {
+            for (int idx = 0, len = terrainShapes.size(); idx < len; idx++) {
                 // Get the shape.
-                DrawableSurfaceShape shape = (DrawableSurfaceShape) scratchList.get(idx);
+                DrawableSurfaceShape shape = terrainShapes.get(idx);
 
-                if (!shape.sector.intersectsOrNextTo(terrainSector)) {
-                    continue;
-                }
-
-                if (shape.drawState.vertexBuffer == null || !shape.drawState.vertexBuffer.bindBuffer(dc)) {
+                if (shape.drawState.vertexBuffer == null || !shape.drawState.vertexBuffer.bindBuffer(dc, shape.drawState.vertexBufferVersion)) {
                     continue; // vertex buffer unspecified or failed to bind
                 }
 
-                if (shape.drawState.elementBuffer == null || !shape.drawState.elementBuffer.bindBuffer(dc)) {
+                if (shape.drawState.elementBuffer == null || !shape.drawState.elementBuffer.bindBuffer(dc, shape.drawState.elementBufferVersion)) {
                     continue; // element buffer unspecified or failed to bind
                 }
 
@@ -189,6 +336,11 @@ public class DrawableSurfaceShape implements Drawable {
     }
 
     protected void drawTextureToTerrain(DrawContext dc, DrawableTerrain terrain) {
+        Texture colorAttachment = dc.scratchFramebuffer().getAttachedTexture(GLES20.GL_COLOR_ATTACHMENT0);
+        this.drawTextureToTerrain(dc, terrain, colorAttachment);
+    }
+
+    protected void drawTextureToTerrain(DrawContext dc, DrawableTerrain terrain, Texture texture) {
         if (!terrain.useVertexPointAttrib(dc, 0 /*vertexPoint*/)) {
             return; // terrain vertex attribute failed to bind
         }
@@ -197,8 +349,7 @@ public class DrawableSurfaceShape implements Drawable {
             return; // terrain vertex attribute failed to bind
         }
 
-        Texture colorAttachment = dc.scratchFramebuffer().getAttachedTexture(GLES20.GL_COLOR_ATTACHMENT0);
-        if (!colorAttachment.bindTexture(dc)) {
+        if (!texture.bindTexture(dc)) {
             return; // framebuffer texture failed to bind
         }
 
@@ -212,11 +363,20 @@ public class DrawableSurfaceShape implements Drawable {
 
         // Use the draw context's modelview projection matrix, transformed to terrain local coordinates.
         Vec3 terrainOrigin = terrain.getVertexOrigin();
+        Vec3 terrainScale = terrain.getVertexScale();
         this.mvpMatrix.set(dc.modelviewProjection);
         this.mvpMatrix.multiplyByTranslation(terrainOrigin.x, terrainOrigin.y, terrainOrigin.z);
+        this.mvpMatrix.multiplyByScale(terrainScale.x, terrainScale.y, terrainScale.z);
         this.drawState.program.loadModelviewProjection(this.mvpMatrix);
 
         // Draw the terrain as triangles.
         terrain.drawTriangles(dc);
     }
+
+    /**
+     * Combines a value into a 64-bit FNV-1a style hash.
+     */
+    private static long hash(long hash, long value) {
+        return (hash ^ value) * 0x100000001B3L;
+    }
 }
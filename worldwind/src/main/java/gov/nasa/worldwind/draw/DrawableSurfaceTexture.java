@@ -8,7 +8,9 @@ package gov.nasa.worldwind.draw;
 import android.opengl.GLES20;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
+import gov.nasa.worldwind.FrameMetrics;
 import gov.nasa.worldwind.geom.Matrix3;
 import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.geom.Vec3;
@@ -30,6 +32,8 @@ public class DrawableSurfaceTexture implements Drawable, SurfaceTexture {
 
     public Matrix3 texCoordMatrix = new Matrix3();
 
+    private Color[] batchColors = new Color[SurfaceTextureProgram.MAX_TEXTURES];
+
     private Pool<DrawableSurfaceTexture> pool;
 
     public DrawableSurfaceTexture() {
@@ -108,13 +112,18 @@ public class DrawableSurfaceTexture implements Drawable, SurfaceTexture {
         // Use the draw context's pick mode.
         this.program.enablePickMode(dc.pickMode);
 
-        // Enable the program to display surface textures from multitexture unit 0.
+        // Enable the program to display surface textures.
         this.program.enableTexture(true);
-        dc.activeTextureUnit(GLES20.GL_TEXTURE0);
 
         // Set up to use vertex tex coord attributes.
         GLES20.glEnableVertexAttribArray(1);
 
+        // Composite up to the program's maximum number of surface textures in each draw call. Pick mode identifies each
+        // surface texture by its unique color, which requires drawing each surface texture separately.
+        int maxTextures = dc.pickMode ? 1 : SurfaceTextureProgram.MAX_TEXTURES;
+        int textureCount = 0;
+        int drawCallCount = 0;
+
         // Surface textures have been accumulated in the draw context's scratch list.
         ArrayList<Object> scratchList = dc.scratchList();
 
@@ -125,7 +134,9 @@ public class DrawableSurfaceTexture implements Drawable, SurfaceTexture {
             // Get the terrain's attributes, and keep a flag to ensure we apply the terrain's attributes at most once.
             Sector terrainSector = terrain.getSector();
             Vec3 terrainOrigin = terrain.getVertexOrigin();
+            Vec3 terrainScale = terrain.getVertexScale();
             boolean usingTerrainAttrs = false;
+            int batchCount = 0;
 
             for (int jidx = 0, jlen = scratchList.size(); jidx < jlen; jidx++) {
                 // Get the surface texture and its sector.
@@ -136,6 +147,8 @@ public class DrawableSurfaceTexture implements Drawable, SurfaceTexture {
                     continue; // texture does not intersect the terrain
                 }
 
+                // Bind the surface texture to the multitexture unit matching its index in the current batch.
+                dc.activeTextureUnit(GLES20.GL_TEXTURE0 + batchCount);
                 if (!texture.bindTexture(dc)) {
                     continue; // texture failed to bind
                 }
@@ -149,6 +162,7 @@ public class DrawableSurfaceTexture implements Drawable, SurfaceTexture {
                     // Use the draw context's modelview projection matrix, transformed to terrain local coordinates.
                     this.program.mvpMatrix.set(dc.modelviewProjection);
                     this.program.mvpMatrix.multiplyByTranslation(terrainOrigin.x, terrainOrigin.y, terrainOrigin.z);
+                    this.program.mvpMatrix.multiplyByScale(terrainScale.x, terrainScale.y, terrainScale.z);
                     this.program.loadModelviewProjection();
                 }
 
@@ -158,21 +172,61 @@ public class DrawableSurfaceTexture implements Drawable, SurfaceTexture {
 
                 // Use tex coord matrices that register the surface texture correctly and mask terrain fragments that
                 // fall outside the surface texture's sector.
-                this.program.texCoordMatrix[0].set(texture.getTexCoordTransform());
-                this.program.texCoordMatrix[0].multiplyByTileTransform(terrainSector, textureSector);
-                this.program.texCoordMatrix[1].setToTileTransform(terrainSector, textureSector);
-                this.program.loadTexCoordMatrix();
+                this.program.texCoordMatrix[batchCount * 2].set(texture.getTexCoordTransform());
+                this.program.texCoordMatrix[batchCount * 2].multiplyByTileTransform(terrainSector, textureSector);
+                this.program.texCoordMatrix[batchCount * 2 + 1].setToTileTransform(terrainSector, textureSector);
 
                 // Use the surface texture's RGBA color.
-                this.program.loadColor(texture.color);
+                this.batchColors[batchCount++] = texture.color;
+                textureCount++;
+
+                // Draw the terrain once the batch is full.
+                if (batchCount == maxTextures) {
+                    this.drawBatch(dc, terrain, batchCount);
+                    batchCount = 0;
+                    drawCallCount++;
+                }
+            }
 
-                // Draw the terrain as triangles.
-                terrain.drawTriangles(dc);
+            // Draw the terrain with the surface textures remaining in the batch.
+            if (batchCount > 0) {
+                this.drawBatch(dc, terrain, batchCount);
+                drawCallCount++;
             }
         }
 
         // Restore the default WorldWind OpenGL state.
         GLES20.glDisableVertexAttribArray(1);
+        dc.activeTextureUnit(GLES20.GL_TEXTURE0);
+        Arrays.fill(this.batchColors, null);
+
+        // Record the number of surface textures and draw calls in the frame metrics.
+        if (dc.frameMetrics != null) {
+            dc.frameMetrics.recordDrawCounter(FrameMetrics.SURFACE_TEXTURE_COUNTER, textureCount);
+            dc.frameMetrics.recordDrawCounter(FrameMetrics.SURFACE_TEXTURE_DRAW_CALL_COUNTER, drawCallCount);
+        }
+    }
+
+    /**
+     * Draws a terrain with a batch of surface textures, which have been bound to the multitexture units matching their
+     * index in the batch and whose tex coord matrices have been assigned to the program.
+     *
+     * @param dc      the current draw context
+     * @param terrain the terrain to draw
+     * @param count   the number of surface textures in the batch
+     */
+    protected void drawBatch(DrawContext dc, DrawableTerrain terrain, int count) {
+        this.program.loadTextureCount(count);
+        this.program.loadTexCoordMatrix(count);
+
+        if (count == 1) {
+            this.program.loadColor(this.batchColors[0]);
+        } else {
+            this.program.loadColors(this.batchColors, count);
+        }
+
+        // Draw the terrain as triangles.
+        terrain.drawTriangles(dc);
     }
 
     @Override
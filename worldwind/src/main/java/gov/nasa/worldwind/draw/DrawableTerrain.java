@@ -7,13 +7,47 @@ package gov.nasa.worldwind.draw;
 
 import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.render.BufferObject;
 
 public interface DrawableTerrain extends Drawable {
 
     Sector getSector();
 
+    /**
+     * Returns the origin of this terrain's vertex points. Vertex points are specified relative to this origin, and
+     * scaled by the vertex scale: a vertex point p is located at <code>origin + scale * p</code>, component-wise.
+     *
+     * @return the vertex origin
+     */
     Vec3 getVertexOrigin();
 
+    /**
+     * Returns the scale of this terrain's vertex points along each axis. The scale is (1, 1, 1) for vertex points
+     * specified as floating point values, and is the quantization interval for vertex points quantized to integers.
+     * Drawables decode vertex points by multiplying their modelview-projection by a translation to the vertex origin
+     * followed by this scale.
+     *
+     * @return the vertex scale
+     */
+    Vec3 getVertexScale();
+
+    /**
+     * Returns the buffer object containing this terrain's vertex points. The terrain's buffer object is updated in
+     * place when its vertex points change, so the buffer object together with the version returned by {@link
+     * #getVertexPointVersion()} identifies the terrain's geometry.
+     *
+     * @return the vertex point buffer object, or null if the terrain has no vertex points
+     */
+    BufferObject getVertexPointBuffer();
+
+    /**
+     * Returns the version of the vertex point buffer object's contents this terrain was assembled with. See {@link
+     * BufferObject#getVersion()}.
+     *
+     * @return the vertex point buffer version
+     */
+    int getVertexPointVersion();
+
     boolean useVertexPointAttrib(DrawContext dc, int attribLocation);
 
     boolean useVertexTexCoordAttrib(DrawContext dc, int attribLocation);
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.draw;
+
+import android.opengl.GLES20;
+
+import java.nio.FloatBuffer;
+
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.render.BasicShaderProgram;
+import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.Texture;
+import gov.nasa.worldwind.util.Pool;
+
+/**
+ * Drawable for screen text displayed as quads referencing glyphs in a glyph atlas page. Each vertex has an X and Y
+ * coordinate in the text's unit square followed by an S and T texture coordinate in the atlas page.
+ */
+public class DrawableText implements Drawable {
+
+    public BasicShaderProgram program = null;
+
+    public Matrix4 unitSquareTransform = new Matrix4();
+
+    public Color color = new Color();
+
+    public Texture texture = null;
+
+    public float[] vertices = new float[0];
+
+    public int vertexCount;
+
+    public boolean enableDepthTest = true;
+
+    private Pool<DrawableText> pool;
+
+    private Matrix4 mvpMatrix = new Matrix4();
+
+    public DrawableText() {
+    }
+
+    public static DrawableText obtain(Pool<DrawableText> pool) {
+        DrawableText instance = pool.acquire(); // get an instance from the pool
+        return (instance != null) ? instance.setPool(pool) : new DrawableText().setPool(pool);
+    }
+
+    private DrawableText setPool(Pool<DrawableText> pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Ensures that this drawable's vertex array can hold a specified number of vertices. The array's contents are not
+     * retained when the array is reallocated.
+     *
+     * @param vertexCount the number of vertices
+     *
+     * @return this drawable's vertex array
+     */
+    public float[] ensureVertexCapacity(int vertexCount) {
+        if (this.vertices.length < vertexCount * 4) {
+            this.vertices = new float[vertexCount * 4];
+        }
+
+        return this.vertices;
+    }
+
+    @Override
+    public void recycle() {
+        this.program = null;
+        this.texture = null;
+        this.vertexCount = 0;
+
+        if (this.pool != null) { // return this instance to the pool
+            this.pool.release(this);
+            this.pool = null;
+        }
+    }
+
+    @Override
+    public void draw(DrawContext dc) {
+        if (this.program == null || !this.program.useProgram(dc)) {
+            return; // program unspecified or failed to build
+        }
+
+        // Use the draw context's pick mode and use the drawable's color.
+        this.program.enablePickMode(dc.pickMode);
+
+        // Make multi-texture unit 0 active.
+        dc.activeTextureUnit(GLES20.GL_TEXTURE0);
+
+        // Disable writing to the depth buffer.
+        GLES20.glDepthMask(false);
+
+        // Use client-side vertex arrays for the glyph quads, which change whenever the text changes.
+        dc.bindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        GLES20.glEnableVertexAttribArray(1 /*vertexTexCoord*/); // only vertexPoint is enabled by default
+
+        // Draw this DrawableText.
+        this.doDraw(dc, this);
+
+        // Draw all DrawableTexts adjacent in the queue that share the same GLSL program.
+        Drawable next;
+        while ((next = dc.peekDrawable()) != null && this.canBatchWith(next)) { // check if the drawable at the front of the queue can be batched
+            DrawableText drawable = (DrawableText) dc.pollDrawable(); // take it off the queue
+            this.doDraw(dc, drawable);
+        }
+
+        // Restore the default WorldWind OpenGL state.
+        GLES20.glDepthMask(true);
+        GLES20.glDisableVertexAttribArray(1 /*vertexTexCoord*/); // only vertexPoint is enabled by default
+    }
+
+    protected void doDraw(DrawContext dc, DrawableText drawable) {
+        if (drawable.vertexCount == 0 || drawable.texture == null || !drawable.texture.bindTexture(dc)) {
+            return; // no glyphs, or the atlas page failed to bind
+        }
+
+        // Use the drawable's color and the atlas page's tex coord transform.
+        drawable.program.loadColor(drawable.color);
+        drawable.program.enableTexture(true);
+        drawable.program.loadTexCoordMatrix(drawable.texture.getTexCoordTransform());
+
+        // Use a modelview-projection matrix that transforms the text's unit square to screen coordinates.
+        drawable.mvpMatrix.setToMultiply(dc.screenProjection, drawable.unitSquareTransform);
+        drawable.program.loadModelviewProjection(drawable.mvpMatrix);
+
+        // Use the drawable's interleaved vertex points and tex coords as the vertex attributes.
+        FloatBuffer buffer = dc.scratchBuffer(drawable.vertexCount * 16).asFloatBuffer();
+        buffer.clear();
+        buffer.put(drawable.vertices, 0, drawable.vertexCount * 4).flip();
+        GLES20.glVertexAttribPointer(0 /*vertexPoint*/, 2, GLES20.GL_FLOAT, false, 16, buffer.position(0));
+        GLES20.glVertexAttribPointer(1 /*vertexTexCoord*/, 2, GLES20.GL_FLOAT, false, 16, buffer.position(2));
+
+        // Disable depth testing if requested.
+        if (!drawable.enableDepthTest) {
+            GLES20.glDisable(GLES20.GL_DEPTH_TEST);
+        }
+
+        // Draw the glyph quads as triangles.
+        GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, drawable.vertexCount);
+
+        // Restore the default WorldWind OpenGL state.
+        if (!drawable.enableDepthTest) {
+            GLES20.glEnable(GLES20.GL_DEPTH_TEST);
+        }
+    }
+
+    protected boolean canBatchWith(Drawable that) {
+        return this.getClass() == that.getClass() && this.program == ((DrawableText) that).program;
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.draw;
+
+import android.opengl.GLES20;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.Framebuffer;
+import gov.nasa.worldwind.render.Texture;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Retains textures containing rasterized surface shapes across frames, one texture for each terrain tile sector and
+ * surface shape batch. Each texture records the OpenGL resources and draw state of the shapes rasterized into it, so
+ * that DrawableSurfaceShape re-rasterizes a terrain tile only when the shapes intersecting that tile change.
+ * <p/>
+ * The cache creates a texture for each terrain tile that displays surface shapes, up to a capacity in bytes. Once the
+ * cache is full, textures are reassigned to new terrain tiles in least recently used order, but a texture drawn in the
+ * current frame is never reassigned during that frame. When every texture has been drawn in the current frame, the
+ * cache has no texture to offer and DrawableSurfaceShape falls back to the draw context's scratch framebuffer. Textures
+ * that have not been drawn for a number of frames are released, so the cache holds textures only while surface shapes
+ * are displayed.
+ */
+public class SurfaceShapeTextureCache {
+
+    /**
+     * The default width and height of the cache's textures, in pixels. This matches the dimensions of the draw
+     * context's scratch framebuffer, so that cached textures have the same resolution as uncached textures.
+     */
+    public static final int DEFAULT_TEXTURE_SIZE = 1024;
+
+    /**
+     * The default capacity of the cache, in bytes.
+     */
+    public static final int DEFAULT_CAPACITY = 1024 * 1024 * 64;
+
+    /**
+     * The default number of frames after which a texture that has not been drawn is released.
+     */
+    public static final int DEFAULT_MAX_AGE = 300;
+
+    protected int textureSize;
+
+    protected int capacity;
+
+    protected int usedCapacity;
+
+    protected int maxAge = DEFAULT_MAX_AGE;
+
+    protected HashMap<Key, Entry> entries = new HashMap<>();
+
+    protected ArrayList<Entry> entryList = new ArrayList<>();
+
+    protected Framebuffer framebuffer;
+
+    protected long frameNumber;
+
+    protected int batchCount;
+
+    private Key scratchKey = new Key();
+
+    public SurfaceShapeTextureCache() {
+        this(DEFAULT_TEXTURE_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a surface shape texture cache with a specified texture size and capacity.
+     *
+     * @param textureSize the width and height of the cache's textures, in pixels
+     * @param capacity    the maximum number of bytes of texture memory held by the cache
+     *
+     * @throws IllegalArgumentException If either the texture size or the capacity is less than 1
+     */
+    public SurfaceShapeTextureCache(int textureSize, int capacity) {
+        if (textureSize < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SurfaceShapeTextureCache", "constructor", "invalidWidthOrHeight"));
+        }
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SurfaceShapeTextureCache", "constructor", "invalidCapacity"));
+        }
+
+        this.textureSize = textureSize;
+        this.capacity = capacity;
+    }
+
+    public int getTextureSize() {
+        return this.textureSize;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Sets the maximum number of bytes of texture memory held by the cache. The cache holds at least one texture
+     * regardless of its capacity. Reducing the capacity takes effect as textures are released when they are no longer
+     * drawn.
+     *
+     * @param capacity the cache's capacity, in bytes
+     *
+     * @throws IllegalArgumentException If the capacity is less than 1
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SurfaceShapeTextureCache", "setCapacity", "invalidCapacity"));
+        }
+
+        this.capacity = capacity;
+    }
+
+    public int getUsedCapacity() {
+        return this.usedCapacity;
+    }
+
+    public int getMaxAge() {
+        return this.maxAge;
+    }
+
+    /**
+     * Sets the number of frames after which a texture that has not been drawn is released.
+     *
+     * @param maxAge the maximum age of an undrawn texture, in frames
+     *
+     * @throws IllegalArgumentException If the maximum age is less than 1
+     */
+    public void setMaxAge(int maxAge) {
+        if (maxAge < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SurfaceShapeTextureCache", "setMaxAge", "invalidCount"));
+        }
+
+        this.maxAge = maxAge;
+    }
+
+    public int getEntryCount() {
+        return this.entryList.size();
+    }
+
+    /**
+     * Returns an identifier for the next batch of surface shapes drawn in the current frame. Surface shapes interleaved
+     * with other surface drawables are drawn in several batches, each of which rasterizes its own texture for a terrain
+     * tile.
+     *
+     * @return the batch's identifier, unique within the current frame
+     */
+    public int nextBatch() {
+        return this.batchCount++;
+    }
+
+    /**
+     * Indicates that the current frame has ended. Textures drawn in the current frame become eligible for reassignment
+     * in subsequent frames. Textures that have not been drawn in the cache's maximum number of frames, or that exceed
+     * the cache's capacity, are released.
+     *
+     * @param dc the current draw context
+     */
+    public void endFrame(DrawContext dc) {
+        for (int idx = this.entryList.size() - 1; idx >= 0; idx--) {
+            Entry entry = this.entryList.get(idx);
+            if (this.frameNumber - entry.lastFrame >= this.maxAge || (this.usedCapacity > this.capacity && entry.lastFrame != this.frameNumber)) {
+                this.entryList.remove(idx);
+                this.entries.remove(entry.key);
+                this.usedCapacity -= entry.texture.getByteCount();
+                entry.texture.release(dc);
+            }
+        }
+
+        this.frameNumber++;
+        this.batchCount = 0;
+    }
+
+    /**
+     * Clears the cache's entries, which are invalid when the OpenGL context is lost.
+     */
+    public void contextLost() {
+        this.entries.clear();
+        this.entryList.clear();
+        this.framebuffer = null;
+        this.usedCapacity = 0;
+        this.batchCount = 0;
+    }
+
+    /**
+     * Returns the cache entry for a terrain tile sector and surface shape batch, marking the entry as drawn in the
+     * current frame. When no entry exists, this creates a new entry if the cache has room for another texture, or
+     * otherwise reassigns the least recently used entry not drawn in the current frame. Newly assigned entries have no
+     * contents.
+     *
+     * @param sector the terrain tile's sector
+     * @param batch  the surface shape batch, as returned by nextBatch
+     *
+     * @return the entry for the specified sector and batch, or null if every entry is drawn in the current frame
+     */
+    public Entry obtainEntry(Sector sector, int batch) {
+        Entry entry = this.entries.get(this.scratchKey.set(sector, batch));
+        if (entry != null) {
+            entry.lastFrame = this.frameNumber;
+            return entry;
+        }
+
+        if (this.entryList.isEmpty() || this.usedCapacity + this.entryList.get(0).texture.getByteCount() <= this.capacity) {
+            entry = new Entry(new Texture(this.textureSize, this.textureSize, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE));
+            this.entryList.add(entry);
+            this.usedCapacity += entry.texture.getByteCount();
+        } else {
+            entry = this.leastRecentlyUsedEntry();
+            if (entry == null) {
+                return null; // every entry is drawn in the current frame
+            }
+
+            this.entries.remove(entry.key);
+            entry.clearContents();
+        }
+
+        entry.key.set(sector, batch);
+        entry.lastFrame = this.frameNumber;
+        this.entries.put(entry.key, entry);
+
+        return entry;
+    }
+
+    /**
+     * Returns a framebuffer that draws to the texture of a specified entry. The framebuffer has no depth attachment.
+     *
+     * @param dc    the current draw context
+     * @param entry the entry whose texture to draw to
+     *
+     * @return a framebuffer with the entry's texture as its color attachment
+     */
+    public Framebuffer entryFramebuffer(DrawContext dc, Entry entry) {
+        if (this.framebuffer == null) {
+            this.framebuffer = new Framebuffer();
+        }
+
+        if (this.framebuffer.getAttachedTexture(GLES20.GL_COLOR_ATTACHMENT0) != entry.texture) {
+            this.framebuffer.attachTexture(dc, entry.texture, GLES20.GL_COLOR_ATTACHMENT0);
+        }
+
+        return this.framebuffer;
+    }
+
+    protected Entry leastRecentlyUsedEntry() {
+        Entry lruEntry = null;
+        for (int idx = 0, len = this.entryList.size(); idx < len; idx++) {
+            Entry entry = this.entryList.get(idx);
+            if (entry.lastFrame != this.frameNumber && (lruEntry == null || lruEntry.lastFrame > entry.lastFrame)) {
+                lruEntry = entry;
+            }
+        }
+
+        return lruEntry;
+    }
+
+    /**
+     * A texture containing rasterized surface shapes for one terrain tile sector and surface shape batch, along with
+     * the contents it was rasterized from.
+     */
+    public static class Entry {
+
+        public final Texture texture;
+
+        protected Key key = new Key();
+
+        protected long lastFrame;
+
+        protected ArrayList<Object> contents = new ArrayList<>();
+
+        protected long contentsState;
+
+        protected boolean hasContents;
+
+        public Entry(Texture texture) {
+            this.texture = texture;
+        }
+
+        /**
+         * Indicates whether this entry's texture was rasterized from the specified contents. Contents are compared by
+         * identity. Surface shapes may update their buffer objects in place, so the state hash includes the buffer
+         * object versions.
+         *
+         * @param contents the OpenGL resources of the shapes intersecting the terrain tile, in draw order
+         * @param state    a hash of the draw state of the shapes intersecting the terrain tile
+         *
+         * @return true if the entry contains the specified contents, otherwise false
+         */
+        public boolean hasContents(ArrayList<Object> contents, long state) {
+            if (!this.hasContents || this.contentsState != state || this.contents.size() != contents.size()) {
+                return false;
+            }
+
+            for (int idx = 0, len = contents.size(); idx < len; idx++) {
+                if (this.contents.get(idx) != contents.get(idx)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        public void setContents(ArrayList<Object> contents, long state) {
+            this.contents.clear();
+            this.contents.addAll(contents);
+            this.contentsState = state;
+            this.hasContents = true;
+        }
+
+        public void clearContents() {
+            this.contents.clear();
+            this.contentsState = 0;
+            this.hasContents = false;
+        }
+    }
+
+    protected static class Key {
+
+        public final Sector sector = new Sector();
+
+        public int batch;
+
+        public Key set(Sector sector, int batch) {
+            this.sector.set(sector);
+            this.batch = batch;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || this.getClass() != o.getClass()) {
+                return false;
+            }
+
+            Key that = (Key) o;
+            return this.batch == that.batch && this.sector.equals(that.sector);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.sector.hashCode() + this.batch;
+        }
+    }
+}
@@ -7,6 +7,7 @@ package gov.nasa.worldwind.globe;
 
 import android.opengl.GLES20;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
@@ -24,8 +25,10 @@ import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.util.Level;
 import gov.nasa.worldwind.util.LevelSet;
 import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.BasicPool;
 import gov.nasa.worldwind.util.LruMemoryCache;
 import gov.nasa.worldwind.util.Pool;
+import gov.nasa.worldwind.util.SynchronizedPool;
 import gov.nasa.worldwind.util.Tile;
 import gov.nasa.worldwind.util.TileFactory;
 
@@ -36,6 +39,13 @@ public class BasicTessellator implements Tessellator, TileFactory {
 
     protected double detailControl = 80;
 
+    protected boolean quantizeVertices;
+
+    /**
+     * The maximum value of a quantized vertex point component, which is stored as a 16-bit unsigned integer.
+     */
+    protected static final int QUANTIZED_MAX = 0xFFFF;
+
     protected List<Tile> topLevelTiles = new ArrayList<>();
 
     protected BasicTerrain currentTerrain = new BasicTerrain();
@@ -46,7 +56,42 @@ public class BasicTessellator implements Tessellator, TileFactory {
      * number tuned to store the tiles needed to navigate a small region, given the tessellator's first level tile delta
      * of 90 degrees, tile dimensions of 32x32 and detail control of 80.
      */
-    protected LruMemoryCache<String, Tile[]> tileCache = new LruMemoryCache<>(200);
+    protected LruMemoryCache<String, Tile[]> tileCache = new LruMemoryCache<String, Tile[]>(200) {
+        @Override
+        protected void entryRemoved(String key, Tile[] oldValue, Tile[] newValue, boolean evicted) {
+            for (Tile tile : oldValue) {
+                removedTiles.add((TerrainTile) tile); // recycled at the beginning of the next frame
+            }
+        }
+    };
+
+    /**
+     * Terrain tiles removed from the tile cache since the beginning of the current frame. A removed tile may be part of
+     * the current frame's terrain, so its arrays are recycled at the beginning of the next frame.
+     */
+    protected ArrayList<TerrainTile> removedTiles = new ArrayList<>();
+
+    /**
+     * Pool of heights arrays recycled from removed terrain tiles. All pools contain arrays and buffers with the level
+     * set's tile dimensions, and are replaced when the level set changes.
+     */
+    protected Pool<float[]> heightsPool = new BasicPool<>();
+
+    /**
+     * Pool of vertex points arrays recycled from removed terrain tiles.
+     */
+    protected Pool<float[]> pointsPool = new BasicPool<>();
+
+    /**
+     * Pool of quantized vertex points arrays recycled from removed terrain tiles.
+     */
+    protected Pool<short[]> quantizedPointsPool = new BasicPool<>();
+
+    /**
+     * Pool of direct vertex point buffers recycled by terrain tile buffer objects. Buffer objects release their buffers
+     * on the OpenGL thread once the buffers are loaded or the buffer objects are released, so the pool is thread safe.
+     */
+    protected Pool<Buffer> pointBufferPool = new SynchronizedPool<>();
 
     protected float[] levelSetVertexTexCoords;
 
@@ -66,6 +111,12 @@ public class BasicTessellator implements Tessellator, TileFactory {
 
     protected String levelSetElementKey = this.getClass().getName() + ".elementKey";
 
+    private Vec3 scratchOffset = new Vec3();
+
+    private Vec3 scratchScale = new Vec3();
+
+    private Vec3 scratchPoint = new Vec3();
+
     public BasicTessellator() {
     }
 
@@ -91,6 +142,32 @@ public class BasicTessellator implements Tessellator, TileFactory {
         this.detailControl = detailControl;
     }
 
+    /**
+     * Indicates whether this tessellator quantizes terrain vertex points to 16-bit integers. See {@link
+     * #setQuantizeVertices(boolean)}.
+     *
+     * @return true if terrain vertex points are quantized, otherwise false
+     */
+    public boolean isQuantizeVertices() {
+        return this.quantizeVertices;
+    }
+
+    /**
+     * Specifies whether this tessellator quantizes terrain vertex points to 16-bit integers. Quantized vertex points
+     * are stored as offsets within each terrain tile's bounding box, halving the size of terrain vertex buffers in
+     * exchange for a position error of at most half the box's extent divided by 65535 along each axis. Quantized
+     * vertices are decoded by the transform terrain drawables apply to their vertex points, so terrain shaders are
+     * unaffected. Changing this option discards the tessellator's current terrain tiles.
+     *
+     * @param enable true to quantize terrain vertex points, false to store them as 32-bit floating point values
+     */
+    public void setQuantizeVertices(boolean enable) {
+        if (this.quantizeVertices != enable) {
+            this.quantizeVertices = enable;
+            this.invalidateTiles();
+        }
+    }
+
     @Override
     public void tessellate(RenderContext rc) {
         this.currentTerrain.clear();
@@ -104,6 +181,9 @@ public class BasicTessellator implements Tessellator, TileFactory {
     }
 
     protected void assembleTiles(RenderContext rc) {
+        // Recycle the arrays of tiles removed from the tile cache during the previous frame.
+        this.recycleRemovedTiles();
+
         // Assemble the terrain buffers and OpenGL buffer objects associated with the level set.
         this.assembleLevelSetBuffers(rc);
         this.currentTerrain.setTriStripElements(this.levelSetTriStripElements);
@@ -150,6 +230,11 @@ public class BasicTessellator implements Tessellator, TileFactory {
         this.prepareTile(rc, tile);
         this.currentTerrain.addTile(tile);
 
+        // Account for the terrain tile's vertex buffer size, and the size it would have without quantization.
+        if (rc.frameMetrics != null) {
+            rc.frameMetrics.recordTerrainVertexBytes(tile.getPointBufferByteCount(), tile.getPoints().length * 4);
+        }
+
         // Prepare a drawable for the terrain tile for processing on the OpenGL thread.
         Pool<BasicDrawableTerrain> pool = rc.getDrawablePool(BasicDrawableTerrain.class);
         BasicDrawableTerrain drawable = BasicDrawableTerrain.obtain(pool);
@@ -164,6 +249,32 @@ public class BasicTessellator implements Tessellator, TileFactory {
         this.levelSetVertexTexCoords = null;
         this.levelSetLineElements = null;
         this.levelSetTriStripElements = null;
+
+        // Discard the pooled arrays and buffers, which may not match the new tile dimensions.
+        this.removedTiles.clear();
+        this.heightsPool = new BasicPool<>();
+        this.pointsPool = new BasicPool<>();
+        this.quantizedPointsPool = new BasicPool<>();
+        this.pointBufferPool = new SynchronizedPool<>();
+    }
+
+    protected void recycleRemovedTiles() {
+        for (int idx = 0, len = this.removedTiles.size(); idx < len; idx++) {
+            TerrainTile tile = this.removedTiles.get(idx);
+            this.heightsPool.release(tile.heights);
+            this.pointsPool.release(tile.points);
+            this.quantizedPointsPool.release(tile.quantizedPoints);
+            tile.heights = null;
+            tile.points = null;
+            tile.quantizedPoints = null;
+        }
+
+        this.removedTiles.clear();
+    }
+
+    protected float[] acquireArray(Pool<float[]> pool, int length) {
+        float[] array = pool.acquire();
+        return (array != null && array.length == length) ? array : new float[length];
     }
 
     protected void prepareTile(RenderContext rc, TerrainTile tile) {
@@ -175,7 +286,7 @@ public class BasicTessellator implements Tessellator, TileFactory {
 
             float[] heights = tile.getHeights();
             if (heights == null) {
-                heights = new float[tileWidth * tileHeight];
+                heights = this.acquireArray(this.heightsPool, tileWidth * tileHeight);
             }
 
             Arrays.fill(heights, 0);
@@ -194,7 +305,7 @@ public class BasicTessellator implements Tessellator, TileFactory {
 
             if (points == null) {
                 int numPoints = (tileWidth + 2) * (tileHeight + 2) * 3;
-                points = new float[numPoints];
+                points = this.acquireArray(this.pointsPool, numPoints);
             }
 
             int rowStride = (tileWidth + 2) * 3;
@@ -203,23 +314,135 @@ public class BasicTessellator implements Tessellator, TileFactory {
             rc.globe.geographicToCartesianBorder(tile.sector, tileWidth + 2, tileHeight + 2, borderHeight, origin, points);
             tile.setOrigin(origin);
             tile.setPoints(points);
+
+            if (this.quantizeVertices) {
+                this.quantizeTilePoints(tile);
+            }
         }
 
         tile.setHeightTimestamp(elevationTimestamp);
         tile.setVerticalExaggeration(verticalExaggeration);
     }
 
+    /**
+     * Quantizes a terrain tile's vertex points to 16-bit unsigned integers within the tile's bounding box. The box
+     * bounds the tile's interior points and its skirt points. Skirts longer than the largest extent of the interior
+     * points are shortened to that length, preserving the skirt's direction, so that a skirt reaching far below the
+     * terrain does not coarsen the quantization of the tile's interior points.
+     */
+    protected void quantizeTilePoints(TerrainTile tile) {
+        int numLat = tile.level.tileHeight + 2;
+        int numLon = tile.level.tileWidth + 2;
+        float[] points = tile.getPoints();
+        Vec3 point = this.scratchPoint;
+
+        // Compute the bounds of the tile's interior points, relative to the tile's origin.
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+        for (int row = 1; row < numLat - 1; row++) {
+            for (int col = 1, idx = (row * numLon + 1) * 3; col < numLon - 1; col++, idx += 3) {
+                minX = Math.min(minX, points[idx]);
+                maxX = Math.max(maxX, points[idx]);
+                minY = Math.min(minY, points[idx + 1]);
+                maxY = Math.max(maxY, points[idx + 1]);
+                minZ = Math.min(minZ, points[idx + 2]);
+                maxZ = Math.max(maxZ, points[idx + 2]);
+            }
+        }
+
+        // Expand the bounds to include the tile's skirt points, shortening skirts to the interior points' largest
+        // extent.
+        double maxSkirtLength = Math.max(Math.max(maxX - minX, maxY - minY), Math.max(maxZ - minZ, 1));
+        for (int row = 0, idx = 0; row < numLat; row++) {
+            for (int col = 0; col < numLon; col++, idx += 3) {
+                if (row == 0 || row == numLat - 1 || col == 0 || col == numLon - 1) {
+                    skirtPoint(points, row, col, numLat, numLon, maxSkirtLength, point);
+                    minX = Math.min(minX, point.x);
+                    maxX = Math.max(maxX, point.x);
+                    minY = Math.min(minY, point.y);
+                    maxY = Math.max(maxY, point.y);
+                    minZ = Math.min(minZ, point.z);
+                    maxZ = Math.max(maxZ, point.z);
+                }
+            }
+        }
+
+        // Avoid a zero extent along any axis.
+        double scaleX = Math.max(maxX - minX, 1) / QUANTIZED_MAX;
+        double scaleY = Math.max(maxY - minY, 1) / QUANTIZED_MAX;
+        double scaleZ = Math.max(maxZ - minZ, 1) / QUANTIZED_MAX;
+
+        short[] quantized = tile.getQuantizedPoints();
+        if (quantized == null) {
+            quantized = this.quantizedPointsPool.acquire();
+        }
+
+        if (quantized == null || quantized.length != points.length) {
+            quantized = new short[points.length];
+        }
+
+        for (int row = 0, idx = 0; row < numLat; row++) {
+            for (int col = 0; col < numLon; col++, idx += 3) {
+                if (row == 0 || row == numLat - 1 || col == 0 || col == numLon - 1) {
+                    skirtPoint(points, row, col, numLat, numLon, maxSkirtLength, point);
+                } else {
+                    point.set(points[idx], points[idx + 1], points[idx + 2]);
+                }
+
+                quantized[idx] = (short) quantize(point.x, minX, scaleX);
+                quantized[idx + 1] = (short) quantize(point.y, minY, scaleY);
+                quantized[idx + 2] = (short) quantize(point.z, minZ, scaleZ);
+            }
+        }
+
+        this.scratchOffset.set(minX, minY, minZ);
+        this.scratchScale.set(scaleX, scaleY, scaleZ);
+        tile.setQuantizedPoints(quantized, this.scratchOffset, this.scratchScale);
+    }
+
+    /**
+     * Computes a skirt point shortened to a maximum distance from its adjacent edge point, preserving the skirt's
+     * direction.
+     */
+    protected static Vec3 skirtPoint(float[] points, int row, int col, int numLat, int numLon, double maxLength,
+                                     Vec3 result) {
+        int idx = (row * numLon + col) * 3;
+        int edgeRow = Math.min(Math.max(row, 1), numLat - 2);
+        int edgeCol = Math.min(Math.max(col, 1), numLon - 2);
+        int edgeIdx = (edgeRow * numLon + edgeCol) * 3;
+        double ex = points[edgeIdx], ey = points[edgeIdx + 1], ez = points[edgeIdx + 2];
+        double dx = points[idx] - ex, dy = points[idx + 1] - ey, dz = points[idx + 2] - ez;
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        double t = (length > maxLength) ? maxLength / length : 1;
+
+        return result.set(ex + dx * t, ey + dy * t, ez + dz * t);
+    }
+
+    protected static int quantize(double value, double min, double scale) {
+        long q = Math.round((value - min) / scale);
+        return (int) Math.min(Math.max(q, 0), QUANTIZED_MAX);
+    }
+
     protected void prepareDrawableTerrain(RenderContext rc, TerrainTile tile, BasicDrawableTerrain drawable) {
         // Assemble the drawable's geographic sector and Cartesian vertex origin.
         drawable.sector.set(tile.sector);
-        drawable.vertexOrigin.set(tile.origin);
+        if (tile.getQuantizedPoints() != null) {
+            drawable.vertexOrigin.set(tile.origin).add(tile.getQuantizedOffset());
+            drawable.vertexScale.set(tile.getQuantizedScale());
+            drawable.vertexPointType = GLES20.GL_UNSIGNED_SHORT;
+        } else {
+            drawable.vertexOrigin.set(tile.origin);
+            drawable.vertexScale.set(1, 1, 1);
+            drawable.vertexPointType = GLES20.GL_FLOAT;
+        }
 
         // Assemble the drawable's element buffer ranges.
         drawable.lineElementRange.set(this.levelSetLineElementRange);
         drawable.triStripElementRange.set(this.levelSetTriStripElementRange);
 
         // Assemble the drawable's OpenGL buffer objects.
-        drawable.vertexPoints = tile.getPointBuffer(rc);
+        drawable.vertexPoints = tile.getPointBuffer(rc, this.pointBufferPool);
+        drawable.vertexPointsVersion = (drawable.vertexPoints != null) ? drawable.vertexPoints.getVersion() : 0;
         drawable.vertexTexCoords = this.levelSetVertexTexCoordBuffer;
         drawable.elements = this.levelSetElementBuffer;
     }
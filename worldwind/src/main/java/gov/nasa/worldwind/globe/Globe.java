@@ -5,8 +5,10 @@
 
 package gov.nasa.worldwind.globe;
 
+import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.geom.Ellipsoid;
 import gov.nasa.worldwind.geom.Line;
+import gov.nasa.worldwind.geom.Location;
 import gov.nasa.worldwind.geom.Matrix4;
 import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Sector;
@@ -32,6 +34,8 @@ public class Globe {
      */
     protected GeographicProjection projection;
 
+    protected TerrainProfiler terrainProfiler;
+
     /**
      * Constructs a globe with a specified reference ellipsoid and projection.
      *
@@ -320,4 +324,49 @@ public class Globe {
 
         return this.projection.intersect(this, line, result);
     }
+
+    /**
+     * Indicates the profiler this globe uses to compute elevation profiles and line-of-sight. The profiler is created
+     * when it's first needed, and may be configured or used directly for batches of line-of-sight tests.
+     *
+     * @return this globe's terrain profiler
+     */
+    public TerrainProfiler getTerrainProfiler() {
+        if (this.terrainProfiler == null) {
+            this.terrainProfiler = new TerrainProfiler(this);
+        }
+
+        return this.terrainProfiler;
+    }
+
+    /**
+     * Computes this globe's terrain heights along a path between two locations. See {@link
+     * TerrainProfiler#getElevationProfile(Location, Location, int, int, float[])}.
+     *
+     * @param begin    the path's first location
+     * @param end      the path's last location
+     * @param pathType the path type: {@link WorldWind#GREAT_CIRCLE}, {@link WorldWind#RHUMB_LINE} or {@link
+     *                 WorldWind#LINEAR}
+     * @param count    the number of heights to compute, including the path's first and last locations
+     * @param result   a pre-allocated array of at least count elements in which to return the heights in meters
+     *
+     * @return the result argument, set to the heights along the path
+     */
+    public float[] getElevationProfile(Location begin, Location end, @WorldWind.PathType int pathType, int count,
+                                       float[] result) {
+        return this.getTerrainProfiler().getElevationProfile(begin, end, pathType, count, result);
+    }
+
+    /**
+     * Indicates whether this globe's terrain obstructs the straight line between two positions. See {@link
+     * TerrainProfiler#isLineOfSight(Position, Position)}.
+     *
+     * @param begin the line's first position
+     * @param end   the line's last position
+     *
+     * @return true if the terrain does not obstruct the line, otherwise false
+     */
+    public boolean isLineOfSight(Position begin, Position end) {
+        return this.getTerrainProfiler().isLineOfSight(begin, end);
+    }
 }
@@ -0,0 +1,595 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.globe;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Location;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Samples a globe's terrain along paths, computing elevation profiles and line-of-sight between positions. Terrain
+ * heights are read from the globe's elevation model in square height tiles, each covering a fixed number of posts at
+ * the profiler's sample spacing. Every height tile is requested from the elevation model once and retained until the
+ * elevation model changes, so paths and batches of line-of-sight tests that cross the same region share its heights.
+ * <p/>
+ * ElevationModel is not thread safe, and is used by the WorldWindow on the main thread. TerrainProfiler therefore
+ * requests height tiles on the main thread, waiting for the main thread when it's called from another thread.
+ * Applications must not call TerrainProfiler from another thread while the main thread waits for that thread.
+ * Line-of-sight batches are evaluated in parallel, between a parallel pass that locates each segment's samples and
+ * a parallel pass that tests them against the terrain. TerrainProfiler itself must be used from one thread at a time.
+ * <p/>
+ * Heights missing from the elevation model are treated as zero, and are refined as the elevation model retrieves them.
+ * {@link #getMissingHeightCount()} reports the number of samples whose heights were missing in the most recent query,
+ * enabling applications to repeat the query once the elevation model has retrieved the missing data.
+ */
+public class TerrainProfiler {
+
+    /**
+     * The default distance between samples and between height posts, in meters.
+     */
+    public static final double DEFAULT_SAMPLE_SPACING = 30;
+
+    protected static final int TILE_POSTS = 64;
+
+    protected static final int MAX_TILES = 1024;
+
+    protected static final int MAX_SEGMENT_SAMPLES = 4096;
+
+    protected Globe globe;
+
+    protected double sampleSpacing = DEFAULT_SAMPLE_SPACING;
+
+    protected int threadCount = Runtime.getRuntime().availableProcessors();
+
+    protected ThreadPoolExecutor executorService;
+
+    protected HashMap<Long, float[]> heightTiles = new HashMap<>();
+
+    protected Handler mainHandler;
+
+    protected int missingHeightCount;
+
+    protected long heightTimestamp;
+
+    protected double tileDegrees;
+
+    private Location scratchLocation = new Location();
+
+    public TerrainProfiler(Globe globe) {
+        if (globe == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "TerrainProfiler", "constructor", "missingGlobe"));
+        }
+
+        this.globe = globe;
+        this.updateTileDegrees();
+    }
+
+    public double getSampleSpacing() {
+        return this.sampleSpacing;
+    }
+
+    /**
+     * Sets the distance between samples along a path, which is also the distance between the height posts read from
+     * the elevation model. Smaller spacings resolve finer terrain at the cost of more samples and height tiles.
+     *
+     * @param meters the sample spacing in meters
+     *
+     * @throws IllegalArgumentException If the spacing is not positive
+     */
+    public void setSampleSpacing(double meters) {
+        if (!(meters > 0)) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "TerrainProfiler", "setSampleSpacing", "invalidResolution"));
+        }
+
+        this.sampleSpacing = meters;
+        this.updateTileDegrees();
+        this.heightTiles.clear();
+    }
+
+    /**
+     * Returns the number of samples whose heights were missing from the elevation model in the most recent elevation
+     * profile or line-of-sight query. Missing heights are treated as zero. A line-of-sight test stops at the first
+     * sample obstructed by the terrain, so only the samples it examined are counted.
+     *
+     * @return the missing height count
+     */
+    public int getMissingHeightCount() {
+        return this.missingHeightCount;
+    }
+
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+
+    public void setThreadCount(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "TerrainProfiler", "setThreadCount", "invalidCount"));
+        }
+
+        this.threadCount = count;
+        if (this.executorService != null) { // create a new executor with the new thread count when it's next needed
+            this.executorService.shutdown();
+            this.executorService = null;
+        }
+    }
+
+    /**
+     * Computes the terrain heights along a path between two locations, at evenly spaced fractions of the path.
+     *
+     * @param begin    the path's first location
+     * @param end      the path's last location
+     * @param pathType the path type: {@link WorldWind#GREAT_CIRCLE}, {@link WorldWind#RHUMB_LINE} or {@link
+     *                 WorldWind#LINEAR}
+     * @param count    the number of heights to compute, including the path's first and last locations
+     * @param result   a pre-allocated array of at least count elements in which to return the heights in meters
+     *
+     * @return the result argument, set to the heights along the path
+     *
+     * @throws IllegalArgumentException If any argument is null, if the count is less than 2, or if the result has fewer
+     *                                  than count elements
+     */
+    public float[] getElevationProfile(Location begin, Location end, @WorldWind.PathType int pathType, int count,
+                                       float[] result) {
+        if (begin == null || end == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "TerrainProfiler", "getElevationProfile", "missingLocation"));
+        }
+
+        if (count < 2) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "TerrainProfiler", "getElevationProfile", "invalidCount"));
+        }
+
+        if (result == null || result.length < count) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "TerrainProfiler", "getElevationProfile", "missingResult"));
+        }
+
+        final double[] samples = new double[count * 3];
+        Location location = this.scratchLocation;
+        for (int idx = 0; idx < count; idx++) {
+            begin.interpolateAlongPath(end, pathType, (double) idx / (count - 1), location);
+            samples[idx * 3] = location.latitude;
+            samples[idx * 3 + 1] = location.longitude;
+        }
+
+        // Request the heights on the main thread.
+        final float[] finalResult = result;
+        final int[] missing = new int[1];
+        this.runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                validateHeightTiles();
+                for (int idx = 0; idx < samples.length; idx += 3) {
+                    fetchHeightTile(samples[idx], samples[idx + 1]);
+                    finalResult[idx / 3] = (float) sampleHeight(samples[idx], samples[idx + 1], missing, 0);
+                }
+            }
+        });
+
+        this.missingHeightCount = missing[0];
+
+        return result;
+    }
+
+    /**
+     * Indicates whether the straight line between two positions is unobstructed by the terrain. Position altitudes are
+     * in meters above the globe's ellipsoid.
+     *
+     * @param begin the line's first position
+     * @param end   the line's last position
+     *
+     * @return true if the terrain does not obstruct the line, otherwise false
+     *
+     * @throws IllegalArgumentException If either position is null
+     */
+    public boolean isLineOfSight(Position begin, Position end) {
+        if (begin == null || end == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "TerrainProfiler", "isLineOfSight", "missingPosition"));
+        }
+
+        final double[] samples = this.locateSamples(begin, end);
+        final boolean[] result = new boolean[1];
+        final int[] missing = new int[1];
+        this.runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                validateHeightTiles();
+                result[0] = testSamples(samples, true /*fetch*/, missing, 0);
+            }
+        });
+
+        this.missingHeightCount = missing[0];
+
+        return result[0];
+    }
+
+    /**
+     * Tests line-of-sight for a batch of segments, each between a position in the first list and the position with
+     * the same index in the second list. Segments are evaluated in parallel, in groups whose height tiles fit within
+     * the profiler's capacity.
+     *
+     * @param begins the segments' first positions
+     * @param ends   the segments' last positions, as many as there are first positions
+     * @param result a pre-allocated array of at least as many elements as there are segments in which to return
+     *               whether each segment is unobstructed by the terrain, or null to allocate a new array
+     *
+     * @return the line-of-sight of each segment
+     *
+     * @throws IllegalArgumentException If either list is null, or if the lists have different sizes
+     * @throws InterruptedException     If the calling thread is interrupted while waiting for the results
+     */
+    public boolean[] isLineOfSight(final List<? extends Position> begins, final List<? extends Position> ends,
+                                   boolean[] result) throws InterruptedException {
+        if (begins == null || ends == null || begins.size() != ends.size()) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "TerrainProfiler", "isLineOfSight", "missingList"));
+        }
+
+        final int count = begins.size();
+        if (result == null || result.length < count) {
+            result = new boolean[count];
+        }
+
+        // Locate each segment's samples in parallel.
+        final double[][] samples = new double[count][];
+        this.invokeAll(count, new RangeTask() {
+            @Override
+            public void run(int from, int to) {
+                for (int idx = from; idx < to; idx++) {
+                    samples[idx] = locateSamples(begins.get(idx), ends.get(idx));
+                }
+            }
+        });
+
+        final boolean[] finalResult = result;
+        final int[] missing = new int[count];
+        final int[] range = new int[2];
+        for (int from = 0; from < count; from = range[1]) {
+            // Request the height tiles covering as many of the remaining segments as fit within the profiler's capacity
+            // on the main thread, once per height tile, discarding the height tiles of previous segments when
+            // necessary. A segment that needs more height tiles than the profiler holds is tested as its height tiles
+            // are requested.
+            range[0] = from;
+            this.runOnMainThread(new Runnable() {
+                @Override
+                public void run() {
+                    if (range[0] == 0) {
+                        validateHeightTiles();
+                    }
+
+                    range[1] = fetchHeightTiles(samples, range[0]);
+                    if (range[1] == range[0]) {
+                        heightTiles.clear();
+                        range[1] = fetchHeightTiles(samples, range[0]);
+                    }
+
+                    if (range[1] == range[0]) {
+                        finalResult[range[0]] = testSamples(samples[range[0]], true /*fetch*/, missing, range[0]);
+                        range[1] = range[0] + 1;
+                        range[0] = range[1]; // no segments remain to test in parallel
+                    }
+                }
+            });
+
+            // Test the segments whose height tiles have been requested against the terrain in parallel.
+            final int testFrom = range[0];
+            this.invokeAll(range[1] - testFrom, new RangeTask() {
+                @Override
+                public void run(int from, int to) {
+                    for (int idx = testFrom + from; idx < testFrom + to; idx++) {
+                        finalResult[idx] = testSamples(samples[idx], false /*fetch*/, missing, idx);
+                    }
+                }
+            });
+        }
+
+        int missingCount = 0;
+        for (int value : missing) {
+            missingCount += value;
+        }
+        this.missingHeightCount = missingCount;
+
+        return result;
+    }
+
+    /**
+     * Computes the geographic location and altitude of evenly spaced samples along the straight line between two
+     * positions. The samples are returned as consecutive latitude, longitude and altitude triplets, excluding the
+     * positions themselves.
+     */
+    protected double[] locateSamples(Position begin, Position end) {
+        Vec3 p0 = this.globe.geographicToCartesian(begin.latitude, begin.longitude, begin.altitude, new Vec3());
+        Vec3 p1 = this.globe.geographicToCartesian(end.latitude, end.longitude, end.altitude, new Vec3());
+        double distance = p0.distanceTo(p1);
+        int count = (int) Math.min(Math.ceil(distance / this.sampleSpacing), MAX_SEGMENT_SAMPLES);
+
+        Position position = new Position();
+        double[] samples = new double[Math.max(count - 1, 0) * 3];
+        for (int idx = 1, sample = 0; idx < count; idx++) {
+            double t = (double) idx / count;
+            this.globe.cartesianToGeographic(
+                p0.x + (p1.x - p0.x) * t, p0.y + (p1.y - p0.y) * t, p0.z + (p1.z - p0.z) * t, position);
+            samples[sample++] = position.latitude;
+            samples[sample++] = position.longitude;
+            samples[sample++] = position.altitude;
+        }
+
+        return samples;
+    }
+
+    /**
+     * Tests a segment's samples against the terrain, counting the samples whose heights are missing. Unless fetch is
+     * true, the height tiles covering the samples must have been requested by fetchHeightTile.
+     */
+    protected boolean testSamples(double[] samples, boolean fetch, int[] missing, int index) {
+        for (int idx = 0; idx < samples.length; idx += 3) {
+            if (fetch) {
+                this.fetchHeightTile(samples[idx], samples[idx + 1]);
+            }
+
+            if (this.sampleHeight(samples[idx], samples[idx + 1], missing, index) > samples[idx + 2]) {
+                return false; // the terrain is above the line
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the terrain height at a location, or zero if the height is missing, in which case the count at the
+     * specified index is incremented.
+     */
+    protected double sampleHeight(double latitude, double longitude, int[] missing, int index) {
+        double height = this.heightAt(latitude, longitude);
+        if (Double.isNaN(height)) {
+            missing[index]++;
+            return 0;
+        }
+
+        return height;
+    }
+
+    protected void updateTileDegrees() {
+        double postDegrees = Math.toDegrees(this.sampleSpacing / this.globe.getEquatorialRadius());
+        this.tileDegrees = Math.min(postDegrees * (TILE_POSTS - 1), 90);
+    }
+
+    /**
+     * Discards the height tiles when the elevation model or the globe has changed since they were requested. Must be
+     * called on the main thread.
+     */
+    protected void validateHeightTiles() {
+        double degrees = this.tileDegrees;
+        this.updateTileDegrees(); // the globe's ellipsoid may have changed
+        long timestamp = this.globe.getElevationModel().getTimestamp();
+        if (this.heightTimestamp != timestamp || this.tileDegrees != degrees) {
+            this.heightTiles.clear();
+            this.heightTimestamp = timestamp;
+        }
+    }
+
+    protected long tileKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    protected int tileRow(double latitude) {
+        return (int) Math.floor((Location.clampLatitude(latitude) + 90) / this.tileDegrees);
+    }
+
+    protected int tileColumn(double longitude) {
+        return (int) Math.floor((Location.clampLongitude(longitude) + 180) / this.tileDegrees);
+    }
+
+    /**
+     * Requests the height tiles covering consecutive segments' samples, beginning with a specified segment, until the
+     * profiler holds its maximum number of height tiles. Must be called on the main thread.
+     *
+     * @return the index following the last segment whose height tiles have all been requested
+     */
+    protected int fetchHeightTiles(double[][] samples, int from) {
+        for (int index = from; index < samples.length; index++) {
+            double[] segmentSamples = samples[index];
+            for (int idx = 0; idx < segmentSamples.length; idx += 3) {
+                if (!this.canFetchHeightTile(segmentSamples[idx], segmentSamples[idx + 1])) {
+                    return index;
+                }
+
+                this.fetchHeightTile(segmentSamples[idx], segmentSamples[idx + 1]);
+            }
+        }
+
+        return samples.length;
+    }
+
+    protected boolean canFetchHeightTile(double latitude, double longitude) {
+        long key = this.tileKey(this.tileRow(latitude), this.tileColumn(longitude));
+        return this.heightTiles.size() < MAX_TILES || this.heightTiles.containsKey(key);
+    }
+
+    /**
+     * Requests the heights of the height tile containing a location from the elevation model, unless they've already
+     * been requested. Discards the height tiles when the profiler holds its maximum number of height tiles. Heights
+     * missing from the elevation model are NaN. Must be called on the main thread.
+     */
+    protected void fetchHeightTile(double latitude, double longitude) {
+        int row = this.tileRow(latitude);
+        int col = this.tileColumn(longitude);
+        long key = this.tileKey(row, col);
+        if (this.heightTiles.containsKey(key)) {
+            return;
+        }
+
+        if (this.heightTiles.size() >= MAX_TILES) {
+            this.heightTiles.clear();
+        }
+
+        Sector sector = new Sector(row * this.tileDegrees - 90, col * this.tileDegrees - 180, this.tileDegrees, this.tileDegrees);
+        float[] heights = new float[TILE_POSTS * TILE_POSTS];
+        Arrays.fill(heights, Float.NaN); // elevation coverages assign only the posts they cover
+        this.globe.getElevationModel().getHeightGrid(sector, TILE_POSTS, TILE_POSTS, heights);
+        this.heightTiles.put(key, heights);
+    }
+
+    /**
+     * Returns the terrain height at a location, interpolated from the height tile containing the location. The height
+     * tile must have been requested by fetchHeightTile. Returns NaN if the height is missing.
+     */
+    protected double heightAt(double latitude, double longitude) {
+        latitude = Location.clampLatitude(latitude);
+        longitude = Location.clampLongitude(longitude);
+        int row = this.tileRow(latitude);
+        int col = this.tileColumn(longitude);
+        float[] heights = this.heightTiles.get(this.tileKey(row, col));
+        if (heights == null) {
+            return Double.NaN;
+        }
+
+        double postDegrees = this.tileDegrees / (TILE_POSTS - 1);
+        double x = (longitude + 180 - col * this.tileDegrees) / postDegrees;
+        double y = (latitude + 90 - row * this.tileDegrees) / postDegrees;
+        int x0 = Math.min(Math.max((int) Math.floor(x), 0), TILE_POSTS - 2);
+        int y0 = Math.min(Math.max((int) Math.floor(y), 0), TILE_POSTS - 2);
+        double s = Math.min(Math.max(x - x0, 0), 1);
+        double t = Math.min(Math.max(y - y0, 0), 1);
+
+        int i = y0 * TILE_POSTS + x0;
+        double h0 = heights[i] + (heights[i + 1] - heights[i]) * s;
+        double h1 = heights[i + TILE_POSTS] + (heights[i + TILE_POSTS + 1] - heights[i + TILE_POSTS]) * s;
+        return h0 + (h1 - h0) * t;
+    }
+
+    /**
+     * Runs a task on the main thread, waiting for the task to complete when called from another thread. Runs the task
+     * on the calling thread when there's no main thread, as in JVM unit tests.
+     */
+    protected void runOnMainThread(Runnable task) {
+        Looper looper = Looper.getMainLooper();
+        if (looper == null || looper.getThread() == Thread.currentThread()) {
+            task.run();
+            return;
+        }
+
+        if (this.mainHandler == null) {
+            this.mainHandler = new Handler(looper);
+        }
+
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        this.mainHandler.post(future);
+
+        // Wait for the task without responding to interrupts, since the task accesses the profiler's height tiles.
+        // Height tile requests are brief, as elevation models retrieve missing heights asynchronously.
+        boolean interrupted = false;
+        while (true) {
+            try {
+                future.get();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            } catch (ExecutionException ex) {
+                rethrow(ex);
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt(); // restore the interrupt for the calling thread
+        }
+    }
+
+    protected static void rethrow(ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else {
+            throw new RuntimeException(cause);
+        }
+    }
+
+    protected interface RangeTask {
+
+        void run(int from, int to);
+    }
+
+    /**
+     * Runs a task over a range of indices, divided among the profiler's threads, and waits for it to complete.
+     */
+    protected void invokeAll(int count, final RangeTask task) throws InterruptedException {
+        int chunkCount = Math.min(this.threadCount, count);
+        if (chunkCount <= 1) {
+            task.run(0, count);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            int chunkSize = (count + chunkCount - 1) / chunkCount;
+            for (int from = 0; from < count; from += chunkSize) {
+                final int chunkFrom = from;
+                final int chunkTo = Math.min(from + chunkSize, count);
+                futures.add(this.executorService().submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        task.run(chunkFrom, chunkTo);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            rethrow(ex);
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true); // cancels any unfinished tasks when an exception or interrupt occurs
+            }
+        }
+    }
+
+    protected ExecutorService executorService() {
+        if (this.executorService == null) {
+            final AtomicInteger threadNumber = new AtomicInteger(1);
+            this.executorService = new ThreadPoolExecutor(this.threadCount, this.threadCount, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "WorldWind Terrain Profiler " + threadNumber.getAndIncrement());
+                    thread.setDaemon(true); // profiler threads do not prevent the process from terminating
+                    return thread;
+                }
+            });
+            this.executorService.allowCoreThreadTimeOut(true); // idle profilers do not retain their threads
+        }
+
+        return this.executorService;
+    }
+}
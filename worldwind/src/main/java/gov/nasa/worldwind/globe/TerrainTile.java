@@ -7,15 +7,18 @@ package gov.nasa.worldwind.globe;
 
 import android.opengl.GLES20;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 
 import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.geom.Vec3;
 import gov.nasa.worldwind.render.BufferObject;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.Pool;
 import gov.nasa.worldwind.util.Tile;
 
 /**
@@ -35,12 +38,22 @@ public class TerrainTile extends Tile {
 
     protected Vec3 origin = new Vec3();
 
+    protected short[] quantizedPoints;
+
+    protected Vec3 quantizedOffset = new Vec3();
+
+    protected Vec3 quantizedScale = new Vec3(1, 1, 1);
+
     private long heightTimestamp;
 
     private double verticalExaggeration;
 
     private String pointBufferKey;
 
+    private int pointsVersion;
+
+    private int pointBufferVersion = -1;
+
     private static long pointBufferSequence; // must be static to avoid cache collisions when a tile instances is destroyed and re-created
 
     /**
@@ -48,6 +61,7 @@ public class TerrainTile extends Tile {
      */
     public TerrainTile(Sector sector, Level level, int row, int column) {
         super(sector, level, row, column);
+        this.pointBufferKey = "TerrainTile.points." + this.tileKey + "." + (pointBufferSequence++);
     }
 
     public double getDistanceToCamera() {
@@ -84,7 +98,57 @@ public class TerrainTile extends Tile {
 
     public void setPoints(float[] points) {
         this.points = points;
-        this.pointBufferKey = "TerrainTile.points." + this.tileKey + "." + (pointBufferSequence++);
+        this.pointsVersion++;
+    }
+
+    /**
+     * Returns the tile's vertex points quantized to 16-bit unsigned integers, or null if the tile's vertex points are
+     * not quantized. See {@link #setQuantizedPoints(short[], Vec3, Vec3)}.
+     *
+     * @return the quantized vertex points
+     */
+    public short[] getQuantizedPoints() {
+        return this.quantizedPoints;
+    }
+
+    /**
+     * Specifies the tile's vertex points quantized to 16-bit unsigned integers. Quantized points are decoded relative
+     * to the tile's origin as <code>offset + scale * point</code>, component-wise. When the tile has quantized points,
+     * its point buffer contains the quantized points instead of the 32-bit floating point points, halving the buffer's
+     * size. The floating point points are retained for intersection and picking.
+     *
+     * @param points the quantized points, or null to use the floating point points
+     * @param offset the offset from the tile's origin to the quantized points' minimum corner
+     * @param scale  the distance in meters between quantized values along each axis
+     */
+    public void setQuantizedPoints(short[] points, Vec3 offset, Vec3 scale) {
+        this.quantizedPoints = points;
+        this.quantizedOffset.set(offset);
+        this.quantizedScale.set(scale);
+        this.pointsVersion++;
+    }
+
+    public Vec3 getQuantizedOffset() {
+        return this.quantizedOffset;
+    }
+
+    public Vec3 getQuantizedScale() {
+        return this.quantizedScale;
+    }
+
+    /**
+     * Returns the size in bytes of the tile's point buffer, accounting for quantization.
+     *
+     * @return the point buffer size in bytes, or 0 if the tile has no points
+     */
+    public int getPointBufferByteCount() {
+        if (this.quantizedPoints != null) {
+            return this.quantizedPoints.length * 2;
+        } else if (this.points != null) {
+            return this.points.length * 4;
+        } else {
+            return 0;
+        }
     }
 
     public Vec3 getOrigin() {
@@ -104,21 +168,63 @@ public class TerrainTile extends Tile {
     }
 
     public BufferObject getPointBuffer(RenderContext rc) {
+        return this.getPointBuffer(rc, null);
+    }
+
+    /**
+     * Returns the buffer object containing the tile's vertex points, creating it if necessary. The buffer object keeps
+     * its cache key for the life of the tile: when the tile's points change, the buffer object's contents are replaced
+     * in place and its version is incremented. When the buffer object's contents are assembled, the NIO buffer is
+     * acquired from the specified pool if the pool contains a buffer of the right type and capacity, and the buffer
+     * object releases its NIO buffer to the pool once the buffer has been loaded into OpenGL or is no longer needed.
+     *
+     * @param rc         the current render context
+     * @param bufferPool a pool of direct NIO buffers shared by tiles with the same dimensions, or null to allocate the
+     *                   buffer
+     *
+     * @return the vertex point buffer object, or null if the tile has no vertex points
+     */
+    public BufferObject getPointBuffer(RenderContext rc, Pool<Buffer> bufferPool) {
         if (this.points == null) {
             return null;
         }
 
         BufferObject bufferObject = rc.getBufferObject(this.pointBufferKey);
-        if (bufferObject != null) {
+        if (bufferObject != null && this.pointBufferVersion == this.pointsVersion) {
             return bufferObject;
         }
 
         // TODO consider a pool of terrain tiles
-        // TODO consider a pool of terrain tile vertex buffers
-        int size = this.points.length * 4;
-        FloatBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder()).asFloatBuffer();
-        buffer.put(this.points).rewind();
+        Buffer pooled = (bufferPool != null) ? bufferPool.acquire() : null;
+        int size;
+        Buffer buffer;
+
+        if (this.quantizedPoints != null) {
+            size = this.quantizedPoints.length * 2;
+            ShortBuffer shortBuffer = (pooled instanceof ShortBuffer && pooled.capacity() == this.quantizedPoints.length) ?
+                (ShortBuffer) pooled : ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder()).asShortBuffer();
+            shortBuffer.put(this.quantizedPoints).rewind();
+            buffer = shortBuffer;
+        } else {
+            size = this.points.length * 4;
+            FloatBuffer floatBuffer = (pooled instanceof FloatBuffer && pooled.capacity() == this.points.length) ?
+                (FloatBuffer) pooled : ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder()).asFloatBuffer();
+            floatBuffer.put(this.points).rewind();
+            buffer = floatBuffer;
+        }
+
+        this.pointBufferVersion = this.pointsVersion;
+
+        if (bufferObject != null) {
+            int byteCount = bufferObject.getBufferByteCount();
+            bufferObject.setBuffer(size, buffer); // update the existing buffer object in place
+            bufferObject.setBufferPool(bufferPool);
+            return (byteCount == size) ? bufferObject : rc.putBufferObject(this.pointBufferKey, bufferObject);
+        }
+
+        bufferObject = new BufferObject(GLES20.GL_ARRAY_BUFFER, size, buffer);
+        bufferObject.setBufferPool(bufferPool);
 
-        return rc.putBufferObject(this.pointBufferKey, new BufferObject(GLES20.GL_ARRAY_BUFFER, size, buffer));
+        return rc.putBufferObject(this.pointBufferKey, bufferObject);
     }
 }
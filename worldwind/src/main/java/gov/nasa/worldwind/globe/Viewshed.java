@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.globe;
+
+import android.graphics.Bitmap;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.ImageSource;
+
+/**
+ * Visibility raster computed by {@link ViewshedAnalyzer}. The raster is a grid of posts spanning a geographic sector,
+ * arranged in the same order as {@link ElevationModel#getHeightGrid(Sector, int, int, float[])}: the first row lies
+ * along the sector's minimum latitude, the last row along its maximum latitude, and each row runs from the sector's
+ * minimum longitude to its maximum longitude. Each post records how many observers can see it and how many observers
+ * have it within range.
+ * <p/>
+ * A viewshed computed from an elevation model records the number of posts the elevation model had no heights for, and
+ * the elevation model's timestamp at the time the heights were sampled. Applications may compare the timestamp to the
+ * elevation model's current timestamp to determine whether the elevation model has retrieved new data since the
+ * viewshed was computed.
+ */
+public class Viewshed {
+
+    protected final Sector sector = new Sector();
+
+    protected int width;
+
+    protected int height;
+
+    protected int observerCount;
+
+    protected short[] visibleCounts;
+
+    protected short[] rangeCounts;
+
+    protected int missingHeightCount;
+
+    protected long elevationTimestamp;
+
+    protected Viewshed(Sector sector, int width, int height, int observerCount) {
+        this.sector.set(sector);
+        this.width = width;
+        this.height = height;
+        this.observerCount = observerCount;
+        this.visibleCounts = new short[width * height];
+        this.rangeCounts = new short[width * height];
+    }
+
+    public Sector getSector() {
+        return this.sector;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int getObserverCount() {
+        return this.observerCount;
+    }
+
+    /**
+     * Returns the number of grid posts the heights were missing for. Missing heights are treated as zero.
+     *
+     * @return the missing height count
+     */
+    public int getMissingHeightCount() {
+        return this.missingHeightCount;
+    }
+
+    /**
+     * Returns the timestamp of the elevation model the heights were sampled from, or 0 if the heights were provided by
+     * the application.
+     *
+     * @return the elevation model timestamp
+     */
+    public long getElevationTimestamp() {
+        return this.elevationTimestamp;
+    }
+
+    /**
+     * Indicates whether this viewshed was computed with heights for every grid post, and the elevation model has not
+     * retrieved new data since.
+     *
+     * @param elevationModel the elevation model the viewshed was computed from
+     *
+     * @return true if the viewshed is complete and current, otherwise false
+     */
+    public boolean isComplete(ElevationModel elevationModel) {
+        return this.missingHeightCount == 0 && elevationModel.getTimestamp() == this.elevationTimestamp;
+    }
+
+    /**
+     * Returns the number of observers that can see a specified grid post.
+     *
+     * @param column the post's column, from 0 at the sector's minimum longitude
+     * @param row    the post's row, from 0 at the sector's minimum latitude
+     *
+     * @return the number of observers that can see the post
+     */
+    public int getVisibleCount(int column, int row) {
+        return this.visibleCounts[row * this.width + column];
+    }
+
+    /**
+     * Returns the number of observers whose range includes a specified grid post.
+     *
+     * @param column the post's column, from 0 at the sector's minimum longitude
+     * @param row    the post's row, from 0 at the sector's minimum latitude
+     *
+     * @return the number of observers whose range includes the post
+     */
+    public int getRangeCount(int column, int row) {
+        return this.rangeCounts[row * this.width + column];
+    }
+
+    public boolean isVisible(int column, int row) {
+        return this.visibleCounts[row * this.width + column] > 0;
+    }
+
+    /**
+     * Returns a grid indicating which posts are visible to at least one observer, in the same order as the viewshed.
+     *
+     * @param result a pre-allocated array of at least width x height elements, or null to allocate a new array
+     *
+     * @return the visibility grid
+     */
+    public boolean[] getVisibilityGrid(boolean[] result) {
+        if (result == null || result.length < this.visibleCounts.length) {
+            result = new boolean[this.visibleCounts.length];
+        }
+
+        for (int idx = 0, len = this.visibleCounts.length; idx < len; idx++) {
+            result[idx] = this.visibleCounts[idx] > 0;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the viewshed as ARGB pixels arranged for an image displayed over the viewshed's sector: the first pixel
+     * row corresponds to the sector's maximum latitude. Posts outside every observer's range are transparent.
+     *
+     * @param visibleColor  the ARGB color of posts visible to at least one observer
+     * @param occludedColor the ARGB color of posts within range of an observer but visible to none
+     *
+     * @return the pixels, width x height in row-major order
+     */
+    public int[] getPixels(int visibleColor, int occludedColor) {
+        int[] pixels = new int[this.width * this.height];
+        for (int row = 0; row < this.height; row++) {
+            int src = row * this.width;
+            int dst = (this.height - 1 - row) * this.width;
+            for (int col = 0; col < this.width; col++, src++, dst++) {
+                if (this.visibleCounts[src] > 0) {
+                    pixels[dst] = visibleColor;
+                } else if (this.rangeCounts[src] > 0) {
+                    pixels[dst] = occludedColor;
+                }
+            }
+        }
+
+        return pixels;
+    }
+
+    /**
+     * Returns an image source displaying the viewshed, suitable for a {@link gov.nasa.worldwind.shape.SurfaceImage}
+     * over the viewshed's sector. The image is created when the image source is retrieved.
+     *
+     * @param visibleColor  the ARGB color of posts visible to at least one observer
+     * @param occludedColor the ARGB color of posts within range of an observer but visible to none
+     *
+     * @return an image source displaying the viewshed
+     */
+    public ImageSource toImageSource(final int visibleColor, final int occludedColor) {
+        return ImageSource.fromBitmapFactory(new ImageSource.BitmapFactory() {
+            @Override
+            public Bitmap createBitmap() {
+                int[] pixels = getPixels(visibleColor, occludedColor);
+                return Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888);
+            }
+        });
+    }
+}
@@ -0,0 +1,535 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.globe;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Location;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Computes viewsheds on the CPU from a grid of terrain heights. A viewshed indicates which grid posts are visible from
+ * one or more observers, each positioned at a height above the terrain and limited to a range in meters. Viewsheds are
+ * computed without OpenGL, so ViewshedAnalyzer may be used for analysis and reporting outside of the WorldWindow.
+ * <p/>
+ * Visibility is computed with the R2 sweep algorithm: rays are cast from each observer to each grid post on the
+ * perimeter of the observer's range, and each post along a ray is visible when its elevation angle from the observer
+ * is at least the greatest elevation angle of the terrain between them. Heights are interpolated where rays cross
+ * between grid posts, and lowered to account for the curvature of the globe and atmospheric refraction. Observers are
+ * computed in parallel, one observer per task.
+ * <p/>
+ * Heights may be sampled from an elevation model, or provided by the application. ElevationModel is not thread safe,
+ * and is otherwise accessed by the WorldWindow on the main thread, so heights are sampled on the main thread while the
+ * thread calling analyze waits. An elevation model returns its best available heights without
+ * waiting for retrieval, and requests retrieval of the heights it's missing. The resultant {@link Viewshed} records the
+ * number of missing heights and the elevation model's timestamp, enabling applications to compute the viewshed again
+ * once the elevation model has retrieved the missing data.
+ */
+public class ViewshedAnalyzer {
+
+    /**
+     * An observer positioned at a height above the terrain, whose view is limited to a range in meters.
+     */
+    public static class Observer {
+
+        public final Location location = new Location();
+
+        /**
+         * The observer's height above the terrain, in meters.
+         */
+        public double observerHeight;
+
+        /**
+         * The height above the terrain at which targets are visible, in meters.
+         */
+        public double targetHeight;
+
+        /**
+         * The distance from the observer within which terrain may be visible, in meters.
+         */
+        public double range;
+
+        public Observer(double latitude, double longitude, double observerHeight, double range) {
+            this.location.set(latitude, longitude);
+            this.observerHeight = observerHeight;
+            this.range = range;
+        }
+    }
+
+    protected double globeRadius = WorldWind.WGS84_SEMI_MAJOR_AXIS;
+
+    protected double refractionCoefficient = 0.13;
+
+    protected int threadCount = Runtime.getRuntime().availableProcessors();
+
+    protected ThreadPoolExecutor executorService;
+
+    protected Handler mainHandler;
+
+    public ViewshedAnalyzer() {
+    }
+
+    public double getGlobeRadius() {
+        return this.globeRadius;
+    }
+
+    public void setGlobeRadius(double radius) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ViewshedAnalyzer", "setGlobeRadius", "invalidRadius"));
+        }
+
+        this.globeRadius = radius;
+    }
+
+    /**
+     * Indicates the coefficient of atmospheric refraction, which reduces the effect of the globe's curvature on
+     * visibility. The default of 0.13 corresponds to the standard atmosphere for visible light.
+     *
+     * @return the refraction coefficient
+     */
+    public double getRefractionCoefficient() {
+        return this.refractionCoefficient;
+    }
+
+    public void setRefractionCoefficient(double coefficient) {
+        this.refractionCoefficient = coefficient;
+    }
+
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+
+    /**
+     * Sets the maximum number of threads used to compute observers in parallel. The default is the number of
+     * processors available to the virtual machine.
+     *
+     * @param count the thread count
+     *
+     * @throws IllegalArgumentException If the count is less than 1
+     */
+    public void setThreadCount(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ViewshedAnalyzer", "setThreadCount", "invalidCount"));
+        }
+
+        this.threadCount = count;
+        if (this.executorService != null) { // create a new executor with the new thread count when it's next needed
+            this.executorService.shutdown();
+            this.executorService = null;
+        }
+    }
+
+    /**
+     * Samples a grid of heights from an elevation model. Grid posts without heights are assigned NaN. The elevation
+     * model is accessed on the main thread; this method waits for the heights when called from another thread.
+     *
+     * @param elevationModel the elevation model to sample
+     * @param sector         the grid's sector
+     * @param width          the number of grid posts in the longitudinal direction
+     * @param height         the number of grid posts in the latitudinal direction
+     *
+     * @return the heights, in the order described by {@link Viewshed}
+     *
+     * @throws IllegalArgumentException If either the elevation model or the sector is null, or if either the width or
+     *                                  the height is less than 2
+     */
+    public float[] sampleHeights(ElevationModel elevationModel, Sector sector, int width, int height) {
+        return this.sampleHeights(elevationModel, sector, width, height, null);
+    }
+
+    protected float[] sampleHeights(final ElevationModel elevationModel, final Sector sector, final int width,
+                                    final int height, final long[] timestamp) {
+        if (elevationModel == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ViewshedAnalyzer", "sampleHeights", "missingElevationModel"));
+        }
+
+        if (sector == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ViewshedAnalyzer", "sampleHeights", "missingSector"));
+        }
+
+        if (width < 2 || height < 2) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ViewshedAnalyzer", "sampleHeights", "invalidWidthOrHeight"));
+        }
+
+        final float[] heights = new float[width * height];
+        Arrays.fill(heights, Float.NaN); // elevation coverages assign only the posts they cover
+        this.runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                if (timestamp != null) {
+                    timestamp[0] = elevationModel.getTimestamp();
+                }
+                elevationModel.getHeightGrid(sector, width, height, heights);
+            }
+        });
+
+        return heights;
+    }
+
+    /**
+     * Computes the viewshed of one or more observers from heights sampled from an elevation model.
+     *
+     * @param elevationModel the elevation model to sample
+     * @param sector         the viewshed's sector
+     * @param width          the number of grid posts in the longitudinal direction
+     * @param height         the number of grid posts in the latitudinal direction
+     * @param observers      the observers, each of which must lie within the sector to contribute to the viewshed
+     *
+     * @return the viewshed
+     *
+     * @throws IllegalArgumentException If any argument is null, or if either the width or the height is less than 2
+     * @throws InterruptedException     If the calling thread is interrupted while waiting for the viewshed
+     */
+    public Viewshed analyze(ElevationModel elevationModel, Sector sector, int width, int height, List<Observer> observers)
+        throws InterruptedException {
+        long[] timestamp = new long[1];
+        float[] heights = this.sampleHeights(elevationModel, sector, width, height, timestamp);
+
+        Viewshed viewshed = this.analyze(heights, sector, width, height, observers);
+        viewshed.elevationTimestamp = timestamp[0];
+
+        return viewshed;
+    }
+
+    /**
+     * Computes the viewshed of one or more observers from a grid of heights. NaN heights are treated as missing.
+     *
+     * @param heights   the heights in meters, in the order described by {@link Viewshed}
+     * @param sector    the viewshed's sector
+     * @param width     the number of grid posts in the longitudinal direction
+     * @param height    the number of grid posts in the latitudinal direction
+     * @param observers the observers, each of which must lie within the sector to contribute to the viewshed
+     *
+     * @return the viewshed
+     *
+     * @throws IllegalArgumentException If any argument is null, if either the width or the height is less than 2, or
+     *                                  if the heights array has fewer than width x height elements
+     * @throws InterruptedException     If the calling thread is interrupted while waiting for the viewshed
+     */
+    public Viewshed analyze(float[] heights, Sector sector, int width, int height, List<Observer> observers)
+        throws InterruptedException {
+        if (sector == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ViewshedAnalyzer", "analyze", "missingSector"));
+        }
+
+        if (width < 2 || height < 2) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ViewshedAnalyzer", "analyze", "invalidWidthOrHeight"));
+        }
+
+        if (heights == null || heights.length < width * height) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ViewshedAnalyzer", "analyze", "missingArray"));
+        }
+
+        if (observers == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ViewshedAnalyzer", "analyze", "missingList"));
+        }
+
+        // Copy the heights, replacing missing heights with zero.
+        final float[] grid = Arrays.copyOf(heights, width * height);
+        int missingCount = 0;
+        for (int idx = 0, len = grid.length; idx < len; idx++) {
+            if (Float.isNaN(grid[idx])) {
+                grid[idx] = 0;
+                missingCount++;
+            }
+        }
+
+        final Viewshed viewshed = new Viewshed(sector, width, height, observers.size());
+        viewshed.missingHeightCount = missingCount;
+
+        if (observers.size() <= 1 || this.threadCount <= 1) {
+            for (int idx = 0, len = observers.size(); idx < len; idx++) {
+                this.computeObserver(grid, observers.get(idx), viewshed);
+            }
+
+            return viewshed;
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (final Observer observer : observers) {
+                futures.add(this.executorService().submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        computeObserver(grid, observer, viewshed);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            rethrow(ex);
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true); // cancels any unfinished tasks when an exception or interrupt occurs
+            }
+        }
+
+        return viewshed;
+    }
+
+    /**
+     * Runs a task on the main thread, waiting for the task to complete when called from another thread. Runs the task
+     * on the calling thread when there's no main thread, as in JVM unit tests.
+     */
+    protected void runOnMainThread(Runnable task) {
+        Looper looper = Looper.getMainLooper();
+        if (looper == null || looper.getThread() == Thread.currentThread()) {
+            task.run();
+            return;
+        }
+
+        if (this.mainHandler == null) {
+            this.mainHandler = new Handler(looper);
+        }
+
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        this.mainHandler.post(future);
+
+        // Wait for the task without responding to interrupts, since the task writes to the caller's height array.
+        // Sampling is brief, as elevation models retrieve missing heights asynchronously.
+        boolean interrupted = false;
+        while (true) {
+            try {
+                future.get();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            } catch (ExecutionException ex) {
+                rethrow(ex);
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt(); // restore the interrupt for the calling thread
+        }
+    }
+
+    protected static void rethrow(ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else {
+            throw new RuntimeException(cause);
+        }
+    }
+
+    protected ExecutorService executorService() {
+        if (this.executorService == null) {
+            final AtomicInteger threadNumber = new AtomicInteger(1);
+            this.executorService = new ThreadPoolExecutor(this.threadCount, this.threadCount, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "WorldWind Viewshed Analyzer " + threadNumber.getAndIncrement());
+                    thread.setDaemon(true); // analysis threads do not prevent the process from terminating
+                    return thread;
+                }
+            });
+            this.executorService.allowCoreThreadTimeOut(true); // idle analyzers do not retain their threads
+        }
+
+        return this.executorService;
+    }
+
+    /**
+     * Computes the visibility of one observer within a window of the grid bounding its range, then adds the observer's
+     * visibility to the viewshed.
+     */
+    protected void computeObserver(float[] heights, Observer observer, Viewshed viewshed) {
+        Sector sector = viewshed.sector;
+        int width = viewshed.width;
+        int height = viewshed.height;
+        double deltaLon = sector.deltaLongitude() / (width - 1);
+        double deltaLat = sector.deltaLatitude() / (height - 1);
+
+        // Find the grid post nearest the observer. Observers outside the grid are ignored.
+        int cx = (int) Math.round((observer.location.longitude - sector.minLongitude()) / deltaLon);
+        int cy = (int) Math.round((observer.location.latitude - sector.minLatitude()) / deltaLat);
+        if (cx < 0 || cx >= width || cy < 0 || cy >= height || !(observer.range > 0)) {
+            return;
+        }
+
+        // Approximate the grid's spacing in meters near the observer.
+        double metersPerColumn = this.globeRadius * Math.toRadians(deltaLon) * Math.cos(Math.toRadians(observer.location.latitude));
+        double metersPerRow = this.globeRadius * Math.toRadians(deltaLat);
+        if (!(metersPerColumn > 0) || !(metersPerRow > 0)) {
+            return;
+        }
+
+        // Compute the window of grid posts bounding the observer's range.
+        int rangeCols = (int) Math.min(Math.ceil(observer.range / metersPerColumn), width);
+        int rangeRows = (int) Math.min(Math.ceil(observer.range / metersPerRow), height);
+        RayState ray = new RayState();
+        ray.heights = heights;
+        ray.gridWidth = width;
+        ray.gridHeight = height;
+        ray.minCol = Math.max(0, cx - rangeCols);
+        ray.maxCol = Math.min(width - 1, cx + rangeCols);
+        ray.minRow = Math.max(0, cy - rangeRows);
+        ray.maxRow = Math.min(height - 1, cy + rangeRows);
+        ray.windowWidth = ray.maxCol - ray.minCol + 1;
+        ray.visible = new boolean[ray.windowWidth * (ray.maxRow - ray.minRow + 1)];
+        ray.cx = cx;
+        ray.cy = cy;
+        ray.metersPerColumn = metersPerColumn;
+        ray.metersPerRow = metersPerRow;
+        ray.range = observer.range;
+        ray.observerElevation = heights[cy * width + cx] + observer.observerHeight;
+        ray.targetHeight = observer.targetHeight;
+        ray.curvature = (1 - this.refractionCoefficient) / (2 * this.globeRadius);
+
+        // Cast a ray to each post on the window's perimeter.
+        ray.visible[(cy - ray.minRow) * ray.windowWidth + (cx - ray.minCol)] = true;
+        for (int col = ray.minCol; col <= ray.maxCol; col++) {
+            this.traceRay(ray, col, ray.minRow);
+            this.traceRay(ray, col, ray.maxRow);
+        }
+        for (int row = ray.minRow + 1; row < ray.maxRow; row++) {
+            this.traceRay(ray, ray.minCol, row);
+            this.traceRay(ray, ray.maxCol, row);
+        }
+
+        // Add the observer's visibility to the viewshed. Observers computed in parallel share the viewshed's arrays.
+        double rangeSquared = observer.range * observer.range;
+        synchronized (viewshed) {
+            for (int row = ray.minRow; row <= ray.maxRow; row++) {
+                double dy = (row - cy) * metersPerRow;
+                for (int col = ray.minCol; col <= ray.maxCol; col++) {
+                    double dx = (col - cx) * metersPerColumn;
+                    if (dx * dx + dy * dy <= rangeSquared) {
+                        int idx = row * width + col;
+                        viewshed.rangeCounts[idx]++;
+                        if (ray.visible[(row - ray.minRow) * ray.windowWidth + (col - ray.minCol)]) {
+                            viewshed.visibleCounts[idx]++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Casts a ray from the observer to a post on the window's perimeter, marking the posts along the ray that are
+     * visible from the observer. The ray advances one post at a time along its major axis, interpolating heights where
+     * it crosses between posts along its minor axis.
+     */
+    protected void traceRay(RayState ray, int tx, int ty) {
+        int dx = tx - ray.cx;
+        int dy = ty - ray.cy;
+        int steps = Math.max(Math.abs(dx), Math.abs(dy));
+        double maxSlope = Double.NEGATIVE_INFINITY;
+
+        for (int step = 1; step <= steps; step++) {
+            double fx = ray.cx + (double) dx * step / steps;
+            double fy = ray.cy + (double) dy * step / steps;
+            double ex = (fx - ray.cx) * ray.metersPerColumn;
+            double ey = (fy - ray.cy) * ray.metersPerRow;
+            double distance = Math.sqrt(ex * ex + ey * ey);
+            if (distance > ray.range) {
+                break; // the remainder of the ray is beyond the observer's range
+            }
+
+            // Lower the terrain to account for the globe's curvature as seen from the observer.
+            double elevation = ray.interpolateHeight(fx, fy) - distance * distance * ray.curvature;
+
+            // The post nearest the ray is visible when the target above it is at or above the highest elevation angle
+            // between it and the observer.
+            double targetSlope = (elevation + ray.targetHeight - ray.observerElevation) / distance;
+            if (targetSlope >= maxSlope) {
+                int px = (int) Math.round(fx);
+                int py = (int) Math.round(fy);
+                ray.visible[(py - ray.minRow) * ray.windowWidth + (px - ray.minCol)] = true;
+            }
+
+            double slope = (elevation - ray.observerElevation) / distance;
+            if (maxSlope < slope) {
+                maxSlope = slope;
+            }
+        }
+    }
+
+    protected static class RayState {
+
+        public float[] heights;
+
+        public int gridWidth;
+
+        public int gridHeight;
+
+        public int minCol;
+
+        public int maxCol;
+
+        public int minRow;
+
+        public int maxRow;
+
+        public int windowWidth;
+
+        public boolean[] visible;
+
+        public int cx;
+
+        public int cy;
+
+        public double metersPerColumn;
+
+        public double metersPerRow;
+
+        public double range;
+
+        public double observerElevation;
+
+        public double targetHeight;
+
+        public double curvature;
+
+        public double interpolateHeight(double x, double y) {
+            int x0 = (int) Math.floor(x);
+            int y0 = (int) Math.floor(y);
+            int x1 = Math.min(x0 + 1, this.gridWidth - 1);
+            int y1 = Math.min(y0 + 1, this.gridHeight - 1);
+            double s = x - x0;
+            double t = y - y0;
+
+            float[] h = this.heights;
+            int w = this.gridWidth;
+            double h0 = h[y0 * w + x0] + (h[y0 * w + x1] - h[y0 * w + x0]) * s;
+            double h1 = h[y1 * w + x0] + (h[y1 * w + x1] - h[y1 * w + x0]) * s;
+            return h0 + (h1 - h0) * t;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Frustum;
+import gov.nasa.worldwind.geom.Location;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.geom.Viewport;
+import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.render.Renderable;
+import gov.nasa.worldwind.shape.Ellipse;
+import gov.nasa.worldwind.shape.Label;
+import gov.nasa.worldwind.shape.Path;
+import gov.nasa.worldwind.shape.Placemark;
+import gov.nasa.worldwind.shape.Polygon;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.SectorTree;
+
+/**
+ * RenderableLayer that maintains a geographic index of its renderables, and renders only the renderables in regions of
+ * the index that intersect the view frustum. Suited to layers containing many thousands of renderables, most of which
+ * are off screen at any given time.
+ * <p/>
+ * Placemarks, labels, paths, polygons and ellipses are indexed by the sector spanned by their positions, including the
+ * great circle edges between positions of paths and polygons, which bow poleward of their positions. All other
+ * renderables are rendered every frame, as in RenderableLayer. The index is updated when renderables are added, set or
+ * removed. Applications that change the position of a renderable already in the layer must call {@link
+ * #updateRenderable(Renderable)} to update its sector in the index.
+ * <p/>
+ * Index regions are bounded between the lowest terrain and the highest renderable position, and are tested against a
+ * frustum enlarged by a screen margin so that placemark icons and labels extending beyond their geographic position
+ * are rendered as they enter the viewport. Unlike RenderableLayer, renderables are rendered in no particular order,
+ * and each renderable is rendered once per frame regardless of how many times it appears in the layer.
+ */
+public class IndexedRenderableLayer extends RenderableLayer {
+
+    protected static final double MIN_TERRAIN_HEIGHT = -11000; // the depth of the Mariana Trench, in meters
+
+    protected static final double MAX_TERRAIN_HEIGHT = 9000; // slightly above the height of Mount Everest, in meters
+
+    protected SectorTree<Renderable> index = new SectorTree<>();
+
+    protected ArrayList<Renderable> unindexed = new ArrayList<>();
+
+    protected HashMap<Renderable, Integer> occurrences = new HashMap<>();
+
+    protected ArrayList<Renderable> visibleRenderables = new ArrayList<>();
+
+    protected double maxAltitude;
+
+    protected double viewportMargin = 256;
+
+    protected Frustum visibleFrustum = new Frustum();
+
+    protected Viewport visibleViewport = new Viewport();
+
+    protected Sector scratchSector = new Sector();
+
+    public IndexedRenderableLayer() {
+    }
+
+    public IndexedRenderableLayer(String displayName) {
+        super(displayName);
+    }
+
+    public IndexedRenderableLayer(RenderableLayer layer) {
+        if (layer == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "IndexedRenderableLayer", "constructor", "missingLayer"));
+        }
+
+        this.setDisplayName(layer.displayName);
+        this.addAllRenderables(layer);
+    }
+
+    public IndexedRenderableLayer(Iterable<? extends Renderable> renderables) {
+        if (renderables == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "IndexedRenderableLayer", "constructor", "missingList"));
+        }
+
+        this.addAllRenderables(renderables);
+    }
+
+    /**
+     * Returns the distance in screen pixels beyond the viewport edges in which renderables are considered visible.
+     *
+     * @return the viewport margin, in pixels
+     */
+    public double getViewportMargin() {
+        return this.viewportMargin;
+    }
+
+    /**
+     * Sets the distance in screen pixels beyond the viewport edges in which renderables are considered visible. The
+     * margin should be at least half the screen size of the largest placemark or label in the layer.
+     *
+     * @param margin the viewport margin, in pixels
+     */
+    public void setViewportMargin(double margin) {
+        this.viewportMargin = margin;
+    }
+
+    /**
+     * Updates the sector of a renderable in this layer's geographic index. Must be called after changing the position
+     * or positions of a renderable in this layer.
+     *
+     * @param renderable the renderable to update
+     *
+     * @throws IllegalArgumentException If the renderable is null
+     */
+    public void updateRenderable(Renderable renderable) {
+        if (renderable == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "IndexedRenderableLayer", "updateRenderable", "missingRenderable"));
+        }
+
+        if (this.occurrences.containsKey(renderable)) {
+            this.addToIndex(renderable);
+        }
+    }
+
+    @Override
+    public Renderable setRenderable(int index, Renderable renderable) {
+        Renderable oldRenderable = super.setRenderable(index, renderable);
+        this.removeOccurrence(oldRenderable);
+        this.addOccurrence(renderable);
+        return oldRenderable;
+    }
+
+    @Override
+    public void addRenderable(Renderable renderable) {
+        super.addRenderable(renderable);
+        this.addOccurrence(renderable);
+    }
+
+    @Override
+    public void addRenderable(int index, Renderable renderable) {
+        super.addRenderable(index, renderable);
+        this.addOccurrence(renderable);
+    }
+
+    @Override
+    public void addAllRenderables(RenderableLayer layer) {
+        if (layer == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "IndexedRenderableLayer", "addAllRenderables", "missingLayer"));
+        }
+
+        ArrayList<Renderable> thatList = layer.renderables;
+        this.renderables.ensureCapacity(this.renderables.size() + thatList.size());
+
+        for (int idx = 0, len = thatList.size(); idx < len; idx++) {
+            Renderable renderable = thatList.get(idx); // we know the contents of layer.renderables is valid
+            this.renderables.add(renderable);
+            this.addOccurrence(renderable);
+        }
+    }
+
+    @Override
+    public void addAllRenderables(Iterable<? extends Renderable> iterable) {
+        if (iterable == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "IndexedRenderableLayer", "addAllRenderables", "missingIterable"));
+        }
+
+        for (Renderable renderable : iterable) {
+            if (renderable == null) {
+                throw new IllegalArgumentException(
+                    Logger.logMessage(Logger.ERROR, "IndexedRenderableLayer", "addAllRenderables", "missingRenderable"));
+            }
+
+            this.renderables.add(renderable);
+            this.addOccurrence(renderable);
+        }
+    }
+
+    @Override
+    public boolean removeRenderable(Renderable renderable) {
+        boolean removed = super.removeRenderable(renderable);
+        if (removed) {
+            this.removeOccurrence(renderable);
+        }
+
+        return removed;
+    }
+
+    @Override
+    public Renderable removeRenderable(int index) {
+        Renderable renderable = super.removeRenderable(index);
+        this.removeOccurrence(renderable);
+        return renderable;
+    }
+
+    @Override
+    public boolean removeAllRenderables(Iterable<? extends Renderable> renderables) {
+        if (renderables == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "IndexedRenderableLayer", "removeAllRenderables", "missingList"));
+        }
+
+        boolean removed = false;
+
+        for (Renderable renderable : renderables) {
+            removed |= this.removeRenderable(renderable);
+        }
+
+        return removed;
+    }
+
+    @Override
+    public void clearRenderables() {
+        super.clearRenderables();
+        this.index.clear();
+        this.unindexed.clear();
+        this.occurrences.clear();
+        this.maxAltitude = 0;
+    }
+
+    /**
+     * Returns an iterator over this layer's renderables. The iterator does not support removal; use removeRenderable
+     * to keep the geographic index up to date.
+     *
+     * @return an iterator over this layer's renderables
+     */
+    @Override
+    public Iterator<Renderable> iterator() {
+        return Collections.unmodifiableList(this.renderables).iterator();
+    }
+
+    @Override
+    protected void doRender(RenderContext rc) {
+        if (rc.globe != null) {
+            // Bound the index regions between the lowest terrain and the highest renderable, which may be relative to
+            // the terrain. The altitude range changes only when renderables are added or moved.
+            double ve = rc.verticalExaggeration;
+            float minHeight = (float) (MIN_TERRAIN_HEIGHT * ve);
+            float maxHeight = (float) (MAX_TERRAIN_HEIGHT * ve + this.maxAltitude * ve);
+            this.computeVisibleFrustum(rc, this.visibleFrustum);
+            this.index.query(this.visibleFrustum, rc.globe, minHeight, maxHeight, this.visibleRenderables);
+        } else {
+            this.index.query(this.scratchSector.setFullSphere(), this.visibleRenderables);
+        }
+
+        this.visibleRenderables.addAll(this.unindexed);
+
+        for (int idx = 0, len = this.visibleRenderables.size(); idx < len; idx++) {
+            Renderable renderable = this.visibleRenderables.get(idx);
+            try {
+                renderable.render(rc);
+            } catch (Exception e) {
+                Logger.logMessage(Logger.ERROR, "IndexedRenderableLayer", "doRender",
+                    "Exception while rendering shape \'" + renderable.getDisplayName() + "\'", e);
+                // Keep going. Draw the remaining renderables.
+            }
+        }
+
+        this.visibleRenderables.clear(); // don't hold references to the renderables between frames
+    }
+
+    /**
+     * Computes the frustum in which renderables are potentially visible. Renderables in index regions outside this
+     * frustum are not rendered. The default implementation returns the current frustum enlarged by the viewport
+     * margin.
+     *
+     * @param rc     the current render context
+     * @param result a pre-allocated Frustum in which to store the computed frustum
+     *
+     * @return the result argument set to the visible frustum
+     */
+    protected Frustum computeVisibleFrustum(RenderContext rc, Frustum result) {
+        Viewport viewport = rc.viewport;
+        int margin = (int) Math.ceil(this.viewportMargin);
+        this.visibleViewport.set(viewport.x - margin, viewport.y - margin,
+            viewport.width + 2 * margin, viewport.height + 2 * margin);
+        return result.setToModelviewProjection(rc.projection, rc.modelview, viewport, this.visibleViewport);
+    }
+
+    /**
+     * Computes the geographic sector spanned by a renderable's positions and, for paths and polygons, the great circle
+     * edges between them. Returns false when the renderable's type is
+     * not known to this layer, or the renderable has no positions, in which case the renderable is rendered every
+     * frame.
+     *
+     * @param renderable the renderable whose sector to compute
+     * @param result     a pre-allocated Sector in which to store the computed sector
+     *
+     * @return true if the renderable's sector is known, otherwise false
+     */
+    protected boolean computeSector(Renderable renderable, Sector result) {
+        result.setEmpty();
+
+        if (renderable instanceof Placemark) {
+            return this.unionPosition(((Placemark) renderable).getPosition(), result);
+        } else if (renderable instanceof Label) {
+            return this.unionPosition(((Label) renderable).getPosition(), result);
+        } else if (renderable instanceof Path) {
+            Path path = (Path) renderable;
+            return this.unionPositions(path.getPositions(), path.getPathType(), false /*closed*/, result);
+        } else if (renderable instanceof Polygon) {
+            Polygon polygon = (Polygon) renderable;
+            boolean known = false;
+            for (int idx = 0, len = polygon.getBoundaryCount(); idx < len; idx++) {
+                known |= this.unionPositions(polygon.getBoundary(idx), polygon.getPathType(), true /*closed*/, result);
+            }
+            return known;
+        } else if (renderable instanceof Ellipse) {
+            Ellipse ellipse = (Ellipse) renderable;
+            Position center = ellipse.getCenter();
+            if (center == null) {
+                return false;
+            }
+            // Bound the ellipse by a circle of its larger radius, widening the longitude range away from the equator.
+            double radius = Math.max(ellipse.getMajorRadius(), ellipse.getMinorRadius());
+            double deltaLat = Math.toDegrees(radius / WorldWind.WGS84_ELLIPSOID.semiMajorAxis());
+            double cosLat = Math.cos(Math.toRadians(Math.min(Math.abs(center.latitude) + deltaLat, 90)));
+            double deltaLon = (cosLat > 1.0e-6) ? Math.min(deltaLat / cosLat, 180) : 180;
+            result.set(center.latitude - deltaLat, center.longitude - deltaLon, 2 * deltaLat, 2 * deltaLon);
+            this.maxAltitude = Math.max(this.maxAltitude, center.altitude);
+            return true;
+        }
+
+        return false;
+    }
+
+    protected boolean unionPosition(Position position, Sector result) {
+        if (position == null) {
+            return false;
+        }
+
+        if (this.maxAltitude < position.altitude) {
+            this.maxAltitude = position.altitude;
+        }
+
+        this.unionLocation(position.latitude, position.longitude, result);
+
+        return true;
+    }
+
+    protected void unionLocation(double latitude, double longitude, Sector result) {
+        if (Double.isNaN(result.minLatitude())) { // start with the point sector at the first location
+            result.set(latitude, longitude, 0, 0);
+        } else { // Sector.union does not retain the extent of a sector with zero width or height
+            double maxLat = Double.isNaN(result.maxLatitude()) ? result.minLatitude() : result.maxLatitude();
+            double maxLon = Double.isNaN(result.maxLongitude()) ? result.minLongitude() : result.maxLongitude();
+            double minLat = Math.min(result.minLatitude(), latitude);
+            double minLon = Math.min(result.minLongitude(), longitude);
+            maxLat = Math.max(maxLat, latitude);
+            maxLon = Math.max(maxLon, longitude);
+            result.set(minLat, minLon, maxLat - minLat, maxLon - minLon); // zero extents have NaN maximums
+        }
+    }
+
+    protected boolean unionPositions(List<Position> positions, @WorldWind.PathType int pathType, boolean closed,
+                                     Sector result) {
+        boolean known = false;
+        for (int idx = 0, len = positions.size(); idx < len; idx++) {
+            known |= this.unionPosition(positions.get(idx), result);
+        }
+
+        // Great circle edges reach beyond the latitudes of their positions. Rhumb lines and linear edges are monotonic
+        // in latitude and longitude, and lie within the sector spanned by their positions.
+        if (known && pathType == WorldWind.GREAT_CIRCLE) {
+            int len = positions.size();
+            for (int idx = (closed ? 0 : 1); idx < len; idx++) {
+                Position begin = positions.get((idx > 0) ? idx - 1 : len - 1);
+                Position end = positions.get(idx);
+                if (begin != null && end != null) {
+                    this.unionGreatCircleExtremes(begin, end, result);
+                }
+            }
+        }
+
+        return known;
+    }
+
+    /**
+     * Adds to a sector the northernmost and southernmost points of the great circle arc between two locations, when
+     * those points lie between the locations. The sector must already contain the locations.
+     */
+    protected void unionGreatCircleExtremes(Location begin, Location end, Sector result) {
+        double lat1 = Math.toRadians(begin.latitude), lon1 = Math.toRadians(begin.longitude);
+        double lat2 = Math.toRadians(end.latitude), lon2 = Math.toRadians(end.longitude);
+        double x1 = Math.cos(lat1) * Math.cos(lon1), y1 = Math.cos(lat1) * Math.sin(lon1), z1 = Math.sin(lat1);
+        double x2 = Math.cos(lat2) * Math.cos(lon2), y2 = Math.cos(lat2) * Math.sin(lon2), z2 = Math.sin(lat2);
+
+        // The normal to the arc's plane. Coincident and antipodal locations have no unique arc.
+        double nx = y1 * z2 - z1 * y2, ny = z1 * x2 - x1 * z2, nz = x1 * y2 - y1 * x2;
+        double n2 = nx * nx + ny * ny + nz * nz;
+        if (n2 < 1.0e-20) {
+            return;
+        }
+
+        // The great circle's northernmost point is the direction of the north pole projected onto the arc's plane.
+        // The equator has no such point.
+        double vx = -nz * nx / n2, vy = -nz * ny / n2, vz = 1 - nz * nz / n2;
+        double vlen = Math.sqrt(vx * vx + vy * vy + vz * vz);
+        if (vlen < 1.0e-10) {
+            return;
+        }
+
+        for (int sign = 1; sign >= -1; sign -= 2) { // the northernmost point, then the southernmost point
+            double px = sign * vx / vlen, py = sign * vy / vlen, pz = sign * vz / vlen;
+            // The point lies on the arc when it's between the arc's endpoints in the direction of the arc's normal.
+            double before = (y1 * pz - z1 * py) * nx + (z1 * px - x1 * pz) * ny + (x1 * py - y1 * px) * nz;
+            double after = (py * z2 - pz * y2) * nx + (pz * x2 - px * z2) * ny + (px * y2 - py * x2) * nz;
+            if (before > 0 && after > 0) {
+                this.unionLocation(Math.toDegrees(Math.asin(pz)), Math.toDegrees(Math.atan2(py, px)), result);
+            }
+        }
+    }
+
+    protected void addOccurrence(Renderable renderable) {
+        Integer count = this.occurrences.get(renderable);
+        this.occurrences.put(renderable, (count != null) ? count + 1 : 1);
+        this.addToIndex(renderable);
+    }
+
+    protected void removeOccurrence(Renderable renderable) {
+        // The same renderable may appear in the layer more than once. Remove it from the index only when its last
+        // occurrence has been removed.
+        Integer count = this.occurrences.get(renderable);
+        if (count == null || count <= 1) {
+            this.occurrences.remove(renderable);
+            this.index.remove(renderable);
+            this.unindexed.remove(renderable);
+        } else {
+            this.occurrences.put(renderable, count - 1);
+        }
+    }
+
+    protected void addToIndex(Renderable renderable) {
+        if (this.computeSector(renderable, this.scratchSector)) {
+            this.unindexed.remove(renderable);
+            this.index.put(renderable, this.scratchSector);
+        } else if (!this.unindexed.contains(renderable)) {
+            this.index.remove(renderable);
+            this.unindexed.add(renderable);
+        }
+    }
+}
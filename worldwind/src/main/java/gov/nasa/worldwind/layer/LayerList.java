@@ -8,8 +8,10 @@ package gov.nasa.worldwind.layer;
 import java.util.ArrayList;
 import java.util.Iterator;
 
+import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Tracer;
 
 public class LayerList implements Iterable<Layer> {
 
@@ -203,6 +205,9 @@ public class LayerList implements Iterable<Layer> {
     public void render(RenderContext rc) {
         for (int idx = 0, len = this.layers.size(); idx < len; idx++) {
             rc.currentLayer = this.layers.get(idx);
+            String traceName = rc.currentLayer.getDisplayName();
+            WorldWind.tracer().begin(Tracer.LAYER, traceName);
+            long begin = System.nanoTime();
             try {
                 rc.currentLayer.render(rc);
             } catch (Exception e) {
@@ -210,6 +215,12 @@ public class LayerList implements Iterable<Layer> {
                     "Exception while rendering layer \'" + rc.currentLayer.getDisplayName() + "\'", e);
                 // Keep going. Draw the remaining layers.
             }
+
+            WorldWind.tracer().end(Tracer.LAYER, traceName);
+
+            if (rc.frameMetrics != null) {
+                rc.frameMetrics.recordRenderStage(rc.currentLayer, System.nanoTime() - begin);
+            }
         }
 
         rc.currentLayer = null;
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.geom.Offset;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.geom.Viewport;
+import gov.nasa.worldwind.globe.Globe;
+import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.render.Renderable;
+import gov.nasa.worldwind.shape.Label;
+import gov.nasa.worldwind.shape.Placemark;
+import gov.nasa.worldwind.shape.PlacemarkAttributes;
+import gov.nasa.worldwind.shape.TextAttributes;
+import gov.nasa.worldwind.util.ClusterGrid;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * RenderableLayer that groups overlapping placemarks into clusters. Placemarks are binned into a grid of square screen
+ * cells, and each cell containing at least the minimum cluster size is displayed as a single cluster placemark labeled
+ * with the number of placemarks it represents. Clusters split into smaller clusters and individual placemarks as the
+ * camera zooms in, since fewer placemarks fall within each cell.
+ * <p/>
+ * The clusters are recomputed only when the view, the globe or the layer's renderables change, and are reused while the
+ * view is stable. Applications that change the position of a placemark already in the layer must call {@link
+ * #invalidateClusters()}. Renderables other than placemarks are rendered every frame, as in RenderableLayer.
+ * <p/>
+ * Picking a cluster placemark or its label returns an unmodifiable list of the placemarks in the cluster as the picked
+ * object's user object.
+ */
+public class PlacemarkClusterLayer extends RenderableLayer {
+
+    protected double cellSize = 64;
+
+    protected int minClusterSize = 2;
+
+    protected PlacemarkAttributes clusterAttributes = new PlacemarkAttributes()
+        .setImageColor(new Color(1, 0.5f, 0, 1)).setImageScale(24);
+
+    protected TextAttributes clusterTextAttributes = new TextAttributes()
+        .setTextOffset(Offset.center()).setEnableDepthTest(false);
+
+    protected ClusterGrid grid = new ClusterGrid();
+
+    protected ArrayList<Renderable> visibleRenderables = new ArrayList<>();
+
+    protected ArrayList<Placemark> clusterPlacemarks = new ArrayList<>();
+
+    protected ArrayList<Label> clusterLabels = new ArrayList<>();
+
+    protected int clusterCount;
+
+    protected boolean clustersValid;
+
+    protected ArrayList<Renderable> clusteredRenderables = new ArrayList<>();
+
+    protected Matrix4 clusteredModelviewProjection = new Matrix4();
+
+    protected Viewport clusteredViewport = new Viewport();
+
+    protected Globe clusteredGlobe;
+
+    protected double clusteredVerticalExaggeration;
+
+    protected Viewport gridRegion = new Viewport();
+
+    protected Vec3 scratchPoint = new Vec3();
+
+    public PlacemarkClusterLayer() {
+    }
+
+    public PlacemarkClusterLayer(String displayName) {
+        super(displayName);
+    }
+
+    public PlacemarkClusterLayer(RenderableLayer layer) {
+        super(layer);
+    }
+
+    public PlacemarkClusterLayer(Iterable<? extends Renderable> renderables) {
+        super(renderables);
+    }
+
+    /**
+     * Returns the width and height of the screen cells used to group placemarks.
+     *
+     * @return the cell size, in pixels
+     */
+    public double getCellSize() {
+        return this.cellSize;
+    }
+
+    /**
+     * Sets the width and height of the screen cells used to group placemarks. Larger cells produce fewer clusters.
+     *
+     * @param cellSize the cell size, in pixels
+     *
+     * @throws IllegalArgumentException If the cell size is not positive
+     */
+    public void setCellSize(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "setCellSize", "invalidSize"));
+        }
+
+        this.cellSize = cellSize;
+        this.clustersValid = false;
+    }
+
+    /**
+     * Returns the minimum number of placemarks in a screen cell that are displayed as a cluster.
+     *
+     * @return the minimum cluster size
+     */
+    public int getMinClusterSize() {
+        return this.minClusterSize;
+    }
+
+    /**
+     * Sets the minimum number of placemarks in a screen cell that are displayed as a cluster. Cells containing fewer
+     * placemarks display each placemark individually.
+     *
+     * @param minClusterSize the minimum cluster size, at least 2
+     *
+     * @throws IllegalArgumentException If the size is less than 2
+     */
+    public void setMinClusterSize(int minClusterSize) {
+        if (minClusterSize < 2) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "setMinClusterSize", "invalidCount"));
+        }
+
+        this.minClusterSize = minClusterSize;
+        this.clustersValid = false;
+    }
+
+    /**
+     * Returns the attributes used to display cluster placemarks.
+     *
+     * @return the cluster placemark attributes
+     */
+    public PlacemarkAttributes getClusterAttributes() {
+        return this.clusterAttributes;
+    }
+
+    /**
+     * Sets the attributes used to display cluster placemarks.
+     *
+     * @param attributes the cluster placemark attributes
+     *
+     * @throws IllegalArgumentException If the attributes are null
+     */
+    public void setClusterAttributes(PlacemarkAttributes attributes) {
+        if (attributes == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "setClusterAttributes", "missingAttributes"));
+        }
+
+        this.clusterAttributes = attributes;
+        this.clustersValid = false;
+    }
+
+    /**
+     * Returns the attributes used to display the placemark count of each cluster.
+     *
+     * @return the cluster label attributes
+     */
+    public TextAttributes getClusterTextAttributes() {
+        return this.clusterTextAttributes;
+    }
+
+    /**
+     * Sets the attributes used to display the placemark count of each cluster.
+     *
+     * @param attributes the cluster label attributes
+     *
+     * @throws IllegalArgumentException If the attributes are null
+     */
+    public void setClusterTextAttributes(TextAttributes attributes) {
+        if (attributes == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "setClusterTextAttributes", "missingAttributes"));
+        }
+
+        this.clusterTextAttributes = attributes;
+        this.clustersValid = false;
+    }
+
+    /**
+     * Causes the clusters to be recomputed in the next frame. Must be called after changing the position of a placemark
+     * in this layer.
+     */
+    public void invalidateClusters() {
+        this.clustersValid = false;
+    }
+
+    @Override
+    protected void doRender(RenderContext rc) {
+        if (rc.globe == null) {
+            super.doRender(rc);
+            return;
+        }
+
+        if (!this.clustersValid || this.mustRecluster(rc)) {
+            this.assembleClusters(rc);
+            this.clustersValid = true;
+        }
+
+        for (int idx = 0, len = this.visibleRenderables.size(); idx < len; idx++) {
+            Renderable renderable = this.visibleRenderables.get(idx);
+            try {
+                renderable.render(rc);
+            } catch (Exception e) {
+                Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "doRender",
+                    "Exception while rendering shape \'" + renderable.getDisplayName() + "\'", e);
+                // Keep going. Draw the remaining renderables.
+            }
+        }
+    }
+
+    protected boolean mustRecluster(RenderContext rc) {
+        if (!this.clusteredModelviewProjection.equals(rc.modelviewProjection) ||
+            !this.clusteredViewport.equals(rc.viewport) ||
+            this.clusteredGlobe != rc.globe ||
+            this.clusteredVerticalExaggeration != rc.verticalExaggeration) {
+            return true;
+        }
+
+        // Detect renderables added, removed or replaced since the clusters were computed. Comparing references is far
+        // less expensive than recomputing the clusters.
+        ArrayList<Renderable> renderables = this.renderables;
+        ArrayList<Renderable> clustered = this.clusteredRenderables;
+        if (renderables.size() != clustered.size()) {
+            return true;
+        }
+
+        for (int idx = 0, len = renderables.size(); idx < len; idx++) {
+            if (renderables.get(idx) != clustered.get(idx)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    protected void assembleClusters(RenderContext rc) {
+        this.visibleRenderables.clear();
+        this.clusterCount = 0;
+
+        // Bin the placemarks into screen cells covering the viewport and a one cell margin around it, so that
+        // placemarks just outside the viewport whose icons extend into the viewport are displayed.
+        Viewport viewport = rc.viewport;
+        int margin = (int) Math.ceil(this.cellSize);
+        this.gridRegion.set(viewport.x - margin, viewport.y - margin,
+            viewport.width + 2 * margin, viewport.height + 2 * margin);
+        this.grid.reset(this.gridRegion, this.cellSize);
+
+        ArrayList<Renderable> renderables = this.renderables;
+        for (int idx = 0, len = renderables.size(); idx < len; idx++) {
+            Renderable renderable = renderables.get(idx);
+            if (!(renderable instanceof Placemark)) {
+                this.visibleRenderables.add(renderable); // render other renderables every frame
+                continue;
+            }
+
+            Placemark placemark = (Placemark) renderable;
+            if (!placemark.isEnabled() || placemark.getPosition() == null) {
+                continue;
+            }
+
+            // Exclude placemarks beyond the horizon, which would otherwise join clusters on the visible side of the
+            // globe, and placemarks outside the grid.
+            Vec3 point = rc.geographicToCartesian(placemark.getPosition().latitude, placemark.getPosition().longitude,
+                placemark.getPosition().altitude, placemark.getAltitudeMode(), this.scratchPoint);
+            if (rc.cameraPoint.distanceTo(point) > rc.horizonDistance || !rc.project(point, point)) {
+                continue;
+            }
+
+            this.grid.add(idx, point.x, point.y);
+        }
+
+        for (int cell = 0, len = this.grid.getCellCount(); cell < len; cell++) {
+            int count = this.grid.getItemCount(cell);
+            if (count == 0) {
+                continue;
+            }
+
+            if (count < this.minClusterSize) {
+                for (int item = this.grid.getFirstItem(cell); item != -1; item = this.grid.getNextItem(item)) {
+                    this.visibleRenderables.add(renderables.get(this.grid.getItemId(item)));
+                }
+            } else {
+                this.assembleCluster(cell, count);
+            }
+        }
+
+        this.clusteredRenderables.clear();
+        this.clusteredRenderables.addAll(renderables);
+        this.clusteredModelviewProjection.set(rc.modelviewProjection);
+        this.clusteredViewport.set(rc.viewport);
+        this.clusteredGlobe = rc.globe;
+        this.clusteredVerticalExaggeration = rc.verticalExaggeration;
+    }
+
+    protected void assembleCluster(int cell, int count) {
+        List<Placemark> members = new ArrayList<>(count);
+        for (int item = this.grid.getFirstItem(cell); item != -1; item = this.grid.getNextItem(item)) {
+            members.add((Placemark) this.renderables.get(this.grid.getItemId(item)));
+        }
+        members = Collections.unmodifiableList(members);
+
+        // Display the cluster at the placemark nearest the centroid of the cluster's screen points.
+        Placemark central = (Placemark) this.renderables.get(this.grid.getItemId(this.grid.getCentralItem(cell)));
+
+        Placemark placemark;
+        Label label;
+        if (this.clusterCount < this.clusterPlacemarks.size()) {
+            placemark = this.clusterPlacemarks.get(this.clusterCount);
+            label = this.clusterLabels.get(this.clusterCount);
+        } else {
+            placemark = new Placemark(central.getPosition());
+            label = new Label(central.getPosition(), this.clusterTextAttributes);
+            this.clusterPlacemarks.add(placemark);
+            this.clusterLabels.add(label);
+        }
+
+        this.clusterCount++;
+
+        placemark.setPosition(central.getPosition());
+        placemark.setAltitudeMode(central.getAltitudeMode());
+        placemark.setAttributes(this.clusterAttributes);
+        placemark.setPickDelegate(members);
+        label.setPosition(central.getPosition());
+        label.setAltitudeMode(central.getAltitudeMode());
+        label.setAttributes(this.clusterTextAttributes);
+        label.setText(Integer.toString(count));
+        label.setPickDelegate(members);
+
+        this.visibleRenderables.add(placemark);
+        this.visibleRenderables.add(label);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.opengl.GLUtils;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Tracer;
+
+/**
+ * Texture for a texture atlas page whose bitmap changes as images are added to the page. The texture retains its
+ * bitmap, and re-uploads the bitmap when the texture is bound after the bitmap has changed.
+ * <p/>
+ * Atlas pages are modified on the WorldWind render thread and uploaded on the OpenGL thread. Code that modifies the
+ * bitmap must synchronize on the texture and call {@link #markImageChanged()} before releasing the lock.
+ */
+public class AtlasTexture extends Texture {
+
+    protected Bitmap atlasBitmap;
+
+    protected int imageVersion; // guarded by this
+
+    protected int uploadedVersion = -1; // accessed only on the OpenGL thread
+
+    public AtlasTexture(Bitmap bitmap) {
+        super(bitmap);
+        this.atlasBitmap = bitmap;
+    }
+
+    /**
+     * Returns the bitmap displayed by this texture.
+     *
+     * @return the texture's bitmap, or null if the texture has been released
+     */
+    public Bitmap getBitmap() {
+        return this.atlasBitmap;
+    }
+
+    /**
+     * Indicates that this texture's bitmap has changed, causing the bitmap to be uploaded the next time the texture is
+     * bound.
+     */
+    public void markImageChanged() {
+        synchronized (this) {
+            this.imageVersion++;
+        }
+    }
+
+    @Override
+    public boolean bindTexture(DrawContext dc) {
+        if (!super.bindTexture(dc)) {
+            return false;
+        }
+
+        synchronized (this) {
+            if (this.uploadedVersion != this.imageVersion && this.atlasBitmap != null) {
+                WorldWind.tracer().begin(Tracer.TEXTURE, "texSubImage2D");
+                GLUtils.texSubImage2D(GLES20.GL_TEXTURE_2D, 0 /*level*/, 0, 0, this.atlasBitmap);
+                WorldWind.tracer().end(Tracer.TEXTURE, "texSubImage2D");
+                this.uploadedVersion = this.imageVersion;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    protected void loadTexImage(DrawContext dc, Bitmap bitmap) {
+        // Upload the bitmap without mipmaps, which would not reflect images added to the bitmap after the upload.
+        synchronized (this) {
+            WorldWind.tracer().begin(Tracer.TEXTURE, "texImage2D");
+            try {
+                GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0 /*level*/, bitmap, 0 /*border*/);
+                this.imageHasMipMap = false;
+                this.uploadedVersion = this.imageVersion;
+            } catch (Exception e) {
+                Logger.logMessage(Logger.ERROR, "AtlasTexture", "loadTexImage",
+                    "Exception attempting to load atlas texture image \'" + bitmap + "\'", e);
+            } finally {
+                WorldWind.tracer().end(Tracer.TEXTURE, "texImage2D");
+            }
+        }
+    }
+
+    @Override
+    public void release(DrawContext dc) {
+        super.release(dc);
+
+        synchronized (this) {
+            this.atlasBitmap = null;
+        }
+    }
+}
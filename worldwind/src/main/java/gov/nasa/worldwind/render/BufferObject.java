@@ -9,13 +9,28 @@ import android.opengl.GLES20;
 import android.util.SparseArray;
 
 import java.nio.Buffer;
+import java.util.ArrayList;
 
 import gov.nasa.worldwind.draw.DrawContext;
 import gov.nasa.worldwind.geom.Range;
 import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Pool;
 
+/**
+ * Represents an OpenGL buffer object. A buffer object's contents may be replaced in place with {@link #setBuffer(int,
+ * Buffer)}, which keeps the buffer object's identity and increments its version. Drawables bind the version they were
+ * assembled with by calling {@link #bindBuffer(DrawContext, int)}, so frames queued for drawing before the contents
+ * changed never draw the new contents with their own draw state.
+ */
 public class BufferObject implements RenderResource {
 
+    /**
+     * The maximum number of contents awaiting loading into OpenGL. The OpenGL thread draws up to two queued frames
+     * after the frame it's currently displaying, each of which may reference a different version. Older contents are
+     * discarded, and frames referencing them skip drawing this buffer object.
+     */
+    protected static final int MAX_PENDING_CONTENTS = 4;
+
     protected int[] bufferId = new int[1];
 
     protected int bufferTarget;
@@ -24,7 +39,13 @@ public class BufferObject implements RenderResource {
 
     protected int bufferByteCount;
 
-    protected Buffer buffer;
+    protected int bufferVersion;
+
+    protected int loadedVersion = -1;
+
+    protected int loadedByteCount;
+
+    protected ArrayList<Contents> pendingContents = new ArrayList<>();
 
     public SparseArray<Range> ranges = new SparseArray<>();
 
@@ -32,7 +53,10 @@ public class BufferObject implements RenderResource {
         this.bufferTarget = target;
         this.bufferLength = (buffer != null) ? buffer.remaining() : 0;
         this.bufferByteCount = size;
-        this.buffer = buffer;
+
+        if (buffer != null) {
+            this.pendingContents.add(new Contents(this.bufferVersion, size, buffer));
+        }
     }
 
     public int getBufferTarget() {
@@ -47,26 +71,140 @@ public class BufferObject implements RenderResource {
         return this.bufferByteCount;
     }
 
+    /**
+     * Indicates the version of this buffer object's most recent contents. The version starts at 0 and is incremented
+     * each time the contents are replaced by {@link #setBuffer(int, Buffer)}.
+     *
+     * @return the buffer object's version
+     */
+    public int getVersion() {
+        return this.bufferVersion;
+    }
+
+    /**
+     * Replaces this buffer object's contents, keeping its OpenGL buffer object and its place in the render resource
+     * cache. The new contents are loaded the first time a drawable binds the new version. Loading orphans the existing
+     * OpenGL data store before updating it with glBufferSubData, so that OpenGL commands still reading the previous
+     * contents are unaffected. Drawables binding the previous version continue to draw the previous contents until
+     * the new version is loaded.
+     * <p/>
+     * The render resource cache accounts for a buffer object's size when it's added to the cache, so callers replacing
+     * contents with a different size must add the buffer object to the cache again.
+     *
+     * @param size   the size of the new contents in bytes
+     * @param buffer the new contents
+     *
+     * @return the version of the new contents
+     */
+    public synchronized int setBuffer(int size, Buffer buffer) {
+        this.bufferLength = (buffer != null) ? buffer.remaining() : 0;
+        this.bufferByteCount = size;
+        this.bufferVersion++;
+
+        if (buffer != null) {
+            this.pendingContents.add(new Contents(this.bufferVersion, size, buffer));
+        }
+
+        while (this.pendingContents.size() > MAX_PENDING_CONTENTS) {
+            this.pendingContents.remove(0).recycle();
+        }
+
+        return this.bufferVersion;
+    }
+
+    /**
+     * Specifies a pool that receives the NIO buffer of this buffer object's most recent contents once the buffer is
+     * no longer needed: after its contents have been loaded into the OpenGL buffer object, when newer contents are
+     * loaded first, or when this buffer object is released before its contents are loaded. The pool is accessed on
+     * the OpenGL thread, and must be thread safe if it's shared with other threads.
+     *
+     * @param pool the pool to release the NIO buffer to, or null to discard the NIO buffer
+     */
+    public synchronized void setBufferPool(Pool<Buffer> pool) {
+        int size = this.pendingContents.size();
+        if (size > 0) {
+            this.pendingContents.get(size - 1).pool = pool;
+        }
+    }
+
     @Override
     public void release(DrawContext dc) {
         this.deleteBufferObject(dc);
-        this.buffer = null; // buffer can be non-null if the object has not been bound
+
+        synchronized (this) { // contents can be pending if the object has not been bound
+            for (int idx = 0, len = this.pendingContents.size(); idx < len; idx++) {
+                this.pendingContents.get(idx).recycle();
+            }
+            this.pendingContents.clear();
+        }
     }
 
+    /**
+     * Binds this buffer object's most recent contents. Drawables whose buffer object contents may be replaced in place
+     * must bind the version they were assembled with by calling {@link #bindBuffer(DrawContext, int)}.
+     *
+     * @param dc the current draw context
+     *
+     * @return true if the buffer object is bound, otherwise false
+     */
     public boolean bindBuffer(DrawContext dc) {
-        if (this.buffer != null) {
-            this.loadBuffer(dc);
-            this.buffer = null;
+        int version;
+        synchronized (this) { // contents may be replaced on the render thread
+            version = this.bufferVersion;
         }
 
-        if (this.bufferId[0] != 0) {
+        return this.bindBuffer(dc, version);
+    }
+
+    /**
+     * Binds the specified version of this buffer object's contents, loading those contents into OpenGL if necessary.
+     * Fails when the specified version has been superseded by newer contents already loaded into OpenGL, or has been
+     * discarded before it was loaded.
+     *
+     * @param dc      the current draw context
+     * @param version the contents version to bind, as returned by {@link #getVersion()} when the drawable was
+     *                assembled
+     *
+     * @return true if the buffer object is bound with the specified contents, otherwise false
+     */
+    public boolean bindBuffer(DrawContext dc, int version) {
+        if (this.loadedVersion != version) {
+            Contents contents = this.takeContents(version);
+            if (contents != null) {
+                this.loadBuffer(dc, contents);
+                this.loadedVersion = version;
+                contents.recycle(); // OpenGL has copied the buffer's contents
+            }
+        }
+
+        if (this.bufferId[0] != 0 && this.loadedVersion == version) {
             dc.bindBuffer(this.bufferTarget, this.bufferId[0]);
+            return true;
         }
 
-        return this.bufferId[0] != 0;
+        return false;
     }
 
-    protected void loadBuffer(DrawContext dc) {
+    /**
+     * Removes the specified version from this buffer object's pending contents, along with any older versions which
+     * can no longer be drawn once the specified version is loaded.
+     */
+    protected synchronized Contents takeContents(int version) {
+        Contents result = null;
+
+        while (this.pendingContents.size() > 0 && this.pendingContents.get(0).version <= version) {
+            Contents contents = this.pendingContents.remove(0);
+            if (contents.version == version) {
+                result = contents;
+            } else {
+                contents.recycle();
+            }
+        }
+
+        return result;
+    }
+
+    protected void loadBuffer(DrawContext dc, Contents contents) {
         int currentBuffer = dc.currentBuffer(this.bufferTarget);
 
         try {
@@ -78,8 +216,8 @@ public class BufferObject implements RenderResource {
 
             // Make the OpenGL buffer object bound to the specified target.
             dc.bindBuffer(this.bufferTarget, this.bufferId[0]);
-            // Load the current NIO buffer as the OpenGL buffer object's data.
-            this.loadBufferObjectData(dc);
+            // Load the NIO buffer as the OpenGL buffer object's data.
+            this.loadBufferObjectData(dc, contents.byteCount, contents.buffer);
 
         } catch (Exception e) {
 
@@ -103,10 +241,46 @@ public class BufferObject implements RenderResource {
         if (this.bufferId[0] != 0) {
             GLES20.glDeleteBuffers(1, this.bufferId, 0);
             this.bufferId[0] = 0;
+            this.loadedByteCount = 0;
         }
     }
 
-    protected void loadBufferObjectData(DrawContext dc) {
-        GLES20.glBufferData(this.bufferTarget, this.bufferByteCount, this.buffer, GLES20.GL_STATIC_DRAW);
+    protected void loadBufferObjectData(DrawContext dc, int size, Buffer buffer) {
+        if (this.loadedByteCount == size) {
+            // Orphan the existing data store, then update the new data store in place. Commands already issued with
+            // the previous contents keep reading the orphaned data store.
+            GLES20.glBufferData(this.bufferTarget, size, null, GLES20.GL_DYNAMIC_DRAW);
+            GLES20.glBufferSubData(this.bufferTarget, 0, size, buffer);
+        } else {
+            GLES20.glBufferData(this.bufferTarget, size, buffer, GLES20.GL_STATIC_DRAW);
+            this.loadedByteCount = size;
+        }
+    }
+
+    protected static class Contents {
+
+        public final int version;
+
+        public final int byteCount;
+
+        public Buffer buffer;
+
+        public Pool<Buffer> pool;
+
+        public Contents(int version, int byteCount, Buffer buffer) {
+            this.version = version;
+            this.byteCount = byteCount;
+            this.buffer = buffer;
+        }
+
+        public void recycle() {
+            if (this.buffer != null && this.pool != null) {
+                this.buffer.clear();
+                this.pool.release(this.buffer);
+            }
+
+            this.buffer = null;
+            this.pool = null;
+        }
     }
 }
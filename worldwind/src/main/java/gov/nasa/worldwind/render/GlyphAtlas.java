@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.geom.Vec2;
+import gov.nasa.worldwind.shape.TextAttributes;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Tracer;
+
+/**
+ * Texture atlas of text glyphs rasterized in a single text style. Each glyph is rasterized once, on first use, into a
+ * shared atlas page, and text is displayed as a run of quads referencing the glyphs in the atlas. Changing displayed
+ * text therefore costs only vertex updates, rather than rasterizing and uploading a new texture per text string.
+ * <p/>
+ * The text style includes the text color, size, typeface and outline, which are rasterized into the glyphs. Glyphs are
+ * laid out by their advance widths, without kerning. Atlas pages are added as needed, up to a maximum number of pages,
+ * and each page is uploaded to OpenGL when it is first drawn and again when glyphs have been added to it since the
+ * previous upload. Glyphs that do not fit once the atlas has its maximum number of pages are displayed as blank space.
+ * <p/>
+ * Glyphs are rasterized on the WorldWind render thread and uploaded on the OpenGL thread. Each page synchronizes
+ * rasterization and upload, so a page may be drawn while glyphs are added to it.
+ */
+public class GlyphAtlas implements RenderResource {
+
+    protected static final int PAGE_SIZE = 512;
+
+    protected static final int GLYPH_GUTTER = 1;
+
+    protected static final int MAX_PAGE_COUNT = 8;
+
+    protected Paint paint = new Paint();
+
+    protected Canvas canvas = new Canvas();
+
+    protected boolean enableOutline;
+
+    protected int textColor;
+
+    protected int outlineColor;
+
+    protected int padding;
+
+    protected float ascent;
+
+    protected float descent;
+
+    protected ArrayList<Page> pages = new ArrayList<>();
+
+    protected Glyph[] asciiGlyphs = new Glyph[128];
+
+    protected Map<Character, Glyph> otherGlyphs = new HashMap<>();
+
+    protected char[] scratchChar = new char[1];
+
+    protected Rect scratchBounds = new Rect();
+
+    /**
+     * The atlas' size in the render resource cache. RenderContext updates the atlas' cache entry when pages are added.
+     */
+    protected int cacheByteCount;
+
+    /**
+     * Constructs an empty glyph atlas for a specified text style.
+     *
+     * @param attributes the text style; the text offset and depth test attributes are ignored
+     *
+     * @throws IllegalArgumentException If the attributes are null
+     */
+    public GlyphAtlas(TextAttributes attributes) {
+        if (attributes == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GlyphAtlas", "constructor", "missingAttributes"));
+        }
+
+        this.paint.setAntiAlias(true);
+        this.paint.setTextAlign(Paint.Align.LEFT);
+        this.paint.setTextSize(attributes.getTextSize());
+        this.paint.setTypeface(attributes.getTypeface());
+        this.paint.setStrokeWidth(attributes.getOutlineWidth());
+        this.enableOutline = attributes.isEnableOutline();
+        this.textColor = attributes.getTextColor().toColorInt();
+        this.outlineColor = attributes.getOutlineColor().toColorInt();
+
+        // Pad each glyph by one pixel for antialiasing plus half the outline width, as TextRenderer pads text textures.
+        this.padding = 1;
+        if (this.enableOutline) {
+            this.padding += (int) Math.ceil(this.paint.getStrokeWidth() * 0.5f);
+        }
+
+        this.ascent = this.paint.ascent();
+        this.descent = this.paint.descent();
+    }
+
+    /**
+     * Returns the number of pages in this atlas. Pages are identified by an index less than this number.
+     *
+     * @return the page count
+     */
+    public int getPageCount() {
+        return this.pages.size();
+    }
+
+    /**
+     * Returns the texture for one of this atlas' pages.
+     *
+     * @param index the page's index
+     *
+     * @return the page's texture
+     */
+    public Texture getPageTexture(int index) {
+        return this.pages.get(index).texture;
+    }
+
+    /**
+     * Returns the approximate number of bytes of texture memory used by this atlas.
+     *
+     * @return the atlas' size in bytes
+     */
+    public int getByteCount() {
+        return Math.max(1, this.pages.size()) * PAGE_SIZE * PAGE_SIZE * 2; // ARGB_4444 pages
+    }
+
+    @Override
+    public void release(DrawContext dc) {
+        for (int idx = 0, len = this.pages.size(); idx < len; idx++) {
+            this.pages.get(idx).texture.release(dc);
+        }
+    }
+
+    /**
+     * Returns the glyph for a specified character, rasterizing the glyph into this atlas if necessary.
+     *
+     * @param c the character
+     *
+     * @return the character's glyph
+     */
+    public Glyph getGlyph(char c) {
+        Glyph glyph = (c < 128) ? this.asciiGlyphs[c] : this.otherGlyphs.get(c);
+        if (glyph == null) {
+            glyph = this.rasterizeGlyph(c);
+            if (c < 128) {
+                this.asciiGlyphs[c] = glyph;
+            } else {
+                this.otherGlyphs.put(c, glyph);
+            }
+        }
+
+        return glyph;
+    }
+
+    /**
+     * Computes the width and height of a text string's screen rectangle, rasterizing any glyphs in the text that are
+     * not yet in this atlas. The text's baseline lies {@link #getBaseline()} pixels above the bottom of the rectangle.
+     *
+     * @param text   the text to measure
+     * @param result a pre-allocated Vec2 in which to store the width and height, in pixels
+     *
+     * @return the result argument set to the text's width and height, or zero if the text is null or empty
+     */
+    public Vec2 measureText(String text, Vec2 result) {
+        if (text == null || text.length() == 0) {
+            return result.set(0, 0);
+        }
+
+        float advance = 0;
+        for (int idx = 0, len = text.length(); idx < len; idx++) {
+            advance += this.getGlyph(text.charAt(idx)).advance;
+        }
+
+        double width = Math.ceil(advance) + 2 * this.padding;
+        double height = Math.ceil(this.descent - this.ascent) + 2 * this.padding;
+        return result.set(width, height);
+    }
+
+    /**
+     * Returns the distance from the bottom of a text string's screen rectangle to the text's baseline.
+     *
+     * @return the baseline offset, in pixels
+     */
+    public float getBaseline() {
+        return this.padding + this.descent;
+    }
+
+    /**
+     * Assembles triangle vertices displaying the glyphs of a text string that lie in a specified atlas page. Each
+     * vertex has an X and Y coordinate followed by an S and T texture coordinate. Vertex coordinates are normalized to
+     * the text's screen rectangle, such that (0, 0) is the rectangle's bottom-left corner and (1, 1) is its top-right
+     * corner. All glyphs in the text must already be in this atlas; see {@link #measureText(String, Vec2)}.
+     *
+     * @param text     the text to assemble
+     * @param page     the atlas page index
+     * @param width    the width of the text's screen rectangle, in pixels
+     * @param height   the height of the text's screen rectangle, in pixels
+     * @param vertices an array in which to store the vertices; must hold at least 24 floats per character
+     *
+     * @return the number of vertices stored
+     */
+    public int assembleVertices(String text, int page, double width, double height, float[] vertices) {
+        float baseline = this.getBaseline();
+        float penX = this.padding;
+        int offset = 0;
+
+        for (int idx = 0, len = text.length(); idx < len; idx++) {
+            Glyph glyph = this.getGlyph(text.charAt(idx));
+
+            if (glyph.page == page && glyph.hasImage) {
+                float x0 = (float) ((penX + glyph.x0) / width);
+                float x1 = (float) ((penX + glyph.x1) / width);
+                float y0 = (float) ((baseline + glyph.y0) / height);
+                float y1 = (float) ((baseline + glyph.y1) / height);
+
+                // Two triangles per glyph: bottom-left, bottom-right, top-left and top-left, bottom-right, top-right.
+                offset = putVertex(vertices, offset, x0, y0, glyph.s0, glyph.t0);
+                offset = putVertex(vertices, offset, x1, y0, glyph.s1, glyph.t0);
+                offset = putVertex(vertices, offset, x0, y1, glyph.s0, glyph.t1);
+                offset = putVertex(vertices, offset, x0, y1, glyph.s0, glyph.t1);
+                offset = putVertex(vertices, offset, x1, y0, glyph.s1, glyph.t0);
+                offset = putVertex(vertices, offset, x1, y1, glyph.s1, glyph.t1);
+            }
+
+            penX += glyph.advance;
+        }
+
+        return offset / 4;
+    }
+
+    protected static int putVertex(float[] vertices, int offset, float x, float y, float s, float t) {
+        vertices[offset++] = x;
+        vertices[offset++] = y;
+        vertices[offset++] = s;
+        vertices[offset++] = t;
+        return offset;
+    }
+
+    protected Glyph rasterizeGlyph(char c) {
+        this.scratchChar[0] = c;
+        Rect bounds = this.scratchBounds;
+        this.paint.getTextBounds(this.scratchChar, 0, 1, bounds);
+
+        Glyph glyph = new Glyph();
+        glyph.advance = this.paint.measureText(this.scratchChar, 0, 1);
+
+        if (bounds.width() <= 0 || bounds.height() <= 0) {
+            return glyph; // whitespace or an unsupported character; the glyph has an advance but no image
+        }
+
+        int pad = this.padding;
+        int cellWidth = bounds.width() + 2 * pad;
+        int cellHeight = bounds.height() + 2 * pad;
+        if (cellWidth > PAGE_SIZE || cellHeight > PAGE_SIZE) {
+            Logger.logMessage(Logger.WARN, "GlyphAtlas", "rasterizeGlyph", "Glyph exceeds the atlas page size \'" + c + "\'");
+            return glyph;
+        }
+
+        // Find space for the glyph in the most recent page, adding a page when the most recent page is full.
+        Page page = this.pages.isEmpty() ? null : this.pages.get(this.pages.size() - 1);
+        if (page == null || !page.allocate(cellWidth + GLYPH_GUTTER, cellHeight + GLYPH_GUTTER, glyph)) {
+            if (this.pages.size() >= MAX_PAGE_COUNT) {
+                Logger.logMessage(Logger.WARN, "GlyphAtlas", "rasterizeGlyph", "Glyph atlas is full \'" + c + "\'");
+                return glyph;
+            }
+
+            page = new Page(this.pages.size());
+            this.pages.add(page);
+            page.allocate(cellWidth + GLYPH_GUTTER, cellHeight + GLYPH_GUTTER, glyph);
+        }
+
+        // Rasterize the glyph into its cell while holding the page's lock, then mark the page for upload. The text
+        // baseline lies at the glyph's bounds top, offset by the padding.
+        int left = glyph.pageX;
+        int top = glyph.pageY;
+        float x = left + pad - bounds.left;
+        float y = top + pad - bounds.top;
+
+        WorldWind.tracer().begin(Tracer.TEXTURE, "rasterizeGlyph");
+        synchronized (page.texture) {
+            this.canvas.setBitmap(page.bitmap);
+
+            if (this.enableOutline) {
+                this.paint.setStyle(Paint.Style.FILL_AND_STROKE);
+                this.paint.setColor(this.outlineColor);
+                this.canvas.drawText(this.scratchChar, 0, 1, x, y, this.paint);
+            }
+
+            this.paint.setStyle(Paint.Style.FILL);
+            this.paint.setColor(this.textColor);
+            this.canvas.drawText(this.scratchChar, 0, 1, x, y, this.paint);
+
+            this.canvas.setBitmap(null);
+            page.texture.markImageChanged();
+        }
+        WorldWind.tracer().end(Tracer.TEXTURE, "rasterizeGlyph");
+
+        // Compute the glyph's quad relative to the pen position on the baseline, with Y up, and its texture coordinates
+        // with T up. The page texture's tex coord transform flips T to match the bitmap's row order.
+        glyph.hasImage = true;
+        glyph.x0 = bounds.left - pad;
+        glyph.x1 = glyph.x0 + cellWidth;
+        glyph.y0 = -bounds.bottom - pad;
+        glyph.y1 = glyph.y0 + cellHeight;
+        glyph.s0 = (float) left / PAGE_SIZE;
+        glyph.s1 = (float) (left + cellWidth) / PAGE_SIZE;
+        glyph.t0 = 1 - (float) (top + cellHeight) / PAGE_SIZE;
+        glyph.t1 = 1 - (float) top / PAGE_SIZE;
+
+        return glyph;
+    }
+
+    /**
+     * A glyph's location in a glyph atlas and its metrics.
+     */
+    public static class Glyph {
+
+        /**
+         * The index of the atlas page containing the glyph's image.
+         */
+        public int page = -1;
+
+        /**
+         * Indicates whether the glyph has an image. Whitespace glyphs have only an advance.
+         */
+        public boolean hasImage;
+
+        /**
+         * The horizontal distance to the next glyph's pen position, in pixels.
+         */
+        public float advance;
+
+        /**
+         * The glyph's image rectangle relative to the pen position on the text baseline, in pixels with Y up.
+         */
+        public float x0, y0, x1, y1;
+
+        /**
+         * The glyph's texture coordinates in its atlas page.
+         */
+        public float s0, t0, s1, t1;
+
+        protected int pageX, pageY;
+    }
+
+    protected static class Page {
+
+        public final int index;
+
+        public final Bitmap bitmap;
+
+        public final AtlasTexture texture;
+
+        protected int shelfX;
+
+        protected int shelfY;
+
+        protected int shelfHeight;
+
+        public Page(int index) {
+            this.index = index;
+            this.bitmap = Bitmap.createBitmap(PAGE_SIZE, PAGE_SIZE, Bitmap.Config.ARGB_4444);
+            this.texture = new AtlasTexture(this.bitmap);
+        }
+
+        /**
+         * Allocates a rectangle in this page using shelf packing. Glyphs of similar height share a row, so shelf
+         * packing is simple and wastes little space.
+         */
+        public boolean allocate(int width, int height, Glyph glyph) {
+            if (this.shelfX + width > PAGE_SIZE) { // start a new shelf
+                this.shelfY += this.shelfHeight;
+                this.shelfX = 0;
+                this.shelfHeight = 0;
+            }
+
+            if (this.shelfY + height > PAGE_SIZE) {
+                return false; // this page is full
+            }
+
+            glyph.page = this.index;
+            glyph.pageX = this.shelfX;
+            glyph.pageY = this.shelfY;
+            this.shelfX += width;
+            this.shelfHeight = Math.max(this.shelfHeight, height);
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.util.Tracer;
+
+/**
+ * Texture atlas of small placemark images. Images are packed into shared atlas pages, so that placemarks displaying
+ * different images can be drawn with one texture bind and one draw call per page. Images are retrieved through the
+ * render resource cache, in the same manner as placemark textures, and copied into an atlas page once retrieved.
+ * <p/>
+ * The atlas has a fixed number of pages. When the pages are full, the least recently used page that has not been used
+ * in the last {@link #PROTECTED_FRAME_COUNT} frames is cleared, and its images are retrieved again when next
+ * displayed. Images too large for the atlas are excluded from the atlas and displayed using a texture per image. Images
+ * that arrive while every page is in use are displayed the same way until a page becomes available, then retried.
+ * <p/>
+ * The atlas is modified only on the WorldWind render thread. Pages are uploaded on the OpenGL thread; see {@link
+ * AtlasTexture}.
+ */
+public class IconAtlas implements RenderResource {
+
+    public static final Object KEY = IconAtlas.class;
+
+    protected static final int PAGE_SIZE = 1024;
+
+    protected static final int MAX_PAGE_COUNT = 2;
+
+    protected static final int MAX_ICON_SIZE = 256;
+
+    protected static final int ICON_GUTTER = 2;
+
+    protected static final int MAX_EXCLUDED_COUNT = 256;
+
+    /**
+     * The number of display frames whose pages are protected from being cleared: the frame being rendered, up to two
+     * frames queued for the OpenGL thread, and the frame the OpenGL thread displays and may redraw.
+     */
+    protected static final int PROTECTED_FRAME_COUNT = 4;
+
+    protected ArrayList<Page> pages = new ArrayList<>();
+
+    protected Map<ImageSource, Icon> icons = new HashMap<>();
+
+    protected Set<ImageSource> excluded = new HashSet<>(); // images too large for the atlas
+
+    protected Set<ImageSource> deferred = new HashSet<>(); // images that arrived while every page was in use
+
+    protected Canvas canvas = new Canvas();
+
+    protected long useCount;
+
+    protected long[] frameUseCounts = new long[PROTECTED_FRAME_COUNT]; // use counts when recent frames began
+
+    protected int frameIndex;
+
+    public IconAtlas() {
+    }
+
+    /**
+     * Returns the approximate number of bytes of texture memory used by this atlas when all of its pages are in use.
+     *
+     * @return the atlas' size in bytes
+     */
+    public int getByteCount() {
+        return MAX_PAGE_COUNT * PAGE_SIZE * PAGE_SIZE * 4; // ARGB_8888 pages
+    }
+
+    @Override
+    public void release(DrawContext dc) {
+        for (int idx = 0, len = this.pages.size(); idx < len; idx++) {
+            this.pages.get(idx).texture.release(dc);
+        }
+    }
+
+    /**
+     * Marks the beginning of a display frame. Pages used during the last {@link #PROTECTED_FRAME_COUNT} display frames
+     * are not cleared, since drawables referencing those pages may not have been drawn yet. Images deferred while
+     * every page was in use are retried once a page is available.
+     */
+    public void beginFrame() {
+        this.frameUseCounts[this.frameIndex] = this.useCount;
+        this.frameIndex = (this.frameIndex + 1) % PROTECTED_FRAME_COUNT;
+
+        if (!this.deferred.isEmpty() && this.hasAvailablePage()) {
+            this.deferred.clear();
+        }
+    }
+
+    /**
+     * Indicates whether an image is excluded from this atlas and must be displayed using a texture per image. The
+     * image's texture is placed in the render resource cache when the image is excluded.
+     *
+     * @param imageSource the image source to test
+     *
+     * @return true if the image is excluded from this atlas, otherwise false
+     */
+    public boolean isExcluded(ImageSource imageSource) {
+        return this.excluded.contains(imageSource) || this.deferred.contains(imageSource);
+    }
+
+    /**
+     * Returns the icon for an image when the image is in this atlas, without retrieving the image.
+     *
+     * @param imageSource the image source
+     *
+     * @return the image's icon, or null if the image is not in this atlas
+     */
+    public Icon getIcon(ImageSource imageSource) {
+        Icon icon = this.icons.get(imageSource);
+        if (icon != null) {
+            icon.page.lastUsed = ++this.useCount;
+        }
+
+        return icon;
+    }
+
+    /**
+     * Returns the icon for an image, adding the image to this atlas when it has been retrieved. Returns null while the
+     * image is being retrieved, and when the image is excluded from this atlas.
+     *
+     * @param rc          the current render context
+     * @param imageSource the image source
+     *
+     * @return the image's icon, or null if the image is not available in this atlas
+     */
+    public Icon retrieveIcon(RenderContext rc, ImageSource imageSource) {
+        Icon icon = this.getIcon(imageSource);
+        if (icon != null || this.isExcluded(imageSource)) {
+            return icon;
+        }
+
+        Bitmap bitmap = rc.renderResourceCache.retrieveBitmap(imageSource, null);
+        if (bitmap == null) {
+            return null; // the image is being retrieved
+        }
+
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        if (width > MAX_ICON_SIZE || height > MAX_ICON_SIZE) { // display the image using a texture per image
+            if (this.excluded.size() >= MAX_EXCLUDED_COUNT) {
+                this.excluded.clear(); // bound the excluded images; cleared images are excluded again when next retrieved
+            }
+
+            this.excluded.add(imageSource);
+            rc.putTexture(imageSource, new Texture(bitmap));
+            return null;
+        }
+
+        Page page = this.allocatePage(width + ICON_GUTTER, height + ICON_GUTTER);
+        if (page == null) { // display the image using a texture until a page is available
+            this.deferred.add(imageSource);
+            rc.putTexture(imageSource, new Texture(bitmap));
+            return null;
+        }
+
+        icon = new Icon();
+        icon.page = page;
+        icon.width = width;
+        icon.height = height;
+        page.allocate(width + ICON_GUTTER, height + ICON_GUTTER, icon);
+        page.lastUsed = ++this.useCount;
+        page.imageSources.add(imageSource);
+        this.icons.put(imageSource, icon);
+
+        WorldWind.tracer().begin(Tracer.TEXTURE, "drawIcon");
+        synchronized (page.texture) {
+            this.canvas.setBitmap(page.bitmap);
+            this.canvas.drawBitmap(bitmap, icon.pageX, icon.pageY, null);
+            this.canvas.setBitmap(null);
+            page.texture.markImageChanged();
+        }
+        WorldWind.tracer().end(Tracer.TEXTURE, "drawIcon");
+
+        // Compute the icon's texture coordinates with T up. The page texture's tex coord transform flips T to match the
+        // bitmap's row order.
+        icon.s0 = (float) icon.pageX / PAGE_SIZE;
+        icon.s1 = (float) (icon.pageX + width) / PAGE_SIZE;
+        icon.t0 = 1 - (float) (icon.pageY + height) / PAGE_SIZE;
+        icon.t1 = 1 - (float) icon.pageY / PAGE_SIZE;
+
+        return icon;
+    }
+
+    protected boolean hasAvailablePage() {
+        if (this.pages.size() < MAX_PAGE_COUNT) {
+            return true;
+        }
+
+        for (int idx = 0, len = this.pages.size(); idx < len; idx++) {
+            if (this.isPageClearable(this.pages.get(idx))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    protected Page allocatePage(int width, int height) {
+        for (int idx = 0, len = this.pages.size(); idx < len; idx++) {
+            Page page = this.pages.get(idx);
+            if (page.canAllocate(width, height)) {
+                return page;
+            }
+        }
+
+        if (this.pages.size() < MAX_PAGE_COUNT) {
+            Page page = new Page();
+            this.pages.add(page);
+            return page;
+        }
+
+        // Clear the least recently used page, provided that it has not been used in a protected frame.
+        Page lru = null;
+        for (int idx = 0, len = this.pages.size(); idx < len; idx++) {
+            Page page = this.pages.get(idx);
+            if (this.isPageClearable(page) && (lru == null || lru.lastUsed > page.lastUsed)) {
+                lru = page;
+            }
+        }
+
+        if (lru != null) {
+            this.clearPage(lru);
+        }
+
+        return lru;
+    }
+
+    /**
+     * Indicates whether a page has not been used since the oldest protected frame began, and may be cleared.
+     */
+    protected boolean isPageClearable(Page page) {
+        return page.lastUsed <= this.frameUseCounts[this.frameIndex]; // the oldest protected frame's use count
+    }
+
+    protected void clearPage(Page page) {
+        for (int idx = 0, len = page.imageSources.size(); idx < len; idx++) {
+            this.icons.remove(page.imageSources.get(idx));
+        }
+
+        page.imageSources.clear();
+        page.shelfX = 0;
+        page.shelfY = 0;
+        page.shelfHeight = 0;
+
+        synchronized (page.texture) {
+            page.bitmap.eraseColor(0);
+            page.texture.markImageChanged();
+        }
+    }
+
+    /**
+     * An image's location in an icon atlas.
+     */
+    public static class Icon {
+
+        /**
+         * The image's width, in pixels.
+         */
+        public int width;
+
+        /**
+         * The image's height, in pixels.
+         */
+        public int height;
+
+        /**
+         * The image's texture coordinates in its atlas page.
+         */
+        public float s0, t0, s1, t1;
+
+        protected Page page;
+
+        protected int pageX, pageY;
+
+        /**
+         * Returns the texture for the atlas page containing the image.
+         *
+         * @return the atlas page texture
+         */
+        public Texture getTexture() {
+            return this.page.texture;
+        }
+    }
+
+    protected static class Page {
+
+        public final Bitmap bitmap;
+
+        public final AtlasTexture texture;
+
+        public ArrayList<ImageSource> imageSources = new ArrayList<>();
+
+        public long lastUsed;
+
+        protected int shelfX;
+
+        protected int shelfY;
+
+        protected int shelfHeight;
+
+        public Page() {
+            this.bitmap = Bitmap.createBitmap(PAGE_SIZE, PAGE_SIZE, Bitmap.Config.ARGB_8888);
+            this.texture = new AtlasTexture(this.bitmap);
+        }
+
+        public boolean canAllocate(int width, int height) {
+            if (this.shelfX + width <= PAGE_SIZE) {
+                return this.shelfY + Math.max(this.shelfHeight, height) <= PAGE_SIZE;
+            } else {
+                return this.shelfY + this.shelfHeight + height <= PAGE_SIZE;
+            }
+        }
+
+        /**
+         * Allocates a rectangle in this page using shelf packing. Must be preceded by a successful call to
+         * canAllocate.
+         */
+        public void allocate(int width, int height, Icon icon) {
+            if (this.shelfX + width > PAGE_SIZE) { // start a new shelf
+                this.shelfY += this.shelfHeight;
+                this.shelfX = 0;
+                this.shelfHeight = 0;
+            }
+
+            icon.pageX = this.shelfX;
+            icon.pageY = this.shelfY;
+            this.shelfX += width;
+            this.shelfHeight = Math.max(this.shelfHeight, height);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import android.content.res.Resources;
+import android.opengl.GLES20;
+
+import gov.nasa.worldwind.R;
+import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.geom.Matrix3;
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.WWUtil;
+
+/**
+ * GLSL program for textured screen quads with a color per vertex. Used to draw batches of placemark icons from an icon
+ * atlas page, where each icon has its own color, or its own pick color in pick mode.
+ */
+public class IconShaderProgram extends ShaderProgram {
+
+    public static final Object KEY = IconShaderProgram.class;
+
+    protected boolean enablePickMode;
+
+    protected Matrix4 mvpMatrix = new Matrix4();
+
+    protected Matrix3 texCoordMatrix = new Matrix3();
+
+    protected int enablePickModeId;
+
+    protected int mvpMatrixId;
+
+    protected int texCoordMatrixId;
+
+    protected int texSamplerId;
+
+    private float[] array = new float[16];
+
+    public IconShaderProgram(Resources resources) {
+        try {
+            String vs = WWUtil.readResourceAsText(resources, R.raw.gov_nasa_worldwind_iconprogram_vert);
+            String fs = WWUtil.readResourceAsText(resources, R.raw.gov_nasa_worldwind_iconprogram_frag);
+            this.setProgramSources(vs, fs);
+            this.setAttribBindings("vertexPoint", "vertexTexCoord", "vertexColor");
+        } catch (Exception logged) {
+            Logger.logMessage(Logger.ERROR, "IconShaderProgram", "constructor", "errorReadingProgramSource", logged);
+        }
+    }
+
+    protected void initProgram(DrawContext dc) {
+        this.enablePickModeId = GLES20.glGetUniformLocation(this.programId, "enablePickMode");
+        GLES20.glUniform1i(this.enablePickModeId, this.enablePickMode ? 1 : 0);
+
+        this.mvpMatrixId = GLES20.glGetUniformLocation(this.programId, "mvpMatrix");
+        this.mvpMatrix.transposeToArray(this.array, 0); // 4 x 4 identity matrix
+        GLES20.glUniformMatrix4fv(this.mvpMatrixId, 1, false, this.array, 0);
+
+        this.texCoordMatrixId = GLES20.glGetUniformLocation(this.programId, "texCoordMatrix");
+        this.texCoordMatrix.transposeToArray(this.array, 0); // 3 x 3 identity matrix
+        GLES20.glUniformMatrix3fv(this.texCoordMatrixId, 1, false, this.array, 0);
+
+        this.texSamplerId = GLES20.glGetUniformLocation(this.programId, "texSampler");
+        GLES20.glUniform1i(this.texSamplerId, 0); // GL_TEXTURE0
+    }
+
+    public void enablePickMode(boolean enable) {
+        if (this.enablePickMode != enable) {
+            this.enablePickMode = enable;
+            GLES20.glUniform1i(this.enablePickModeId, enable ? 1 : 0);
+        }
+    }
+
+    public void loadModelviewProjection(Matrix4 matrix) {
+        matrix.transposeToArray(this.array, 0);
+        GLES20.glUniformMatrix4fv(this.mvpMatrixId, 1, false, this.array, 0);
+    }
+
+    public void loadTexCoordMatrix(Matrix3 matrix) {
+        if (!this.texCoordMatrix.equals(matrix)) {
+            this.texCoordMatrix.set(matrix);
+            matrix.transposeToArray(this.array, 0);
+            GLES20.glUniformMatrix3fv(this.texCoordMatrixId, 1, false, this.array, 0);
+        }
+    }
+}
@@ -8,8 +8,13 @@ package gov.nasa.worldwind.render;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
 
 import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -17,13 +22,25 @@ import java.net.URLConnection;
 
 import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.LruMemoryCache;
 import gov.nasa.worldwind.util.Retriever;
+import gov.nasa.worldwind.util.SynchronizedMemoryCache;
+import gov.nasa.worldwind.util.WWMath;
 import gov.nasa.worldwind.util.WWUtil;
 
 public class ImageRetriever extends Retriever<ImageSource, ImageOptions, Bitmap> {
 
+    protected static final int DEFAULT_SOURCE_CACHE_CAPACITY = 1024 * 1024 * 16;
+
     protected Resources resources;
 
+    /**
+     * Source images decoded while compositing. Composite image sources change with every change to a source's opacity
+     * or drawing order, so retaining the source images enables those changes to be recomposited without retrieving
+     * the source images again.
+     */
+    protected LruMemoryCache<ImageSource, Bitmap> sourceCache = new SynchronizedMemoryCache<>(DEFAULT_SOURCE_CACHE_CAPACITY);
+
     public ImageRetriever(int maxSimultaneousRetrievals) {
         super(maxSimultaneousRetrievals);
     }
@@ -75,6 +92,10 @@ public class ImageRetriever extends Retriever<ImageSource, ImageOptions, Bitmap>
             return this.decodeUrl(imageSource.asUrl(), imageOptions);
         }
 
+        if (imageSource.isComposite()) {
+            return this.decodeComposite(imageSource.asComposite(), imageOptions);
+        }
+
         return this.decodeUnrecognized(imageSource);
     }
 
@@ -108,6 +129,83 @@ public class ImageRetriever extends Retriever<ImageSource, ImageOptions, Bitmap>
         }
     }
 
+    protected Bitmap decodeComposite(ImageSource.Composite composite, ImageOptions imageOptions) throws IOException {
+        // Composite the source images on this retrieval thread, drawing each source image over the previous images and
+        // scaling each to the dimensions of the first. Source images known to be absent are skipped, so that one
+        // missing image does not prevent the remaining images from being displayed. Any other failure fails the
+        // composite, which is retried rather than cached without the failed source image.
+        Bitmap result = null;
+        Canvas canvas = null;
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        Rect dstRect = new Rect();
+        boolean succeeded = false;
+
+        try {
+            for (int idx = 0, len = composite.getSourceCount(); idx < len; idx++) {
+                Bitmap bitmap = this.decodeCompositeSource(composite.getSource(idx), imageOptions);
+                if (bitmap == null) {
+                    continue; // the source image is absent
+                }
+
+                if (result == null) {
+                    Bitmap.Config config = (imageOptions != null && imageOptions.imageConfig == WorldWind.RGB_565) ?
+                        Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+                    result = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(), config);
+                    canvas = new Canvas(result);
+                    dstRect.set(0, 0, bitmap.getWidth(), bitmap.getHeight());
+                }
+
+                paint.setAlpha((int) Math.round(WWMath.clamp(composite.getOpacity(idx), 0, 1) * 255));
+                canvas.drawBitmap(bitmap, null, dstRect, paint);
+            }
+
+            succeeded = true;
+        } finally {
+            if (!succeeded && result != null) {
+                result.recycle(); // the partial composite is never displayed
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Decodes one source image of a composite image, retaining the decoded image in the source cache.
+     *
+     * @param source       the source image
+     * @param imageOptions the composite image's options
+     *
+     * @return the decoded source image, or null if the source image is known to be absent
+     *
+     * @throws IOException if the source image could not be retrieved or decoded
+     */
+    protected Bitmap decodeCompositeSource(ImageSource source, ImageOptions imageOptions) throws IOException {
+        if (source.isBitmap()) {
+            return source.asBitmap(); // already in memory
+        }
+
+        Bitmap bitmap = this.sourceCache.get(source);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        try {
+            bitmap = this.decodeImage(source, imageOptions);
+        } catch (FileNotFoundException | Resources.NotFoundException absent) {
+            return null; // the URL, file or resource does not exist
+        }
+
+        if (bitmap != null) {
+            this.sourceCache.put(source, bitmap, bitmap.getByteCount());
+        } else if (source.isFilePath() && !new File(source.asFilePath()).exists()) {
+            return null; // the file does not exist
+        } else if (source.isUrl() || source.isFilePath() || source.isResource()) {
+            throw new IOException("Composite source image could not be decoded \'" + source + "\'");
+        }
+
+        return bitmap; // null when a bitmap factory has no image, or when the source is unrecognized
+    }
+
     protected Bitmap decodeUnrecognized(ImageSource imageSource) {
         Logger.log(Logger.WARN, "Unrecognized image source \'" + imageSource + "\'");
         return null;
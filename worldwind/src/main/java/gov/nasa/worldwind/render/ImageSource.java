@@ -20,14 +20,15 @@ import gov.nasa.worldwind.util.WWUtil;
  * associated type on behalf of the caller, making this information available to WorldWind components that load images
  * on the caller's behalf.
  * <p/>
- * ImageSource supports four source types: <ul> <li>Android {@link android.graphics.Bitmap}</li> <li>WorldWind {@link
+ * ImageSource supports six source types: <ul> <li>Android {@link android.graphics.Bitmap}</li> <li>WorldWind {@link
  * ImageSource.BitmapFactory}</li> <li>Android resource identifier</li> <li>File path</li> <li>Uniform Resource Locator
- * (URL)</li> </ul>
+ * (URL)</li> <li>Composite of other image sources</li> </ul>
  * <p/>
  * ImageSource instances are intended to be used as a key into a cache or other data structure that enables sharing of
  * loaded images.  Android bitmaps and WorldWind bitmap factories are compared by reference: two image sources are
  * equivalent if they reference the same bitmap or the same bitmap factory. Android resource identifiers with equivalent
- * IDs are considered equivalent, as are file paths and URLs with the same string representation.
+ * IDs are considered equivalent, as are file paths and URLs with the same string representation. Composite image
+ * sources are equivalent when they composite equivalent image sources in the same order with the same opacities.
  */
 public class ImageSource {
 
@@ -64,6 +65,8 @@ public class ImageSource {
 
     protected static final int TYPE_URL = 5;
 
+    protected static final int TYPE_COMPOSITE = 6;
+
     protected int type = TYPE_UNRECOGNIZED;
 
     protected Object source;
@@ -173,6 +176,44 @@ public class ImageSource {
         return imageSource;
     }
 
+    /**
+     * Constructs an image source that composites other image sources. The composite image is retrieved by retrieving
+     * each source image, then drawing the source images in order over a transparent background with the corresponding
+     * opacity. Source images are scaled to the dimensions of the first source image. Composite image sources enable
+     * several tiled image sources covering the same tile to be displayed as a single texture.
+     *
+     * @param sources   the image sources to composite, in drawing order
+     * @param opacities the opacity of each image source, between 0 and 1
+     *
+     * @return the new image source
+     *
+     * @throws IllegalArgumentException If either array is null, if the source array is empty or contains null
+     *                                  elements, or if the arrays have different lengths
+     */
+    public static ImageSource fromComposite(ImageSource[] sources, float[] opacities) {
+        if (sources == null || sources.length == 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ImageSource", "fromComposite", "missingSource"));
+        }
+
+        if (opacities == null || opacities.length != sources.length) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ImageSource", "fromComposite", "missingArray"));
+        }
+
+        for (ImageSource source : sources) {
+            if (source == null) {
+                throw new IllegalArgumentException(
+                    Logger.logMessage(Logger.ERROR, "ImageSource", "fromComposite", "missingSource"));
+            }
+        }
+
+        ImageSource imageSource = new ImageSource();
+        imageSource.type = TYPE_COMPOSITE;
+        imageSource.source = new Composite(sources, opacities);
+        return imageSource;
+    }
+
     /**
      * Constructs a bitmap image source with a line stipple pattern. The result is a one-dimensional bitmap with pixels
      * representing the specified stipple factor and stipple pattern. Line stipple images can be used for displaying
@@ -272,6 +313,8 @@ public class ImageSource {
             return this.source.toString();
         } else if (this.type == TYPE_URL) {
             return this.source.toString();
+        } else if (this.type == TYPE_COMPOSITE) {
+            return "Composite " + this.source.toString();
         } else {
             return this.source.toString();
         }
@@ -322,6 +365,15 @@ public class ImageSource {
         return this.type == TYPE_URL;
     }
 
+    /**
+     * Indicates whether this image source is a composite of other image sources.
+     *
+     * @return true if the source is a composite, otherwise false
+     */
+    public boolean isComposite() {
+        return this.type == TYPE_COMPOSITE;
+    }
+
     /**
      * Returns the source bitmap. Call isBitmap to determine whether or not the source is a bitmap.
      *
@@ -370,6 +422,15 @@ public class ImageSource {
         return (this.type == TYPE_URL) ? (String) this.source : null;
     }
 
+    /**
+     * Returns the source composite. Call isComposite to determine whether or not the source is a composite.
+     *
+     * @return the composite, or null if the source is not a composite
+     */
+    public ImageSource.Composite asComposite() {
+        return (this.type == TYPE_COMPOSITE) ? (ImageSource.Composite) this.source : null;
+    }
+
     /**
      * Returns the image source associated with an unrecognized type.
      *
@@ -430,4 +491,64 @@ public class ImageSource {
             return "LineStippleBitmapFactory factor=" + this.factor + ", pattern=" + Integer.toHexString(this.pattern & 0xFFFF);
         }
     }
+
+    /**
+     * An ordered list of image sources and their opacities, composited into a single image.
+     */
+    public static class Composite {
+
+        protected ImageSource[] sources;
+
+        protected float[] opacities;
+
+        protected int hashCode;
+
+        protected Composite(ImageSource[] sources, float[] opacities) {
+            this.sources = Arrays.copyOf(sources, sources.length);
+            this.opacities = Arrays.copyOf(opacities, opacities.length);
+            this.hashCode = 31 * Arrays.hashCode(this.sources) + Arrays.hashCode(this.opacities);
+        }
+
+        public int getSourceCount() {
+            return this.sources.length;
+        }
+
+        public ImageSource getSource(int index) {
+            return this.sources[index];
+        }
+
+        public float getOpacity(int index) {
+            return this.opacities[index];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || this.getClass() != o.getClass()) {
+                return false;
+            }
+
+            Composite that = (Composite) o;
+            return this.hashCode == that.hashCode
+                && Arrays.equals(this.sources, that.sources)
+                && Arrays.equals(this.opacities, that.opacities);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int idx = 0; idx < this.sources.length; idx++) {
+                sb.append((idx == 0) ? "[" : ", ").append(this.sources[idx]).append(" @ ").append(this.opacities[idx]);
+            }
+            return sb.append("]").toString();
+        }
+    }
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+
+import gov.nasa.worldwind.geom.Viewport;
+import gov.nasa.worldwind.layer.Layer;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Suppresses overlapping screen labels. During a frame, labels offer their screen bounds to the declutter instead of
+ * enqueuing drawables. After the layers have rendered, the declutter visits the labels in order of descending priority
+ * and ascending camera distance, places each label whose bounds do not overlap a previously placed label in a
+ * screen-space occupancy grid, and asks the placed labels to render. Suppressed labels enqueue no drawables and do not
+ * rasterize their text.
+ * <p/>
+ * Decluttering is frame-coherent: among labels of equal priority, labels placed in the previous frame are visited
+ * before other labels, so a label that is displayed remains displayed until a higher priority label overlaps it. This
+ * avoids labels flickering on and off as the camera moves. Pick frames display the labels placed in the most recent
+ * frame without changing the placement, so that only displayed labels may be picked.
+ * <p/>
+ * A WorldWindow declutters labels when it has a LabelDeclutter; see {@link gov.nasa.worldwind.WorldWindow#setLabelDeclutter(LabelDeclutter)}.
+ */
+public class LabelDeclutter {
+
+    /**
+     * Object displayed on screen that may be suppressed by a LabelDeclutter.
+     */
+    public interface Candidate {
+
+        /**
+         * Enqueues the drawables for a candidate that has been placed by the declutter. Called during the same frame in
+         * which the candidate was offered to the declutter, with the render context's current layer set to the layer
+         * that offered the candidate.
+         *
+         * @param rc the current render context
+         */
+        void renderDecluttered(RenderContext rc);
+    }
+
+    protected double cellSize = 4;
+
+    protected ArrayList<Entry> entries = new ArrayList<>();
+
+    protected ArrayList<Entry> entryPool = new ArrayList<>();
+
+    protected IdentityHashMap<Candidate, Boolean> placed = new IdentityHashMap<>();
+
+    protected IdentityHashMap<Candidate, Boolean> previouslyPlaced = new IdentityHashMap<>();
+
+    protected boolean[] cells = new boolean[0];
+
+    protected int columns;
+
+    protected int rows;
+
+    protected Viewport gridViewport = new Viewport();
+
+    protected Comparator<Entry> entryComparator = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry lhs, Entry rhs) {
+            if (lhs.priority != rhs.priority) {
+                return (lhs.priority > rhs.priority) ? -1 : 1; // higher priority first
+            } else if (lhs.previouslyPlaced != rhs.previouslyPlaced) {
+                return lhs.previouslyPlaced ? -1 : 1; // previously placed first
+            } else {
+                return Double.compare(lhs.cameraDistance, rhs.cameraDistance); // nearer first
+            }
+        }
+    };
+
+    public LabelDeclutter() {
+    }
+
+    /**
+     * Returns the size of the occupancy grid cells used to detect overlapping labels.
+     *
+     * @return the cell size, in pixels
+     */
+    public double getCellSize() {
+        return this.cellSize;
+    }
+
+    /**
+     * Sets the size of the occupancy grid cells used to detect overlapping labels. Labels whose bounds come within one
+     * cell of each other are considered overlapping, so larger cells leave more space between labels and are less
+     * expensive to test.
+     *
+     * @param cellSize the cell size, in pixels
+     *
+     * @throws IllegalArgumentException If the cell size is not positive
+     */
+    public void setCellSize(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "LabelDeclutter", "setCellSize", "invalidSize"));
+        }
+
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Indicates whether a candidate was placed in the most recent frame.
+     *
+     * @param candidate the candidate to test
+     *
+     * @return true if the candidate was displayed in the most recent frame, otherwise false
+     */
+    public boolean wasPlaced(Candidate candidate) {
+        return this.previouslyPlaced.containsKey(candidate);
+    }
+
+    /**
+     * Offers a candidate for display in the current frame.
+     *
+     * @param rc             the current render context
+     * @param candidate      the candidate
+     * @param screenBounds   the candidate's screen bounds; copied by this method
+     * @param priority       the candidate's priority; candidates with greater priority are placed first
+     * @param cameraDistance the distance from the camera to the candidate, in meters
+     *
+     * @throws IllegalArgumentException If the candidate or the screen bounds are null
+     */
+    public void offerCandidate(RenderContext rc, Candidate candidate, Viewport screenBounds, double priority, double cameraDistance) {
+        if (candidate == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "LabelDeclutter", "offerCandidate", "missingObject"));
+        }
+
+        if (screenBounds == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "LabelDeclutter", "offerCandidate", "missingViewport"));
+        }
+
+        int last = this.entryPool.size() - 1;
+        Entry entry = (last >= 0) ? this.entryPool.remove(last) : new Entry();
+        entry.candidate = candidate;
+        entry.layer = rc.currentLayer;
+        entry.screenBounds.set(screenBounds);
+        entry.priority = priority;
+        entry.cameraDistance = cameraDistance;
+        entry.previouslyPlaced = this.previouslyPlaced.containsKey(candidate);
+        this.entries.add(entry);
+    }
+
+    /**
+     * Places the candidates offered during the current frame and renders the candidates that do not overlap, then
+     * discards the candidates.
+     *
+     * @param rc the current render context
+     */
+    public void declutter(RenderContext rc) {
+        Collections.sort(this.entries, this.entryComparator);
+        this.resetGrid(rc.viewport);
+
+        for (int idx = 0, len = this.entries.size(); idx < len; idx++) {
+            Entry entry = this.entries.get(idx);
+            if (rc.pickMode ? !entry.previouslyPlaced : !this.placeBounds(entry.screenBounds)) {
+                continue; // overlaps a candidate placed earlier, or was not displayed in the most recent frame
+            }
+
+            this.placed.put(entry.candidate, Boolean.TRUE);
+
+            try {
+                rc.currentLayer = entry.layer;
+                entry.candidate.renderDecluttered(rc);
+            } catch (Exception e) {
+                Logger.logMessage(Logger.ERROR, "LabelDeclutter", "declutter",
+                    "Exception while rendering candidate \'" + entry.candidate + "\'", e);
+                // Keep going. Render the remaining candidates.
+            } finally {
+                rc.currentLayer = null;
+            }
+        }
+
+        // Retain the placement for the next frame. Pick frames reuse the placement from the most recent frame.
+        if (!rc.pickMode) {
+            IdentityHashMap<Candidate, Boolean> swap = this.previouslyPlaced;
+            this.previouslyPlaced = this.placed;
+            this.placed = swap;
+        }
+        this.placed.clear();
+
+        for (int idx = 0, len = this.entries.size(); idx < len; idx++) {
+            Entry entry = this.entries.get(idx);
+            entry.candidate = null; // don't hold references to candidates or layers between frames
+            entry.layer = null;
+            this.entryPool.add(entry);
+        }
+        this.entries.clear();
+    }
+
+    /**
+     * Discards the placement retained from previous frames, causing the next frame to place labels without regard to
+     * which labels were displayed earlier.
+     */
+    public void clearPlacement() {
+        this.placed.clear();
+        this.previouslyPlaced.clear();
+    }
+
+    protected void resetGrid(Viewport viewport) {
+        this.gridViewport.set(viewport);
+        this.columns = Math.max(1, (int) Math.ceil(viewport.width / this.cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(viewport.height / this.cellSize));
+
+        int cellCount = this.columns * this.rows;
+        if (this.cells.length < cellCount) {
+            this.cells = new boolean[cellCount];
+        } else {
+            Arrays.fill(this.cells, 0, cellCount, false);
+        }
+    }
+
+    protected boolean placeBounds(Viewport bounds) {
+        // Compute the range of grid cells covered by the bounds, clipped to the grid. Bounds entirely outside the grid
+        // cover no cells and are always placed.
+        int minCol = Math.max(0, (int) Math.floor((bounds.x - this.gridViewport.x) / this.cellSize));
+        int minRow = Math.max(0, (int) Math.floor((bounds.y - this.gridViewport.y) / this.cellSize));
+        int maxCol = Math.min(this.columns - 1, (int) Math.floor((bounds.x + bounds.width - this.gridViewport.x) / this.cellSize));
+        int maxRow = Math.min(this.rows - 1, (int) Math.floor((bounds.y + bounds.height - this.gridViewport.y) / this.cellSize));
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol, cell = row * this.columns + minCol; col <= maxCol; col++, cell++) {
+                if (this.cells[cell]) {
+                    return false;
+                }
+            }
+        }
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol, cell = row * this.columns + minCol; col <= maxCol; col++, cell++) {
+                this.cells[cell] = true;
+            }
+        }
+
+        return true;
+    }
+
+    protected static class Entry {
+
+        public Candidate candidate;
+
+        public Layer layer;
+
+        public Viewport screenBounds = new Viewport();
+
+        public double priority;
+
+        public double cameraDistance;
+
+        public boolean previouslyPlaced;
+    }
+}
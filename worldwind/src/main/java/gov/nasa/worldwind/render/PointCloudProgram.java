@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import android.content.res.Resources;
+import android.opengl.GLES20;
+
+import gov.nasa.worldwind.R;
+import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.WWUtil;
+
+/**
+ * GLSL program for point sprites with a size and a color per vertex. Used to draw point clouds as round screen dots,
+ * where each point has its own color, or its own pick color in pick mode.
+ */
+public class PointCloudProgram extends ShaderProgram {
+
+    public static final Object KEY = PointCloudProgram.class;
+
+    protected Matrix4 mvpMatrix = new Matrix4();
+
+    protected int mvpMatrixId;
+
+    private float[] array = new float[16];
+
+    public PointCloudProgram(Resources resources) {
+        try {
+            String vs = WWUtil.readResourceAsText(resources, R.raw.gov_nasa_worldwind_pointcloudprogram_vert);
+            String fs = WWUtil.readResourceAsText(resources, R.raw.gov_nasa_worldwind_pointcloudprogram_frag);
+            this.setProgramSources(vs, fs);
+            this.setAttribBindings("vertexPoint", "pointSize", "vertexColor");
+        } catch (Exception logged) {
+            Logger.logMessage(Logger.ERROR, "PointCloudProgram", "constructor", "errorReadingProgramSource", logged);
+        }
+    }
+
+    protected void initProgram(DrawContext dc) {
+        this.mvpMatrixId = GLES20.glGetUniformLocation(this.programId, "mvpMatrix");
+        this.mvpMatrix.transposeToArray(this.array, 0); // 4 x 4 identity matrix
+        GLES20.glUniformMatrix4fv(this.mvpMatrixId, 1, false, this.array, 0);
+    }
+
+    public void loadModelviewProjection(Matrix4 matrix) {
+        matrix.transposeToArray(this.array, 0);
+        GLES20.glUniformMatrix4fv(this.mvpMatrixId, 1, false, this.array, 0);
+    }
+}
@@ -11,6 +11,7 @@ import android.graphics.Typeface;
 import java.util.HashMap;
 import java.util.Map;
 
+import gov.nasa.worldwind.FrameMetrics;
 import gov.nasa.worldwind.PickedObject;
 import gov.nasa.worldwind.PickedObjectList;
 import gov.nasa.worldwind.WorldWind;
@@ -30,6 +31,7 @@ import gov.nasa.worldwind.globe.Tessellator;
 import gov.nasa.worldwind.layer.Layer;
 import gov.nasa.worldwind.layer.LayerList;
 import gov.nasa.worldwind.shape.TextAttributes;
+import gov.nasa.worldwind.util.EarClipTriangulator;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.Pool;
 import gov.nasa.worldwind.util.SynchronizedPool;
@@ -88,18 +90,30 @@ public class RenderContext {
 
     public boolean pickMode;
 
+    public FrameMetrics frameMetrics;
+
+    public LabelDeclutter labelDeclutter;
+
     private int pickedObjectId;
 
+    private int textUploadCount;
+
+    private IconAtlas iconAtlas;
+
     private boolean redrawRequested;
 
     private double pixelSizeFactor;
 
     private GLUtessellator tessellator;
 
+    private EarClipTriangulator triangulator;
+
     private TextRenderer textRenderer = new TextRenderer();
 
     private TextCacheKey scratchTextCacheKey = new TextCacheKey();
 
+    private GlyphAtlasKey scratchGlyphAtlasKey = new GlyphAtlasKey();
+
     private Map<Object, Pool<?>> drawablePools = new HashMap<>();
 
     private Map<Object, Object> userProperties = new HashMap<>();
@@ -134,7 +148,11 @@ public class RenderContext {
         this.pickPoint = null;
         this.pickRay = null;
         this.pickMode = false;
+        this.frameMetrics = null;
+        this.labelDeclutter = null;
         this.pickedObjectId = 0;
+        this.textUploadCount = 0;
+        this.iconAtlas = null;
         this.redrawRequested = false;
         this.pixelSizeFactor = 0;
         this.userProperties.clear();
@@ -417,6 +435,31 @@ public class RenderContext {
         return this.renderResourceCache.retrieveTexture(imageSource, imageOptions);
     }
 
+    /**
+     * Returns the shared atlas of placemark images, creating the atlas if necessary. The atlas is retained in the render
+     * resource cache. Only display frames advance the atlas' frame count; pick frames are drawn before the display
+     * frames queued ahead of them, and must not shorten the time pages in use by those frames are protected.
+     *
+     * @return the icon atlas
+     */
+    public IconAtlas getIconAtlas() {
+        if (this.iconAtlas != null) {
+            return this.iconAtlas; // the atlas has been used during the current frame
+        }
+
+        IconAtlas atlas = (IconAtlas) this.renderResourceCache.get(IconAtlas.KEY);
+        if (atlas == null) {
+            atlas = new IconAtlas();
+            this.renderResourceCache.put(IconAtlas.KEY, atlas, atlas.getByteCount());
+        }
+
+        if (!this.pickMode) {
+            atlas.beginFrame();
+        }
+
+        return (this.iconAtlas = atlas);
+    }
+
     public BufferObject getBufferObject(Object key) {
         return (BufferObject) this.renderResourceCache.get(key);
     }
@@ -426,6 +469,15 @@ public class RenderContext {
         return buffer;
     }
 
+    public SightlineDepthMap getSightlineDepthMap(Object key) {
+        return (SightlineDepthMap) this.renderResourceCache.get(key);
+    }
+
+    public SightlineDepthMap putSightlineDepthMap(Object key, SightlineDepthMap depthMap) {
+        this.renderResourceCache.put(key, depthMap, (depthMap != null) ? depthMap.getByteCount() : 0);
+        return depthMap;
+    }
+
     public Texture getText(String text, TextAttributes attributes) {
         TextCacheKey key = this.scratchTextCacheKey.set(text, attributes);
         return (Texture) this.renderResourceCache.get(key);
@@ -436,12 +488,7 @@ public class RenderContext {
         Texture texture = null;
 
         if (text != null && attributes != null) {
-            this.textRenderer.setTextColor(attributes.getTextColor());
-            this.textRenderer.setTextSize(attributes.getTextSize());
-            this.textRenderer.setTypeface(attributes.getTypeface());
-            this.textRenderer.setEnableOutline(attributes.isEnableOutline());
-            this.textRenderer.setOutlineColor(attributes.getOutlineColor());
-            this.textRenderer.setOutlineWidth(attributes.getOutlineWidth());
+            this.configureTextRenderer(attributes);
             texture = this.textRenderer.renderText(text);
         }
 
@@ -449,6 +496,99 @@ public class RenderContext {
         return texture;
     }
 
+    /**
+     * Returns the texture for a text string without rasterizing the text on the render thread. When the text texture
+     * is not in the render resource cache, the text is rasterized on a worker thread and this method returns null until
+     * a subsequent frame in which the rasterized text is available. The number of text textures created in each frame
+     * is limited by {@link RenderResourceCache#getTextUploadLimit()}; text beyond the limit is displayed in subsequent
+     * frames.
+     *
+     * @param text       the text to display
+     * @param attributes the text's attributes
+     *
+     * @return the text texture, or null if the text is not yet available
+     */
+    public Texture retrieveText(String text, TextAttributes attributes) {
+        Texture texture = this.getText(text, attributes);
+        if (texture != null) {
+            return texture;
+        }
+
+        if (this.textUploadCount >= this.renderResourceCache.getTextUploadLimit()) {
+            this.requestRedraw(); // display the remaining text in the next frame
+            return null;
+        }
+
+        texture = this.renderResourceCache.retrieveText(text, attributes);
+        if (texture != null) {
+            this.textUploadCount++;
+        }
+
+        return texture;
+    }
+
+    /**
+     * Returns the glyph atlas for a text style, creating the atlas if necessary. The atlas is shared by all text
+     * displayed with the same text color, size, typeface and outline, and is retained in the render resource cache.
+     *
+     * @param attributes the text style
+     *
+     * @return the glyph atlas for the text style
+     */
+    public GlyphAtlas getGlyphAtlas(TextAttributes attributes) {
+        GlyphAtlasKey key = (GlyphAtlasKey) this.scratchGlyphAtlasKey.set(null, attributes);
+        GlyphAtlas atlas = (GlyphAtlas) this.renderResourceCache.get(key);
+
+        if (atlas == null) {
+            atlas = new GlyphAtlas(attributes);
+            atlas.cacheByteCount = atlas.getByteCount();
+            this.renderResourceCache.put(new GlyphAtlasKey().set(null, attributes), atlas, atlas.cacheByteCount);
+        } else if (atlas.cacheByteCount != atlas.getByteCount()) {
+            // The atlas has added pages since it was put in the cache. Put it again to update its size in the cache.
+            atlas.cacheByteCount = atlas.getByteCount();
+            this.renderResourceCache.put(new GlyphAtlasKey().set(null, attributes), atlas, atlas.cacheByteCount);
+        }
+
+        return atlas;
+    }
+
+    /**
+     * Computes the width and height of a text texture without rasterizing the text. The size matches the texture
+     * returned by {@link #getText(String, TextAttributes)} or {@link #renderText(String, TextAttributes)}. When the
+     * attributes enable a glyph atlas, the size is that of the text displayed using the atlas, and any glyphs not yet
+     * in the atlas are rasterized.
+     *
+     * @param text       the text to measure
+     * @param attributes the text's attributes
+     * @param result     a pre-allocated Vec2 in which to store the width and height, in pixels
+     *
+     * @return the result argument set to the text texture's width and height
+     */
+    public Vec2 measureText(String text, TextAttributes attributes, Vec2 result) {
+        if (attributes != null && attributes.isEnableGlyphAtlas()) {
+            return this.getGlyphAtlas(attributes).measureText(text, result);
+        }
+
+        Texture texture = this.getText(text, attributes);
+        if (texture != null) {
+            return result.set(texture.getWidth(), texture.getHeight());
+        } else if (text != null && attributes != null) {
+            this.configureTextRenderer(attributes);
+            return this.textRenderer.measureText(text, result);
+        } else {
+            return result.set(0, 0);
+        }
+    }
+
+    private void configureTextRenderer(TextAttributes attributes) {
+        this.textRenderer.setTextColor(attributes.getTextColor());
+        this.textRenderer.setTextSize(attributes.getTextSize());
+        this.textRenderer.setTypeface(attributes.getTypeface());
+        this.textRenderer.setEnableOutline(attributes.isEnableOutline());
+        this.textRenderer.setOutlineColor(attributes.getOutlineColor());
+        this.textRenderer.setOutlineWidth(attributes.getOutlineWidth());
+    }
+
     public void offerDrawable(Drawable drawable, int groupId, double order) {
         if (this.drawableQueue != null) {
             this.drawableQueue.offerDrawable(drawable, groupId, order);
@@ -525,6 +665,14 @@ public class RenderContext {
         return (this.tessellator = tess);
     }
 
+    public EarClipTriangulator getTriangulator() {
+        if (this.triangulator != null) {
+            return this.triangulator;
+        }
+
+        return (this.triangulator = new EarClipTriangulator());
+    }
+
     public Object getUserProperty(Object key) {
         return this.userProperties.get(key);
     }
@@ -609,4 +757,12 @@ public class RenderContext {
             return result;
         }
     }
+
+    /**
+     * Render resource cache key for a glyph atlas. Distinct from text texture keys, which compare equal only to keys of
+     * the same class.
+     */
+    protected static class GlyphAtlasKey extends TextCacheKey {
+
+    }
 }
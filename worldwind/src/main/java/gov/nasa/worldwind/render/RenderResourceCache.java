@@ -20,10 +20,12 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 
 import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.shape.TextAttributes;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.LruMemoryCache;
 import gov.nasa.worldwind.util.Retriever;
 import gov.nasa.worldwind.util.SynchronizedMemoryCache;
+import gov.nasa.worldwind.util.Tracer;
 
 public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
     implements Retriever.Callback<ImageSource, ImageOptions, Bitmap>, Handler.Callback {
@@ -40,6 +42,16 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
 
     protected LruMemoryCache<ImageSource, Bitmap> imageRetrieverCache;
 
+    protected Retriever<RenderContext.TextCacheKey, Void, Bitmap> textRetriever;
+
+    protected LruMemoryCache<RenderContext.TextCacheKey, Bitmap> textRetrieverCache;
+
+    protected Retriever.Callback<RenderContext.TextCacheKey, Void, Bitmap> textRetrieverCallback;
+
+    protected RenderContext.TextCacheKey scratchTextCacheKey = new RenderContext.TextCacheKey();
+
+    protected int textUploadLimit = 16;
+
     protected static final int STALE_RETRIEVAL_AGE = 3000;
 
     protected static final int TRIM_STALE_RETRIEVALS = 1;
@@ -62,6 +74,24 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
         this.imageRetriever = new ImageRetriever(2);
         this.urlImageRetriever = new ImageRetriever(8);
         this.imageRetrieverCache = new SynchronizedMemoryCache<>(this.getCapacity() / 8);
+        this.textRetriever = new TextRetriever(4);
+        this.textRetrieverCache = new SynchronizedMemoryCache<>(this.getCapacity() / 32);
+        this.textRetrieverCallback = new Retriever.Callback<RenderContext.TextCacheKey, Void, Bitmap>() {
+            @Override
+            public void retrievalSucceeded(Retriever<RenderContext.TextCacheKey, Void, Bitmap> retriever, RenderContext.TextCacheKey key, Void options, Bitmap value) {
+                textRetrievalSucceeded(key, value);
+            }
+
+            @Override
+            public void retrievalFailed(Retriever<RenderContext.TextCacheKey, Void, Bitmap> retriever, RenderContext.TextCacheKey key, Throwable ex) {
+                textRetrievalFailed(key, ex);
+            }
+
+            @Override
+            public void retrievalRejected(Retriever<RenderContext.TextCacheKey, Void, Bitmap> retriever, RenderContext.TextCacheKey key) {
+                // Rejected text retrievals are requested again in a subsequent frame.
+            }
+        };
 
         Logger.log(Logger.INFO, String.format(Locale.US, "RenderResourceCache initialized  %,.0f KB  (%,.0f KB retrieval cache)",
             this.getCapacity() / 1024.0, this.imageRetrieverCache.getCapacity() / 1024.0));
@@ -97,11 +127,40 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
         ((ImageRetriever) this.imageRetriever).setResources(res);
     }
 
+    /**
+     * Returns the maximum number of text textures created from asynchronously rasterized text in each frame. See
+     * {@link #setTextUploadLimit(int)}.
+     *
+     * @return the text texture limit per frame
+     */
+    public int getTextUploadLimit() {
+        return this.textUploadLimit;
+    }
+
+    /**
+     * Sets the maximum number of text textures created from asynchronously rasterized text in each frame. Each text
+     * texture is uploaded to OpenGL when it is first drawn, so limiting the number of new text textures per frame
+     * spreads the cost of displaying a large number of new labels over several frames.
+     *
+     * @param limit the text texture limit per frame, at least 1
+     *
+     * @throws IllegalArgumentException If the limit is less than 1
+     */
+    public void setTextUploadLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "RenderResourceCache", "setTextUploadLimit", "invalidCount"));
+        }
+
+        this.textUploadLimit = limit;
+    }
+
     public void clear() { // TODO rename as contextLost to clarify this method's purpose for RenderResourceCache
         this.handler.removeMessages(TRIM_STALE_RETRIEVALS);
         this.entries.clear(); // the cache entries are invalid; clear but don't call entryRemoved
         this.evictionQueue.clear(); // the eviction queue no longer needs to be processed
         this.imageRetrieverCache.clear(); // the retrieval queue should be cleared to make room
+        this.textRetrieverCache.clear();
         this.usedCapacity = 0;
     }
 
@@ -124,6 +183,10 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
     @Override
     protected void entryRemoved(Object key, RenderResource oldValue, RenderResource newValue, boolean evicted) {
         this.evictionQueue.offer(oldValue);
+
+        if (evicted) {
+            WorldWind.tracer().instant(Tracer.CACHE, key);
+        }
     }
 
     public Texture retrieveTexture(ImageSource imageSource, ImageOptions options) {
@@ -153,7 +216,40 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
         // the texture is not in memory. The image is added to the image retrieval cache upon successful retrieval. It's
         // then expected that a subsequent render frame will result in another call to retrieveTexture, in which case
         // the image will be found in the image retrieval cache.
-        if (imageSource.isUrl()) {
+        if (imageSource.isUrl() || imageSource.isComposite()) { // composites typically combine remote images
+            this.urlImageRetriever.retrieve(imageSource, options, this);
+        } else {
+            this.imageRetriever.retrieve(imageSource, options, this);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the bitmap for an image source when the image has been retrieved, otherwise requests that the image be
+     * retrieved on a separate thread and returns null. Used by consumers that copy images into a texture atlas rather
+     * than creating a texture per image. As with {@link #retrieveTexture(ImageSource, ImageOptions)}, a retrieved
+     * image is removed from the image retrieval cache and returned only once.
+     *
+     * @param imageSource the image source
+     * @param options     the image options, or null to use the default options
+     *
+     * @return the image's bitmap, or null if the image is being retrieved
+     */
+    public Bitmap retrieveBitmap(ImageSource imageSource, ImageOptions options) {
+        if (imageSource == null) {
+            return null; // a null image source corresponds to a null bitmap
+        }
+
+        if (imageSource.isBitmap()) {
+            return imageSource.asBitmap();
+        }
+
+        Bitmap bitmap = this.imageRetrieverCache.remove(imageSource);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        if (imageSource.isUrl() || imageSource.isComposite()) { // composites typically combine remote images
             this.urlImageRetriever.retrieve(imageSource, options, this);
         } else {
             this.imageRetriever.retrieve(imageSource, options, this);
@@ -177,6 +273,52 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
         return texture;
     }
 
+    /**
+     * Returns the texture for a text string and text style when its text has been rasterized, otherwise requests that
+     * the text be rasterized on a worker thread and returns null. A subsequent frame is expected to call this method
+     * again, in which case the texture is created from the rasterized text and put in this cache. Must be called only
+     * on the WorldWind render thread.
+     *
+     * @param text       the text to display
+     * @param attributes the text's attributes
+     *
+     * @return the text texture, or null if the text has not yet been rasterized
+     */
+    public Texture retrieveText(String text, TextAttributes attributes) {
+        if (text == null || text.length() == 0 || attributes == null) {
+            return null; // no text to rasterize
+        }
+
+        // Look for the rasterized text in the text retrieval cache, removing it and creating a corresponding texture if
+        // found. Otherwise request that the text be rasterized on a separate thread.
+        Bitmap bitmap = this.textRetrieverCache.remove(this.scratchTextCacheKey.set(text, attributes));
+        if (bitmap != null) {
+            Texture texture = new Texture(bitmap);
+            this.put(new RenderContext.TextCacheKey().set(text, attributes), texture, texture.getByteCount());
+            return texture;
+        }
+
+        this.textRetriever.retrieve(new RenderContext.TextCacheKey().set(text, attributes), null, this.textRetrieverCallback);
+        return null;
+    }
+
+    protected void textRetrievalSucceeded(RenderContext.TextCacheKey key, Bitmap value) {
+        this.textRetrieverCache.put(key, value, value.getByteCount());
+        WorldWind.requestRedraw();
+
+        if (!this.handler.hasMessages(TRIM_STALE_RETRIEVALS)) {
+            this.handler.sendEmptyMessageDelayed(TRIM_STALE_RETRIEVALS, TRIM_STALE_RETRIEVALS_DELAY);
+        }
+    }
+
+    protected void textRetrievalFailed(RenderContext.TextCacheKey key, Throwable ex) {
+        if (ex != null) {
+            Logger.log(Logger.ERROR, "Text rasterization failed with exception '" + key.text + "'", ex);
+        } else {
+            Logger.log(Logger.ERROR, "Text rasterization failed '" + key.text + "'");
+        }
+    }
+
     @Override
     public void retrievalSucceeded(Retriever<ImageSource, ImageOptions, Bitmap> retriever, ImageSource key, ImageOptions options, Bitmap value) {
         this.imageRetrieverCache.put(key, value, value.getByteCount());
@@ -220,8 +362,10 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
     protected void trimStaleRetrievals() {
         long now = System.currentTimeMillis();
         int trimmedCapacity = this.imageRetrieverCache.trimToAge(now - STALE_RETRIEVAL_AGE);
+        trimmedCapacity += this.textRetrieverCache.trimToAge(now - STALE_RETRIEVAL_AGE);
 
-        if (!this.handler.hasMessages(TRIM_STALE_RETRIEVALS) && this.imageRetrieverCache.getUsedCapacity() != 0) {
+        if (!this.handler.hasMessages(TRIM_STALE_RETRIEVALS) &&
+            (this.imageRetrieverCache.getUsedCapacity() != 0 || this.textRetrieverCache.getUsedCapacity() != 0)) {
             this.handler.sendEmptyMessageDelayed(TRIM_STALE_RETRIEVALS, TRIM_STALE_RETRIEVALS_DELAY);
         }
 
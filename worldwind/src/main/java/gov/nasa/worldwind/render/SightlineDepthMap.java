@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import android.opengl.GLES20;
+
+import java.util.ArrayList;
+
+import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Depth textures capturing the terrain surrounding an omnidirectional sightline, one texture for each face of the
+ * sightline's cube map. A sightline depth map is retained in the render resource cache across frames, and records the
+ * sightline transform, range and terrain it was drawn from, so that DrawableSightline redraws the depth textures only
+ * when the sightline or the terrain within its range changes.
+ */
+public class SightlineDepthMap implements RenderResource {
+
+    /**
+     * The default width and height of the depth textures, in pixels.
+     */
+    public static final int DEFAULT_SIZE = 512;
+
+    protected Texture[] faceTextures;
+
+    protected Framebuffer framebuffer;
+
+    protected int byteCount;
+
+    protected Matrix4 contentsTransform = new Matrix4();
+
+    protected float contentsRange;
+
+    protected ArrayList<Object> contents = new ArrayList<>();
+
+    protected long contentsState;
+
+    protected boolean hasContents;
+
+    /**
+     * Constructs a sightline depth map with a specified number of cube map faces and depth texture size.
+     *
+     * @param faceCount the number of cube map faces
+     * @param size      the width and height of each face's depth texture, in pixels
+     *
+     * @throws IllegalArgumentException If either the face count or the size is less than 1
+     */
+    public SightlineDepthMap(int faceCount, int size) {
+        if (faceCount < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SightlineDepthMap", "constructor", "invalidCount"));
+        }
+
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SightlineDepthMap", "constructor", "invalidWidthOrHeight"));
+        }
+
+        this.faceTextures = new Texture[faceCount];
+        for (int idx = 0; idx < faceCount; idx++) {
+            Texture texture = new Texture(size, size, GLES20.GL_DEPTH_COMPONENT, GLES20.GL_UNSIGNED_SHORT);
+            texture.setTexParameter(GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST);
+            texture.setTexParameter(GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
+            this.faceTextures[idx] = texture;
+            this.byteCount += texture.getByteCount();
+        }
+    }
+
+    public int getFaceCount() {
+        return this.faceTextures.length;
+    }
+
+    public Texture getFaceTexture(int face) {
+        return this.faceTextures[face];
+    }
+
+    public int getByteCount() {
+        return this.byteCount;
+    }
+
+    /**
+     * Returns a framebuffer that draws to the depth texture of a specified cube map face. The framebuffer has no color
+     * attachment.
+     *
+     * @param dc   the current draw context
+     * @param face the cube map face whose depth texture to draw to
+     *
+     * @return a framebuffer with the face's depth texture as its depth attachment
+     */
+    public Framebuffer faceFramebuffer(DrawContext dc, int face) {
+        if (this.framebuffer == null) {
+            this.framebuffer = new Framebuffer();
+        }
+
+        Texture texture = this.faceTextures[face];
+        if (this.framebuffer.getAttachedTexture(GLES20.GL_DEPTH_ATTACHMENT) != texture) {
+            this.framebuffer.attachTexture(dc, texture, GLES20.GL_DEPTH_ATTACHMENT);
+        }
+
+        return this.framebuffer;
+    }
+
+    /**
+     * Indicates whether this depth map was drawn from the specified contents. Terrain contents are compared by
+     * identity. Terrain vertex buffers are updated in place when the terrain changes, so the state hash includes the
+     * vertex buffer versions the terrain was assembled with.
+     *
+     * @param centerTransform the transform from sightline local coordinates to world coordinates
+     * @param range           the sightline's range in meters
+     * @param contents        the OpenGL resources of the terrain within the sightline's range, in draw order
+     * @param state           a hash of the versions of the terrain within the sightline's range
+     *
+     * @return true if the depth map contains the specified contents, otherwise false
+     */
+    public boolean hasContents(Matrix4 centerTransform, float range, ArrayList<Object> contents, long state) {
+        if (!this.hasContents || this.contentsRange != range || this.contentsState != state
+            || this.contents.size() != contents.size() || !this.contentsTransform.equals(centerTransform)) {
+            return false;
+        }
+
+        for (int idx = 0, len = contents.size(); idx < len; idx++) {
+            if (this.contents.get(idx) != contents.get(idx)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public void setContents(Matrix4 centerTransform, float range, ArrayList<Object> contents, long state) {
+        this.contentsTransform.set(centerTransform);
+        this.contentsRange = range;
+        this.contents.clear();
+        this.contents.addAll(contents);
+        this.contentsState = state;
+        this.hasContents = true;
+    }
+
+    public void clearContents() {
+        this.contents.clear();
+        this.contentsState = 0;
+        this.hasContents = false;
+    }
+
+    @Override
+    public void release(DrawContext dc) {
+        for (Texture texture : this.faceTextures) {
+            texture.release(dc);
+        }
+
+        if (this.framebuffer != null) {
+            this.framebuffer.release(dc);
+            this.framebuffer = null;
+        }
+
+        this.clearContents();
+    }
+}
@@ -15,17 +15,30 @@ import gov.nasa.worldwind.geom.Matrix4;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.WWUtil;
 
-// TODO Try accumulating surface tile state (texCoordMatrix, texSampler), loading uniforms once, then loading a uniform
-// TODO index to select the state for a surface tile. This reduces the uniform calls when many surface tiles intersect
-// TODO one terrain tile.
 // TODO Try class representing transform with a specific scale+translate object that can be uploaded to a GLSL vec4
+/**
+ * Shader program that draws surface textures onto terrain. The program composites up to {@link #MAX_TEXTURES} surface
+ * textures onto the terrain in a single draw call, with each surface texture bound to the multitexture unit matching
+ * its index. Each surface texture has a pair of tex coord matrices: the first registers the surface texture with the
+ * terrain, and the second masks terrain fragments outside the surface texture's sector. The textures are composited
+ * in index order, as though each texture was drawn separately.
+ */
 public class SurfaceTextureProgram extends ShaderProgram {
 
     public static final Object KEY = SurfaceTextureProgram.class;
 
+    /**
+     * The maximum number of surface textures composited in a single draw call.
+     */
+    public static final int MAX_TEXTURES = 4;
+
     public Matrix4 mvpMatrix = new Matrix4();
 
-    public Matrix3[] texCoordMatrix = {new Matrix3(), new Matrix3()};
+    /**
+     * Tex coord matrices for each surface texture, two per texture. The matrices at indices 2i and 2i + 1 apply to the
+     * surface texture at index i.
+     */
+    public Matrix3[] texCoordMatrix = new Matrix3[MAX_TEXTURES * 2];
 
     protected int enablePickModeId;
 
@@ -37,15 +50,25 @@ public class SurfaceTextureProgram extends ShaderProgram {
 
     protected int texSamplerId;
 
+    protected int texCountId;
+
     protected int colorId;
 
+    protected int texCount = 1;
+
     private float[] mvpMatrixArray = new float[16];
 
-    private float[] texCoordMatrixArray = new float[9 * 2];
+    private float[] texCoordMatrixArray = new float[9 * 2 * MAX_TEXTURES];
+
+    private float[] colorArray = new float[4 * MAX_TEXTURES];
 
     private Color color = new Color();
 
     public SurfaceTextureProgram(Resources resources) {
+        for (int idx = 0; idx < this.texCoordMatrix.length; idx++) {
+            this.texCoordMatrix[idx] = new Matrix3();
+        }
+
         try {
             String vs = WWUtil.readResourceAsText(resources, R.raw.gov_nasa_worldwind_surfacetextureprogram_vert);
             String fs = WWUtil.readResourceAsText(resources, R.raw.gov_nasa_worldwind_surfacetextureprogram_frag);
@@ -68,16 +91,26 @@ public class SurfaceTextureProgram extends ShaderProgram {
         GLES20.glUniformMatrix4fv(this.mvpMatrixId, 1, false, this.mvpMatrixArray, 0);
 
         this.texCoordMatrixId = GLES20.glGetUniformLocation(this.programId, "texCoordMatrix");
-        new Matrix3().transposeToArray(this.texCoordMatrixArray, 0); // 3 x 3 identity matrix
-        new Matrix3().transposeToArray(this.texCoordMatrixArray, 9); // 3 x 3 identity matrix
-        GLES20.glUniformMatrix3fv(this.texCoordMatrixId, 2, false, this.texCoordMatrixArray, 0);
+        Matrix3 identity = new Matrix3();
+        for (int idx = 0; idx < MAX_TEXTURES * 2; idx++) {
+            identity.transposeToArray(this.texCoordMatrixArray, idx * 9); // 3 x 3 identity matrix
+        }
+        GLES20.glUniformMatrix3fv(this.texCoordMatrixId, MAX_TEXTURES * 2, false, this.texCoordMatrixArray, 0);
 
         this.colorId = GLES20.glGetUniformLocation(this.programId, "color");
         this.color.set(1, 1, 1, 1); // opaque white
         GLES20.glUniform4f(this.colorId, this.color.red, this.color.green, this.color.blue, this.color.alpha);
 
         this.texSamplerId = GLES20.glGetUniformLocation(this.programId, "texSampler");
-        GLES20.glUniform1i(this.texSamplerId, 0); // GL_TEXTURE0
+        int[] texUnits = new int[MAX_TEXTURES];
+        for (int idx = 0; idx < MAX_TEXTURES; idx++) {
+            texUnits[idx] = idx; // GL_TEXTURE0 + idx
+        }
+        GLES20.glUniform1iv(this.texSamplerId, MAX_TEXTURES, texUnits, 0);
+
+        this.texCountId = GLES20.glGetUniformLocation(this.programId, "texCount");
+        this.texCount = 1;
+        GLES20.glUniform1i(this.texCountId, this.texCount); // one surface texture
     }
 
     public void enablePickMode(boolean enable) {
@@ -93,12 +126,31 @@ public class SurfaceTextureProgram extends ShaderProgram {
         GLES20.glUniformMatrix4fv(this.mvpMatrixId, 1, false, this.mvpMatrixArray, 0);
     }
 
+    /**
+     * Loads the tex coord matrices of the first surface texture.
+     */
     public void loadTexCoordMatrix() {
-        this.texCoordMatrix[0].transposeToArray(this.texCoordMatrixArray, 0);
-        this.texCoordMatrix[1].transposeToArray(this.texCoordMatrixArray, 9);
-        GLES20.glUniformMatrix3fv(this.texCoordMatrixId, 2, false, this.texCoordMatrixArray, 0);
+        this.loadTexCoordMatrix(1);
     }
 
+    /**
+     * Loads the tex coord matrices of the specified number of surface textures.
+     *
+     * @param count the number of surface textures, between 1 and MAX_TEXTURES
+     */
+    public void loadTexCoordMatrix(int count) {
+        for (int idx = 0, len = count * 2; idx < len; idx++) {
+            this.texCoordMatrix[idx].transposeToArray(this.texCoordMatrixArray, idx * 9);
+        }
+
+        GLES20.glUniformMatrix3fv(this.texCoordMatrixId, count * 2, false, this.texCoordMatrixArray, 0);
+    }
+
+    /**
+     * Loads the RGBA color of the first surface texture.
+     *
+     * @param color the color, in non-premultiplied form
+     */
     public void loadColor(Color color) {
         if (!this.color.equals(color)) { // suppress unnecessary writes to GLSL uniform variables
             this.color.set(color);
@@ -106,4 +158,31 @@ public class SurfaceTextureProgram extends ShaderProgram {
             GLES20.glUniform4f(this.colorId, color.red * a, color.green * a, color.blue * a, a);
         }
     }
+
+    /**
+     * Loads the RGBA colors of the specified number of surface textures.
+     *
+     * @param colors the colors, in non-premultiplied form
+     * @param count  the number of surface textures, between 1 and MAX_TEXTURES
+     */
+    public void loadColors(Color[] colors, int count) {
+        for (int idx = 0; idx < count; idx++) {
+            colors[idx].premultiplyToArray(this.colorArray, idx * 4);
+        }
+
+        this.color.set(colors[0]);
+        GLES20.glUniform4fv(this.colorId, count, this.colorArray, 0);
+    }
+
+    /**
+     * Specifies the number of surface textures to composite in each draw call.
+     *
+     * @param count the number of surface textures, between 1 and MAX_TEXTURES
+     */
+    public void loadTextureCount(int count) {
+        if (this.texCount != count) { // suppress unnecessary writes to GLSL uniform variables
+            this.texCount = count;
+            GLES20.glUniform1i(this.texCountId, count);
+        }
+    }
 }
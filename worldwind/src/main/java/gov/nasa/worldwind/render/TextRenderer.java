@@ -12,6 +12,8 @@ import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.Typeface;
 
+import gov.nasa.worldwind.geom.Vec2;
+
 public class TextRenderer {
 
     protected gov.nasa.worldwind.render.Color textColor;
@@ -108,6 +110,33 @@ public class TextRenderer {
         }
     }
 
+    /**
+     * Computes the width and height of the texture that {@link #renderText(String)} would create for a specified text
+     * string, without rasterizing the text.
+     *
+     * @param text   the text to measure
+     * @param result a pre-allocated Vec2 in which to store the width and height, in pixels
+     *
+     * @return the result argument set to the texture's width and height, or zero if the text is null or empty
+     */
+    public Vec2 measureText(String text, Vec2 result) {
+        if (text != null && text.length() > 0) {
+            this.paint.getTextBounds(text, 0, text.length(), this.scratchBounds);
+            int width = this.scratchBounds.width() + 2;
+            int height = this.scratchBounds.height() + 2;
+
+            if (this.enableOutline) {
+                int strokeWidth_2 = (int) Math.ceil(this.paint.getStrokeWidth() * 0.5f);
+                width += (strokeWidth_2 * 2);
+                height += (strokeWidth_2 * 2);
+            }
+
+            return result.set(width, height);
+        } else {
+            return result.set(0, 0);
+        }
+    }
+
     protected Bitmap drawText(String text) {
         this.paint.getTextBounds(text, 0, text.length(), this.scratchBounds);
         int x = -this.scratchBounds.left + 1;
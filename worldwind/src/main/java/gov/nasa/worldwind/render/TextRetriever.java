@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import android.graphics.Bitmap;
+
+import gov.nasa.worldwind.util.Pool;
+import gov.nasa.worldwind.util.Retriever;
+import gov.nasa.worldwind.util.SynchronizedPool;
+
+/**
+ * Retriever that rasterizes text on a worker thread. Each retrieval rasterizes the text and style identified by a text
+ * cache key into a bitmap, using one of a pool of text renderers so that concurrent retrievals don't share paint
+ * state.
+ */
+public class TextRetriever extends Retriever<RenderContext.TextCacheKey, Void, Bitmap> {
+
+    protected Pool<TextRenderer> rendererPool = new SynchronizedPool<>();
+
+    public TextRetriever(int maxSimultaneousRetrievals) {
+        super(maxSimultaneousRetrievals);
+    }
+
+    @Override
+    protected void retrieveAsync(RenderContext.TextCacheKey key, Void options,
+                                 Callback<RenderContext.TextCacheKey, Void, Bitmap> callback) {
+        TextRenderer renderer = this.rendererPool.acquire();
+        if (renderer == null) {
+            renderer = new TextRenderer();
+        }
+
+        try {
+            Bitmap bitmap = (key.text != null && key.text.length() > 0) ? this.rasterizeText(renderer, key) : null;
+
+            if (bitmap != null) {
+                callback.retrievalSucceeded(this, key, options, bitmap);
+            } else {
+                callback.retrievalFailed(this, key, null); // failed but no exception
+            }
+        } catch (Throwable logged) {
+            callback.retrievalFailed(this, key, logged); // failed with exception
+        } finally {
+            this.rendererPool.release(renderer);
+        }
+    }
+
+    protected Bitmap rasterizeText(TextRenderer renderer, RenderContext.TextCacheKey key) {
+        renderer.setTextColor(key.textColor);
+        renderer.setTextSize(key.textSize);
+        renderer.setTypeface(key.typeface);
+        renderer.setEnableOutline(key.enableOutline);
+        renderer.setOutlineColor(key.outlineColor);
+        renderer.setOutlineWidth(key.outlineWidth);
+
+        return renderer.drawText(key.text);
+    }
+}
@@ -10,9 +10,11 @@ import android.opengl.GLES20;
 import android.opengl.GLUtils;
 import android.util.SparseIntArray;
 
+import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.draw.DrawContext;
 import gov.nasa.worldwind.geom.Matrix3;
 import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Tracer;
 import gov.nasa.worldwind.util.WWMath;
 
 public class Texture implements RenderResource {
@@ -176,6 +178,7 @@ public class Texture implements RenderResource {
     }
 
     protected void loadTexImage(DrawContext dc, Bitmap bitmap) {
+        WorldWind.tracer().begin(Tracer.TEXTURE, "texImage2D");
         try {
             // Specify the OpenGL texture 2D object's base image data (level 0).
             GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0 /*level*/, bitmap, 0 /*border*/);
@@ -191,6 +194,8 @@ public class Texture implements RenderResource {
             // The Android utility was unable to load the texture image data.
             Logger.logMessage(Logger.ERROR, "Texture", "loadTexImage",
                 "Exception attempting to load texture image \'" + bitmap + "\'", e);
+        } finally {
+            WorldWind.tracer().end(Tracer.TEXTURE, "texImage2D");
         }
     }
 
@@ -5,16 +5,25 @@
 
 package gov.nasa.worldwind.shape;
 
+import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import gov.nasa.worldwind.PickedObject;
 import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.geom.BoundingBox;
 import gov.nasa.worldwind.geom.Matrix3;
+import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.globe.Globe;
 import gov.nasa.worldwind.render.AbstractRenderable;
+import gov.nasa.worldwind.render.BufferObject;
 import gov.nasa.worldwind.render.Color;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.render.Texture;
+import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.WWMath;
 
 public abstract class AbstractShape extends AbstractRenderable implements Attributable, Highlightable {
@@ -43,8 +52,38 @@ public abstract class AbstractShape extends AbstractRenderable implements Attrib
 
     protected BoundingBox boundingBox = new BoundingBox();
 
+    protected boolean enableAsyncAssembly;
+
+    protected int geometryVersion;
+
+    protected int assembledVersion = -1;
+
+    protected int bufferVersion = -1;
+
+    protected long assemblyLatency = -1;
+
+    protected AbstractShape assemblyShape;
+
+    protected AssemblyTask assemblyTask;
+
+    protected double simplificationTolerance;
+
+    protected int simplificationLevel = NO_SIMPLIFICATION;
+
+    protected double simplificationThreshold;
+
+    protected int simplificationErrorsVersion;
+
+    protected double cameraDistance;
+
     protected static final double NEAR_ZERO_THRESHOLD = 1.0e-10;
 
+    protected static final int NO_SIMPLIFICATION = Integer.MIN_VALUE;
+
+    private static final int NO_POSITION = -1;
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(WorldWind.WGS84_SEMI_MAJOR_AXIS);
+
     private Vec3 scratchPoint = new Vec3();
 
     public AbstractShape() {
@@ -113,8 +152,77 @@ public abstract class AbstractShape extends AbstractRenderable implements Attrib
         this.maximumIntermediatePoints = maximumIntermediatePoints;
     }
 
+    /**
+     * Indicates the maximum distance in pixels by which this shape's simplified geometry may deviate from its
+     * positions. A tolerance of 0 disables simplification.
+     *
+     * @return the simplification tolerance in pixels
+     */
+    public double getSimplificationTolerance() {
+        return this.simplificationTolerance;
+    }
+
+    /**
+     * Specifies the maximum distance in pixels by which this shape's simplified geometry may deviate from its
+     * positions. When the tolerance is greater than 0, the shape omits positions that are within the tolerance of the
+     * shape's outline at the current viewing distance, reducing the number of vertices the shape assembles as the
+     * camera moves away. The default tolerance of 0 disables simplification.
+     * <p/>
+     * Simplification is supported by Path and Polygon.
+     *
+     * @param tolerance the simplification tolerance in pixels
+     */
+    public void setSimplificationTolerance(double tolerance) {
+        this.simplificationTolerance = tolerance;
+        this.reset();
+    }
+
+    /**
+     * Indicates whether this shape assembles its geometry on a worker thread.
+     *
+     * @return true if asynchronous geometry assembly is enabled, otherwise false
+     */
+    public boolean isEnableAsyncAssembly() {
+        return this.enableAsyncAssembly;
+    }
+
+    /**
+     * Specifies whether this shape assembles its geometry on a worker thread. When enabled, changes to the shape's
+     * geometry are assembled from a snapshot of the shape's positions without blocking the render thread. The shape
+     * continues to display its previous geometry, or nothing if it has no previous geometry, until the new geometry
+     * is ready.
+     * <p/>
+     * Asynchronous assembly is supported by shapes whose geometry does not depend on the terrain. Shapes that do not
+     * support asynchronous assembly in their current configuration assemble their geometry on the render thread.
+     *
+     * @param enable true to assemble geometry on a worker thread, otherwise false
+     */
+    public void setEnableAsyncAssembly(boolean enable) {
+        this.enableAsyncAssembly = enable;
+        this.reset();
+    }
+
+    /**
+     * Returns the time taken to assemble this shape's most recent geometry. For geometry assembled on a worker thread,
+     * this is the time between the geometry being requested and the geometry being ready to display.
+     *
+     * @return the most recent assembly latency in milliseconds, or -1 if the shape has not assembled geometry
+     */
+    public double getAssemblyLatency() {
+        return (this.assemblyLatency >= 0) ? this.assemblyLatency * 1.0e-6 : -1;
+    }
+
     @Override
     protected void doRender(RenderContext rc) {
+        // Select the simplification level matching the shape's current pixel size.
+        this.determineSimplificationLevel(rc);
+
+        // Swap in geometry assembled on a worker thread before testing visibility, since new geometry may have a
+        // different bounding box.
+        if (this.enableAsyncAssembly && this.canAssembleAsync()) {
+            this.updateGeometryAsync(rc);
+        }
+
         // Don't render anything if the shape is not visible.
         if (!this.intersectsFrustum(rc)) {
             return;
@@ -195,7 +303,395 @@ public abstract class AbstractShape extends AbstractRenderable implements Attrib
         return texCoordMatrix;
     }
 
+    /**
+     * Selects this shape's simplification level from the size of a pixel at the shape's distance to the camera. Levels
+     * are powers of two in meters, so that the shape's geometry is re-assembled only when the pixel size at the shape
+     * changes by a factor of two. Increments the shape's geometry version when the level changes.
+     *
+     * @param rc the current render context
+     */
+    protected void determineSimplificationLevel(RenderContext rc) {
+        int level = NO_SIMPLIFICATION;
+        double distance = (this.simplificationTolerance > 0) ? this.simplificationDistance(rc) : 0;
+        if (distance > 0) {
+            double tolerance = this.simplificationTolerance * rc.pixelSizeAtDistance(distance);
+            level = Math.getExponent(tolerance); // floor of the base two logarithm
+        }
+
+        if (this.simplificationLevel != level) {
+            this.simplificationLevel = level;
+            this.simplificationThreshold = (level != NO_SIMPLIFICATION) ? Math.scalb(1.0, level) : 0;
+            this.geometryVersion++;
+        }
+    }
+
+    /**
+     * Computes the distance from the camera to this shape's bounding volume, used to select the simplification level.
+     * The distance to the nearest vertex is unsuitable, since simplification omits vertices: a camera near the middle
+     * of a long shape would find the nearest remaining vertex farther away, and coarsen the level further. The bounding
+     * volume of simplified geometry is within the simplification threshold of the full geometry's.
+     *
+     * @param rc the current render context
+     *
+     * @return the distance in meters, or 0 if the shape has no geometry
+     */
+    protected double simplificationDistance(RenderContext rc) {
+        if (!Double.isNaN(this.boundingSector.minLatitude())) { // a sector with zero width or height is not empty here
+            return this.cameraDistanceGeographic(rc, this.boundingSector);
+        } else if (!this.boundingBox.isUnitBox()) {
+            return this.boundingBox.distanceTo(rc.cameraPoint);
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Computes the simplification error in meters of each position in a list, using the Douglas-Peucker algorithm. A
+     * position's error is the distance by which the shape deviates from that position when it and all positions with
+     * a lesser error are omitted. Omitting all positions whose error is less than a threshold therefore produces the
+     * Douglas-Peucker simplification for that threshold, and lower thresholds produce a superset of the positions of
+     * higher thresholds. Distances are computed in an equirectangular projection local to each position, which is
+     * sufficient to select a level of detail.
+     * <p/>
+     * The first and last positions are always retained. When the positions form a closed boundary, the position
+     * farthest from the first and the position farthest from both are also retained, so that the boundary retains an
+     * area.
+     *
+     * @param positions the positions to compute errors for
+     * @param closed    true if the positions form a closed boundary, false if they form a path
+     * @param result    a pre-allocated array in which to return the errors, or null to allocate a new array
+     *
+     * @return the result argument set to each position's error, or a new array if the result is null or too small
+     */
+    protected static double[] computeSimplificationErrors(List<Position> positions, boolean closed, double[] result) {
+        int count = positions.size();
+        if (result == null || result.length < count) {
+            result = new double[count];
+        }
+
+        if (count == 0) {
+            return result;
+        }
+
+        // Collect the positions in degrees and meters, with the length in meters of a degree of longitude at each
+        // position's latitude. Distances are measured in a projection scaled at the position being measured.
+        double[] points = new double[count * 4];
+        for (int idx = 0; idx < count; idx++) {
+            Position pos = positions.get(idx);
+            points[idx * 4] = pos.longitude;
+            points[idx * 4 + 1] = pos.latitude;
+            points[idx * 4 + 2] = pos.altitude;
+            points[idx * 4 + 3] = METERS_PER_DEGREE * Math.cos(Math.toRadians(pos.latitude));
+        }
+
+        Arrays.fill(result, 0, count, 0);
+        result[0] = Double.POSITIVE_INFINITY;
+        result[count - 1] = Double.POSITIVE_INFINITY;
+
+        // Each range of positions between two retained positions is split at its farthest position. A position's error
+        // is limited to the error of the position that split its range, so that the errors nest.
+        int[] ranges = new int[16];
+        double[] limits = new double[8];
+        int rangeCount = 0;
+
+        if (closed && count > 3) {
+            int far = farthestPosition(points, 0, count - 1, 0, 0);
+            result[far] = Double.POSITIVE_INFINITY;
+            int third = farthestPosition(points, 0, count - 1, 0, far);
+            result[third] = Double.POSITIVE_INFINITY;
+        }
+
+        // Begin with the ranges between consecutive retained positions.
+        for (int begin = 0, end = 1; end < count; end++) {
+            if (result[end] == Double.POSITIVE_INFINITY) {
+                ranges[rangeCount * 2] = begin;
+                ranges[rangeCount * 2 + 1] = end;
+                limits[rangeCount] = Double.POSITIVE_INFINITY;
+                rangeCount++;
+                begin = end;
+            }
+        }
+
+        while (rangeCount > 0) {
+            rangeCount--;
+            int begin = ranges[rangeCount * 2];
+            int end = ranges[rangeCount * 2 + 1];
+            double limit = limits[rangeCount];
+
+            int far = farthestPosition(points, begin, end, begin, end);
+            if (far == NO_POSITION) {
+                continue; // no positions between the range's endpoints
+            }
+
+            double error = Math.min(distanceToSegment(points, far, begin, end), limit);
+            result[far] = error;
+
+            if (ranges.length < (rangeCount + 2) * 2) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                limits = Arrays.copyOf(limits, limits.length * 2);
+            }
+
+            ranges[rangeCount * 2] = begin;
+            ranges[rangeCount * 2 + 1] = far;
+            limits[rangeCount++] = error;
+            ranges[rangeCount * 2] = far;
+            ranges[rangeCount * 2 + 1] = end;
+            limits[rangeCount++] = error;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the position strictly between begin and end that's farthest from the segment between positions a and b,
+     * or NO_POSITION if there are no positions between begin and end.
+     */
+    private static int farthestPosition(double[] points, int begin, int end, int a, int b) {
+        int farthest = NO_POSITION;
+        double maxDistance = -1;
+        for (int idx = begin + 1; idx < end; idx++) {
+            double distance = distanceToSegment(points, idx, a, b);
+            if (maxDistance < distance) {
+                maxDistance = distance;
+                farthest = idx;
+            }
+        }
+
+        return farthest;
+    }
+
+    private static double distanceToSegment(double[] points, int idx, int a, int b) {
+        double lonScale = points[idx * 4 + 3];
+        double px = points[idx * 4] * lonScale, py = points[idx * 4 + 1] * METERS_PER_DEGREE, pz = points[idx * 4 + 2];
+        double ax = points[a * 4] * lonScale, ay = points[a * 4 + 1] * METERS_PER_DEGREE, az = points[a * 4 + 2];
+        double dx = points[b * 4] * lonScale - ax, dy = points[b * 4 + 1] * METERS_PER_DEGREE - ay, dz = points[b * 4 + 2] - az;
+        double lengthSquared = dx * dx + dy * dy + dz * dz;
+
+        double t = (lengthSquared > 0) ? ((px - ax) * dx + (py - ay) * dy + (pz - az) * dz) / lengthSquared : 0;
+        t = WWMath.clamp(t, 0, 1);
+
+        double ex = ax + dx * t - px, ey = ay + dy * t - py, ez = az + dz * t - pz;
+        return Math.sqrt(ex * ex + ey * ey + ez * ez);
+    }
+
+    /**
+     * Assembles this shape's geometry on the render thread, and records the assembly latency.
+     *
+     * @param rc the current render context
+     */
+    protected void assembleGeometrySync(RenderContext rc) {
+        long startTime = System.nanoTime();
+        this.assembleGeometry(rc);
+        this.assemblyLatency = System.nanoTime() - startTime;
+        this.assembledVersion = this.geometryVersion;
+    }
+
+    /**
+     * Updates this shape's geometry from geometry assembled on a worker thread. Swaps in the most recently assembled
+     * geometry when it's ready, and starts assembling new geometry when the shape has changed since its geometry was
+     * last requested. Must be called only when {@link #canAssembleAsync()} returns true.
+     *
+     * @param rc the current render context
+     */
+    protected void updateGeometryAsync(RenderContext rc) {
+        AssemblyTask task = this.assemblyTask;
+        if (task != null && task.complete) {
+            this.assemblyTask = null;
+            this.assemblyShape = task.shape; // retain the back buffer shape for the next assembly
+            if (task.succeeded) {
+                this.swapGeometry(task.shape);
+                this.assembledVersion = task.version;
+                this.assemblyLatency = System.nanoTime() - task.startTime;
+            } else {
+                this.assembledVersion = this.geometryVersion; // don't retry until the shape changes
+            }
+        }
+
+        if (this.assemblyTask == null && this.assembledVersion != this.geometryVersion) {
+            if (this.assemblyShape == null) {
+                this.assemblyShape = this.newAssemblyShape();
+            }
+
+            // Snapshot this shape's properties and positions in the back buffer shape, then assemble its geometry on a
+            // worker thread using a render context limited to the current globe and vertical exaggeration.
+            task = new AssemblyTask();
+            task.shape = this.assemblyShape;
+            task.globe = rc.globe;
+            task.verticalExaggeration = rc.verticalExaggeration;
+            task.version = this.geometryVersion;
+            task.startTime = System.nanoTime();
+            this.snapshotGeometry(task.shape);
+
+            try {
+                WorldWind.taskService().execute(task);
+                this.assemblyTask = task;
+            } catch (Exception ignored) {
+                // Assemble geometry when the task service has available threads.
+            }
+        }
+    }
+
+    /**
+     * Indicates whether this shape's geometry can be assembled on a worker thread in the shape's current configuration.
+     * Shapes whose geometry depends on the terrain cannot be assembled asynchronously.
+     *
+     * @return true if geometry can be assembled asynchronously, otherwise false
+     */
+    protected boolean canAssembleAsync() {
+        return false;
+    }
+
+    /**
+     * Creates the back buffer shape in which geometry is assembled on a worker thread. Shapes that support asynchronous
+     * assembly must override this method.
+     *
+     * @return a new shape of this shape's class, or null if asynchronous assembly is not supported
+     */
+    protected AbstractShape newAssemblyShape() {
+        return null;
+    }
+
+    /**
+     * Copies the properties and positions that determine this shape's geometry to a back buffer shape.
+     *
+     * @param shape the back buffer shape
+     */
+    protected void snapshotGeometry(AbstractShape shape) {
+    }
+
+    /**
+     * Exchanges this shape's geometry with the geometry assembled in a back buffer shape. Subclasses that override this
+     * method must call the superclass implementation, which exchanges the shapes' bounding box and bounding sector.
+     *
+     * @param shape the back buffer shape
+     */
+    protected void swapGeometry(AbstractShape shape) {
+        BoundingBox box = this.boundingBox;
+        this.boundingBox = shape.boundingBox;
+        shape.boundingBox = box;
+
+        Sector sector = this.boundingSector;
+        this.boundingSector = shape.boundingSector;
+        shape.boundingSector = sector;
+    }
+
+    protected void assembleGeometry(RenderContext rc) {
+    }
+
+    /**
+     * Copies a list of positions to a list of position snapshots, reusing the snapshot list's positions.
+     *
+     * @param positions the positions to copy
+     * @param result    the snapshot list to reuse, or null to allocate a new list
+     *
+     * @return the result argument set to copies of the positions, or a new list if the result argument is null
+     */
+    protected static ArrayList<Position> snapshotPositions(List<Position> positions, ArrayList<Position> result) {
+        int size = positions.size();
+        if (result == null) {
+            result = new ArrayList<>(size);
+        }
+
+        for (int idx = 0; idx < size; idx++) {
+            Position pos = positions.get(idx);
+            if (idx < result.size()) {
+                result.get(idx).set(pos);
+            } else {
+                result.add(new Position(pos));
+            }
+        }
+
+        if (result.size() > size) {
+            result.subList(size, result.size()).clear();
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates whether this shape's buffer objects must be updated with the shape's most recently assembled geometry.
+     *
+     * @return true if the geometry has been assembled since the buffer objects were last updated, otherwise false
+     */
+    protected boolean mustUpdateBuffers() {
+        return this.bufferVersion != this.assembledVersion;
+    }
+
+    /**
+     * Replaces the contents of the buffer object associated with a cache key, creating the buffer object if the cache
+     * does not contain one. The cache key stays the same across geometry changes, and the existing buffer object's
+     * OpenGL data store is reused. Drawables must bind the buffer object's version returned by {@link
+     * BufferObject#getVersion()} once this method returns.
+     *
+     * @param rc     the current render context
+     * @param key    the buffer object's cache key
+     * @param target the OpenGL buffer target, GL_ARRAY_BUFFER or GL_ELEMENT_ARRAY_BUFFER
+     * @param size   the size of the new contents in bytes
+     * @param buffer the new contents
+     *
+     * @return the buffer object containing the new contents
+     */
+    protected static BufferObject updateBufferObject(RenderContext rc, Object key, int target, int size, Buffer buffer) {
+        BufferObject bufferObject = rc.getBufferObject(key);
+        if (bufferObject == null) {
+            return rc.putBufferObject(key, new BufferObject(target, size, buffer));
+        }
+
+        int byteCount = bufferObject.getBufferByteCount();
+        bufferObject.setBuffer(size, buffer);
+
+        // Add the buffer object to the cache again when its size changes, so the cache accounts for the new size.
+        return (byteCount == size) ? bufferObject : rc.putBufferObject(key, bufferObject);
+    }
+
     protected abstract void reset();
 
     protected abstract void makeDrawable(RenderContext rc);
+
+    protected static class AssemblyTask implements Runnable {
+
+        /**
+         * Render contexts used to assemble geometry on worker threads, one for each thread. Shapes share their worker
+         * thread's render context rather than each allocating a render context and its scratch state.
+         */
+        protected static final ThreadLocal<RenderContext> assemblyContext = new ThreadLocal<RenderContext>() {
+            @Override
+            protected RenderContext initialValue() {
+                return new RenderContext();
+            }
+        };
+
+        public AbstractShape shape;
+
+        public Globe globe;
+
+        public double verticalExaggeration;
+
+        public int version;
+
+        public long startTime;
+
+        public volatile boolean complete;
+
+        public boolean succeeded; // written before complete, read after complete
+
+        @Override
+        public void run() {
+            RenderContext rc = assemblyContext.get();
+            try {
+                rc.globe = this.globe;
+                rc.verticalExaggeration = this.verticalExaggeration;
+                this.shape.assembleGeometry(rc);
+                this.succeeded = true;
+            } catch (Throwable logged) {
+                Logger.logMessage(Logger.ERROR, "AbstractShape", "assembleGeometry",
+                    "Exception attempting to assemble shape geometry", logged);
+            } finally {
+                rc.globe = null; // don't retain the globe between tasks
+                this.globe = null;
+                this.complete = true;
+                WorldWind.requestRedraw();
+            }
+        }
+    }
 }
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.shape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import gov.nasa.worldwind.draw.Drawable;
+import gov.nasa.worldwind.draw.DrawableSurfaceTexture;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.render.ImageTile;
+import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.render.Texture;
+import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Pool;
+import gov.nasa.worldwind.util.Tile;
+import gov.nasa.worldwind.util.TileFactory;
+
+/**
+ * Tiled surface image that composites the images of several tile factories into a single texture per tile. The tile
+ * factories share this surface image's level set, and each composite tile combines the images that the tile factories
+ * provide for the same level, row and column. Source images are drawn in the order their tile factories were added,
+ * each with its own opacity. Compositing happens on an image retrieval thread, so each tile is traversed, retrieved,
+ * cached and drawn once regardless of the number of tile factories.
+ * <p/>
+ * Changing the tile factories or their opacities does not discard the tile hierarchy. Tiles are updated lazily as they
+ * are traversed, so only visible tiles are recomposited. A tile continues to display its previous composite image
+ * until the new composite image is available.
+ */
+public class CompositeTiledSurfaceImage extends TiledSurfaceImage {
+
+    protected ArrayList<TileFactory> tileFactories = new ArrayList<>();
+
+    protected ArrayList<Float> opacities = new ArrayList<>();
+
+    protected int compositeVersion;
+
+    public CompositeTiledSurfaceImage() {
+        this.setDisplayName("Composite Tiled Surface Image");
+        this.tileFactory = new CompositeTileFactory();
+    }
+
+    public int getTileFactoryCount() {
+        return this.tileFactories.size();
+    }
+
+    public TileFactory getTileFactory(int index) {
+        if (index < 0 || index >= this.tileFactories.size()) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CompositeTiledSurfaceImage", "getTileFactory", "invalidIndex"));
+        }
+
+        return this.tileFactories.get(index);
+    }
+
+    /**
+     * Adds a fully opaque tile factory, drawn over the images of the tile factories added before it.
+     *
+     * @param tileFactory the tile factory to add
+     *
+     * @throws IllegalArgumentException If the tile factory is null
+     */
+    public void addTileFactory(TileFactory tileFactory) {
+        this.addTileFactory(this.tileFactories.size(), tileFactory, 1);
+    }
+
+    /**
+     * Adds a tile factory at a specified index in the compositing order. Tile factories with lower indices are drawn
+     * first.
+     *
+     * @param index       the index at which to add the tile factory
+     * @param tileFactory the tile factory to add
+     * @param opacity     the opacity of the tile factory's images, between 0 and 1
+     *
+     * @throws IllegalArgumentException If the tile factory is null, or if the index is out of range
+     */
+    public void addTileFactory(int index, TileFactory tileFactory, float opacity) {
+        if (tileFactory == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CompositeTiledSurfaceImage", "addTileFactory", "missingTileFactory"));
+        }
+
+        if (index < 0 || index > this.tileFactories.size()) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CompositeTiledSurfaceImage", "addTileFactory", "invalidIndex"));
+        }
+
+        this.tileFactories.add(index, tileFactory);
+        this.opacities.add(index, opacity);
+        this.compositeVersion++;
+    }
+
+    public TileFactory removeTileFactory(int index) {
+        if (index < 0 || index >= this.tileFactories.size()) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CompositeTiledSurfaceImage", "removeTileFactory", "invalidIndex"));
+        }
+
+        this.opacities.remove(index);
+        this.compositeVersion++;
+        return this.tileFactories.remove(index);
+    }
+
+    /**
+     * Moves a tile factory to a different index in the compositing order.
+     *
+     * @param fromIndex the tile factory's current index
+     * @param toIndex   the tile factory's new index
+     *
+     * @throws IllegalArgumentException If either index is out of range
+     */
+    public void moveTileFactory(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || fromIndex >= this.tileFactories.size() || toIndex < 0 || toIndex >= this.tileFactories.size()) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CompositeTiledSurfaceImage", "moveTileFactory", "invalidIndex"));
+        }
+
+        if (fromIndex != toIndex) {
+            this.tileFactories.add(toIndex, this.tileFactories.remove(fromIndex));
+            this.opacities.add(toIndex, this.opacities.remove(fromIndex));
+            this.compositeVersion++;
+        }
+    }
+
+    public float getOpacity(int index) {
+        if (index < 0 || index >= this.opacities.size()) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CompositeTiledSurfaceImage", "getOpacity", "invalidIndex"));
+        }
+
+        return this.opacities.get(index);
+    }
+
+    /**
+     * Sets the opacity of a tile factory's images. Tile factories with an opacity of 0 are excluded from compositing
+     * and their images are not retrieved.
+     *
+     * @param index   the tile factory's index
+     * @param opacity the opacity of the tile factory's images, between 0 and 1
+     *
+     * @throws IllegalArgumentException If the index is out of range
+     */
+    public void setOpacity(int index, float opacity) {
+        if (index < 0 || index >= this.opacities.size()) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CompositeTiledSurfaceImage", "setOpacity", "invalidIndex"));
+        }
+
+        if (this.opacities.get(index) != opacity) {
+            this.opacities.set(index, opacity);
+            this.compositeVersion++;
+        }
+    }
+
+    /**
+     * Composite tiled surface images create their tiles from the tile factories added by addTileFactory. The composite
+     * tile factory cannot be replaced, and calls to this method are ignored.
+     */
+    @Override
+    public void setTileFactory(TileFactory tileFactory) {
+        Logger.logMessage(Logger.WARN, "CompositeTiledSurfaceImage", "setTileFactory",
+            "The composite tile factory cannot be replaced, use addTileFactory");
+    }
+
+    @Override
+    protected void addTileOrDescendants(RenderContext rc, ImageTile tile) {
+        CompositeImageTile compositeTile = (CompositeImageTile) tile;
+        if (compositeTile.compositeVersion != this.compositeVersion) {
+            this.updateTile(compositeTile); // update the tile's image source; its image is retrieved when it's drawn
+        }
+
+        super.addTileOrDescendants(rc, tile);
+    }
+
+    @Override
+    protected void addTile(RenderContext rc, ImageTile tile) {
+        CompositeImageTile compositeTile = (CompositeImageTile) tile;
+        ImageSource imageSource = tile.getImageSource();
+        ImageSource previousImageSource = compositeTile.previousImageSource;
+        if (imageSource == null || previousImageSource == null) {
+            super.addTile(rc, tile);
+            return;
+        }
+
+        Texture texture = rc.getTexture(imageSource); // try to get the texture from the cache
+        if (texture == null) {
+            texture = rc.retrieveTexture(imageSource, this.imageOptions); // puts retrieved textures in the cache
+        }
+
+        if (texture != null) { // the new composite is available; the previous composite is no longer needed
+            compositeTile.previousImageSource = null;
+        } else {
+            texture = rc.getTexture(previousImageSource); // display the previous composite while the new one is retrieved
+        }
+
+        if (texture != null) {
+            Pool<DrawableSurfaceTexture> pool = rc.getDrawablePool(DrawableSurfaceTexture.class);
+            Drawable drawable = DrawableSurfaceTexture.obtain(pool).set(this.activeProgram, tile.sector, texture, texture.getTexCoordTransform());
+            rc.offerSurfaceDrawable(drawable, 0 /*z-order*/);
+        } else {
+            compositeTile.previousImageSource = null; // the previous composite has been evicted from the cache
+            super.addTile(rc, tile);
+        }
+    }
+
+    /**
+     * Updates a tile's image source to match the current tile factories and opacities. Each tile factory's image source
+     * is created once and retained by the tile, so reordering tile factories or changing their opacities does not
+     * create new source tiles.
+     */
+    protected void updateTile(CompositeImageTile tile) {
+        int count = this.tileFactories.size();
+        TileFactory[] factories = new TileFactory[count];
+        ImageSource[] factorySources = new ImageSource[count];
+        ImageSource[] compositeSources = new ImageSource[count];
+        float[] compositeOpacities = new float[count];
+        int compositeCount = 0;
+
+        for (int idx = 0; idx < count; idx++) {
+            TileFactory factory = this.tileFactories.get(idx);
+            int sourceIdx = tile.indexOfSourceFactory(factory);
+            ImageSource source;
+            if (sourceIdx >= 0) {
+                source = tile.sourceImageSources[sourceIdx];
+            } else {
+                Tile sourceTile = factory.createTile(tile.sector, tile.level, tile.row, tile.column);
+                source = (sourceTile instanceof ImageTile) ? ((ImageTile) sourceTile).getImageSource() : null;
+            }
+
+            factories[idx] = factory;
+            factorySources[idx] = source;
+
+            float opacity = this.opacities.get(idx);
+            if (source != null && opacity > 0) { // skip empty levels, missing images and transparent tile factories
+                compositeSources[compositeCount] = source;
+                compositeOpacities[compositeCount] = opacity;
+                compositeCount++;
+            }
+        }
+
+        ImageSource imageSource;
+        if (compositeCount == 0) {
+            imageSource = null; // no tile factory has an image for the tile
+        } else if (compositeCount == 1 && compositeOpacities[0] == 1) {
+            imageSource = compositeSources[0]; // a single opaque image needs no compositing
+        } else {
+            imageSource = ImageSource.fromComposite(
+                Arrays.copyOf(compositeSources, compositeCount), Arrays.copyOf(compositeOpacities, compositeCount));
+        }
+
+        // Keep the first image source the tile displayed since its last composite was available, so that the tile
+        // doesn't disappear while several changes are retrieved.
+        ImageSource currentImageSource = tile.getImageSource();
+        if (tile.previousImageSource == null && currentImageSource != null && !currentImageSource.equals(imageSource)) {
+            tile.previousImageSource = currentImageSource;
+        }
+
+        tile.setImageSource(imageSource);
+        tile.sourceFactories = factories;
+        tile.sourceImageSources = factorySources;
+        tile.compositeVersion = this.compositeVersion;
+    }
+
+    protected class CompositeTileFactory implements TileFactory {
+
+        @Override
+        public Tile createTile(Sector sector, Level level, int row, int column) {
+            CompositeImageTile tile = new CompositeImageTile(sector, level, row, column);
+            tile.compositeVersion = compositeVersion - 1; // update the tile when it's first traversed
+            return tile;
+        }
+    }
+
+    protected static class CompositeImageTile extends ImageTile {
+
+        protected int compositeVersion;
+
+        protected ImageSource previousImageSource;
+
+        protected TileFactory[] sourceFactories = new TileFactory[0];
+
+        protected ImageSource[] sourceImageSources = new ImageSource[0];
+
+        public CompositeImageTile(Sector sector, Level level, int row, int column) {
+            super(sector, level, row, column);
+        }
+
+        protected int indexOfSourceFactory(TileFactory factory) {
+            for (int idx = 0; idx < this.sourceFactories.length; idx++) {
+                if (this.sourceFactories[idx] == factory) {
+                    return idx;
+                }
+            }
+
+            return -1;
+        }
+    }
+}
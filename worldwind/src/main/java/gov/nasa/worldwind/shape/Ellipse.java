@@ -161,8 +161,6 @@ public class Ellipse extends AbstractShape {
 
     protected Matrix4 modelToTexCoord = new Matrix4();
 
-    protected double cameraDistance;
-
     protected Vec3 prevPoint = new Vec3();
 
     private static Position scratchPosition = new Position();
@@ -8,6 +8,7 @@ package gov.nasa.worldwind.shape;
 import gov.nasa.worldwind.PickedObject;
 import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.draw.DrawableScreenTexture;
+import gov.nasa.worldwind.draw.DrawableText;
 import gov.nasa.worldwind.geom.Matrix4;
 import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Vec2;
@@ -17,6 +18,8 @@ import gov.nasa.worldwind.globe.Globe;
 import gov.nasa.worldwind.render.AbstractRenderable;
 import gov.nasa.worldwind.render.BasicShaderProgram;
 import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.GlyphAtlas;
+import gov.nasa.worldwind.render.LabelDeclutter;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.render.Texture;
 import gov.nasa.worldwind.util.Logger;
@@ -27,7 +30,7 @@ import gov.nasa.worldwind.util.WWMath;
  * Represents a label at a geographic position. Labels display a single line of text according to specified {@link
  * TextAttributes}.
  */
-public class Label extends AbstractRenderable implements Highlightable, Movable {
+public class Label extends AbstractRenderable implements Highlightable, Movable, LabelDeclutter.Candidate {
 
     /**
      * The default amount of screen depth offset applied to the label's text during rendering. Values less than zero
@@ -87,6 +90,11 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
      */
     protected boolean highlighted;
 
+    /**
+     * The label's priority when labels are decluttered.
+     */
+    protected double priority;
+
     /**
      * Constructs a label that displays text at a geographic position.
      *
@@ -279,6 +287,29 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
         return this;
     }
 
+    /**
+     * Indicates this label's priority when labels are decluttered. See {@link #setPriority(double)}.
+     *
+     * @return this label's declutter priority
+     */
+    public double getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * Sets this label's priority when labels are decluttered. When the WorldWindow declutters labels, overlapping
+     * labels are suppressed in order of ascending priority, then descending camera distance. The default priority is
+     * zero.
+     *
+     * @param priority this label's new declutter priority
+     *
+     * @return this label with its priority set to the specified value
+     */
+    public Label setPriority(double priority) {
+        this.priority = priority;
+        return this;
+    }
+
     /**
      * Indicates this label's "normal" attributes, that is the attributes used when the label's highlighted flag is
      * false. If null and this label is not highlighted, this label displays nothing.
@@ -404,6 +435,13 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
             return;
         }
 
+        // Offer the label to the declutter when decluttering is enabled. The declutter renders the label again after
+        // all layers have rendered if the label does not overlap a label of higher priority.
+        if (rc.labelDeclutter != null && !renderData.decluttered) {
+            this.offerToDeclutter(rc);
+            return;
+        }
+
         // Keep track of the drawable count to determine whether or not this label has enqueued drawables.
         int drawableCount = rc.drawableCount();
         if (rc.pickMode) {
@@ -420,6 +458,42 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
         }
     }
 
+    /**
+     * Enqueues drawables for this label after the declutter has placed it. Called by {@link LabelDeclutter}; not
+     * intended to be called by applications.
+     *
+     * @param rc the current render context
+     */
+    @Override
+    public void renderDecluttered(RenderContext rc) {
+        renderData.decluttered = true;
+        try {
+            this.doRender(rc);
+        } finally {
+            renderData.decluttered = false;
+        }
+    }
+
+    protected void offerToDeclutter(RenderContext rc) {
+        // Measure the label's text without rasterizing it. As in makeDrawable, labels without a text texture whose
+        // position is outside the frustum are not displayed.
+        if (!rc.frustum.containsPoint(renderData.placePoint) && rc.getText(this.text, this.activeAttributes) == null) {
+            return;
+        }
+
+        Vec2 size = rc.measureText(this.text, this.activeAttributes, renderData.textSize);
+        if (size.x == 0 || size.y == 0) {
+            return;
+        }
+
+        this.computeScreenBounds(rc, (int) size.x, (int) size.y);
+        if (!rc.frustum.intersectsViewport(renderData.screenBounds)) {
+            return; // the text is outside the viewport
+        }
+
+        rc.labelDeclutter.offerCandidate(rc, this, renderData.screenBounds, this.priority, renderData.cameraDistance);
+    }
+
     protected void determineActiveAttributes(RenderContext rc) {
         if (this.highlighted && this.highlightAttributes != null) {
             this.activeAttributes = this.highlightAttributes;
@@ -429,42 +503,24 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
     }
 
     protected void makeDrawable(RenderContext rc) {
-        // Render the label's texture when the label's position is in the frustum. If the label's position is outside
-        // the frustum we don't do anything. This ensures that label textures are rendered only as necessary.
-        Texture texture = rc.getText(this.text, this.activeAttributes);
-        if (texture == null && rc.frustum.containsPoint(renderData.placePoint)) {
-            texture = rc.renderText(this.text, this.activeAttributes);
-        } else if (texture == null) {
+        if (this.activeAttributes.enableGlyphAtlas) {
+            this.makeGlyphDrawables(rc);
             return;
         }
 
-        // Initialize the unit square transform to the identity matrix.
-        renderData.unitSquareTransform.setToIdentity();
-
-        // Apply the label's translation according to its text size and text offset. The text offset is defined with its
-        // origin at the text's bottom-left corner and axes that extend up and to the right from the origin point.
-        int w = texture.getWidth();
-        int h = texture.getHeight();
-        this.activeAttributes.textOffset.offsetForSize(w, h, renderData.offset);
-        renderData.unitSquareTransform.setTranslation(
-            renderData.screenPlacePoint.x - renderData.offset.x,
-            renderData.screenPlacePoint.y - renderData.offset.y,
-            renderData.screenPlacePoint.z);
-
-        // Apply the label's rotation according to its rotation value and orientation mode. The rotation is applied
-        // such that the text rotates around the text offset point.
-        double rotation = (this.rotationMode == WorldWind.RELATIVE_TO_GLOBE) ?
-            (rc.camera.heading - this.rotation) : -this.rotation;
-        if (rotation != 0) {
-            renderData.unitSquareTransform.multiplyByTranslation(renderData.offset.x, renderData.offset.y, 0);
-            renderData.unitSquareTransform.multiplyByRotation(0, 0, 1, rotation);
-            renderData.unitSquareTransform.multiplyByTranslation(-renderData.offset.x, -renderData.offset.y, 0);
+        // Retrieve the label's texture when the label's position is in the frustum. If the label's position is outside
+        // the frustum we don't do anything. This ensures that label textures are rendered only as necessary. The text is
+        // rasterized on a worker thread, and the label is not displayed until its texture is available.
+        Texture texture = rc.getText(this.text, this.activeAttributes);
+        if (texture == null && rc.frustum.containsPoint(renderData.placePoint)) {
+            texture = rc.retrieveText(this.text, this.activeAttributes);
         }
 
-        // Apply the label's translation and scale according to its text size.
-        renderData.unitSquareTransform.multiplyByScale(w, h, 1);
+        if (texture == null) {
+            return;
+        }
 
-        WWMath.boundingRectForUnitSquare(renderData.unitSquareTransform, renderData.screenBounds);
+        this.computeScreenBounds(rc, texture.getWidth(), texture.getHeight());
         if (!rc.frustum.intersectsViewport(renderData.screenBounds)) {
             return; // the text is outside the viewport
         }
@@ -499,6 +555,83 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
         rc.offerShapeDrawable(drawable, renderData.cameraDistance);
     }
 
+    protected void makeGlyphDrawables(RenderContext rc) {
+        // Display the label's text using the glyph atlas for its text style when the label's position is in the
+        // frustum. Measuring the text rasterizes any of its glyphs that are not yet in the atlas.
+        if (!rc.frustum.containsPoint(renderData.placePoint)) {
+            return;
+        }
+
+        GlyphAtlas atlas = rc.getGlyphAtlas(this.activeAttributes);
+        Vec2 size = atlas.measureText(this.text, renderData.textSize);
+        if (size.x == 0 || size.y == 0) {
+            return;
+        }
+
+        this.computeScreenBounds(rc, (int) size.x, (int) size.y);
+        if (!rc.frustum.intersectsViewport(renderData.screenBounds)) {
+            return; // the text is outside the viewport
+        }
+
+        BasicShaderProgram program = (BasicShaderProgram) rc.getShaderProgram(BasicShaderProgram.KEY);
+        if (program == null) {
+            program = (BasicShaderProgram) rc.putShaderProgram(BasicShaderProgram.KEY, new BasicShaderProgram(rc.resources));
+        }
+
+        // Enqueue one drawable for each atlas page containing the text's glyphs. Text typically lies in one page.
+        Pool<DrawableText> pool = rc.getDrawablePool(DrawableText.class);
+        for (int page = 0, len = atlas.getPageCount(); page < len; page++) {
+            DrawableText drawable = DrawableText.obtain(pool);
+            float[] vertices = drawable.ensureVertexCapacity(this.text.length() * 6);
+            drawable.vertexCount = atlas.assembleVertices(this.text, page, size.x, size.y, vertices);
+            if (drawable.vertexCount == 0) {
+                drawable.recycle();
+                continue;
+            }
+
+            // Configure the drawable as in makeDrawable. The atlas glyphs include the appropriate color for drawing.
+            drawable.program = program;
+            drawable.unitSquareTransform.set(renderData.unitSquareTransform);
+            if (rc.pickMode) {
+                drawable.color.set(renderData.pickColor);
+            } else {
+                drawable.color.set(1, 1, 1, 1);
+            }
+            drawable.texture = atlas.getPageTexture(page);
+            drawable.enableDepthTest = this.activeAttributes.enableDepthTest;
+
+            rc.offerShapeDrawable(drawable, renderData.cameraDistance);
+        }
+    }
+
+    protected void computeScreenBounds(RenderContext rc, int w, int h) {
+        // Initialize the unit square transform to the identity matrix.
+        renderData.unitSquareTransform.setToIdentity();
+
+        // Apply the label's translation according to its text size and text offset. The text offset is defined with its
+        // origin at the text's bottom-left corner and axes that extend up and to the right from the origin point.
+        this.activeAttributes.textOffset.offsetForSize(w, h, renderData.offset);
+        renderData.unitSquareTransform.setTranslation(
+            renderData.screenPlacePoint.x - renderData.offset.x,
+            renderData.screenPlacePoint.y - renderData.offset.y,
+            renderData.screenPlacePoint.z);
+
+        // Apply the label's rotation according to its rotation value and orientation mode. The rotation is applied
+        // such that the text rotates around the text offset point.
+        double rotation = (this.rotationMode == WorldWind.RELATIVE_TO_GLOBE) ?
+            (rc.camera.heading - this.rotation) : -this.rotation;
+        if (rotation != 0) {
+            renderData.unitSquareTransform.multiplyByTranslation(renderData.offset.x, renderData.offset.y, 0);
+            renderData.unitSquareTransform.multiplyByRotation(0, 0, 1, rotation);
+            renderData.unitSquareTransform.multiplyByTranslation(-renderData.offset.x, -renderData.offset.y, 0);
+        }
+
+        // Apply the label's translation and scale according to its text size.
+        renderData.unitSquareTransform.multiplyByScale(w, h, 1);
+
+        WWMath.boundingRectForUnitSquare(renderData.unitSquareTransform, renderData.screenBounds);
+    }
+
     /**
      * Properties associated with the label during a render pass.
      */
@@ -543,5 +676,15 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
          * The distance from the camera position to the label position, in meters.
          */
         public double cameraDistance;
+
+        /**
+         * The label's text size measured for decluttering.
+         */
+        public Vec2 textSize = new Vec2();
+
+        /**
+         * Indicates whether the label is rendering after being placed by the declutter.
+         */
+        public boolean decluttered;
     }
 }
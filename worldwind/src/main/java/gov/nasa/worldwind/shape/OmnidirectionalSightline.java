@@ -10,11 +10,13 @@ import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.draw.DrawableSightline;
 import gov.nasa.worldwind.geom.BoundingSphere;
 import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.geom.Vec3;
 import gov.nasa.worldwind.globe.Globe;
 import gov.nasa.worldwind.render.AbstractRenderable;
 import gov.nasa.worldwind.render.Color;
 import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.render.SightlineDepthMap;
 import gov.nasa.worldwind.render.SightlineProgram;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.Pool;
@@ -95,6 +97,12 @@ public class OmnidirectionalSightline extends AbstractRenderable implements Attr
 
     private BoundingSphere boundingSphere = new BoundingSphere();
 
+    /**
+     * Key identifying this sightline's depth map in the render resource cache. The depth map is retained across frames
+     * and redrawn only when this sightline or the terrain within its range changes.
+     */
+    private Object depthMapKey = new Object();
+
     /**
      * Constructs an OmnidirectionalSightline that displays the line-of-sight from a specified center position and
      * range. Visible features are displayed in white, while occluded features are displayed in red.
@@ -443,6 +451,7 @@ public class OmnidirectionalSightline extends AbstractRenderable implements Attr
         // Compute the transform from sightline local coordinates to world coordinates.
         drawable.centerTransform = rc.globe.cartesianToLocalTransform(this.centerPoint.x, this.centerPoint.y, this.centerPoint.z, drawable.centerTransform);
         drawable.range = (float) WWMath.clamp(this.range, 0, Float.MAX_VALUE);
+        this.computeRangeSector(rc, drawable.rangeSector);
 
         // Configure the drawable colors according to the current attributes. When picking use a unique color associated
         // with the picked object ID. Null attributes indicate that nothing is drawn.
@@ -459,7 +468,37 @@ public class OmnidirectionalSightline extends AbstractRenderable implements Attr
             drawable.program = (SightlineProgram) rc.putShaderProgram(SightlineProgram.KEY, new SightlineProgram(rc.resources));
         }
 
+        // Use the sightline's depth map retained from previous frames, if any.
+        drawable.depthMap = rc.getSightlineDepthMap(this.depthMapKey);
+        if (drawable.depthMap == null) {
+            drawable.depthMap = rc.putSightlineDepthMap(this.depthMapKey,
+                new SightlineDepthMap(drawable.cubeMapFaceCount(), SightlineDepthMap.DEFAULT_SIZE));
+        }
+
         // Enqueue a drawable for processing on the OpenGL thread.
         rc.offerSurfaceDrawable(drawable, 0 /*z-order*/);
     }
+
+    /**
+     * Computes a geographic sector containing every location within this sightline's range of its center position.
+     * The sector is computed conservatively using the globe's polar radius, and spans all longitudes when the range
+     * reaches a pole or crosses the anti-meridian.
+     */
+    protected void computeRangeSector(RenderContext rc, Sector result) {
+        double lat = this.position.latitude;
+        double lon = this.position.longitude;
+        double deltaLat = Math.toDegrees(this.range / rc.globe.getPolarRadius());
+        double minLat = Math.max(lat - deltaLat, -90);
+        double maxLat = Math.min(lat + deltaLat, 90);
+
+        double minCosLat = Math.min(Math.cos(Math.toRadians(minLat)), Math.cos(Math.toRadians(maxLat)));
+        double deltaLon = (minCosLat > 0) ? deltaLat / minCosLat : 360;
+        if (lon - deltaLon < -180 || lon + deltaLon > 180) { // the range reaches a pole or crosses the anti-meridian
+            result.set(minLat, -180, maxLat - minLat, 360);
+        } else {
+            double minLon = lon - deltaLon;
+            double maxLon = lon + deltaLon;
+            result.set(minLat, minLon, maxLat - minLat, maxLon - minLon);
+        }
+    }
 }
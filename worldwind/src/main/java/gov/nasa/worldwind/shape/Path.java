@@ -11,6 +11,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.ShortBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -24,7 +25,6 @@ import gov.nasa.worldwind.geom.Matrix3;
 import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Vec3;
 import gov.nasa.worldwind.render.BasicShaderProgram;
-import gov.nasa.worldwind.render.BufferObject;
 import gov.nasa.worldwind.render.ImageOptions;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.render.Texture;
@@ -63,6 +63,8 @@ public class Path extends AbstractShape {
 
     protected double texCoord1d;
 
+    protected double[] positionErrors;
+
     private Vec3 point = new Vec3();
 
     private Vec3 prevPoint = new Vec3();
@@ -140,10 +142,16 @@ public class Path extends AbstractShape {
     }
 
     protected void reset() {
-        this.vertexArray.clear();
-        this.interiorElements.clear();
-        this.outlineElements.clear();
-        this.verticalElements.clear();
+        this.geometryVersion++;
+        this.positionErrors = null;
+        this.simplificationErrorsVersion++;
+
+        if (!this.enableAsyncAssembly) { // keep displaying the current geometry until new geometry is assembled
+            this.vertexArray.clear();
+            this.interiorElements.clear();
+            this.outlineElements.clear();
+            this.verticalElements.clear();
+        }
     }
 
     @Override
@@ -152,27 +160,28 @@ public class Path extends AbstractShape {
             return; // nothing to draw
         }
 
-        if (this.mustAssembleGeometry(rc)) {
-            this.assembleGeometry(rc);
-            this.vertexBufferKey = nextCacheKey();
-            this.elementBufferKey = nextCacheKey();
+        if (this.enableAsyncAssembly && this.canAssembleAsync()) {
+            if (this.vertexArray.size() == 0) {
+                return; // geometry is being assembled
+            }
+        } else if (this.mustAssembleGeometry(rc)) {
+            this.assembleGeometrySync(rc);
         }
 
         // Obtain a drawable form the render context pool, and compute distance to the render camera.
         Drawable drawable;
         DrawShapeState drawState;
-        double cameraDistance;
         if (this.isSurfaceShape) {
             Pool<DrawableSurfaceShape> pool = rc.getDrawablePool(DrawableSurfaceShape.class);
             drawable = DrawableSurfaceShape.obtain(pool);
             drawState = ((DrawableSurfaceShape) drawable).drawState;
-            cameraDistance = this.cameraDistanceGeographic(rc, this.boundingSector);
+            this.cameraDistance = this.cameraDistanceGeographic(rc, this.boundingSector);
             ((DrawableSurfaceShape) drawable).sector.set(this.boundingSector);
         } else {
             Pool<DrawableShape> pool = rc.getDrawablePool(DrawableShape.class);
             drawable = DrawableShape.obtain(pool);
             drawState = ((DrawableShape) drawable).drawState;
-            cameraDistance = this.cameraDistanceCartesian(rc, this.vertexArray.array(), this.vertexArray.size(), VERTEX_STRIDE, this.vertexOrigin);
+            this.cameraDistance = this.cameraDistanceCartesian(rc, this.vertexArray.array(), this.vertexArray.size(), VERTEX_STRIDE, this.vertexOrigin);
         }
 
         // Use the basic GLSL program to draw the shape.
@@ -181,28 +190,33 @@ public class Path extends AbstractShape {
             drawState.program = (BasicShaderProgram) rc.putShaderProgram(BasicShaderProgram.KEY, new BasicShaderProgram(rc.resources));
         }
 
-        // Assemble the drawable's OpenGL vertex buffer object.
+        // Assemble the drawable's OpenGL vertex buffer object, updating the existing buffer object in place when the
+        // shape's geometry has changed.
+        boolean updateBuffers = this.mustUpdateBuffers();
         drawState.vertexBuffer = rc.getBufferObject(this.vertexBufferKey);
-        if (drawState.vertexBuffer == null) {
+        if (drawState.vertexBuffer == null || updateBuffers) {
             int size = this.vertexArray.size() * 4;
             FloatBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder()).asFloatBuffer();
             buffer.put(this.vertexArray.array(), 0, this.vertexArray.size());
-            drawState.vertexBuffer = new BufferObject(GLES20.GL_ARRAY_BUFFER, size, buffer.rewind());
-            rc.putBufferObject(this.vertexBufferKey, drawState.vertexBuffer);
+            drawState.vertexBuffer = updateBufferObject(rc, this.vertexBufferKey, GLES20.GL_ARRAY_BUFFER, size, buffer.rewind());
         }
 
         // Assemble the drawable's OpenGL element buffer object.
         drawState.elementBuffer = rc.getBufferObject(this.elementBufferKey);
-        if (drawState.elementBuffer == null) {
+        if (drawState.elementBuffer == null || updateBuffers) {
             int size = (this.interiorElements.size() * 2) + (this.outlineElements.size() * 2) + (this.verticalElements.size() * 2);
             ShortBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder()).asShortBuffer();
             buffer.put(this.interiorElements.array(), 0, this.interiorElements.size());
             buffer.put(this.outlineElements.array(), 0, this.outlineElements.size());
             buffer.put(this.verticalElements.array(), 0, this.verticalElements.size());
-            drawState.elementBuffer = new BufferObject(GLES20.GL_ELEMENT_ARRAY_BUFFER, size, buffer.rewind());
-            rc.putBufferObject(this.elementBufferKey, drawState.elementBuffer);
+            drawState.elementBuffer = updateBufferObject(rc, this.elementBufferKey, GLES20.GL_ELEMENT_ARRAY_BUFFER, size, buffer.rewind());
         }
 
+        // Bind the buffer object versions containing this shape's current geometry.
+        drawState.vertexBufferVersion = drawState.vertexBuffer.getVersion();
+        drawState.elementBufferVersion = drawState.elementBuffer.getVersion();
+        this.bufferVersion = this.assembledVersion;
+
         // Configure the drawable's vertex texture coordinate attribute.
         drawState.texCoordAttrib(1 /*size*/, 12 /*stride in bytes*/);
 
@@ -213,7 +227,7 @@ public class Path extends AbstractShape {
                 texture = rc.retrieveTexture(this.activeAttributes.outlineImageSource, defaultOutlineImageOptions);
             }
             if (texture != null) {
-                double metersPerPixel = rc.pixelSizeAtDistance(cameraDistance);
+                double metersPerPixel = rc.pixelSizeAtDistance(this.cameraDistance);
                 this.computeRepeatingTexCoordTransform(texture, metersPerPixel, this.texCoordMatrix);
                 drawState.texture(texture);
                 drawState.texCoordMatrix(texCoordMatrix);
@@ -257,12 +271,72 @@ public class Path extends AbstractShape {
         if (this.isSurfaceShape) {
             rc.offerSurfaceDrawable(drawable, 0 /*zOrder*/);
         } else {
-            rc.offerShapeDrawable(drawable, cameraDistance);
+            rc.offerShapeDrawable(drawable, this.cameraDistance);
         }
     }
 
     protected boolean mustAssembleGeometry(RenderContext rc) {
-        return this.vertexArray.size() == 0;
+        return this.vertexArray.size() == 0 || this.assembledVersion != this.geometryVersion;
+    }
+
+    @Override
+    protected boolean canAssembleAsync() {
+        if (this.positions.isEmpty()) {
+            return false; // nothing to assemble
+        }
+
+        // Path geometry depends on the terrain unless the path is absolute or follows the terrain as a surface shape.
+        return this.altitudeMode == WorldWind.ABSOLUTE || (this.altitudeMode == WorldWind.CLAMP_TO_GROUND && this.followTerrain);
+    }
+
+    @Override
+    protected AbstractShape newAssemblyShape() {
+        return new Path();
+    }
+
+    @Override
+    protected void snapshotGeometry(AbstractShape shape) {
+        Path path = (Path) shape;
+        path.altitudeMode = this.altitudeMode;
+        path.pathType = this.pathType;
+        path.maximumIntermediatePoints = this.maximumIntermediatePoints;
+        path.extrude = this.extrude;
+        path.followTerrain = this.followTerrain;
+        path.simplificationThreshold = this.simplificationThreshold;
+        path.positionErrors = this.positionErrors;
+        path.simplificationErrorsVersion = this.simplificationErrorsVersion;
+        path.positions = snapshotPositions(this.positions,
+            (path.positions instanceof ArrayList) ? (ArrayList<Position>) path.positions : null);
+    }
+
+    @Override
+    protected void swapGeometry(AbstractShape shape) {
+        super.swapGeometry(shape);
+
+        Path path = (Path) shape;
+        FloatArray vertexArray = this.vertexArray;
+        this.vertexArray = path.vertexArray;
+        path.vertexArray = vertexArray;
+
+        ShortArray interiorElements = this.interiorElements;
+        this.interiorElements = path.interiorElements;
+        path.interiorElements = interiorElements;
+
+        ShortArray outlineElements = this.outlineElements;
+        this.outlineElements = path.outlineElements;
+        path.outlineElements = outlineElements;
+
+        ShortArray verticalElements = this.verticalElements;
+        this.verticalElements = path.verticalElements;
+        path.verticalElements = verticalElements;
+
+        this.vertexOrigin.set(path.vertexOrigin);
+        this.isSurfaceShape = path.isSurfaceShape;
+
+        // Keep the errors computed for this path's current positions, so that they're computed once per change.
+        if (this.positionErrors == null && this.simplificationErrorsVersion == path.simplificationErrorsVersion) {
+            this.positionErrors = path.positionErrors;
+        }
     }
 
     protected void assembleGeometry(RenderContext rc) {
@@ -276,12 +350,22 @@ public class Path extends AbstractShape {
         this.outlineElements.clear();
         this.verticalElements.clear();
 
+        // Compute each position's simplification error when the path is simplified at the current viewing distance.
+        double threshold = this.simplificationThreshold;
+        if (threshold > 0 && (this.positionErrors == null || this.positionErrors.length != this.positions.size())) {
+            this.positionErrors = computeSimplificationErrors(this.positions, false /*closed*/, null);
+        }
+
         // Add the first vertex.
         Position begin = this.positions.get(0);
         this.addVertex(rc, begin.latitude, begin.longitude, begin.altitude, false /*intermediate*/);
 
         // Add the remaining vertices, inserting vertices along each edge as indicated by the path's properties.
         for (int idx = 1, len = this.positions.size(); idx < len; idx++) {
+            if (threshold > 0 && this.positionErrors[idx] < threshold) {
+                continue; // omit positions within the simplification threshold
+            }
+
             Position end = this.positions.get(idx);
             this.addIntermediateVertices(rc, begin, end);
             this.addVertex(rc, end.latitude, end.longitude, end.altitude, false /*intermediate*/);
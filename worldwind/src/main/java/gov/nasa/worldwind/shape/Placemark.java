@@ -7,6 +7,7 @@ package gov.nasa.worldwind.shape;
 
 import gov.nasa.worldwind.PickedObject;
 import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.draw.DrawableIcon;
 import gov.nasa.worldwind.draw.DrawableLines;
 import gov.nasa.worldwind.draw.DrawableScreenTexture;
 import gov.nasa.worldwind.geom.Matrix4;
@@ -18,6 +19,8 @@ import gov.nasa.worldwind.globe.Globe;
 import gov.nasa.worldwind.render.AbstractRenderable;
 import gov.nasa.worldwind.render.BasicShaderProgram;
 import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.IconAtlas;
+import gov.nasa.worldwind.render.IconShaderProgram;
 import gov.nasa.worldwind.render.ImageSource;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.render.Texture;
@@ -105,6 +108,12 @@ public class Placemark extends AbstractRenderable implements Highlightable, Mova
      */
     protected Texture activeTexture;
 
+    /**
+     * The icon atlas region associated with the active attributes, or null if the attributes' image is not displayed
+     * from the icon atlas.
+     */
+    protected IconAtlas.Icon activeIcon;
+
     /**
      * The picked object ID associated with the placemark during the current render pass.
      */
@@ -735,10 +744,17 @@ public class Placemark extends AbstractRenderable implements Highlightable, Mova
         // edge of the screen were loaded. In these cases the placemark will "pop" into view when
         // the placePoint enters the view frustum.
         if (this.activeAttributes.imageSource != null) {
-            this.activeTexture = rc.getTexture(this.activeAttributes.imageSource); // try to get the texture from the cache
+            if (this.mustUseIconAtlas(rc)) {
+                this.activeIcon = rc.getIconAtlas().getIcon(this.activeAttributes.imageSource); // try to get the icon from the atlas
+                // Display the image's texture, if any, while an image deferred from the atlas is retried.
+                this.activeTexture = (this.activeIcon == null) ? rc.getTexture(this.activeAttributes.imageSource) : null;
+            } else {
+                this.activeIcon = null;
+                this.activeTexture = rc.getTexture(this.activeAttributes.imageSource); // try to get the texture from the cache
+            }
             // If we don't have a texture, then perform point-based culling here,
             // otherwise we'll perform a "frustum intersects screenBounds" test later on.
-            if (this.activeTexture == null) {
+            if (this.activeTexture == null && this.activeIcon == null) {
                 if (!rc.frustum.containsPoint(placePoint)) {
                     return;
                 }
@@ -751,14 +767,22 @@ public class Placemark extends AbstractRenderable implements Highlightable, Mova
         // If the placemark's icon is visible, enqueue a drawable icon for processing on the OpenGL thread.
         WWMath.boundingRectForUnitSquare(unitSquareTransform, screenBounds);
         if (rc.frustum.intersectsViewport(screenBounds)) {
-            Pool<DrawableScreenTexture> pool = rc.getDrawablePool(DrawableScreenTexture.class);
-            DrawableScreenTexture drawable = DrawableScreenTexture.obtain(pool);
-            this.prepareDrawableIcon(rc, drawable);
-            rc.offerShapeDrawable(drawable, this.cameraDistance);
+            if (this.activeIcon != null) {
+                Pool<DrawableIcon> pool = rc.getDrawablePool(DrawableIcon.class);
+                DrawableIcon drawable = DrawableIcon.obtain(pool);
+                this.prepareDrawableAtlasIcon(rc, drawable);
+                rc.offerShapeDrawable(drawable, this.cameraDistance);
+            } else {
+                Pool<DrawableScreenTexture> pool = rc.getDrawablePool(DrawableScreenTexture.class);
+                DrawableScreenTexture drawable = DrawableScreenTexture.obtain(pool);
+                this.prepareDrawableIcon(rc, drawable);
+                rc.offerShapeDrawable(drawable, this.cameraDistance);
+            }
         }
 
         // Release references to objects stored in the render resource cache.
         this.activeTexture = null;
+        this.activeIcon = null;
 
         // Enqueue a picked object that associates the placemark's icon and leader with its picked object ID.
         if (rc.pickMode && rc.drawableCount() != drawableCount) {
@@ -787,13 +811,18 @@ public class Placemark extends AbstractRenderable implements Highlightable, Mova
     protected void determineActiveTexture(RenderContext rc) {
         // TODO: Refactor!
         if (this.activeAttributes.imageSource != null) {
-            // Earlier in doRender(), an attempt was made to 'get' the activeTexture from the cache.
-            // If was not found in the cache we need to retrieve a texture from the image source.
-            if (this.activeTexture == null) {
+            // Earlier in doRender(), an attempt was made to 'get' the activeTexture from the cache or the activeIcon
+            // from the icon atlas. If was not found we need to retrieve the image from the image source.
+            if (this.mustUseIconAtlas(rc)) {
+                if (this.activeIcon == null) {
+                    this.activeIcon = rc.getIconAtlas().retrieveIcon(rc, this.activeAttributes.imageSource); // adds retrieved images to the atlas
+                }
+            } else if (this.activeTexture == null) {
                 this.activeTexture = rc.retrieveTexture(this.activeAttributes.imageSource, null); // puts retrieved textures in the cache
             }
         } else {
             this.activeTexture = null; // there is no imageSource; draw a simple colored square
+            this.activeIcon = null;
         }
 
         // Compute an camera-position proximity scaling factor, so that distant placemarks can be scaled smaller than
@@ -808,9 +837,9 @@ public class Placemark extends AbstractRenderable implements Highlightable, Mova
         // offset is defined with its origin at the image's bottom-left corner and axes that extend up and to the right
         // from the origin point. When the placemark has no active texture the image scale defines the image size and no
         // other scaling is applied.
-        if (this.activeTexture != null) {
-            int w = this.activeTexture.getWidth();
-            int h = this.activeTexture.getHeight();
+        if (this.activeTexture != null || this.activeIcon != null) {
+            int w = (this.activeTexture != null) ? this.activeTexture.getWidth() : this.activeIcon.width;
+            int h = (this.activeTexture != null) ? this.activeTexture.getHeight() : this.activeIcon.height;
             double s = this.activeAttributes.imageScale * visibilityScale;
             this.activeAttributes.imageOffset.offsetForSize(w, h, offset);
 
@@ -878,6 +907,35 @@ public class Placemark extends AbstractRenderable implements Highlightable, Mova
         drawable.enableDepthTest = this.activeAttributes.depthTest;
     }
 
+    /**
+     * Prepares this placemark's icon for drawing from the icon atlas in a subsequent drawing pass. Implementations must
+     * be careful not to leak resources from Placemark into the Drawable.
+     *
+     * @param rc       the current render context
+     * @param drawable the Drawable to be prepared
+     */
+    protected void prepareDrawableAtlasIcon(RenderContext rc, DrawableIcon drawable) {
+        // Use the icon GLSL program to draw the placemark's icon along with other icons in the same atlas page.
+        drawable.program = (IconShaderProgram) rc.getShaderProgram(IconShaderProgram.KEY);
+        if (drawable.program == null) {
+            drawable.program = (IconShaderProgram) rc.putShaderProgram(IconShaderProgram.KEY, new IconShaderProgram(rc.resources));
+        }
+
+        // Compute the icon's screen corners from the placemark's unit square transform matrix, and use the icon's
+        // region of its atlas page.
+        drawable.setUnitSquareTransform(unitSquareTransform);
+        drawable.texture = this.activeIcon.getTexture();
+        drawable.s0 = this.activeIcon.s0;
+        drawable.t0 = this.activeIcon.t0;
+        drawable.s1 = this.activeIcon.s1;
+        drawable.t1 = this.activeIcon.t1;
+
+        // Configure the drawable according to the placemark's active attributes. Use a color appropriate for the pick
+        // mode. The icon's color is a vertex attribute, so icons with different colors are drawn together.
+        drawable.setColor(rc.pickMode ? this.pickColor : this.activeAttributes.imageColor);
+        drawable.enableDepthTest = this.activeAttributes.depthTest;
+    }
+
     /**
      * Prepares this placemark's leader for drawing in a subsequent drawing pass. Implementations must be careful not to
      * leak resources from Placemark into the Drawable.
@@ -925,6 +983,16 @@ public class Placemark extends AbstractRenderable implements Highlightable, Mova
 //            && this.activeAttributes.labelAttributes != null;
     }
 
+    /**
+     * Determines if the placemark's image should be displayed from the icon atlas.
+     *
+     * @return True if the active attributes enable the icon atlas and the atlas accepts the image.
+     */
+    protected boolean mustUseIconAtlas(RenderContext rc) {
+        return this.activeAttributes.enableIconAtlas
+            && !rc.getIconAtlas().isExcluded(this.activeAttributes.imageSource);
+    }
+
     /**
      * Determines if a leader-line should and can be drawn.
      *
@@ -33,6 +33,8 @@ public class PlacemarkAttributes {
 
     protected ShapeAttributes leaderAttributes;
 
+    protected boolean enableIconAtlas;
+
     /**
      * Constructs a placemark attributes bundle. The defaults indicate a placemark displayed as a white 1x1 pixel square
      * centered on the placemark's geographic position.
@@ -47,6 +49,7 @@ public class PlacemarkAttributes {
         this.depthTest = true;
         this.labelAttributes = new TextAttributes();
         this.leaderAttributes = new ShapeAttributes();
+        this.enableIconAtlas = false;
     }
 
     /**
@@ -72,6 +75,7 @@ public class PlacemarkAttributes {
         this.depthTest = attributes.depthTest;
         this.labelAttributes = attributes.labelAttributes != null ? new TextAttributes(attributes.labelAttributes) : null;
         this.leaderAttributes = attributes.leaderAttributes != null ? new ShapeAttributes(attributes.leaderAttributes) : null;
+        this.enableIconAtlas = attributes.enableIconAtlas;
     }
 
     public PlacemarkAttributes set(PlacemarkAttributes attributes) {
@@ -87,6 +91,7 @@ public class PlacemarkAttributes {
         this.minimumImageScale = attributes.minimumImageScale;
         this.drawLeader = attributes.drawLeader;
         this.depthTest = attributes.depthTest;
+        this.enableIconAtlas = attributes.enableIconAtlas;
 
         if (attributes.labelAttributes != null) {
             if (this.labelAttributes == null) {
@@ -138,7 +143,8 @@ public class PlacemarkAttributes {
             && this.drawLeader == that.drawLeader
             && this.depthTest == that.depthTest
             && ((this.labelAttributes == null) ? (that.labelAttributes == null) : this.labelAttributes.equals(that.labelAttributes))
-            && ((this.leaderAttributes == null) ? (that.leaderAttributes == null) : this.leaderAttributes.equals(that.leaderAttributes));
+            && ((this.leaderAttributes == null) ? (that.leaderAttributes == null) : this.leaderAttributes.equals(that.leaderAttributes))
+            && this.enableIconAtlas == that.enableIconAtlas;
     }
 
     @Override
@@ -156,6 +162,7 @@ public class PlacemarkAttributes {
         result = 31 * result + (this.depthTest ? 1 : 0);
         result = 31 * result + (this.labelAttributes != null ? this.labelAttributes.hashCode() : 0);
         result = 31 * result + (this.leaderAttributes != null ? this.leaderAttributes.hashCode() : 0);
+        result = 31 * result + (this.enableIconAtlas ? 1 : 0);
         return result;
     }
 
@@ -338,4 +345,25 @@ public class PlacemarkAttributes {
         this.leaderAttributes = leaderAttributes;
         return this;
     }
+
+    /**
+     * Returns whether the placemark's image is displayed from a shared icon atlas. See {@link
+     * #setEnableIconAtlas(boolean)}.
+     */
+    public boolean isEnableIconAtlas() {
+        return this.enableIconAtlas;
+    }
+
+    /**
+     * Sets whether the placemark's image is displayed from a shared icon atlas rather than a texture per image. Small
+     * images displayed from the atlas share a few textures, so placemarks with different images are drawn with far
+     * fewer texture binds and draw calls. Atlas images are not mipmapped, so images displayed at a reduced scale may
+     * appear slightly aliased. Images too large for the atlas are displayed using a texture per image.
+     *
+     * @param enable true to display the placemark's image from the icon atlas, otherwise false
+     */
+    public PlacemarkAttributes setEnableIconAtlas(boolean enable) {
+        this.enableIconAtlas = enable;
+        return this;
+    }
 }
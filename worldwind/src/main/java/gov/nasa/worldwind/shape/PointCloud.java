@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.shape;
+
+import android.opengl.GLES20;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nasa.worldwind.PickedObject;
+import gov.nasa.worldwind.draw.DrawablePointCloud;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.geom.Viewport;
+import gov.nasa.worldwind.globe.GeographicProjection;
+import gov.nasa.worldwind.globe.Globe;
+import gov.nasa.worldwind.render.AbstractRenderable;
+import gov.nasa.worldwind.render.BufferObject;
+import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.PointCloudProgram;
+import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Pool;
+
+/**
+ * Renderable displaying a large number of points as screen-sized dots. Point locations, colors and sizes are stored in
+ * parallel primitive arrays supplied by the application, rather than an object per point, so that clouds of millions
+ * of points can be displayed without per-point allocation.
+ * <p/>
+ * Point altitudes are absolute, in meters above the ellipsoid. The points are converted to Cartesian coordinates once,
+ * and converted again only when the globe, the globe's projection or the vertical exaggeration changes, or when the
+ * application indicates that the point arrays have changed by calling {@link #invalidatePoints()}. Points are divided
+ * into chunks of nearby points, each with its own OpenGL vertex buffer object, and only chunks that intersect the view
+ * frustum are drawn.
+ * <p/>
+ * Picking identifies individual points. The user object of a point cloud's picked objects is a {@link PickedPoint}
+ * indicating the point's index in the cloud's arrays.
+ */
+public class PointCloud extends AbstractRenderable {
+
+    /**
+     * The maximum number of points considered when picking a point cloud. Points beyond this limit are not pickable.
+     */
+    protected static final int MAX_PICK_POINTS = 4096;
+
+    protected double[] latitudes = new double[0];
+
+    protected double[] longitudes = new double[0];
+
+    protected double[] altitudes = new double[0];
+
+    protected int[] colors;
+
+    protected float[] sizes;
+
+    protected int pointCount;
+
+    protected Color color = new Color(1, 1, 1, 1);
+
+    protected float pointSize = 4;
+
+    protected boolean depthTest = true;
+
+    protected int chunkCapacity = 65536;
+
+    protected PointCloudGeometry geometry = new PointCloudGeometry();
+
+    protected boolean geometryValid;
+
+    protected Globe geometryGlobe;
+
+    protected GeographicProjection geometryProjection;
+
+    protected double geometryVerticalExaggeration;
+
+    private List<PointCloudGeometry.Chunk> visibleChunks = new ArrayList<>();
+
+    private Vec3 point = new Vec3();
+
+    private Vec3 screenPoint = new Vec3();
+
+    private Color pickColor = new Color();
+
+    public PointCloud() {
+    }
+
+    /**
+     * Returns the number of points displayed by this point cloud.
+     *
+     * @return the point count
+     */
+    public int getPointCount() {
+        return this.pointCount;
+    }
+
+    public double[] getLatitudes() {
+        return this.latitudes;
+    }
+
+    public double[] getLongitudes() {
+        return this.longitudes;
+    }
+
+    public double[] getAltitudes() {
+        return this.altitudes;
+    }
+
+    /**
+     * Specifies the points displayed by this point cloud. The arrays are used by reference and are not copied. Each
+     * array must contain at least the specified number of elements. Call {@link #invalidatePoints()} after modifying
+     * the array contents.
+     *
+     * @param latitudes  the point latitudes, in degrees
+     * @param longitudes the point longitudes, in degrees
+     * @param altitudes  the point altitudes, in meters above the ellipsoid
+     * @param count      the number of points
+     *
+     * @throws IllegalArgumentException If any array is null or shorter than the count, or if the count is negative
+     */
+    public void setPoints(double[] latitudes, double[] longitudes, double[] altitudes, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setPoints", "invalidCount"));
+        }
+
+        if (latitudes == null || latitudes.length < count || longitudes == null || longitudes.length < count ||
+            altitudes == null || altitudes.length < count) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setPoints", "missingArray"));
+        }
+
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.altitudes = altitudes;
+        this.pointCount = count;
+
+        if (this.colors != null && this.colors.length < count) {
+            this.colors = null; // the colors no longer match the points
+        }
+
+        if (this.sizes != null && this.sizes.length < count) {
+            this.sizes = null; // the sizes no longer match the points
+        }
+
+        this.invalidatePoints();
+    }
+
+    public int[] getColors() {
+        return this.colors;
+    }
+
+    /**
+     * Specifies a color for each point, as color ints. The array is used by reference and is not copied. When null,
+     * every point is displayed in this point cloud's color.
+     *
+     * @param colors the point colors, or null to use this point cloud's color
+     *
+     * @throws IllegalArgumentException If the array is shorter than the point count
+     */
+    public void setColors(int[] colors) {
+        if (colors != null && colors.length < this.pointCount) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setColors", "missingArray"));
+        }
+
+        this.colors = colors;
+        this.invalidatePoints();
+    }
+
+    public float[] getSizes() {
+        return this.sizes;
+    }
+
+    /**
+     * Specifies a size for each point, in screen pixels. The array is used by reference and is not copied. When null,
+     * every point is displayed at this point cloud's point size.
+     *
+     * @param sizes the point sizes, or null to use this point cloud's point size
+     *
+     * @throws IllegalArgumentException If the array is shorter than the point count
+     */
+    public void setSizes(float[] sizes) {
+        if (sizes != null && sizes.length < this.pointCount) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setSizes", "missingArray"));
+        }
+
+        this.sizes = sizes;
+        this.invalidatePoints();
+    }
+
+    public Color getColor() {
+        return this.color;
+    }
+
+    public void setColor(Color color) {
+        if (color == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setColor", "missingColor"));
+        }
+
+        this.color.set(color);
+        this.invalidatePoints();
+    }
+
+    public float getPointSize() {
+        return this.pointSize;
+    }
+
+    public void setPointSize(float pointSize) {
+        if (pointSize <= 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setPointSize", "invalidSize"));
+        }
+
+        this.pointSize = pointSize;
+        this.invalidatePoints();
+    }
+
+    public boolean isDepthTest() {
+        return this.depthTest;
+    }
+
+    public void setDepthTest(boolean depthTest) {
+        this.depthTest = depthTest;
+    }
+
+    public int getChunkCapacity() {
+        return this.chunkCapacity;
+    }
+
+    /**
+     * Specifies the maximum number of points in each chunk. Smaller chunks cull more precisely but require more draw
+     * calls.
+     *
+     * @param chunkCapacity the chunk capacity
+     *
+     * @throws IllegalArgumentException If the capacity is less than 1
+     */
+    public void setChunkCapacity(int chunkCapacity) {
+        if (chunkCapacity < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setChunkCapacity", "invalidCapacity"));
+        }
+
+        this.chunkCapacity = chunkCapacity;
+        this.invalidatePoints();
+    }
+
+    /**
+     * Indicates that the contents of this point cloud's arrays have changed, causing the points to be converted to
+     * Cartesian coordinates again the next time the point cloud is rendered.
+     */
+    public void invalidatePoints() {
+        this.geometryValid = false;
+    }
+
+    @Override
+    protected void doRender(RenderContext rc) {
+        if (this.pointCount == 0) {
+            return; // nothing to draw
+        }
+
+        if (this.mustAssembleGeometry(rc)) {
+            this.geometry.assemble(this, rc.globe, rc.verticalExaggeration, this.chunkCapacity);
+            this.geometryValid = true;
+            this.geometryGlobe = rc.globe;
+            this.geometryProjection = rc.globe.getProjection();
+            this.geometryVerticalExaggeration = rc.verticalExaggeration;
+        }
+
+        // Determine the chunks that intersect the view frustum, or the pick frustum in pick mode.
+        this.geometry.cull(rc.frustum, this.visibleChunks);
+        if (this.visibleChunks.isEmpty()) {
+            return;
+        }
+
+        // Obtain a drawable from the render context pool, and compute the distance to the nearest visible chunk.
+        Pool<DrawablePointCloud> pool = rc.getDrawablePool(DrawablePointCloud.class);
+        DrawablePointCloud drawable = DrawablePointCloud.obtain(pool);
+        double cameraDistance = Double.POSITIVE_INFINITY;
+        for (int idx = 0, len = this.visibleChunks.size(); idx < len; idx++) {
+            cameraDistance = Math.min(cameraDistance, this.visibleChunks.get(idx).boundingBox.distanceTo(rc.cameraPoint));
+        }
+
+        // Use the point cloud GLSL program to draw the points.
+        drawable.program = (PointCloudProgram) rc.getShaderProgram(PointCloudProgram.KEY);
+        if (drawable.program == null) {
+            drawable.program = (PointCloudProgram) rc.putShaderProgram(PointCloudProgram.KEY, new PointCloudProgram(rc.resources));
+        }
+
+        drawable.enableDepthTest = this.depthTest;
+
+        if (rc.pickMode) {
+            this.makePickDrawable(rc, drawable);
+        } else {
+            this.makeDrawable(rc, drawable);
+        }
+
+        // Enqueue the drawable for processing on the OpenGL thread.
+        if (drawable.getRangeCount() > 0) {
+            rc.offerShapeDrawable(drawable, cameraDistance);
+        } else {
+            drawable.recycle();
+        }
+    }
+
+    protected boolean mustAssembleGeometry(RenderContext rc) {
+        return !this.geometryValid || this.geometryGlobe != rc.globe ||
+            this.geometryProjection != rc.globe.getProjection() ||
+            this.geometryVerticalExaggeration != rc.verticalExaggeration;
+    }
+
+    protected void makeDrawable(RenderContext rc, DrawablePointCloud drawable) {
+        // Draw each visible chunk from its own vertex buffer object. Chunks are assembled into buffer objects only when
+        // they're first visible, and evicted from the render resource cache independently.
+        for (int idx = 0, len = this.visibleChunks.size(); idx < len; idx++) {
+            PointCloudGeometry.Chunk chunk = this.visibleChunks.get(idx);
+            BufferObject vertexBuffer = rc.getBufferObject(chunk.vertexBufferKey);
+            if (vertexBuffer == null) {
+                int size = chunk.count * PointCloudGeometry.VERTEX_STRIDE;
+                vertexBuffer = new BufferObject(GLES20.GL_ARRAY_BUFFER, size, chunk.sliceVertices(this.geometry.getVertexBuffer()));
+                rc.putBufferObject(chunk.vertexBufferKey, vertexBuffer);
+            }
+
+            drawable.addRange(vertexBuffer, 0, chunk.count, chunk.origin);
+        }
+    }
+
+    protected void makePickDrawable(RenderContext rc, DrawablePointCloud drawable) {
+        // Draw the points whose screen dots intersect the pick viewport, each in a unique pick color, from a client-side
+        // vertex array. Points are drawn with a vertex range per chunk to retain each chunk's relative coordinates.
+        Viewport pickViewport = (rc.pickViewport != null) ? rc.pickViewport : rc.viewport;
+        int pickCount = 0;
+
+        for (int idx = 0, len = this.visibleChunks.size(); idx < len && pickCount < MAX_PICK_POINTS; idx++) {
+            PointCloudGeometry.Chunk chunk = this.visibleChunks.get(idx);
+            int rangeFirst = pickCount;
+
+            for (int vertex = chunk.first, last = chunk.first + chunk.count; vertex < last && pickCount < MAX_PICK_POINTS; vertex++) {
+                this.geometry.getVertexPoint(chunk, vertex, this.point);
+                if (!rc.project(this.point, this.screenPoint)) {
+                    continue; // clipped by the near plane or the far plane
+                }
+
+                float size = this.geometry.getVertexSize(vertex);
+                if (!intersectsViewport(this.screenPoint, size * 0.5, pickViewport)) {
+                    continue; // the point's dot does not intersect the pick viewport
+                }
+
+                int pickedObjectId = rc.nextPickedObjectId();
+                PickedObject.identifierToUniqueColor(pickedObjectId, this.pickColor);
+                PickedPoint pickedPoint = new PickedPoint(this, this.geometry.getPointIndex(vertex));
+                rc.offerPickedObject(PickedObject.fromUserObject(pickedObjectId, pickedPoint, rc.currentLayer));
+
+                drawable.putPickVertex(this.geometry.getVertexBuffer(), vertex, this.pickColor);
+                pickCount++;
+            }
+
+            if (pickCount > rangeFirst) {
+                drawable.addRange(null, rangeFirst, pickCount - rangeFirst, chunk.origin);
+            }
+        }
+    }
+
+    protected static boolean intersectsViewport(Vec3 screenPoint, double radius, Viewport viewport) {
+        return screenPoint.x + radius >= viewport.x && screenPoint.x - radius <= viewport.x + viewport.width &&
+            screenPoint.y + radius >= viewport.y && screenPoint.y - radius <= viewport.y + viewport.height;
+    }
+
+    /**
+     * A point picked in a point cloud.
+     */
+    public static class PickedPoint {
+
+        protected PointCloud pointCloud;
+
+        protected int index;
+
+        public PickedPoint(PointCloud pointCloud, int index) {
+            this.pointCloud = pointCloud;
+            this.index = index;
+        }
+
+        /**
+         * Returns the point cloud containing the picked point.
+         *
+         * @return the point cloud
+         */
+        public PointCloud getPointCloud() {
+            return this.pointCloud;
+        }
+
+        /**
+         * Returns the picked point's index in the point cloud's arrays.
+         *
+         * @return the point index
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        @Override
+        public String toString() {
+            return "PickedPoint{" +
+                "pointCloud=" + this.pointCloud +
+                ", index=" + this.index +
+                '}';
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.shape;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gov.nasa.worldwind.geom.BoundingBox;
+import gov.nasa.worldwind.geom.Frustum;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.globe.Globe;
+import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Cartesian geometry for a {@link PointCloud}, assembled on the CPU. Points are sorted along a Z-order curve of their
+ * geographic locations and divided into chunks of nearby points. Each chunk has a bounding box used for frustum
+ * culling, and a range of vertices in a vertex buffer whose coordinates are relative to the chunk's origin.
+ * <p/>
+ * Each vertex occupies {@link #VERTEX_STRIDE} bytes: the point's X, Y and Z coordinates and size as floats, followed by
+ * the point's red, green, blue and alpha components as unsigned bytes. Vertex buffer contents are not modified once
+ * assembled, since a buffer may still be waiting to be loaded on the OpenGL thread. Each assembly creates a new vertex
+ * buffer.
+ */
+public class PointCloudGeometry {
+
+    /**
+     * The number of bytes per vertex.
+     */
+    public static final int VERTEX_STRIDE = 20; // x, y, z, size (float), r, g, b, a (unsigned byte)
+
+    protected static final int MORTON_BITS = 15;
+
+    protected ByteBuffer vertexBuffer;
+
+    protected int vertexCount;
+
+    protected int[] pointIndices = new int[0];
+
+    protected ArrayList<Chunk> chunks = new ArrayList<>();
+
+    private long[] sortKeys = new long[0];
+
+    private double[] chunkPoints = new double[0];
+
+    private float[] chunkVertices = new float[0];
+
+    private Vec3 point = new Vec3();
+
+    public PointCloudGeometry() {
+    }
+
+    /**
+     * Returns the vertex buffer assembled by the most recent call to assemble. The buffer's position is zero and its
+     * limit is the number of bytes used by the vertices.
+     *
+     * @return the vertex buffer, or null if the geometry has not been assembled
+     */
+    public ByteBuffer getVertexBuffer() {
+        return this.vertexBuffer;
+    }
+
+    /**
+     * Returns the number of vertices in the vertex buffer.
+     *
+     * @return the vertex count
+     */
+    public int getVertexCount() {
+        return this.vertexCount;
+    }
+
+    /**
+     * Returns the index of the point displayed by a vertex, relative to the point cloud's arrays.
+     *
+     * @param vertex the vertex index, in the range [0, getVertexCount())
+     *
+     * @return the point's index in the point cloud
+     */
+    public int getPointIndex(int vertex) {
+        return this.pointIndices[vertex];
+    }
+
+    /**
+     * Returns this geometry's chunks, in vertex buffer order.
+     *
+     * @return the list of chunks
+     */
+    public List<Chunk> getChunks() {
+        return this.chunks;
+    }
+
+    /**
+     * Assembles the geometry for a point cloud's points.
+     *
+     * @param cloud                the point cloud
+     * @param globe                the globe used to compute Cartesian points
+     * @param verticalExaggeration the vertical exaggeration applied to point altitudes
+     * @param chunkCapacity        the maximum number of points in each chunk
+     *
+     * @throws IllegalArgumentException If the cloud or the globe is null, or if the chunk capacity is less than 1
+     */
+    public void assemble(PointCloud cloud, Globe globe, double verticalExaggeration, int chunkCapacity) {
+        if (cloud == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloudGeometry", "assemble", "missingRenderable"));
+        }
+
+        if (globe == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloudGeometry", "assemble", "missingGlobe"));
+        }
+
+        if (chunkCapacity < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloudGeometry", "assemble", "invalidCapacity"));
+        }
+
+        int count = cloud.getPointCount();
+        this.vertexBuffer = ByteBuffer.allocateDirect(Math.max(count, 1) * VERTEX_STRIDE).order(ByteOrder.nativeOrder());
+        this.vertexBuffer.limit(count * VERTEX_STRIDE);
+        this.vertexCount = count;
+        this.chunks.clear();
+
+        if (this.pointIndices.length < count) {
+            this.pointIndices = new int[count];
+        }
+
+        this.sortPoints(cloud.getLatitudes(), cloud.getLongitudes(), count);
+
+        int capacity = Math.min(count, chunkCapacity);
+        if (this.chunkPoints.length < capacity * 3) {
+            this.chunkPoints = new double[capacity * 3];
+            this.chunkVertices = new float[capacity * 3];
+        }
+
+        for (int first = 0; first < count; first += chunkCapacity) {
+            this.assembleChunk(cloud, globe, verticalExaggeration, first, Math.min(chunkCapacity, count - first));
+        }
+    }
+
+    /**
+     * Sorts the point indices along a Z-order curve of each point's quantized latitude and longitude, so that points
+     * near each other on the globe are near each other in the vertex buffer.
+     */
+    protected void sortPoints(double[] latitudes, double[] longitudes, int count) {
+        if (this.sortKeys.length < count) {
+            this.sortKeys = new long[count];
+        }
+
+        int maxValue = (1 << MORTON_BITS) - 1;
+        for (int idx = 0; idx < count; idx++) {
+            int lat = (int) ((latitudes[idx] + 90) / 180 * maxValue);
+            int lon = (int) ((longitudes[idx] + 180) / 360 * maxValue);
+            long code = mortonCode(clamp(lat, maxValue), clamp(lon, maxValue));
+            this.sortKeys[idx] = (code << 32) | idx;
+        }
+
+        Arrays.sort(this.sortKeys, 0, count);
+
+        for (int idx = 0; idx < count; idx++) {
+            this.pointIndices[idx] = (int) this.sortKeys[idx];
+        }
+    }
+
+    protected void assembleChunk(PointCloud cloud, Globe globe, double verticalExaggeration, int first, int count) {
+        double[] latitudes = cloud.getLatitudes();
+        double[] longitudes = cloud.getLongitudes();
+        double[] altitudes = cloud.getAltitudes();
+        int[] colors = cloud.getColors();
+        float[] sizes = cloud.getSizes();
+        Color cloudColor = cloud.getColor();
+        int defaultColor = (Math.round(cloudColor.alpha * 0xFF) << 24) | (Math.round(cloudColor.red * 0xFF) << 16) |
+            (Math.round(cloudColor.green * 0xFF) << 8) | Math.round(cloudColor.blue * 0xFF);
+        float defaultSize = cloud.getPointSize();
+
+        // Compute the chunk's Cartesian points, and use the center of their extent as the chunk's origin.
+        double minX = Double.POSITIVE_INFINITY, minY = minX, minZ = minX;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = maxX, maxZ = maxX;
+        for (int idx = 0, pidx = 0; idx < count; idx++, pidx += 3) {
+            int index = this.pointIndices[first + idx];
+            globe.geographicToCartesian(latitudes[index], longitudes[index], altitudes[index] * verticalExaggeration, this.point);
+            this.chunkPoints[pidx] = this.point.x;
+            this.chunkPoints[pidx + 1] = this.point.y;
+            this.chunkPoints[pidx + 2] = this.point.z;
+            minX = Math.min(minX, this.point.x);
+            minY = Math.min(minY, this.point.y);
+            minZ = Math.min(minZ, this.point.z);
+            maxX = Math.max(maxX, this.point.x);
+            maxY = Math.max(maxY, this.point.y);
+            maxZ = Math.max(maxZ, this.point.z);
+        }
+
+        Chunk chunk = new Chunk();
+        chunk.first = first;
+        chunk.count = count;
+        chunk.origin.set((minX + maxX) * 0.5, (minY + maxY) * 0.5, (minZ + maxZ) * 0.5);
+
+        // Write the chunk's vertices relative to its origin.
+        ByteBuffer buffer = this.vertexBuffer;
+        for (int idx = 0, pidx = 0; idx < count; idx++, pidx += 3) {
+            int index = this.pointIndices[first + idx];
+            int color = (colors != null) ? colors[index] : defaultColor;
+            float x = (float) (this.chunkPoints[pidx] - chunk.origin.x);
+            float y = (float) (this.chunkPoints[pidx + 1] - chunk.origin.y);
+            float z = (float) (this.chunkPoints[pidx + 2] - chunk.origin.z);
+            this.chunkVertices[pidx] = x;
+            this.chunkVertices[pidx + 1] = y;
+            this.chunkVertices[pidx + 2] = z;
+
+            int offset = (first + idx) * VERTEX_STRIDE;
+            buffer.putFloat(offset, x);
+            buffer.putFloat(offset + 4, y);
+            buffer.putFloat(offset + 8, z);
+            buffer.putFloat(offset + 12, (sizes != null) ? sizes[index] : defaultSize);
+            buffer.put(offset + 16, (byte) (color >> 16)); // red
+            buffer.put(offset + 17, (byte) (color >> 8)); // green
+            buffer.put(offset + 18, (byte) color); // blue
+            buffer.put(offset + 19, (byte) (color >>> 24)); // alpha
+        }
+
+        chunk.boundingBox.setToPoints(this.chunkVertices, count * 3, 3);
+        chunk.boundingBox.translate(chunk.origin.x, chunk.origin.y, chunk.origin.z);
+        this.chunks.add(chunk);
+    }
+
+    /**
+     * Determines the chunks that intersect a frustum.
+     *
+     * @param frustum the frustum to test
+     * @param result  a pre-allocated list in which to return the visible chunks
+     *
+     * @return the result argument set to the chunks that intersect the frustum
+     *
+     * @throws IllegalArgumentException If either argument is null
+     */
+    public List<Chunk> cull(Frustum frustum, List<Chunk> result) {
+        if (frustum == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloudGeometry", "cull", "missingFrustum"));
+        }
+
+        if (result == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloudGeometry", "cull", "missingResult"));
+        }
+
+        result.clear();
+        for (int idx = 0, len = this.chunks.size(); idx < len; idx++) {
+            Chunk chunk = this.chunks.get(idx);
+            if (chunk.boundingBox.intersectsFrustum(frustum)) {
+                result.add(chunk);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes the Cartesian point displayed by a vertex.
+     *
+     * @param chunk  the chunk containing the vertex
+     * @param vertex the vertex index
+     * @param result a pre-allocated {@link Vec3} in which to return the point
+     *
+     * @return the result argument set to the vertex's Cartesian point
+     */
+    public Vec3 getVertexPoint(Chunk chunk, int vertex, Vec3 result) {
+        int offset = vertex * VERTEX_STRIDE;
+        result.x = this.vertexBuffer.getFloat(offset) + chunk.origin.x;
+        result.y = this.vertexBuffer.getFloat(offset + 4) + chunk.origin.y;
+        result.z = this.vertexBuffer.getFloat(offset + 8) + chunk.origin.z;
+        return result;
+    }
+
+    /**
+     * Returns the size of the point displayed by a vertex.
+     *
+     * @param vertex the vertex index
+     *
+     * @return the point's size, in screen pixels
+     */
+    public float getVertexSize(int vertex) {
+        return this.vertexBuffer.getFloat(vertex * VERTEX_STRIDE + 12);
+    }
+
+    protected static int clamp(int value, int max) {
+        return (value < 0) ? 0 : (value > max ? max : value);
+    }
+
+    /**
+     * Interleaves the bits of a quantized latitude and longitude, with the longitude in the more significant bit of
+     * each pair.
+     */
+    protected static long mortonCode(int lat, int lon) {
+        long code = 0;
+        for (int bit = 0; bit < MORTON_BITS; bit++) {
+            code |= (long) ((lat >> bit) & 1) << (2 * bit);
+            code |= (long) ((lon >> bit) & 1) << (2 * bit + 1);
+        }
+
+        return code;
+    }
+
+    /**
+     * A range of nearby points in a point cloud's vertex buffer.
+     */
+    public static class Chunk {
+
+        /**
+         * The index of the chunk's first vertex.
+         */
+        public int first;
+
+        /**
+         * The number of vertices in the chunk.
+         */
+        public int count;
+
+        /**
+         * The Cartesian point that the chunk's vertex coordinates are relative to.
+         */
+        public final Vec3 origin = new Vec3();
+
+        /**
+         * The box bounding the chunk's Cartesian points.
+         */
+        public final BoundingBox boundingBox = new BoundingBox();
+
+        /**
+         * The render resource cache key for the chunk's OpenGL vertex buffer object.
+         */
+        public final Object vertexBufferKey = new Object();
+
+        public Chunk() {
+        }
+
+        /**
+         * Returns a view of the chunk's vertices in a vertex buffer, with position zero.
+         *
+         * @param vertexBuffer the vertex buffer containing the chunk
+         *
+         * @return a buffer sharing the chunk's vertices
+         */
+        public ByteBuffer sliceVertices(ByteBuffer vertexBuffer) {
+            ByteBuffer buffer = vertexBuffer.duplicate();
+            buffer.limit((this.first + this.count) * VERTEX_STRIDE);
+            buffer.position(this.first * VERTEX_STRIDE);
+            return buffer.slice().order(ByteOrder.nativeOrder());
+        }
+    }
+}
@@ -25,10 +25,10 @@ import gov.nasa.worldwind.geom.Matrix4;
 import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Vec3;
 import gov.nasa.worldwind.render.BasicShaderProgram;
-import gov.nasa.worldwind.render.BufferObject;
 import gov.nasa.worldwind.render.ImageOptions;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.render.Texture;
+import gov.nasa.worldwind.util.EarClipTriangulator;
 import gov.nasa.worldwind.util.FloatArray;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.Pool;
@@ -69,10 +69,10 @@ public class Polygon extends AbstractShape {
 
     protected boolean isSurfaceShape;
 
-    protected double cameraDistance;
-
     protected double texCoord1d;
 
+    protected double[][] boundaryErrors;
+
     protected GLUtessellatorCallbackAdapter tessCallback = new GLUtessellatorCallbackAdapter() {
         @Override
         public void combineData(double[] coords, Object[] data, float[] weight, Object[] outData, Object polygonData) {
@@ -249,11 +249,17 @@ public class Polygon extends AbstractShape {
     }
 
     protected void reset() {
-        this.vertexArray.clear();
-        this.topElements.clear();
-        this.sideElements.clear();
-        this.outlineElements.clear();
-        this.verticalElements.clear();
+        this.geometryVersion++;
+        this.boundaryErrors = null;
+        this.simplificationErrorsVersion++;
+
+        if (!this.enableAsyncAssembly) { // keep displaying the current geometry until new geometry is assembled
+            this.vertexArray.clear();
+            this.topElements.clear();
+            this.sideElements.clear();
+            this.outlineElements.clear();
+            this.verticalElements.clear();
+        }
     }
 
     @Override
@@ -262,10 +268,12 @@ public class Polygon extends AbstractShape {
             return; // nothing to draw
         }
 
-        if (this.mustAssembleGeometry(rc)) {
-            this.assembleGeometry(rc);
-            this.vertexBufferKey = nextCacheKey();
-            this.elementBufferKey = nextCacheKey();
+        if (this.enableAsyncAssembly && this.canAssembleAsync()) {
+            if (this.vertexArray.size() == 0) {
+                return; // geometry is being assembled
+            }
+        } else if (this.mustAssembleGeometry(rc)) {
+            this.assembleGeometrySync(rc);
         }
 
         // Obtain a drawable form the render context pool.
@@ -290,29 +298,34 @@ public class Polygon extends AbstractShape {
             drawState.program = (BasicShaderProgram) rc.putShaderProgram(BasicShaderProgram.KEY, new BasicShaderProgram(rc.resources));
         }
 
-        // Assemble the drawable's OpenGL vertex buffer object.
+        // Assemble the drawable's OpenGL vertex buffer object, updating the existing buffer object in place when the
+        // shape's geometry has changed.
+        boolean updateBuffers = this.mustUpdateBuffers();
         drawState.vertexBuffer = rc.getBufferObject(this.vertexBufferKey);
-        if (drawState.vertexBuffer == null) {
+        if (drawState.vertexBuffer == null || updateBuffers) {
             int size = this.vertexArray.size() * 4;
             FloatBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder()).asFloatBuffer();
             buffer.put(this.vertexArray.array(), 0, this.vertexArray.size());
-            drawState.vertexBuffer = new BufferObject(GLES20.GL_ARRAY_BUFFER, size, buffer.rewind());
-            rc.putBufferObject(this.vertexBufferKey, drawState.vertexBuffer);
+            drawState.vertexBuffer = updateBufferObject(rc, this.vertexBufferKey, GLES20.GL_ARRAY_BUFFER, size, buffer.rewind());
         }
 
         // Assemble the drawable's OpenGL element buffer object.
         drawState.elementBuffer = rc.getBufferObject(this.elementBufferKey);
-        if (drawState.elementBuffer == null) {
+        if (drawState.elementBuffer == null || updateBuffers) {
             int size = (this.topElements.size() * 2) + (this.sideElements.size() * 2) + (this.outlineElements.size() * 2) + (this.verticalElements.size() * 2);
             ShortBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder()).asShortBuffer();
             buffer.put(this.topElements.array(), 0, this.topElements.size());
             buffer.put(this.sideElements.array(), 0, this.sideElements.size());
             buffer.put(this.outlineElements.array(), 0, this.outlineElements.size());
             buffer.put(this.verticalElements.array(), 0, this.verticalElements.size());
-            drawState.elementBuffer = new BufferObject(GLES20.GL_ELEMENT_ARRAY_BUFFER, size, buffer.rewind());
-            rc.putBufferObject(this.elementBufferKey, drawState.elementBuffer);
+            drawState.elementBuffer = updateBufferObject(rc, this.elementBufferKey, GLES20.GL_ELEMENT_ARRAY_BUFFER, size, buffer.rewind());
         }
 
+        // Bind the buffer object versions containing this shape's current geometry.
+        drawState.vertexBufferVersion = drawState.vertexBuffer.getVersion();
+        drawState.elementBufferVersion = drawState.elementBuffer.getVersion();
+        this.bufferVersion = this.assembledVersion;
+
         if (this.isSurfaceShape || this.activeAttributes.interiorColor.alpha >= 1.0) {
             this.drawInterior(rc, drawState);
             this.drawOutline(rc, drawState);
@@ -410,7 +423,86 @@ public class Polygon extends AbstractShape {
     }
 
     protected boolean mustAssembleGeometry(RenderContext rc) {
-        return this.vertexArray.size() == 0;
+        return this.vertexArray.size() == 0 || this.assembledVersion != this.geometryVersion;
+    }
+
+    @Override
+    protected boolean canAssembleAsync() {
+        if (this.boundaries.isEmpty()) {
+            return false; // nothing to assemble
+        }
+
+        // Polygon geometry depends on the terrain unless the polygon is absolute and not extruded, since extruded sides
+        // are clamped to the ground, or follows the terrain as a surface shape.
+        return (this.altitudeMode == WorldWind.ABSOLUTE && !this.extrude) ||
+            (this.altitudeMode == WorldWind.CLAMP_TO_GROUND && this.followTerrain);
+    }
+
+    @Override
+    protected AbstractShape newAssemblyShape() {
+        return new Polygon();
+    }
+
+    @Override
+    protected void snapshotGeometry(AbstractShape shape) {
+        Polygon polygon = (Polygon) shape;
+        polygon.altitudeMode = this.altitudeMode;
+        polygon.pathType = this.pathType;
+        polygon.maximumIntermediatePoints = this.maximumIntermediatePoints;
+        polygon.extrude = this.extrude;
+        polygon.followTerrain = this.followTerrain;
+        polygon.simplificationThreshold = this.simplificationThreshold;
+        polygon.boundaryErrors = this.boundaryErrors;
+        polygon.simplificationErrorsVersion = this.simplificationErrorsVersion;
+
+        int count = this.boundaries.size();
+        for (int idx = 0; idx < count; idx++) {
+            List<Position> snapshot = (idx < polygon.boundaries.size()) ? polygon.boundaries.get(idx) : null;
+            snapshot = snapshotPositions(this.boundaries.get(idx), (ArrayList<Position>) snapshot);
+            if (idx < polygon.boundaries.size()) {
+                polygon.boundaries.set(idx, snapshot);
+            } else {
+                polygon.boundaries.add(snapshot);
+            }
+        }
+
+        if (polygon.boundaries.size() > count) {
+            polygon.boundaries.subList(count, polygon.boundaries.size()).clear();
+        }
+    }
+
+    @Override
+    protected void swapGeometry(AbstractShape shape) {
+        super.swapGeometry(shape);
+
+        Polygon polygon = (Polygon) shape;
+        FloatArray vertexArray = this.vertexArray;
+        this.vertexArray = polygon.vertexArray;
+        polygon.vertexArray = vertexArray;
+
+        ShortArray topElements = this.topElements;
+        this.topElements = polygon.topElements;
+        polygon.topElements = topElements;
+
+        ShortArray sideElements = this.sideElements;
+        this.sideElements = polygon.sideElements;
+        polygon.sideElements = sideElements;
+
+        ShortArray outlineElements = this.outlineElements;
+        this.outlineElements = polygon.outlineElements;
+        polygon.outlineElements = outlineElements;
+
+        ShortArray verticalElements = this.verticalElements;
+        this.verticalElements = polygon.verticalElements;
+        polygon.verticalElements = verticalElements;
+
+        this.vertexOrigin.set(polygon.vertexOrigin);
+        this.isSurfaceShape = polygon.isSurfaceShape;
+
+        // Keep the errors computed for this polygon's current boundaries, so that they're computed once per change.
+        if (this.boundaryErrors == null && this.simplificationErrorsVersion == polygon.simplificationErrorsVersion) {
+            this.boundaryErrors = polygon.boundaryErrors;
+        }
     }
 
     protected void assembleGeometry(RenderContext rc) {
@@ -428,13 +520,18 @@ public class Polygon extends AbstractShape {
         // Compute a matrix that transforms from Cartesian coordinates to shape texture coordinates.
         this.determineModelToTexCoord(rc);
 
-        GLUtessellator tess = rc.getTessellator();
-        GLU.gluTessNormal(tess, 0, 0, 1);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_COMBINE_DATA, this.tessCallback);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_VERTEX_DATA, this.tessCallback);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_EDGE_FLAG_DATA, this.tessCallback);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_ERROR_DATA, this.tessCallback);
-        GLU.gluTessBeginPolygon(tess, rc);
+        // Compute each boundary position's simplification error when the polygon is simplified at the current viewing
+        // distance.
+        double threshold = this.simplificationThreshold;
+        if (threshold > 0 && (this.boundaryErrors == null || this.boundaryErrors.length != this.boundaries.size())) {
+            this.boundaryErrors = new double[this.boundaries.size()][];
+            for (int boundaryIdx = 0, boundaryCount = this.boundaries.size(); boundaryIdx < boundaryCount; boundaryIdx++) {
+                this.boundaryErrors[boundaryIdx] = computeSimplificationErrors(this.boundaries.get(boundaryIdx), true /*closed*/, null);
+            }
+        }
+
+        EarClipTriangulator triangulator = rc.getTriangulator();
+        triangulator.reset();
 
         for (int boundaryIdx = 0, boundaryCount = this.boundaries.size(); boundaryIdx < boundaryCount; boundaryIdx++) {
 
@@ -443,7 +540,9 @@ public class Polygon extends AbstractShape {
                 continue; // no boundary positions to assemble
             }
 
-            GLU.gluTessBeginContour(tess);
+            double[] errors = (threshold > 0) ? this.boundaryErrors[boundaryIdx] : null;
+
+            triangulator.beginContour();
 
             // Add the boundary's first vertex.
             Position begin = positions.get(0);
@@ -451,6 +550,10 @@ public class Polygon extends AbstractShape {
 
             // Add the remaining boundary vertices, tessellating each edge as indicated by the polygon's properties.
             for (int idx = 1, len = positions.size(); idx < len; idx++) {
+                if (errors != null && errors[idx] < threshold) {
+                    continue; // omit positions within the simplification threshold
+                }
+
                 Position end = positions.get(idx);
                 this.addIntermediateVertices(rc, begin, end);
                 this.addVertex(rc, end.latitude, end.longitude, end.altitude, VERTEX_ORIGINAL /*type*/);
@@ -462,14 +565,16 @@ public class Polygon extends AbstractShape {
                 this.addIntermediateVertices(rc, begin, positions.get(0));
             }
 
-            GLU.gluTessEndContour(tess);
+            triangulator.endContour();
         }
 
-        GLU.gluTessEndPolygon(tess);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_COMBINE_DATA, null);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_VERTEX_DATA, null);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_EDGE_FLAG_DATA, null);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_ERROR_DATA, null);
+        // Triangulate the polygon's interior by ear clipping when its boundaries form a simple polygon with holes.
+        // Otherwise, fall back to the GLU tessellator, which splits self-intersecting boundaries at their intersections.
+        if (triangulator.triangulate(this.topElements)) {
+            this.addBoundaryEdges(triangulator);
+        } else {
+            this.tessellateBoundaries(rc, triangulator);
+        }
 
         // Compute the shape's bounding box or bounding sector from its assembled coordinates.
         if (this.isSurfaceShape) {
@@ -534,10 +639,7 @@ public class Polygon extends AbstractShape {
         Vec3 texCoord2d = this.texCoord2d.set(point).multiplyByMatrix(this.modelToTexCoord);
 
         if (type != VERTEX_COMBINED) {
-            this.tessCoords[0] = longitude;
-            this.tessCoords[1] = latitude;
-            this.tessCoords[2] = altitude;
-            GLU.gluTessVertex(rc.getTessellator(), this.tessCoords, 0 /*coords_offset*/, vertex);
+            rc.getTriangulator().addVertex(longitude, latitude, altitude, vertex);
         }
 
         if (vertex == 0) {
@@ -587,6 +689,57 @@ public class Polygon extends AbstractShape {
         return vertex;
     }
 
+    protected void addBoundaryEdges(EarClipTriangulator triangulator) {
+        for (int contour = 0, count = triangulator.getContourCount(); contour < count; contour++) {
+            int start = triangulator.getContourStart(contour);
+            int end = triangulator.getContourEnd(contour);
+            for (int idx = start; idx < end; idx++) {
+                int v0 = triangulator.getIndex(idx);
+                int v1 = triangulator.getIndex((idx < end - 1) ? idx + 1 : start);
+                this.addBoundaryEdge(v0, v1);
+            }
+        }
+    }
+
+    protected void addBoundaryEdge(int v0, int v1) {
+        if (this.extrude && !this.isSurfaceShape) {
+            this.sideElements.add((short) v0).add((short) (v0 + 1)).add((short) v1);
+            this.sideElements.add((short) v1).add((short) (v0 + 1)).add((short) (v1 + 1));
+        }
+
+        this.outlineElements.add((short) v0);
+        this.outlineElements.add((short) v1);
+    }
+
+    protected void tessellateBoundaries(RenderContext rc, EarClipTriangulator triangulator) {
+        GLUtessellator tess = rc.getTessellator();
+        GLU.gluTessNormal(tess, 0, 0, 1);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_COMBINE_DATA, this.tessCallback);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_VERTEX_DATA, this.tessCallback);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_EDGE_FLAG_DATA, this.tessCallback);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_ERROR_DATA, this.tessCallback);
+        GLU.gluTessBeginPolygon(tess, rc);
+
+        for (int contour = 0, count = triangulator.getContourCount(); contour < count; contour++) {
+            GLU.gluTessBeginContour(tess);
+
+            for (int idx = triangulator.getContourStart(contour), end = triangulator.getContourEnd(contour); idx < end; idx++) {
+                this.tessCoords[0] = triangulator.getX(idx);
+                this.tessCoords[1] = triangulator.getY(idx);
+                this.tessCoords[2] = triangulator.getZ(idx);
+                GLU.gluTessVertex(tess, this.tessCoords, 0 /*coords_offset*/, triangulator.getIndex(idx));
+            }
+
+            GLU.gluTessEndContour(tess);
+        }
+
+        GLU.gluTessEndPolygon(tess);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_COMBINE_DATA, null);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_VERTEX_DATA, null);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_EDGE_FLAG_DATA, null);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_ERROR_DATA, null);
+    }
+
     protected void determineModelToTexCoord(RenderContext rc) {
         double mx = 0, my = 0, mz = 0;
         double numPoints = 0;
@@ -638,30 +791,14 @@ public class Polygon extends AbstractShape {
 
         this.topElements.add((short) v0).add((short) v1).add((short) v2);
 
-        if (this.tessEdgeFlags[0] && this.extrude && !this.isSurfaceShape) {
-            this.sideElements.add((short) v0).add((short) (v0 + 1)).add((short) v1);
-            this.sideElements.add((short) v1).add((short) (v0 + 1)).add((short) (v1 + 1));
-        }
-        if (this.tessEdgeFlags[1] && this.extrude && !this.isSurfaceShape) {
-            this.sideElements.add((short) v1).add((short) (v1 + 1)).add((short) v2);
-            this.sideElements.add((short) v2).add((short) (v1 + 1)).add((short) (v2 + 1));
-        }
-        if (this.tessEdgeFlags[2] && this.extrude && !this.isSurfaceShape) {
-            this.sideElements.add((short) v2).add((short) (v2 + 1)).add((short) v0);
-            this.sideElements.add((short) v0).add((short) (v2 + 1)).add((short) (v0 + 1));
-        }
-
         if (this.tessEdgeFlags[0]) {
-            this.outlineElements.add((short) v0);
-            this.outlineElements.add((short) v1);
+            this.addBoundaryEdge(v0, v1);
         }
         if (this.tessEdgeFlags[1]) {
-            this.outlineElements.add((short) v1);
-            this.outlineElements.add((short) v2);
+            this.addBoundaryEdge(v1, v2);
         }
         if (this.tessEdgeFlags[2]) {
-            this.outlineElements.add((short) v2);
-            this.outlineElements.add((short) v0);
+            this.addBoundaryEdge(v2, v0);
         }
     }
 
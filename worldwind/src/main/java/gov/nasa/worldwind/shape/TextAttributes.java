@@ -32,6 +32,8 @@ public class TextAttributes {
 
     protected float outlineWidth;
 
+    protected boolean enableGlyphAtlas;
+
     public TextAttributes() {
         this.textColor = new Color(1, 1, 1, 1);
         this.textOffset = Offset.bottomCenter();
@@ -41,6 +43,7 @@ public class TextAttributes {
         this.outlineColor = new Color(0, 0, 0, 1);
         this.enableDepthTest = true;
         this.outlineWidth = 3;
+        this.enableGlyphAtlas = false;
     }
 
     public TextAttributes(TextAttributes attributes) {
@@ -57,6 +60,7 @@ public class TextAttributes {
         this.enableOutline = attributes.enableOutline;
         this.enableDepthTest = attributes.enableDepthTest;
         this.outlineWidth = attributes.outlineWidth;
+        this.enableGlyphAtlas = attributes.enableGlyphAtlas;
     }
 
     public TextAttributes set(TextAttributes attributes) {
@@ -73,6 +77,7 @@ public class TextAttributes {
         this.outlineColor.set(attributes.outlineColor);
         this.enableDepthTest = attributes.enableDepthTest;
         this.outlineWidth = attributes.outlineWidth;
+        this.enableGlyphAtlas = attributes.enableGlyphAtlas;
 
         return this;
     }
@@ -94,7 +99,8 @@ public class TextAttributes {
             && this.enableOutline == that.enableOutline
             && this.outlineColor.equals(that.outlineColor)
             && this.enableDepthTest == that.enableDepthTest
-            && this.outlineWidth == that.outlineWidth;
+            && this.outlineWidth == that.outlineWidth
+            && this.enableGlyphAtlas == that.enableGlyphAtlas;
     }
 
     @Override
@@ -107,6 +113,7 @@ public class TextAttributes {
         result = 31 * result + this.outlineColor.hashCode();
         result = 31 * result + (this.enableDepthTest ? 1 : 0);
         result = 31 * result + (this.outlineWidth != +0.0f ? Float.floatToIntBits(this.outlineWidth) : 0);
+        result = 31 * result + (this.enableGlyphAtlas ? 1 : 0);
         return result;
     }
 
@@ -196,4 +203,29 @@ public class TextAttributes {
         this.outlineWidth = lineWidth;
         return this;
     }
+
+    /**
+     * Indicates whether text is displayed using a shared atlas of glyphs rather than a texture per text string. See
+     * {@link #setEnableGlyphAtlas(boolean)}.
+     *
+     * @return true if text is displayed using a glyph atlas, otherwise false
+     */
+    public boolean isEnableGlyphAtlas() {
+        return this.enableGlyphAtlas;
+    }
+
+    /**
+     * Sets whether text is displayed using a shared atlas of glyphs rather than a texture per text string. A glyph
+     * atlas rasterizes each character once per text style, so text that changes frequently, such as coordinates or
+     * counters, displays without rasterizing and uploading a new texture for each string. Glyph atlas text is laid out
+     * without kerning and ligatures, and may therefore differ slightly from text displayed using a texture per string.
+     *
+     * @param enable true to display text using a glyph atlas, otherwise false
+     *
+     * @return this text attributes instance
+     */
+    public TextAttributes setEnableGlyphAtlas(boolean enable) {
+        this.enableGlyphAtlas = enable;
+        return this;
+    }
 }
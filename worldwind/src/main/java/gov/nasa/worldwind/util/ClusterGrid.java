@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.util.Arrays;
+
+import gov.nasa.worldwind.geom.Viewport;
+
+/**
+ * Grid of square screen cells that groups screen points into clusters. Each point added to the grid is assigned to the
+ * cell containing it, and each non-empty cell represents one cluster. Cells store their points in linked lists of
+ * primitive arrays, so a grid may be reset and refilled every frame without allocating once its arrays have grown to
+ * the number of points.
+ * <p/>
+ * Points are identified by an integer ID, such as the point's index in an application list.
+ */
+public class ClusterGrid {
+
+    protected double originX;
+
+    protected double originY;
+
+    protected double cellSize = 1;
+
+    protected int columns;
+
+    protected int rows;
+
+    protected int[] cellHeads = new int[0];
+
+    protected int[] cellCounts = new int[0];
+
+    protected int[] itemIds = new int[16];
+
+    protected int[] itemNext = new int[16];
+
+    protected double[] itemX = new double[16];
+
+    protected double[] itemY = new double[16];
+
+    protected int itemCount;
+
+    public ClusterGrid() {
+    }
+
+    /**
+     * Removes all points from this grid and sets the grid to cover a specified screen region with cells of a specified
+     * size. The last row and column of cells may extend beyond the region.
+     *
+     * @param region   the screen region covered by the grid
+     * @param cellSize the width and height of each cell, in screen pixels
+     *
+     * @throws IllegalArgumentException If the region is null, or if the cell size is not positive
+     */
+    public void reset(Viewport region, double cellSize) {
+        if (region == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ClusterGrid", "reset", "missingViewport"));
+        }
+
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ClusterGrid", "reset", "invalidSize"));
+        }
+
+        this.originX = region.x;
+        this.originY = region.y;
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(region.width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(region.height / cellSize));
+        this.itemCount = 0;
+
+        int cellCount = this.columns * this.rows;
+        if (this.cellHeads.length < cellCount) {
+            this.cellHeads = new int[cellCount];
+            this.cellCounts = new int[cellCount];
+        }
+
+        Arrays.fill(this.cellHeads, 0, cellCount, -1);
+        Arrays.fill(this.cellCounts, 0, cellCount, 0);
+    }
+
+    /**
+     * Adds a point to the cell containing it.
+     *
+     * @param id the point's ID
+     * @param x  the point's X screen coordinate
+     * @param y  the point's Y screen coordinate
+     *
+     * @return true if the point is added, or false if the point is outside the grid
+     */
+    public boolean add(int id, double x, double y) {
+        int col = (int) Math.floor((x - this.originX) / this.cellSize);
+        int row = (int) Math.floor((y - this.originY) / this.cellSize);
+        if (col < 0 || col >= this.columns || row < 0 || row >= this.rows) {
+            return false;
+        }
+
+        int item = this.itemCount++;
+        if (item == this.itemIds.length) {
+            int capacity = item * 2;
+            this.itemIds = Arrays.copyOf(this.itemIds, capacity);
+            this.itemNext = Arrays.copyOf(this.itemNext, capacity);
+            this.itemX = Arrays.copyOf(this.itemX, capacity);
+            this.itemY = Arrays.copyOf(this.itemY, capacity);
+        }
+
+        int cell = row * this.columns + col;
+        this.itemIds[item] = id;
+        this.itemX[item] = x;
+        this.itemY[item] = y;
+        this.itemNext[item] = this.cellHeads[cell];
+        this.cellHeads[cell] = item;
+        this.cellCounts[cell]++;
+
+        return true;
+    }
+
+    /**
+     * Returns the number of cells in this grid. Cells are identified by an index less than this number.
+     *
+     * @return the cell count
+     */
+    public int getCellCount() {
+        return this.columns * this.rows;
+    }
+
+    /**
+     * Returns the number of points in a cell.
+     *
+     * @param cell the cell's index
+     *
+     * @return the number of points in the cell
+     */
+    public int getItemCount(int cell) {
+        return this.cellCounts[cell];
+    }
+
+    /**
+     * Returns the first point in a cell. The remaining points are enumerated by {@link #getNextItem(int)}.
+     *
+     * @param cell the cell's index
+     *
+     * @return the point's index in this grid, or -1 if the cell is empty
+     */
+    public int getFirstItem(int cell) {
+        return this.cellHeads[cell];
+    }
+
+    /**
+     * Returns the point following a specified point in the same cell.
+     *
+     * @param item the point's index in this grid
+     *
+     * @return the next point's index in this grid, or -1 if there are no more points in the cell
+     */
+    public int getNextItem(int item) {
+        return this.itemNext[item];
+    }
+
+    /**
+     * Returns the ID of a point in this grid.
+     *
+     * @param item the point's index in this grid
+     *
+     * @return the ID specified when the point was added
+     */
+    public int getItemId(int item) {
+        return this.itemIds[item];
+    }
+
+    /**
+     * Returns the point in a cell nearest the centroid of all points in that cell. This point is a suitable
+     * representative for the cluster formed by the cell.
+     *
+     * @param cell the cell's index
+     *
+     * @return the point's index in this grid, or -1 if the cell is empty
+     */
+    public int getCentralItem(int cell) {
+        int count = this.cellCounts[cell];
+        if (count == 0) {
+            return -1;
+        }
+
+        double cx = 0;
+        double cy = 0;
+        for (int item = this.cellHeads[cell]; item != -1; item = this.itemNext[item]) {
+            cx += this.itemX[item];
+            cy += this.itemY[item];
+        }
+        cx /= count;
+        cy /= count;
+
+        int nearest = -1;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int item = this.cellHeads[cell]; item != -1; item = this.itemNext[item]) {
+            double dx = this.itemX[item] - cx;
+            double dy = this.itemY[item] - cy;
+            double distance = dx * dx + dy * dy;
+            if (nearestDistance > distance) {
+                nearestDistance = distance;
+                nearest = item;
+            }
+        }
+
+        return nearest;
+    }
+}
@@ -0,0 +1,1036 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.util.Arrays;
+
+/**
+ * Triangulates simple polygons with holes by ear clipping. EarClipTriangulator operates entirely on primitive arrays
+ * that are retained between polygons, and is considerably faster than the GLU tessellator for the simple boundaries
+ * that make up most polygon data. Polygons whose boundaries intersect are rejected by {@link #triangulate(ShortArray)}
+ * so that the caller may fall back to the GLU tessellator.
+ * <p/>
+ * A polygon is specified as a sequence of contours in the XY plane, the first of which is the polygon's outer boundary
+ * and the remainder of which are holes inside the outer boundary. Contour orientation is not significant. Each vertex
+ * carries an index that identifies it in the triangles produced by the triangulator. Coincident consecutive vertices
+ * are ignored, as is a final vertex that closes its contour.
+ * <p/>
+ * Holes are joined to the outer boundary by bridge edges, and large polygons locate ears using a z-order curve index,
+ * following the approach of the earcut library.
+ */
+public class EarClipTriangulator {
+
+    protected static final int NONE = -1;
+
+    protected static final int MIN_CAPACITY = 16;
+
+    /**
+     * Polygons with at least this many vertices locate ears using a z-order curve index.
+     */
+    protected static final int Z_ORDER_THRESHOLD = 80;
+
+    protected static final double SWEEP_QUANTIZATION = 1 << 30;
+
+    protected double[] coords = new double[MIN_CAPACITY * 3];
+
+    protected int[] indices = new int[MIN_CAPACITY];
+
+    protected int vertexCount;
+
+    protected int[] contours = new int[MIN_CAPACITY];
+
+    protected int contourCount;
+
+    protected double minX;
+
+    protected double minY;
+
+    protected double maxX;
+
+    protected double maxY;
+
+    protected int[] edgeNext = new int[0];
+
+    protected long[] sweepKeys = new long[0];
+
+    protected int[] activeEdges = new int[0];
+
+    protected int[] activeMaxX = new int[0];
+
+    protected int[] nodeVertex = new int[0];
+
+    protected double[] nodeX = new double[0];
+
+    protected double[] nodeY = new double[0];
+
+    protected int[] nodePrev = new int[0];
+
+    protected int[] nodeNext = new int[0];
+
+    protected int[] nodePrevZ = new int[0];
+
+    protected int[] nodeNextZ = new int[0];
+
+    protected int[] nodeZ = new int[0];
+
+    protected int nodeCount;
+
+    protected int[] holeQueue = new int[0];
+
+    protected int[] triangles = new int[0];
+
+    protected int triangleVertexCount;
+
+    protected double invSize;
+
+    protected boolean failed;
+
+    public EarClipTriangulator() {
+    }
+
+    public int getVertexCount() {
+        return this.vertexCount;
+    }
+
+    public double getX(int vertex) {
+        return this.coords[vertex * 3];
+    }
+
+    public double getY(int vertex) {
+        return this.coords[vertex * 3 + 1];
+    }
+
+    public double getZ(int vertex) {
+        return this.coords[vertex * 3 + 2];
+    }
+
+    public int getIndex(int vertex) {
+        return this.indices[vertex];
+    }
+
+    public int getContourCount() {
+        return this.contourCount;
+    }
+
+    /**
+     * Returns the first vertex of a specified contour.
+     *
+     * @param contour the contour's index, between 0 and getContourCount() - 1
+     *
+     * @return the contour's first vertex
+     */
+    public int getContourStart(int contour) {
+        return this.contours[contour];
+    }
+
+    /**
+     * Returns the vertex following the last vertex of a specified contour.
+     *
+     * @param contour the contour's index, between 0 and getContourCount() - 1
+     *
+     * @return the contour's end vertex, exclusive
+     */
+    public int getContourEnd(int contour) {
+        return (contour < this.contourCount - 1) ? this.contours[contour + 1] : this.vertexCount;
+    }
+
+    /**
+     * Removes all contours and vertices from this triangulator, retaining its storage for the next polygon.
+     */
+    public void reset() {
+        this.vertexCount = 0;
+        this.contourCount = 0;
+    }
+
+    public void beginContour() {
+        if (this.contourCount == this.contours.length) {
+            this.contours = grow(this.contours, this.contourCount + 1);
+        }
+
+        this.contours[this.contourCount++] = this.vertexCount;
+    }
+
+    public void endContour() {
+        int start = this.contours[this.contourCount - 1];
+        int last = this.vertexCount - 1;
+
+        if (last > start && this.coincident(start, last)) {
+            this.vertexCount--; // ignore the vertex that closes the contour
+        }
+
+        if (this.vertexCount == start) {
+            this.contourCount--; // ignore empty contours
+        }
+    }
+
+    public void addVertex(double x, double y, double z, int index) {
+        int vertex = this.vertexCount;
+        if (vertex > this.contours[this.contourCount - 1]) {
+            int last = (vertex - 1) * 3;
+            if (this.coords[last] == x && this.coords[last + 1] == y) {
+                return; // ignore coincident consecutive vertices
+            }
+        }
+
+        if (vertex == this.indices.length) {
+            this.indices = grow(this.indices, vertex + 1);
+            double[] newCoords = new double[this.indices.length * 3];
+            System.arraycopy(this.coords, 0, newCoords, 0, vertex * 3);
+            this.coords = newCoords;
+        }
+
+        this.coords[vertex * 3] = x;
+        this.coords[vertex * 3 + 1] = y;
+        this.coords[vertex * 3 + 2] = z;
+        this.indices[vertex] = index;
+        this.vertexCount++;
+    }
+
+    /**
+     * Triangulates the polygon specified by this triangulator's contours, appending the vertex indices of each triangle
+     * to the result argument. Triangles are counter-clockwise in the XY plane. The result is not modified when the
+     * polygon cannot be triangulated by ear clipping, which occurs when the polygon's boundaries intersect themselves
+     * or each other, when a hole is not inside the outer boundary or is inside another hole, or when a contour has fewer
+     * than three distinct vertices.
+     *
+     * @param result a pre-allocated ShortArray in which to append the triangles' vertex indices
+     *
+     * @return true if the polygon was triangulated, otherwise false
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public boolean triangulate(ShortArray result) {
+        if (result == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "EarClipTriangulator", "triangulate", "missingResult"));
+        }
+
+        if (!this.isSimple()) {
+            return false;
+        }
+
+        this.nodeCount = 0;
+        this.triangleVertexCount = 0;
+        this.failed = false;
+
+        int outerNode = this.linkContour(0, true /*counterClockwise*/);
+        if (this.contourCount > 1) {
+            outerNode = this.eliminateHoles(outerNode);
+        }
+
+        this.invSize = 0;
+        if (this.vertexCount >= Z_ORDER_THRESHOLD) {
+            double size = Math.max(this.maxX - this.minX, this.maxY - this.minY);
+            this.invSize = 32767 / size;
+        }
+
+        this.earClipLinked(outerNode, 0 /*pass*/);
+        if (this.failed) {
+            return false;
+        }
+
+        for (int idx = 0; idx < this.triangleVertexCount; idx++) {
+            result.add((short) this.triangles[idx]);
+        }
+
+        return true;
+    }
+
+    /**
+     * Determines whether this triangulator's contours form a simple polygon with holes. Edge intersections are
+     * detected with a sweep line, which tests only the edges that overlap in X.
+     */
+    protected boolean isSimple() {
+        if (this.contourCount == 0) {
+            return false;
+        }
+
+        int n = this.vertexCount;
+        if (this.edgeNext.length < n) {
+            this.edgeNext = new int[n];
+        }
+
+        this.minX = Double.POSITIVE_INFINITY;
+        this.minY = Double.POSITIVE_INFINITY;
+        this.maxX = Double.NEGATIVE_INFINITY;
+        this.maxY = Double.NEGATIVE_INFINITY;
+
+        for (int contour = 0; contour < this.contourCount; contour++) {
+            int start = this.contours[contour];
+            int end = this.getContourEnd(contour);
+            if (end - start < 3) {
+                return false; // degenerate contour
+            }
+
+            for (int vertex = start; vertex < end; vertex++) {
+                int prev = (vertex > start) ? vertex - 1 : end - 1;
+                int next = (vertex < end - 1) ? vertex + 1 : start;
+                this.edgeNext[vertex] = next;
+
+                double x = this.getX(vertex);
+                double y = this.getY(vertex);
+                if (this.minX > x) this.minX = x;
+                if (this.maxX < x) this.maxX = x;
+                if (this.minY > y) this.minY = y;
+                if (this.maxY < y) this.maxY = y;
+
+                // Adjacent edges that double back on each other overlap.
+                double ax = x - this.getX(prev), ay = y - this.getY(prev);
+                double bx = this.getX(next) - x, by = this.getY(next) - y;
+                if (ax * by - ay * bx == 0 && ax * bx + ay * by < 0) {
+                    return false;
+                }
+            }
+        }
+
+        double width = this.maxX - this.minX;
+        double height = this.maxY - this.minY;
+        if (!(width > 0 && height > 0)) {
+            return false; // degenerate or non-finite coordinates
+        }
+
+        // Sweep a vertical line across the polygon, visiting edges in order of their minimum X coordinate and testing
+        // each edge against the active edges that overlap it in X. Edge X coordinates are quantized to 30 bits so
+        // that the sweep order can be computed by sorting primitive keys.
+        if (this.sweepKeys.length < n) {
+            this.sweepKeys = new long[n];
+            this.activeEdges = new int[n];
+            this.activeMaxX = new int[n];
+        }
+
+        double scale = SWEEP_QUANTIZATION / width;
+        for (int edge = 0; edge < n; edge++) {
+            int qx = (int) ((Math.min(this.getX(edge), this.getX(this.edgeNext[edge])) - this.minX) * scale);
+            this.sweepKeys[edge] = ((long) qx << 32) | edge;
+        }
+
+        Arrays.sort(this.sweepKeys, 0, n);
+
+        int activeCount = 0;
+        for (int idx = 0; idx < n; idx++) {
+            long key = this.sweepKeys[idx];
+            int qx = (int) (key >>> 32);
+            int a = (int) key;
+            int an = this.edgeNext[a];
+
+            int remaining = 0;
+            for (int j = 0; j < activeCount; j++) {
+                int b = this.activeEdges[j];
+                if (this.activeMaxX[j] < qx) {
+                    continue; // the active edge ends before the sweep line; remove it
+                }
+
+                this.activeEdges[remaining] = b;
+                this.activeMaxX[remaining] = this.activeMaxX[j];
+                remaining++;
+
+                int bn = this.edgeNext[b];
+                if (an == b || bn == a) {
+                    continue; // adjacent edges share a vertex
+                }
+
+                if (this.segmentsIntersect(a, an, b, bn)) {
+                    return false; // edges intersect or touch
+                }
+            }
+
+            activeCount = remaining;
+            this.activeEdges[activeCount] = a;
+            this.activeMaxX[activeCount] = (int) ((Math.max(this.getX(a), this.getX(an)) - this.minX) * scale);
+            activeCount++;
+        }
+
+        // Without intersecting edges, each hole is entirely inside or outside every other contour. Holes must be inside
+        // the outer boundary and must not be inside another hole.
+        for (int hole = 1; hole < this.contourCount; hole++) {
+            int vertex = this.contours[hole];
+            double x = this.getX(vertex);
+            double y = this.getY(vertex);
+            if (!this.contourContains(0, x, y)) {
+                return false;
+            }
+
+            for (int other = 1; other < this.contourCount; other++) {
+                if (other != hole && this.contourContains(other, x, y)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    protected boolean coincident(int a, int b) {
+        return this.getX(a) == this.getX(b) && this.getY(a) == this.getY(b);
+    }
+
+    protected boolean segmentsIntersect(int p1, int q1, int p2, int q2) {
+        double p1x = this.getX(p1), p1y = this.getY(p1), q1x = this.getX(q1), q1y = this.getY(q1);
+        double p2x = this.getX(p2), p2y = this.getY(p2), q2x = this.getX(q2), q2y = this.getY(q2);
+
+        if (Math.max(p1x, q1x) < Math.min(p2x, q2x) || Math.max(p2x, q2x) < Math.min(p1x, q1x) ||
+            Math.max(p1y, q1y) < Math.min(p2y, q2y) || Math.max(p2y, q2y) < Math.min(p1y, q1y)) {
+            return false; // segment bounding rectangles do not overlap
+        }
+
+        return intersects(p1x, p1y, q1x, q1y, p2x, p2y, q2x, q2y);
+    }
+
+    protected boolean contourContains(int contour, double x, double y) {
+        boolean inside = false;
+        int start = this.contours[contour];
+        int end = this.getContourEnd(contour);
+
+        for (int i = start, j = end - 1; i < end; j = i++) {
+            double xi = this.getX(i), yi = this.getY(i), xj = this.getX(j), yj = this.getY(j);
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+        }
+
+        return inside;
+    }
+
+    /**
+     * Links a contour's vertices in a circular doubly linked list with the specified orientation.
+     *
+     * @return the last node in the list
+     */
+    protected int linkContour(int contour, boolean counterClockwise) {
+        int start = this.contours[contour];
+        int end = this.getContourEnd(contour);
+        int last = NONE;
+
+        double area = 0;
+        for (int i = start, j = end - 1; i < end; j = i++) {
+            area += this.getX(j) * this.getY(i) - this.getX(i) * this.getY(j);
+        }
+
+        if (counterClockwise == (area > 0)) {
+            for (int vertex = start; vertex < end; vertex++) {
+                last = this.insertNode(vertex, last);
+            }
+        } else {
+            for (int vertex = end - 1; vertex >= start; vertex--) {
+                last = this.insertNode(vertex, last);
+            }
+        }
+
+        return last;
+    }
+
+    protected int eliminateHoles(int outerNode) {
+        int holeCount = this.contourCount - 1;
+        if (this.holeQueue.length < holeCount) {
+            this.holeQueue = new int[holeCount];
+        }
+
+        // Link each hole clockwise and sort the holes by their leftmost node.
+        for (int hole = 0; hole < holeCount; hole++) {
+            int node = this.leftmost(this.linkContour(hole + 1, false /*counterClockwise*/));
+            int idx = hole;
+            while (idx > 0 && this.nodeX[this.holeQueue[idx - 1]] > this.nodeX[node]) {
+                this.holeQueue[idx] = this.holeQueue[idx - 1];
+                idx--;
+            }
+            this.holeQueue[idx] = node;
+        }
+
+        // Join each hole to the outer boundary, from left to right.
+        for (int hole = 0; hole < holeCount; hole++) {
+            outerNode = this.eliminateHole(this.holeQueue[hole], outerNode);
+        }
+
+        return outerNode;
+    }
+
+    protected int eliminateHole(int hole, int outerNode) {
+        int bridge = this.findHoleBridge(hole, outerNode);
+        if (bridge == NONE) {
+            return outerNode;
+        }
+
+        int bridgeReverse = this.splitPolygon(bridge, hole);
+        this.filterPoints(bridgeReverse, this.nodeNext[bridgeReverse]);
+        return this.filterPoints(bridge, this.nodeNext[bridge]);
+    }
+
+    /**
+     * Finds a node on the outer boundary that's visible from the hole's leftmost node, using David Eberly's algorithm.
+     */
+    protected int findHoleBridge(int hole, int outerNode) {
+        double hx = this.nodeX[hole];
+        double hy = this.nodeY[hole];
+        double qx = Double.NEGATIVE_INFINITY;
+        int m = NONE;
+
+        // Find the segment to the left of the hole's node that's intersected by a horizontal ray from the node.
+        int p = outerNode;
+        do {
+            int pn = this.nodeNext[p];
+            double py = this.nodeY[p], pny = this.nodeY[pn];
+            if (hy <= py && hy >= pny && pny != py) {
+                double px = this.nodeX[p], pnx = this.nodeX[pn];
+                double x = px + (hy - py) * (pnx - px) / (pny - py);
+                if (x <= hx && x > qx) {
+                    qx = x;
+                    m = (px < pnx) ? p : pn;
+                    if (x == hx) {
+                        return m; // the hole touches the outer segment; pick its leftmost endpoint
+                    }
+                }
+            }
+            p = pn;
+        } while (p != outerNode);
+
+        if (m == NONE) {
+            return NONE;
+        }
+
+        // Look for points inside the triangle formed by the hole's node, the intersection point, and the segment's
+        // endpoint. If there are any, choose the one with the minimum angle to the ray as the connection point.
+        int stop = m;
+        double mx = this.nodeX[m];
+        double my = this.nodeY[m];
+        double tanMin = Double.POSITIVE_INFINITY;
+
+        p = m;
+        do {
+            double px = this.nodeX[p], py = this.nodeY[p];
+            if (hx >= px && px >= mx && hx != px &&
+                pointInTriangle(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, px, py)) {
+                double tan = Math.abs(hy - py) / (hx - px);
+                if (this.locallyInside(p, hole) && (tan < tanMin || (tan == tanMin &&
+                    (px > this.nodeX[m] || (px == this.nodeX[m] && this.sectorContainsSector(m, p)))))) {
+                    m = p;
+                    tanMin = tan;
+                }
+            }
+            p = this.nodeNext[p];
+        } while (p != stop);
+
+        return m;
+    }
+
+    protected boolean sectorContainsSector(int m, int p) {
+        return this.area(this.nodePrev[m], m, this.nodePrev[p]) < 0 && this.area(this.nodeNext[p], m, this.nodeNext[m]) < 0;
+    }
+
+    protected int leftmost(int start) {
+        int p = start, leftmost = start;
+        do {
+            if (this.nodeX[p] < this.nodeX[leftmost] || (this.nodeX[p] == this.nodeX[leftmost] && this.nodeY[p] < this.nodeY[leftmost])) {
+                leftmost = p;
+            }
+            p = this.nodeNext[p];
+        } while (p != start);
+
+        return leftmost;
+    }
+
+    /**
+     * Removes coincident and collinear nodes between the start node and the end node.
+     *
+     * @return the end node
+     */
+    protected int filterPoints(int start, int end) {
+        if (end == NONE) {
+            end = start;
+        }
+
+        int p = start;
+        boolean again;
+        do {
+            again = false;
+            if (this.equals(p, this.nodeNext[p]) || this.area(this.nodePrev[p], p, this.nodeNext[p]) == 0) {
+                this.removeNode(p);
+                p = end = this.nodePrev[p];
+                if (p == this.nodeNext[p]) {
+                    break;
+                }
+                again = true;
+            } else {
+                p = this.nodeNext[p];
+            }
+        } while (again || p != end);
+
+        return end;
+    }
+
+    /**
+     * Clips ears from a polygon's linked list until only a single triangle remains. When no ear can be found, the
+     * polygon is progressively repaired: pass 1 removes collinear nodes, pass 2 cures local self-intersections, and
+     * finally the polygon is split in two along a valid diagonal.
+     */
+    protected void earClipLinked(int ear, int pass) {
+        if (pass == 0 && this.invSize != 0) {
+            this.indexCurve(ear);
+        }
+
+        int stop = ear;
+        while (this.nodePrev[ear] != this.nodeNext[ear]) {
+            int prev = this.nodePrev[ear];
+            int next = this.nodeNext[ear];
+
+            if ((this.invSize != 0) ? this.isEarHashed(ear) : this.isEar(ear)) {
+                this.addTriangle(prev, ear, next);
+                this.removeNode(ear);
+                // Skipping the next node leads to fewer sliver triangles.
+                ear = this.nodeNext[next];
+                stop = this.nodeNext[next];
+                continue;
+            }
+
+            ear = next;
+            if (ear == stop) {
+                if (pass == 0) {
+                    this.earClipLinked(this.filterPoints(ear, NONE), 1);
+                } else if (pass == 1) {
+                    ear = this.cureLocalIntersections(this.filterPoints(ear, NONE));
+                    this.earClipLinked(ear, 2);
+                } else {
+                    this.splitEarClip(ear);
+                }
+                break;
+            }
+        }
+    }
+
+    protected boolean isEar(int ear) {
+        int a = this.nodePrev[ear], c = this.nodeNext[ear];
+        if (this.area(a, ear, c) >= 0) {
+            return false; // reflex, can't be an ear
+        }
+
+        double ax = this.nodeX[a], bx = this.nodeX[ear], cx = this.nodeX[c];
+        double ay = this.nodeY[a], by = this.nodeY[ear], cy = this.nodeY[c];
+        double x0 = Math.min(ax, Math.min(bx, cx)), x1 = Math.max(ax, Math.max(bx, cx));
+        double y0 = Math.min(ay, Math.min(by, cy)), y1 = Math.max(ay, Math.max(by, cy));
+
+        // Make sure no reflex or collinear nodes are inside the potential ear.
+        int p = this.nodeNext[c];
+        while (p != a) {
+            double px = this.nodeX[p], py = this.nodeY[p];
+            if (px >= x0 && px <= x1 && py >= y0 && py <= y1 &&
+                pointInTriangle(ax, ay, bx, by, cx, cy, px, py) &&
+                this.area(this.nodePrev[p], p, this.nodeNext[p]) >= 0) {
+                return false;
+            }
+            p = this.nodeNext[p];
+        }
+
+        return true;
+    }
+
+    protected boolean isEarHashed(int ear) {
+        int a = this.nodePrev[ear], c = this.nodeNext[ear];
+        if (this.area(a, ear, c) >= 0) {
+            return false; // reflex, can't be an ear
+        }
+
+        double ax = this.nodeX[a], bx = this.nodeX[ear], cx = this.nodeX[c];
+        double ay = this.nodeY[a], by = this.nodeY[ear], cy = this.nodeY[c];
+        double x0 = Math.min(ax, Math.min(bx, cx)), x1 = Math.max(ax, Math.max(bx, cx));
+        double y0 = Math.min(ay, Math.min(by, cy)), y1 = Math.max(ay, Math.max(by, cy));
+
+        // Search the nodes whose z-order is within the ear's bounding rectangle, in both directions.
+        int minZ = this.zOrder(x0, y0);
+        int maxZ = this.zOrder(x1, y1);
+        int p = this.nodePrevZ[ear];
+        int n = this.nodeNextZ[ear];
+
+        while (p != NONE && this.nodeZ[p] >= minZ && n != NONE && this.nodeZ[n] <= maxZ) {
+            if (p != a && p != c && this.blocksEar(p, ax, ay, bx, by, cx, cy, x0, y0, x1, y1)) {
+                return false;
+            }
+            p = this.nodePrevZ[p];
+
+            if (n != a && n != c && this.blocksEar(n, ax, ay, bx, by, cx, cy, x0, y0, x1, y1)) {
+                return false;
+            }
+            n = this.nodeNextZ[n];
+        }
+
+        while (p != NONE && this.nodeZ[p] >= minZ) {
+            if (p != a && p != c && this.blocksEar(p, ax, ay, bx, by, cx, cy, x0, y0, x1, y1)) {
+                return false;
+            }
+            p = this.nodePrevZ[p];
+        }
+
+        while (n != NONE && this.nodeZ[n] <= maxZ) {
+            if (n != a && n != c && this.blocksEar(n, ax, ay, bx, by, cx, cy, x0, y0, x1, y1)) {
+                return false;
+            }
+            n = this.nodeNextZ[n];
+        }
+
+        return true;
+    }
+
+    protected boolean blocksEar(int p, double ax, double ay, double bx, double by, double cx, double cy,
+                                double x0, double y0, double x1, double y1) {
+        double px = this.nodeX[p], py = this.nodeY[p];
+        return px >= x0 && px <= x1 && py >= y0 && py <= y1 &&
+            pointInTriangle(ax, ay, bx, by, cx, cy, px, py) &&
+            this.area(this.nodePrev[p], p, this.nodeNext[p]) >= 0;
+    }
+
+    /**
+     * Clips the triangles formed by pairs of edges that locally intersect.
+     */
+    protected int cureLocalIntersections(int start) {
+        int p = start;
+        do {
+            int a = this.nodePrev[p];
+            int pn = this.nodeNext[p];
+            int b = this.nodeNext[pn];
+
+            if (!this.equals(a, b) && this.intersects(a, p, pn, b) && this.locallyInside(a, b) && this.locallyInside(b, a)) {
+                this.addTriangle(a, p, b);
+                this.removeNode(p);
+                this.removeNode(pn);
+                p = start = b;
+            }
+            p = this.nodeNext[p];
+        } while (p != start);
+
+        return this.filterPoints(p, NONE);
+    }
+
+    /**
+     * Splits the polygon in two along a valid diagonal and triangulates each half. Marks the triangulation as failed
+     * when no valid diagonal exists.
+     */
+    protected void splitEarClip(int start) {
+        int a = start;
+        do {
+            int b = this.nodeNext[this.nodeNext[a]];
+            while (b != this.nodePrev[a]) {
+                if (this.nodeVertex[a] != this.nodeVertex[b] && this.isValidDiagonal(a, b)) {
+                    int c = this.splitPolygon(a, b);
+                    a = this.filterPoints(a, this.nodeNext[a]);
+                    c = this.filterPoints(c, this.nodeNext[c]);
+                    this.earClipLinked(a, 0);
+                    this.earClipLinked(c, 0);
+                    return;
+                }
+                b = this.nodeNext[b];
+            }
+            a = this.nodeNext[a];
+        } while (a != start);
+
+        this.failed = true;
+    }
+
+    protected boolean isValidDiagonal(int a, int b) {
+        int an = this.nodeNext[a], ap = this.nodePrev[a];
+        int bn = this.nodeNext[b], bp = this.nodePrev[b];
+
+        return this.nodeVertex[an] != this.nodeVertex[b] && this.nodeVertex[ap] != this.nodeVertex[b] &&
+            !this.intersectsPolygon(a, b) &&
+            ((this.locallyInside(a, b) && this.locallyInside(b, a) && this.middleInside(a, b) &&
+                (this.area(ap, a, bp) != 0 || this.area(a, bp, b) != 0)) ||
+                (this.equals(a, b) && this.area(ap, a, an) > 0 && this.area(bp, b, bn) > 0));
+    }
+
+    protected boolean intersectsPolygon(int a, int b) {
+        int va = this.nodeVertex[a], vb = this.nodeVertex[b];
+        int p = a;
+        do {
+            int pn = this.nodeNext[p];
+            int vp = this.nodeVertex[p], vpn = this.nodeVertex[pn];
+            if (vp != va && vpn != va && vp != vb && vpn != vb && this.intersects(p, pn, a, b)) {
+                return true;
+            }
+            p = pn;
+        } while (p != a);
+
+        return false;
+    }
+
+    protected boolean locallyInside(int a, int b) {
+        int ap = this.nodePrev[a], an = this.nodeNext[a];
+        return (this.area(ap, a, an) < 0) ?
+            this.area(a, b, an) >= 0 && this.area(a, ap, b) >= 0 :
+            this.area(a, b, ap) < 0 || this.area(a, an, b) < 0;
+    }
+
+    protected boolean middleInside(int a, int b) {
+        boolean inside = false;
+        double px = (this.nodeX[a] + this.nodeX[b]) / 2;
+        double py = (this.nodeY[a] + this.nodeY[b]) / 2;
+
+        int p = a;
+        do {
+            int pn = this.nodeNext[p];
+            double y0 = this.nodeY[p], y1 = this.nodeY[pn];
+            if ((y0 > py) != (y1 > py) && y1 != y0 && px < (this.nodeX[pn] - this.nodeX[p]) * (py - y0) / (y1 - y0) + this.nodeX[p]) {
+                inside = !inside;
+            }
+            p = pn;
+        } while (p != a);
+
+        return inside;
+    }
+
+    /**
+     * Links node a to node b by splitting the polygon in two. Nodes a and b are duplicated, and the duplicates form
+     * the second polygon.
+     *
+     * @return the duplicate of node b
+     */
+    protected int splitPolygon(int a, int b) {
+        int a2 = this.newNode(this.nodeVertex[a]);
+        int b2 = this.newNode(this.nodeVertex[b]);
+        int an = this.nodeNext[a];
+        int bp = this.nodePrev[b];
+
+        this.nodeNext[a] = b;
+        this.nodePrev[b] = a;
+
+        this.nodeNext[a2] = an;
+        this.nodePrev[an] = a2;
+
+        this.nodeNext[b2] = a2;
+        this.nodePrev[a2] = b2;
+
+        this.nodeNext[bp] = b2;
+        this.nodePrev[b2] = bp;
+
+        return b2;
+    }
+
+    protected void indexCurve(int start) {
+        int p = start;
+        do {
+            if (this.nodeZ[p] == NONE) {
+                this.nodeZ[p] = this.zOrder(this.nodeX[p], this.nodeY[p]);
+            }
+            this.nodePrevZ[p] = this.nodePrev[p];
+            this.nodeNextZ[p] = this.nodeNext[p];
+            p = this.nodeNext[p];
+        } while (p != start);
+
+        this.nodeNextZ[this.nodePrevZ[p]] = NONE;
+        this.nodePrevZ[p] = NONE;
+
+        this.sortLinked(p);
+    }
+
+    /**
+     * Sorts the z-order linked list beginning at the specified node using a bottom-up merge sort.
+     */
+    protected void sortLinked(int list) {
+        int inSize = 1;
+        int numMerges;
+
+        do {
+            int p = list;
+            int tail = NONE;
+            list = NONE;
+            numMerges = 0;
+
+            while (p != NONE) {
+                numMerges++;
+                int q = p;
+                int pSize = 0;
+                for (int idx = 0; idx < inSize; idx++) {
+                    pSize++;
+                    q = this.nodeNextZ[q];
+                    if (q == NONE) {
+                        break;
+                    }
+                }
+
+                int qSize = inSize;
+                while (pSize > 0 || (qSize > 0 && q != NONE)) {
+                    int e;
+                    if (pSize != 0 && (qSize == 0 || q == NONE || this.nodeZ[p] <= this.nodeZ[q])) {
+                        e = p;
+                        p = this.nodeNextZ[p];
+                        pSize--;
+                    } else {
+                        e = q;
+                        q = this.nodeNextZ[q];
+                        qSize--;
+                    }
+
+                    if (tail != NONE) {
+                        this.nodeNextZ[tail] = e;
+                    } else {
+                        list = e;
+                    }
+
+                    this.nodePrevZ[e] = tail;
+                    tail = e;
+                }
+
+                p = q;
+            }
+
+            this.nodeNextZ[tail] = NONE;
+            inSize *= 2;
+        } while (numMerges > 1);
+    }
+
+    /**
+     * Computes the z-order of a point from its coordinates, scaled to 15 bits within the polygon's bounding rectangle.
+     */
+    protected int zOrder(double x, double y) {
+        int ix = (int) ((x - this.minX) * this.invSize);
+        int iy = (int) ((y - this.minY) * this.invSize);
+
+        ix = (ix | (ix << 8)) & 0x00FF00FF;
+        ix = (ix | (ix << 4)) & 0x0F0F0F0F;
+        ix = (ix | (ix << 2)) & 0x33333333;
+        ix = (ix | (ix << 1)) & 0x55555555;
+
+        iy = (iy | (iy << 8)) & 0x00FF00FF;
+        iy = (iy | (iy << 4)) & 0x0F0F0F0F;
+        iy = (iy | (iy << 2)) & 0x33333333;
+        iy = (iy | (iy << 1)) & 0x55555555;
+
+        return ix | (iy << 1);
+    }
+
+    protected void addTriangle(int a, int b, int c) {
+        if (this.triangleVertexCount + 3 > this.triangles.length) {
+            this.triangles = grow(this.triangles, this.triangleVertexCount + 3);
+        }
+
+        this.triangles[this.triangleVertexCount++] = this.indices[this.nodeVertex[a]];
+        this.triangles[this.triangleVertexCount++] = this.indices[this.nodeVertex[b]];
+        this.triangles[this.triangleVertexCount++] = this.indices[this.nodeVertex[c]];
+    }
+
+    protected int newNode(int vertex) {
+        int node = this.nodeCount;
+        if (node == this.nodeVertex.length) {
+            int capacity = Math.max(node + (node >> 1), Math.max(this.vertexCount + 2 * this.contourCount, MIN_CAPACITY));
+            this.nodeVertex = resize(this.nodeVertex, capacity);
+            this.nodeX = resize(this.nodeX, capacity);
+            this.nodeY = resize(this.nodeY, capacity);
+            this.nodePrev = resize(this.nodePrev, capacity);
+            this.nodeNext = resize(this.nodeNext, capacity);
+            this.nodePrevZ = resize(this.nodePrevZ, capacity);
+            this.nodeNextZ = resize(this.nodeNextZ, capacity);
+            this.nodeZ = resize(this.nodeZ, capacity);
+        }
+
+        this.nodeVertex[node] = vertex;
+        this.nodeX[node] = this.getX(vertex);
+        this.nodeY[node] = this.getY(vertex);
+        this.nodePrev[node] = NONE;
+        this.nodeNext[node] = NONE;
+        this.nodePrevZ[node] = NONE;
+        this.nodeNextZ[node] = NONE;
+        this.nodeZ[node] = NONE;
+        this.nodeCount++;
+
+        return node;
+    }
+
+    protected int insertNode(int vertex, int last) {
+        int node = this.newNode(vertex);
+
+        if (last == NONE) {
+            this.nodePrev[node] = node;
+            this.nodeNext[node] = node;
+        } else {
+            this.nodeNext[node] = this.nodeNext[last];
+            this.nodePrev[node] = last;
+            this.nodePrev[this.nodeNext[last]] = node;
+            this.nodeNext[last] = node;
+        }
+
+        return node;
+    }
+
+    protected void removeNode(int p) {
+        this.nodePrev[this.nodeNext[p]] = this.nodePrev[p];
+        this.nodeNext[this.nodePrev[p]] = this.nodeNext[p];
+
+        if (this.nodePrevZ[p] != NONE) {
+            this.nodeNextZ[this.nodePrevZ[p]] = this.nodeNextZ[p];
+        }
+
+        if (this.nodeNextZ[p] != NONE) {
+            this.nodePrevZ[this.nodeNextZ[p]] = this.nodePrevZ[p];
+        }
+    }
+
+    protected boolean equals(int p, int q) {
+        return this.nodeX[p] == this.nodeX[q] && this.nodeY[p] == this.nodeY[q];
+    }
+
+    /**
+     * Computes twice the signed area of the triangle formed by three nodes, which is negative when the nodes turn
+     * counter-clockwise.
+     */
+    protected double area(int p, int q, int r) {
+        return (this.nodeY[q] - this.nodeY[p]) * (this.nodeX[r] - this.nodeX[q]) -
+            (this.nodeX[q] - this.nodeX[p]) * (this.nodeY[r] - this.nodeY[q]);
+    }
+
+    protected boolean intersects(int p1, int q1, int p2, int q2) {
+        return intersects(this.nodeX[p1], this.nodeY[p1], this.nodeX[q1], this.nodeY[q1],
+            this.nodeX[p2], this.nodeY[p2], this.nodeX[q2], this.nodeY[q2]);
+    }
+
+    /**
+     * Indicates whether segment p1-q1 intersects segment p2-q2, including segments that touch.
+     */
+    protected static boolean intersects(double p1x, double p1y, double q1x, double q1y,
+                                        double p2x, double p2y, double q2x, double q2y) {
+        int o1 = sign(area(p1x, p1y, q1x, q1y, p2x, p2y));
+        int o2 = sign(area(p1x, p1y, q1x, q1y, q2x, q2y));
+        int o3 = sign(area(p2x, p2y, q2x, q2y, p1x, p1y));
+        int o4 = sign(area(p2x, p2y, q2x, q2y, q1x, q1y));
+
+        return (o1 != o2 && o3 != o4) || // general case
+            (o1 == 0 && onSegment(p1x, p1y, p2x, p2y, q1x, q1y)) || // p1, q1 and p2 are collinear and p2 lies on p1q1
+            (o2 == 0 && onSegment(p1x, p1y, q2x, q2y, q1x, q1y)) || // p1, q1 and q2 are collinear and q2 lies on p1q1
+            (o3 == 0 && onSegment(p2x, p2y, p1x, p1y, q2x, q2y)) || // p2, q2 and p1 are collinear and p1 lies on p2q2
+            (o4 == 0 && onSegment(p2x, p2y, q1x, q1y, q2x, q2y));   // p2, q2 and q1 are collinear and q1 lies on p2q2
+    }
+
+    protected static double area(double px, double py, double qx, double qy, double rx, double ry) {
+        return (qy - py) * (rx - qx) - (qx - px) * (ry - qy);
+    }
+
+    protected static boolean onSegment(double px, double py, double qx, double qy, double rx, double ry) {
+        return qx <= Math.max(px, rx) && qx >= Math.min(px, rx) && qy <= Math.max(py, ry) && qy >= Math.min(py, ry);
+    }
+
+    protected static int sign(double value) {
+        return (value > 0) ? 1 : (value < 0) ? -1 : 0;
+    }
+
+    protected static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy,
+                                             double px, double py) {
+        return (cx - px) * (ay - py) >= (ax - px) * (cy - py) &&
+            (ax - px) * (by - py) >= (bx - px) * (ay - py) &&
+            (bx - px) * (cy - py) >= (cx - px) * (by - py);
+    }
+
+    protected static int[] grow(int[] array, int minCapacity) {
+        int capacity = Math.max(minCapacity, Math.max(array.length + (array.length >> 1), MIN_CAPACITY));
+        return resize(array, capacity);
+    }
+
+    protected static int[] resize(int[] array, int capacity) {
+        int[] newArray = new int[capacity];
+        System.arraycopy(array, 0, newArray, 0, Math.min(array.length, capacity));
+        return newArray;
+    }
+
+    protected static double[] resize(double[] array, int capacity) {
+        double[] newArray = new double[capacity];
+        System.arraycopy(array, 0, newArray, 0, Math.min(array.length, capacity));
+        return newArray;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive int values backed by an open-addressing hash table. IntSet avoids the boxing and per-entry
+ * allocation of java.util.HashSet, and retains its storage when cleared so that it may be reused across frames without
+ * allocating. Values are also kept in insertion order, and may be iterated by index using {@link #size()} and {@link
+ * #get(int)}.
+ */
+public class IntSet {
+
+    protected static final int MIN_CAPACITY = 16;
+
+    protected static final int EMPTY_SLOT = 0;
+
+    protected int[] slots;
+
+    protected int[] values;
+
+    protected int size;
+
+    protected boolean containsZero;
+
+    public IntSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntSet(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "IntSet", "constructor", "invalidCapacity"));
+        }
+
+        int slotCount = MIN_CAPACITY;
+        while (slotCount < initialCapacity * 2) {
+            slotCount <<= 1;
+        }
+
+        this.slots = new int[slotCount];
+        this.values = new int[slotCount >> 1];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the value at a specified index, in the order the values were added to the set.
+     *
+     * @param index the value's index, between 0 and size() - 1
+     *
+     * @return the value at the specified index
+     */
+    public int get(int index) {
+        return this.values[index];
+    }
+
+    public boolean contains(int value) {
+        if (value == EMPTY_SLOT) {
+            return this.containsZero;
+        }
+
+        int mask = this.slots.length - 1;
+        for (int idx = mix(value) & mask; ; idx = (idx + 1) & mask) {
+            int slot = this.slots[idx];
+            if (slot == value) {
+                return true;
+            } else if (slot == EMPTY_SLOT) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Adds a value to this set, if it's not already present.
+     *
+     * @param value the value to add
+     *
+     * @return true if the set did not already contain the value, otherwise false
+     */
+    public boolean add(int value) {
+        if (value == EMPTY_SLOT) {
+            if (this.containsZero) {
+                return false;
+            }
+            this.containsZero = true;
+            this.appendValue(value);
+            return true;
+        }
+
+        int mask = this.slots.length - 1;
+        int idx = mix(value) & mask;
+        for (int slot; (slot = this.slots[idx]) != EMPTY_SLOT; idx = (idx + 1) & mask) {
+            if (slot == value) {
+                return false;
+            }
+        }
+
+        this.slots[idx] = value;
+        this.appendValue(value);
+
+        // Keep the load factor at or below one half to keep probe sequences short.
+        if (this.size * 2 > this.slots.length) {
+            this.rehash(this.slots.length << 1);
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes all values from this set. The set's storage is retained for reuse.
+     *
+     * @return this set
+     */
+    public IntSet clear() {
+        if (this.size > 0) {
+            Arrays.fill(this.slots, EMPTY_SLOT);
+            this.size = 0;
+            this.containsZero = false;
+        }
+
+        return this;
+    }
+
+    protected void appendValue(int value) {
+        if (this.values.length == this.size) {
+            int[] newValues = new int[Math.max(this.size << 1, MIN_CAPACITY)];
+            System.arraycopy(this.values, 0, newValues, 0, this.size);
+            this.values = newValues;
+        }
+
+        this.values[this.size++] = value;
+    }
+
+    protected void rehash(int slotCount) {
+        int[] newSlots = new int[slotCount];
+        int mask = slotCount - 1;
+
+        for (int idx = 0; idx < this.size; idx++) {
+            int value = this.values[idx];
+            if (value != EMPTY_SLOT) {
+                int slotIdx = mix(value) & mask;
+                while (newSlots[slotIdx] != EMPTY_SLOT) {
+                    slotIdx = (slotIdx + 1) & mask;
+                }
+                newSlots[slotIdx] = value;
+            }
+        }
+
+        this.slots = newSlots;
+    }
+
+    protected static int mix(int value) {
+        // Spread the low order bits, which are often similar for sequential keys such as picked object identifiers.
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
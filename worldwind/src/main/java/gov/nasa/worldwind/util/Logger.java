@@ -42,11 +42,13 @@ public class Logger {
         messageTable.put("invalidRange", "The range is invalid");
         messageTable.put("invalidResolution", "The resolution is invalid");
         messageTable.put("invalidResource", "The resource is invalid");
+        messageTable.put("invalidSize", "The size is invalid");
         messageTable.put("invalidStride", "The stride is invalid");
         messageTable.put("invalidTileDelta", "The tile delta is invalid");
         messageTable.put("invalidWidth", "The width is invalid");
         messageTable.put("invalidWidthOrHeight", "The width or the height is invalid");
         messageTable.put("missingArray", "The array is null or insufficient length");
+        messageTable.put("missingAttributes", "The attributes are null");
         messageTable.put("missingBitmap", "The bitmap is null");
         messageTable.put("missingBuffer", "The buffer is null");
         messageTable.put("missingCache", "The cache is null");
@@ -56,10 +58,13 @@ public class Logger {
         messageTable.put("missingConfig", "The configuration is null");
         messageTable.put("missingCoordinateSystem", "The coordinate system is null");
         messageTable.put("missingCoverage", "The coverage is null");
+        messageTable.put("missingElevationModel", "The elevation model is null");
         messageTable.put("missingEllipsoid", "The ellipsoid is null");
         messageTable.put("missingFactory", "The factory is null");
+        messageTable.put("missingFile", "The file is null");
         messageTable.put("missingFormat", "The format is null");
         messageTable.put("missingFrameMetrics", "The frame metrics argument is null");
+        messageTable.put("missingFrustum", "The frustum is null");
         messageTable.put("missingGlobe", "The globe is null");
         messageTable.put("missingImageFormat", "The image format is null");
         messageTable.put("missingIterable", "The iterable is null");
@@ -76,6 +81,7 @@ public class Logger {
         messageTable.put("missingMatrix", "The matrix is null");
         messageTable.put("missingModel", "The model is null");
         messageTable.put("missingName", "The name is null");
+        messageTable.put("missingObject", "The object is null");
         messageTable.put("missingOffset", "The offset name is null");
         messageTable.put("missingPathName", "The path name is null");
         messageTable.put("missingPoint", "The point is null");
@@ -88,6 +94,8 @@ public class Logger {
         messageTable.put("missingResources", "The resources argument is null");
         messageTable.put("missingResult", "The result argument is null");
         messageTable.put("missingRunnable", "The runnable is null");
+        messageTable.put("missingScene", "The scene is null");
+        messageTable.put("missingScript", "The script is null");
         messageTable.put("missingSector", "The sector is null");
         messageTable.put("missingServiceAddress", "The service address is null");
         messageTable.put("missingSource", "The source is null");
@@ -101,6 +109,7 @@ public class Logger {
         messageTable.put("missingVector", "The vector is null");
         messageTable.put("missingVersion", "The version is null");
         messageTable.put("missingWorldWindow", "The WorldWindow is null");
+        messageTable.put("missingWriter", "The writer is null");
         messageTable.put("singularMatrix", "The matrix cannot be inverted");
     }
 
@@ -56,6 +56,29 @@ public class LruMemoryCache<K, V> {
         return this.capacity;
     }
 
+    /**
+     * Sets the cache's capacity, scaling its low-water value by the same factor. When the cache's used capacity exceeds
+     * the new capacity, entries are evicted in least recently used order until the used capacity reaches the low-water
+     * value.
+     *
+     * @param capacity the cache's capacity
+     *
+     * @throws IllegalArgumentException If the capacity is less than 1
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "LruMemoryCache", "setCapacity", "invalidCapacity"));
+        }
+
+        this.lowWater = (int) ((long) this.lowWater * capacity / this.capacity);
+        this.capacity = capacity;
+
+        if (this.usedCapacity > this.capacity) {
+            this.makeSpace(0);
+        }
+    }
+
     public int getUsedCapacity() {
         return this.usedCapacity;
     }
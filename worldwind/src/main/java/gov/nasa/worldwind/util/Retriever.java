@@ -111,12 +111,16 @@ public abstract class Retriever<K, O, V> {
 
         @Override
         public void run() {
+            // Trace the key's string representation, so that the tracer doesn't retain the key after the retrieval.
+            String traceName = WorldWind.tracer().isEnabled() ? String.valueOf(this.key) : null;
+            WorldWind.tracer().begin(Tracer.RETRIEVAL, traceName);
             try {
                 this.retriever.retrieveAsync(this.key, this.options, this.callback);
             } catch (Throwable ex) {
                 this.callback.retrievalFailed(this.retriever, this.key, ex);
             } finally {
                 this.retriever.recycleAsyncTask(this);
+                WorldWind.tracer().end(Tracer.RETRIEVAL, traceName);
             }
         }
     }
@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.util.Arrays;
+
+import gov.nasa.worldwind.geom.Sector;
+
+/**
+ * Grid of geographic cells that indexes a batch of sectors for repeated intersection queries. Sectors are added to the
+ * grid, the grid is built once, then each query visits only the cells intersecting the query sector. The grid covers
+ * the union of the added sectors with about one cell per sector. Cells store their sectors in primitive arrays, so a
+ * grid may be cleared and rebuilt every frame without allocating once its arrays have grown to the number of sectors.
+ * <p/>
+ * Sectors are identified by the order in which they are added, and queries return matching sectors in that order.
+ * Sector comparisons include the sector boundaries, matching {@link Sector#intersectsOrNextTo(Sector)}. Sectors
+ * spanning many cells are kept in a separate list that every query tests, bounding the grid's size when a batch
+ * includes a few very large sectors.
+ */
+public class SectorGrid {
+
+    protected static final int MAX_CELLS = 4096;
+
+    protected static final int MAX_ITEM_CELLS = 16;
+
+    protected double[] itemBounds = new double[64];
+
+    protected int itemCount;
+
+    protected double minLatitude;
+
+    protected double minLongitude;
+
+    protected double maxLatitude;
+
+    protected double maxLongitude;
+
+    protected double rowsPerDegree;
+
+    protected double columnsPerDegree;
+
+    protected int columns;
+
+    protected int rows;
+
+    protected int[] cellStart = new int[1];
+
+    protected int[] cellItems = new int[16];
+
+    protected int[] largeItems = new int[16];
+
+    protected int largeItemCount;
+
+    protected int[] itemMarks = new int[16];
+
+    protected int queryMark;
+
+    protected int[] results = new int[16];
+
+    protected int resultCount;
+
+    private int[] scratchRange = new int[4];
+
+    public SectorGrid() {
+    }
+
+    /**
+     * Removes all sectors from this grid.
+     */
+    public void clear() {
+        this.itemCount = 0;
+        this.columns = 0;
+        this.rows = 0;
+        this.largeItemCount = 0;
+        this.resultCount = 0;
+    }
+
+    /**
+     * Returns the number of sectors added to this grid since it was last cleared.
+     *
+     * @return the sector count
+     */
+    public int getItemCount() {
+        return this.itemCount;
+    }
+
+    /**
+     * Adds a sector to this grid. The grid must be built before the sector is included in query results. Empty sectors
+     * with undefined bounds are never included in query results.
+     *
+     * @param sector the sector to add
+     *
+     * @return the sector's identifier, which is the number of sectors added before it
+     *
+     * @throws IllegalArgumentException If the sector is null
+     */
+    public int add(Sector sector) {
+        if (sector == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SectorGrid", "add", "missingSector"));
+        }
+
+        int item = this.itemCount++;
+        if (item * 4 == this.itemBounds.length) {
+            this.itemBounds = Arrays.copyOf(this.itemBounds, item * 8);
+        }
+
+        this.itemBounds[item * 4] = sector.minLatitude();
+        this.itemBounds[item * 4 + 1] = sector.minLongitude();
+        this.itemBounds[item * 4 + 2] = sector.maxLatitude();
+        this.itemBounds[item * 4 + 3] = sector.maxLongitude();
+
+        return item;
+    }
+
+    /**
+     * Assigns the sectors added since this grid was last cleared to the grid's cells. This must be called after adding
+     * sectors and before querying the grid.
+     */
+    public void build() {
+        this.columns = 0;
+        this.rows = 0;
+        this.largeItemCount = 0;
+
+        // Compute the union of the sectors' bounds. Comparisons with NaN are always false, so sectors with undefined
+        // bounds are excluded.
+        double minLat = Double.POSITIVE_INFINITY, minLon = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+        int validCount = 0;
+        for (int item = 0; item < this.itemCount; item++) {
+            if (this.isValidItem(item)) {
+                minLat = Math.min(minLat, this.itemBounds[item * 4]);
+                minLon = Math.min(minLon, this.itemBounds[item * 4 + 1]);
+                maxLat = Math.max(maxLat, this.itemBounds[item * 4 + 2]);
+                maxLon = Math.max(maxLon, this.itemBounds[item * 4 + 3]);
+                validCount++;
+            }
+        }
+
+        if (validCount == 0) {
+            return; // no sectors to index
+        }
+
+        // Choose cells with about the region's aspect ratio, with about one cell per sector.
+        double deltaLat = maxLat - minLat, deltaLon = maxLon - minLon;
+        int cellCount = Math.min(validCount, MAX_CELLS);
+        int columns, rows;
+        if (deltaLat > 0 && deltaLon > 0) {
+            columns = (int) WWMath.clamp(Math.sqrt(cellCount * deltaLon / deltaLat), 1, cellCount);
+            rows = Math.max(1, cellCount / columns);
+        } else if (deltaLon > 0) {
+            columns = cellCount;
+            rows = 1;
+        } else if (deltaLat > 0) {
+            columns = 1;
+            rows = cellCount;
+        } else {
+            columns = 1;
+            rows = 1;
+        }
+
+        this.minLatitude = minLat;
+        this.minLongitude = minLon;
+        this.maxLatitude = maxLat;
+        this.maxLongitude = maxLon;
+        this.rowsPerDegree = (deltaLat > 0) ? rows / deltaLat : 0;
+        this.columnsPerDegree = (deltaLon > 0) ? columns / deltaLon : 0;
+        this.columns = columns;
+        this.rows = rows;
+
+        // Count the sectors in each cell, storing the counts one cell ahead of the cell start indices computed below.
+        int gridCount = columns * rows;
+        if (this.cellStart.length < gridCount + 1) {
+            this.cellStart = new int[gridCount + 1];
+        }
+        Arrays.fill(this.cellStart, 0, gridCount + 1, 0);
+
+        int[] range = this.scratchRange;
+        int cellItemCount = 0;
+        for (int item = 0; item < this.itemCount; item++) {
+            if (!this.isValidItem(item)) {
+                continue;
+            }
+
+            this.cellRange(this.itemBounds[item * 4], this.itemBounds[item * 4 + 1],
+                this.itemBounds[item * 4 + 2], this.itemBounds[item * 4 + 3], range);
+            int itemCells = (range[2] - range[0] + 1) * (range[3] - range[1] + 1);
+            if (itemCells > MAX_ITEM_CELLS) {
+                if (this.largeItemCount == this.largeItems.length) {
+                    this.largeItems = Arrays.copyOf(this.largeItems, this.largeItemCount * 2);
+                }
+                this.largeItems[this.largeItemCount++] = item;
+                continue;
+            }
+
+            for (int row = range[0]; row <= range[2]; row++) {
+                for (int col = range[1]; col <= range[3]; col++) {
+                    this.cellStart[row * columns + col + 1]++;
+                }
+            }
+
+            cellItemCount += itemCells;
+        }
+
+        // Convert the counts to the index of each cell's first sector.
+        for (int cell = 0; cell < gridCount; cell++) {
+            this.cellStart[cell + 1] += this.cellStart[cell];
+        }
+
+        // Store each cell's sectors in the order they were added. The cell start indices are advanced as each cell is
+        // filled, then shifted back to their original values.
+        if (this.cellItems.length < cellItemCount) {
+            this.cellItems = new int[cellItemCount];
+        }
+
+        for (int item = 0; item < this.itemCount; item++) {
+            if (!this.isValidItem(item)) {
+                continue;
+            }
+
+            this.cellRange(this.itemBounds[item * 4], this.itemBounds[item * 4 + 1],
+                this.itemBounds[item * 4 + 2], this.itemBounds[item * 4 + 3], range);
+            if ((range[2] - range[0] + 1) * (range[3] - range[1] + 1) > MAX_ITEM_CELLS) {
+                continue;
+            }
+
+            for (int row = range[0]; row <= range[2]; row++) {
+                for (int col = range[1]; col <= range[3]; col++) {
+                    this.cellItems[this.cellStart[row * columns + col]++] = item;
+                }
+            }
+        }
+
+        System.arraycopy(this.cellStart, 0, this.cellStart, 1, gridCount);
+        this.cellStart[0] = 0;
+
+        if (this.itemMarks.length < this.itemCount) {
+            this.itemMarks = new int[this.itemBounds.length / 4];
+            this.queryMark = 0;
+        }
+    }
+
+    /**
+     * Finds the sectors in this grid that intersect or are next to a specified sector. The results are available from
+     * getResult until the next query, in the order the sectors were added.
+     *
+     * @param sector the sector to query
+     *
+     * @return the number of sectors intersecting the query sector
+     *
+     * @throws IllegalArgumentException If the sector is null
+     */
+    public int query(Sector sector) {
+        if (sector == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SectorGrid", "query", "missingSector"));
+        }
+
+        this.resultCount = 0;
+
+        double minLat = sector.minLatitude(), minLon = sector.minLongitude();
+        double maxLat = sector.maxLatitude(), maxLon = sector.maxLongitude();
+        if (this.columns == 0 || !(minLat <= this.maxLatitude && maxLat >= this.minLatitude &&
+            minLon <= this.maxLongitude && maxLon >= this.minLongitude)) {
+            return 0; // the grid is empty, or the query sector is outside the grid or undefined
+        }
+
+        // Mark each sector as it's tested, so that sectors spanning more than one cell are tested once.
+        if (++this.queryMark == 0) {
+            Arrays.fill(this.itemMarks, 0);
+            this.queryMark = 1;
+        }
+
+        int[] range = this.scratchRange;
+        this.cellRange(minLat, minLon, maxLat, maxLon, range);
+        for (int row = range[0]; row <= range[2]; row++) {
+            for (int col = range[1]; col <= range[3]; col++) {
+                int cell = row * this.columns + col;
+                for (int idx = this.cellStart[cell], end = this.cellStart[cell + 1]; idx < end; idx++) {
+                    int item = this.cellItems[idx];
+                    if (this.itemMarks[item] != this.queryMark) {
+                        this.itemMarks[item] = this.queryMark;
+                        this.testItem(item, minLat, minLon, maxLat, maxLon);
+                    }
+                }
+            }
+        }
+
+        for (int idx = 0; idx < this.largeItemCount; idx++) {
+            this.testItem(this.largeItems[idx], minLat, minLon, maxLat, maxLon);
+        }
+
+        // Return the results in the order the sectors were added.
+        Arrays.sort(this.results, 0, this.resultCount);
+
+        return this.resultCount;
+    }
+
+    /**
+     * Returns a sector found by the most recent query.
+     *
+     * @param index the result's index, less than the count returned by the query
+     *
+     * @return the identifier of the sector at the specified index in the query results
+     */
+    public int getResult(int index) {
+        return this.results[index];
+    }
+
+    protected boolean isValidItem(int item) {
+        double[] bounds = this.itemBounds;
+        return bounds[item * 4] <= bounds[item * 4 + 2] && bounds[item * 4 + 1] <= bounds[item * 4 + 3];
+    }
+
+    protected void testItem(int item, double minLat, double minLon, double maxLat, double maxLon) {
+        double[] bounds = this.itemBounds;
+        if (bounds[item * 4] <= maxLat && bounds[item * 4 + 2] >= minLat &&
+            bounds[item * 4 + 1] <= maxLon && bounds[item * 4 + 3] >= minLon) {
+            if (this.resultCount == this.results.length) {
+                this.results = Arrays.copyOf(this.results, this.resultCount * 2);
+            }
+            this.results[this.resultCount++] = item;
+        }
+    }
+
+    /**
+     * Computes the range of cells intersecting a sector, clamped to the grid, as the minimum row, minimum column,
+     * maximum row and maximum column.
+     */
+    protected void cellRange(double minLat, double minLon, double maxLat, double maxLon, int[] result) {
+        result[0] = this.cellRow(minLat);
+        result[1] = this.cellColumn(minLon);
+        result[2] = this.cellRow(maxLat);
+        result[3] = this.cellColumn(maxLon);
+    }
+
+    protected int cellRow(double latitude) {
+        int row = (int) ((latitude - this.minLatitude) * this.rowsPerDegree);
+        return (row < 0) ? 0 : (row >= this.rows ? this.rows - 1 : row);
+    }
+
+    protected int cellColumn(double longitude) {
+        int col = (int) ((longitude - this.minLongitude) * this.columnsPerDegree);
+        return (col < 0) ? 0 : (col >= this.columns ? this.columns - 1 : col);
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gov.nasa.worldwind.geom.BoundingBox;
+import gov.nasa.worldwind.geom.Frustum;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.globe.Globe;
+
+/**
+ * Quadtree of objects indexed by their geographic sector. Each object is stored in the deepest node whose sector fully
+ * contains the object's sector, and nodes split into four children once they hold more than a fixed number of objects.
+ * Adding, moving and removing an object takes time proportional to the depth of the tree, and a query visits only the
+ * nodes intersecting the query sector or query frustum.
+ * <p/>
+ * Objects are identified by reference; each object appears in the tree at most once. A point object is indexed by a
+ * sector containing a single location, such as a sector constructed with zero width and height or an empty sector
+ * unioned with one location. Sector comparisons include the sector boundaries, so a point on the boundary of a query
+ * sector is included in the query results.
+ *
+ * @param <T> the type of objects in the tree
+ */
+public class SectorTree<T> {
+
+    protected static final int NODE_CAPACITY = 16;
+
+    protected static final int MAX_DEPTH = 20;
+
+    protected Node<T> root = new Node<>(null, -90, -180, 90, 180, 0);
+
+    protected Map<T, Entry<T>> entries = new IdentityHashMap<>();
+
+    protected Sector scratchSector = new Sector();
+
+    public SectorTree() {
+    }
+
+    /**
+     * Returns the number of objects in this tree.
+     *
+     * @return the object count
+     */
+    public int count() {
+        return this.entries.size();
+    }
+
+    public boolean contains(T object) {
+        return this.entries.containsKey(object);
+    }
+
+    /**
+     * Adds an object to this tree with a specified sector, or moves the object to the specified sector if it's already
+     * in this tree.
+     *
+     * @param object the object to add or move
+     * @param sector the object's geographic sector
+     *
+     * @throws IllegalArgumentException If either argument is null
+     */
+    public void put(T object, Sector sector) {
+        if (object == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SectorTree", "put", "missingObject"));
+        }
+
+        if (sector == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SectorTree", "put", "missingSector"));
+        }
+
+        Entry<T> entry = this.entries.get(object);
+        if (entry == null) {
+            entry = new Entry<>(object);
+            this.entries.put(object, entry);
+        } else {
+            entry.node.remove(entry);
+        }
+
+        // A sector containing a single location has a NaN maximum latitude and longitude.
+        entry.minLatitude = sector.minLatitude();
+        entry.minLongitude = sector.minLongitude();
+        entry.maxLatitude = Double.isNaN(sector.maxLatitude()) ? entry.minLatitude : sector.maxLatitude();
+        entry.maxLongitude = Double.isNaN(sector.maxLongitude()) ? entry.minLongitude : sector.maxLongitude();
+        this.insert(entry);
+    }
+
+    /**
+     * Removes an object from this tree.
+     *
+     * @param object the object to remove
+     *
+     * @return true if the object was in this tree, otherwise false
+     */
+    public boolean remove(T object) {
+        Entry<T> entry = this.entries.remove(object);
+        if (entry == null) {
+            return false;
+        }
+
+        entry.node.remove(entry);
+        return true;
+    }
+
+    public void clear() {
+        this.root = new Node<>(null, -90, -180, 90, 180, 0);
+        this.entries.clear();
+    }
+
+    /**
+     * Appends the objects whose sector intersects a specified sector to a result list. Objects are appended in no
+     * particular order.
+     *
+     * @param sector the sector to query
+     * @param result a pre-allocated list in which to append the objects
+     *
+     * @return the result argument, with the intersecting objects appended
+     *
+     * @throws IllegalArgumentException If either argument is null
+     */
+    public List<T> query(Sector sector, List<T> result) {
+        if (sector == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SectorTree", "query", "missingSector"));
+        }
+
+        if (result == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SectorTree", "query", "missingResult"));
+        }
+
+        if (!sector.isEmpty()) {
+            this.query(this.root, sector.minLatitude(), sector.minLongitude(), sector.maxLatitude(), sector.maxLongitude(), result);
+        }
+
+        return result;
+    }
+
+    protected void query(Node<T> node, double minLat, double minLon, double maxLat, double maxLon, List<T> result) {
+        if (node.count == 0 || !node.intersects(minLat, minLon, maxLat, maxLon)) {
+            return; // the node and its descendants are empty or outside the query sector
+        }
+
+        if (node.isContainedBy(minLat, minLon, maxLat, maxLon)) {
+            this.collect(node, result); // the node and its descendants are entirely inside the query sector
+            return;
+        }
+
+        for (int idx = 0, len = node.entries.size(); idx < len; idx++) {
+            Entry<T> entry = node.entries.get(idx);
+            if (entry.intersects(minLat, minLon, maxLat, maxLon)) {
+                result.add(entry.object);
+            }
+        }
+
+        if (node.children != null) {
+            for (Node<T> child : node.children) {
+                this.query(child, minLat, minLon, maxLat, maxLon, result);
+            }
+        }
+    }
+
+    /**
+     * Appends the objects in the nodes intersecting a specified frustum to a result list. Each node is bounded by a box
+     * spanning the node's sector between the specified minimum and maximum heights, so the result may include objects
+     * outside the frustum that share a node with objects inside it. Objects are appended in no particular order.
+     * <p/>
+     * Node bounding boxes are computed on first use and retained until the globe or the height range changes.
+     *
+     * @param frustum   the frustum to query, in Cartesian coordinates
+     * @param globe     the globe used to compute node bounding boxes
+     * @param minHeight the minimum height of objects in the tree, in meters
+     * @param maxHeight the maximum height of objects in the tree, in meters
+     * @param result    a pre-allocated list in which to append the objects
+     *
+     * @return the result argument, with the intersecting objects appended
+     *
+     * @throws IllegalArgumentException If any argument is null
+     */
+    public List<T> query(Frustum frustum, Globe globe, float minHeight, float maxHeight, List<T> result) {
+        if (frustum == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SectorTree", "query", "missingFrustum"));
+        }
+
+        if (globe == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SectorTree", "query", "missingGlobe"));
+        }
+
+        if (result == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SectorTree", "query", "missingResult"));
+        }
+
+        this.query(this.root, frustum, globe, minHeight, maxHeight, result);
+
+        return result;
+    }
+
+    protected void query(Node<T> node, Frustum frustum, Globe globe, float minHeight, float maxHeight, List<T> result) {
+        if (node.count == 0) {
+            return; // the node and its descendants are empty
+        }
+
+        // Bounding boxes poorly fit the sectors of the root node and its children, which span more than a hemisphere.
+        if (node.depth >= 2 && !this.nodeExtent(node, globe, minHeight, maxHeight).intersectsFrustum(frustum)) {
+            return; // the node and its descendants are outside the frustum
+        }
+
+        for (int idx = 0, len = node.entries.size(); idx < len; idx++) {
+            result.add(node.entries.get(idx).object);
+        }
+
+        if (node.children != null) {
+            for (Node<T> child : node.children) {
+                this.query(child, frustum, globe, minHeight, maxHeight, result);
+            }
+        }
+    }
+
+    protected BoundingBox nodeExtent(Node<T> node, Globe globe, float minHeight, float maxHeight) {
+        if (node.extent == null) {
+            node.extent = new BoundingBox();
+        } else if (node.extentGlobe == globe && node.extentMinHeight == minHeight && node.extentMaxHeight == maxHeight) {
+            return node.extent;
+        }
+
+        this.scratchSector.set(node.minLatitude, node.minLongitude,
+            node.maxLatitude - node.minLatitude, node.maxLongitude - node.minLongitude);
+        node.extent.setToSector(this.scratchSector, globe, minHeight, maxHeight);
+        node.extentGlobe = globe;
+        node.extentMinHeight = minHeight;
+        node.extentMaxHeight = maxHeight;
+
+        return node.extent;
+    }
+
+    protected void collect(Node<T> node, List<T> result) {
+        for (int idx = 0, len = node.entries.size(); idx < len; idx++) {
+            result.add(node.entries.get(idx).object);
+        }
+
+        if (node.children != null) {
+            for (Node<T> child : node.children) {
+                if (child.count > 0) {
+                    this.collect(child, result);
+                }
+            }
+        }
+    }
+
+    protected void insert(Entry<T> entry) {
+        Node<T> node = this.root;
+        Node<T> child;
+        while (node.children != null && (child = node.childContaining(entry)) != null) {
+            node = child;
+        }
+
+        node.add(entry);
+
+        if (node.children == null && node.entries.size() > NODE_CAPACITY && node.depth < MAX_DEPTH) {
+            this.split(node);
+        }
+    }
+
+    protected void split(Node<T> node) {
+        double midLat = (node.minLatitude + node.maxLatitude) * 0.5;
+        double midLon = (node.minLongitude + node.maxLongitude) * 0.5;
+        int depth = node.depth + 1;
+
+        @SuppressWarnings("unchecked")
+        Node<T>[] children = new Node[4];
+        children[0] = new Node<>(node, node.minLatitude, node.minLongitude, midLat, midLon, depth);
+        children[1] = new Node<>(node, node.minLatitude, midLon, midLat, node.maxLongitude, depth);
+        children[2] = new Node<>(node, midLat, node.minLongitude, node.maxLatitude, midLon, depth);
+        children[3] = new Node<>(node, midLat, midLon, node.maxLatitude, node.maxLongitude, depth);
+        node.children = children;
+
+        // Move the entries that fit entirely within a child node to that child. Entries spanning more than one child
+        // remain in this node.
+        ArrayList<Entry<T>> entries = node.entries;
+        node.entries = new ArrayList<>();
+        for (int idx = 0, len = entries.size(); idx < len; idx++) {
+            Entry<T> entry = entries.get(idx);
+            Node<T> child = node.childContaining(entry);
+            Node<T> target = (child != null) ? child : node;
+            entry.node = target;
+            entry.index = target.entries.size();
+            target.entries.add(entry);
+            if (child != null) {
+                child.count++; // this node's count is unchanged; the entry remains in its subtree
+            }
+        }
+
+        for (Node<T> child : children) {
+            if (child.entries.size() > NODE_CAPACITY && child.depth < MAX_DEPTH) {
+                this.split(child);
+            }
+        }
+    }
+
+    protected static class Node<T> {
+
+        public final Node<T> parent;
+
+        public final double minLatitude;
+
+        public final double minLongitude;
+
+        public final double maxLatitude;
+
+        public final double maxLongitude;
+
+        public final int depth;
+
+        public Node<T>[] children;
+
+        public ArrayList<Entry<T>> entries = new ArrayList<>();
+
+        public int count; // the number of entries in this node and its descendants
+
+        public BoundingBox extent;
+
+        public Globe extentGlobe;
+
+        public float extentMinHeight;
+
+        public float extentMaxHeight;
+
+        public Node(Node<T> parent, double minLatitude, double minLongitude, double maxLatitude, double maxLongitude, int depth) {
+            this.parent = parent;
+            this.minLatitude = minLatitude;
+            this.minLongitude = minLongitude;
+            this.maxLatitude = maxLatitude;
+            this.maxLongitude = maxLongitude;
+            this.depth = depth;
+        }
+
+        public void add(Entry<T> entry) {
+            entry.node = this;
+            entry.index = this.entries.size();
+            this.entries.add(entry);
+
+            for (Node<T> node = this; node != null; node = node.parent) {
+                node.count++;
+            }
+        }
+
+        public void remove(Entry<T> entry) {
+            // Swap the last entry into the removed entry's slot to avoid shifting the remaining entries.
+            int lastIndex = this.entries.size() - 1;
+            Entry<T> last = this.entries.remove(lastIndex);
+            if (last != entry) {
+                last.index = entry.index;
+                this.entries.set(entry.index, last);
+            }
+
+            entry.node = null;
+
+            for (Node<T> node = this; node != null; node = node.parent) {
+                node.count--;
+            }
+        }
+
+        public Node<T> childContaining(Entry<T> entry) {
+            for (Node<T> child : this.children) {
+                if (child.minLatitude <= entry.minLatitude && entry.maxLatitude <= child.maxLatitude &&
+                    child.minLongitude <= entry.minLongitude && entry.maxLongitude <= child.maxLongitude) {
+                    return child;
+                }
+            }
+
+            return null;
+        }
+
+        public boolean intersects(double minLat, double minLon, double maxLat, double maxLon) {
+            return this.minLatitude <= maxLat && minLat <= this.maxLatitude &&
+                this.minLongitude <= maxLon && minLon <= this.maxLongitude;
+        }
+
+        public boolean isContainedBy(double minLat, double minLon, double maxLat, double maxLon) {
+            return minLat <= this.minLatitude && this.maxLatitude <= maxLat &&
+                minLon <= this.minLongitude && this.maxLongitude <= maxLon;
+        }
+    }
+
+    protected static class Entry<T> {
+
+        public final T object;
+
+        public Node<T> node;
+
+        public int index;
+
+        public double minLatitude;
+
+        public double minLongitude;
+
+        public double maxLatitude;
+
+        public double maxLongitude;
+
+        public Entry(T object) {
+            this.object = object;
+        }
+
+        public boolean intersects(double minLat, double minLon, double maxLat, double maxLon) {
+            return this.minLatitude <= maxLat && minLat <= this.maxLatitude &&
+                this.minLongitude <= maxLon && minLon <= this.maxLongitude;
+        }
+    }
+}
@@ -24,6 +24,13 @@ public class SynchronizedMemoryCache<K, V> extends LruMemoryCache<K, V> {
         }
     }
 
+    @Override
+    public void setCapacity(int capacity) {
+        synchronized (this.lock) {
+            super.setCapacity(capacity);
+        }
+    }
+
     @Override
     public int getUsedCapacity() {
         synchronized (this.lock) {
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records a timeline of begin, end and instant events in a fixed size ring buffer, and exports the timeline in the
+ * Chrome trace event format for inspection in chrome://tracing or Perfetto.
+ * <p/>
+ * Tracing is disabled by default. When disabled, recording an event costs a single field read. When enabled, recording
+ * an event writes a few array elements, and allocates nothing when the event's name is a string, so tracing may be left
+ * enabled in field builds. Once the buffer is full, new events overwrite the oldest events. Event names are converted
+ * to strings and threads are recorded by id and name when the event is recorded, so the buffer retains neither the
+ * objects naming events nor the threads that recorded them.
+ * <p/>
+ * WorldWind records frame rendering and drawing, terrain tessellation, layer rendering, retrieval tasks, texture
+ * uploads and render resource cache evictions in the singleton tracer returned by {@link
+ * gov.nasa.worldwind.WorldWind#tracer()}. Applications may record their own events in the same tracer.
+ */
+public class Tracer {
+
+    /**
+     * Category of events marking WorldWindow frame rendering and drawing.
+     */
+    public static final String FRAME = "frame";
+
+    /**
+     * Category of events marking layer rendering.
+     */
+    public static final String LAYER = "layer";
+
+    /**
+     * Category of events marking asynchronous retrieval tasks.
+     */
+    public static final String RETRIEVAL = "retrieval";
+
+    /**
+     * Category of events marking OpenGL texture uploads.
+     */
+    public static final String TEXTURE = "texture";
+
+    /**
+     * Category of events marking render resource cache activity.
+     */
+    public static final String CACHE = "cache";
+
+    protected static final int DEFAULT_CAPACITY = 8192;
+
+    protected static final char PHASE_BEGIN = 'B';
+
+    protected static final char PHASE_END = 'E';
+
+    protected static final char PHASE_INSTANT = 'i';
+
+    protected volatile boolean enabled;
+
+    protected long[] timestamps;
+
+    protected char[] phases;
+
+    protected String[] categories;
+
+    protected String[] names;
+
+    protected long[] threadIds;
+
+    protected String[] threadNames;
+
+    protected int head;
+
+    protected int size;
+
+    public Tracer() {
+        this.allocate(DEFAULT_CAPACITY);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public synchronized int getCapacity() {
+        return this.timestamps.length;
+    }
+
+    /**
+     * Sets the maximum number of events retained by this tracer. This discards all recorded events.
+     *
+     * @param capacity the number of events, at least 1
+     */
+    public synchronized void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Tracer", "setCapacity", "invalidCapacity"));
+        }
+
+        this.allocate(capacity);
+    }
+
+    /**
+     * Returns the number of events currently retained by this tracer.
+     *
+     * @return the number of retained events
+     */
+    public synchronized int getEventCount() {
+        return this.size;
+    }
+
+    /**
+     * Discards all recorded events.
+     */
+    public synchronized void clear() {
+        for (int idx = 0; idx < this.names.length; idx++) {
+            this.names[idx] = null;
+            this.threadNames[idx] = null;
+        }
+
+        this.head = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Records the beginning of an event on the current thread. Each call must be followed by a call to end on the same
+     * thread.
+     *
+     * @param category the event's category, such as one of the category constants
+     * @param name     the event's name; converted to a string when the event is recorded
+     */
+    public void begin(String category, Object name) {
+        if (this.enabled) {
+            this.record(PHASE_BEGIN, category, name);
+        }
+    }
+
+    /**
+     * Records the end of the event most recently begun on the current thread.
+     *
+     * @param category the event's category, such as one of the category constants
+     * @param name     the event's name; converted to a string when the event is recorded
+     */
+    public void end(String category, Object name) {
+        if (this.enabled) {
+            this.record(PHASE_END, category, name);
+        }
+    }
+
+    /**
+     * Records an event with no duration on the current thread.
+     *
+     * @param category the event's category, such as one of the category constants
+     * @param name     the event's name; converted to a string when the event is recorded
+     */
+    public void instant(String category, Object name) {
+        if (this.enabled) {
+            this.record(PHASE_INSTANT, category, name);
+        }
+    }
+
+    /**
+     * Writes the recorded events to a file in the Chrome trace event JSON format.
+     *
+     * @param file the file to write
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTrace(File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Tracer", "writeTrace", "missingFile"));
+        }
+
+        Writer writer = new BufferedWriter(new FileWriter(file));
+        try {
+            this.writeTrace(writer);
+        } finally {
+            WWUtil.closeSilently(writer);
+        }
+    }
+
+    /**
+     * Writes the recorded events in the Chrome trace event JSON format. The events are copied before writing, so
+     * recording may continue on other threads while the trace is written.
+     *
+     * @param writer the writer to write to
+     *
+     * @throws IOException if an error occurs while writing
+     */
+    public void writeTrace(Writer writer) throws IOException {
+        if (writer == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Tracer", "writeTrace", "missingWriter"));
+        }
+
+        long[] timestamps;
+        char[] phases;
+        String[] categories;
+        String[] names;
+        long[] threadIds;
+        String[] threadNames;
+        int count;
+
+        // Copy the events in chronological order while holding the lock, then format them without the lock.
+        synchronized (this) {
+            count = this.size;
+            timestamps = new long[count];
+            phases = new char[count];
+            categories = new String[count];
+            names = new String[count];
+            threadIds = new long[count];
+            threadNames = new String[count];
+            int capacity = this.timestamps.length;
+            int first = (this.head - count + capacity) % capacity;
+            for (int idx = 0; idx < count; idx++) {
+                int src = (first + idx) % capacity;
+                timestamps[idx] = this.timestamps[src];
+                phases[idx] = this.phases[src];
+                categories[idx] = this.categories[src];
+                names[idx] = this.names[src];
+                threadIds[idx] = this.threadIds[src];
+                threadNames[idx] = this.threadNames[src];
+            }
+        }
+
+        long baseTime = (count > 0) ? timestamps[0] : 0;
+        Map<Long, int[]> threadDepth = new HashMap<>();
+        boolean first = true;
+
+        writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+
+        for (int idx = 0; idx < count; idx++) {
+            // Track the nesting depth on each thread, and skip end events whose begin event has been overwritten.
+            int[] depth = threadDepth.get(threadIds[idx]);
+            if (depth == null) {
+                threadDepth.put(threadIds[idx], depth = new int[1]);
+                first = this.writeThreadName(writer, threadIds[idx], threadNames[idx], first);
+            }
+
+            if (phases[idx] == PHASE_BEGIN) {
+                depth[0]++;
+            } else if (phases[idx] == PHASE_END) {
+                if (depth[0] == 0) {
+                    continue;
+                }
+                depth[0]--;
+            }
+
+            writer.write(first ? "\n" : ",\n");
+            first = false;
+            writer.write("{\"name\":");
+            this.writeString(writer, names[idx]);
+            writer.write(",\"cat\":");
+            this.writeString(writer, categories[idx]);
+            writer.write(",\"ph\":\"");
+            writer.write(phases[idx]);
+            writer.write("\",\"ts\":");
+            writer.write(String.format(Locale.US, "%.3f", (timestamps[idx] - baseTime) / 1.0e3));
+            writer.write(",\"pid\":1,\"tid\":");
+            writer.write(Long.toString(threadIds[idx]));
+            if (phases[idx] == PHASE_INSTANT) {
+                writer.write(",\"s\":\"t\"");
+            }
+            writer.write("}");
+        }
+
+        writer.write("\n]}\n");
+        writer.flush();
+    }
+
+    protected void allocate(int capacity) {
+        this.timestamps = new long[capacity];
+        this.phases = new char[capacity];
+        this.categories = new String[capacity];
+        this.names = new String[capacity];
+        this.threadIds = new long[capacity];
+        this.threadNames = new String[capacity];
+        this.head = 0;
+        this.size = 0;
+    }
+
+    protected void record(char phase, String category, Object name) {
+        long now = System.nanoTime();
+        String nameString = String.valueOf(name); // returns string names without allocating
+        Thread thread = Thread.currentThread();
+
+        synchronized (this) {
+            int idx = this.head;
+            this.timestamps[idx] = now;
+            this.phases[idx] = phase;
+            this.categories[idx] = category;
+            this.names[idx] = nameString;
+            this.threadIds[idx] = thread.getId();
+            this.threadNames[idx] = thread.getName();
+            this.head = (idx + 1) % this.timestamps.length;
+            if (this.size < this.timestamps.length) {
+                this.size++;
+            }
+        }
+    }
+
+    protected boolean writeThreadName(Writer writer, long threadId, String threadName, boolean first) throws IOException {
+        writer.write(first ? "\n" : ",\n");
+        writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":");
+        writer.write(Long.toString(threadId));
+        writer.write(",\"args\":{\"name\":");
+        this.writeString(writer, threadName);
+        writer.write("}}");
+        return false;
+    }
+
+    protected void writeString(Writer writer, String string) throws IOException {
+        writer.write('"');
+        for (int idx = 0, len = string.length(); idx < len; idx++) {
+            char c = string.charAt(idx);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
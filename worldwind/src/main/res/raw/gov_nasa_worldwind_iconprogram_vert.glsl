@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+uniform mat4 mvpMatrix;
+uniform mat3 texCoordMatrix;
+
+attribute vec4 vertexPoint;
+attribute vec2 vertexTexCoord;
+attribute vec4 vertexColor;
+
+varying vec2 texCoord;
+varying vec4 color;
+
+void main() {
+    /* Transform the vertex position by the modelview-projection matrix. */
+    gl_Position = mvpMatrix * vertexPoint;
+
+    /* Transform the vertex tex coord by the tex coord matrix. */
+    texCoord = (texCoordMatrix * vec3(vertexTexCoord, 1.0)).st;
+
+    /* Pass the vertex color, a premultiplied icon color or a pick color, to the fragment shader. */
+    color = vertexColor;
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+uniform mat4 mvpMatrix;
+
+attribute vec4 vertexPoint;
+attribute float pointSize;
+attribute vec4 vertexColor;
+
+varying vec4 color;
+
+void main() {
+    /* Transform the vertex position by the modelview-projection matrix. */
+    gl_Position = mvpMatrix * vertexPoint;
+
+    /* Draw the point as a screen-aligned square of the vertex point size. */
+    gl_PointSize = pointSize;
+
+    /* Premultiply the vertex color, a point color or an opaque pick color, and pass it to the fragment shader. */
+    color = vec4(vertexColor.rgb * vertexColor.a, vertexColor.a);
+}
\ No newline at end of file
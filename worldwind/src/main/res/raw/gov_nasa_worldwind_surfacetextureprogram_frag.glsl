@@ -11,30 +11,51 @@ precision mediump float;
 
 uniform bool enablePickMode;
 uniform bool enableTexture;
-uniform vec4 color;
-uniform sampler2D texSampler;
+uniform int texCount;
+uniform vec4 color[4];
+uniform sampler2D texSampler[4];
 
-varying vec2 texCoord;
-varying vec2 tileCoord;
+varying vec4 texCoord[4];
 
-void main() {
-    /* Using the second texture coordinate, compute a mask that's 1.0 when the fragment is inside the surface tile, and
-       0.0 otherwise. */
-    float sMask = step(0.0, tileCoord.s) * step(0.0, 1.0 - tileCoord.s);
-    float tMask = step(0.0, tileCoord.t) * step(0.0, 1.0 - tileCoord.t);
-    float tileMask = sMask * tMask;
+/* Using a surface texture's tile coordinate, compute a mask that's 1.0 when the fragment is inside the surface tile,
+   and 0.0 otherwise. */
+float tileMask(vec4 coord) {
+    float sMask = step(0.0, coord.p) * step(0.0, 1.0 - coord.p);
+    float tMask = step(0.0, coord.q) * step(0.0, 1.0 - coord.q);
+    return sMask * tMask;
+}
+
+/* Modulate a surface texture's RGBA color with the 2D texture's RGBA color, then modulate by the tile mask to suppress
+   fragments outside the surface tile. */
+vec4 surfaceColor(vec4 texColor, sampler2D textureSampler, vec4 coord) {
+    return texColor * texture2D(textureSampler, coord.st) * tileMask(coord);
+}
 
+void main() {
     if (enablePickMode && enableTexture) {
         /* Using the first texture coordinate, modulate the RGBA color with the 2D texture's Alpha component (rounded to
            0.0 or 1.0). Finally, modulate the result by the tile mask to suppress fragments outside the surface tile. */
-        float texMask = floor(texture2D(texSampler, texCoord).a + 0.5);
-        gl_FragColor = color * texMask * tileMask;
+        float texMask = floor(texture2D(texSampler[0], texCoord[0].st).a + 0.5);
+        gl_FragColor = color[0] * texMask * tileMask(texCoord[0]);
     } else if (!enablePickMode && enableTexture) {
-        /* Using the first texture coordinate, modulate the RGBA color with the 2D texture's RGBA color. Finally,
-           modulate by the tile mask to suppress fragments outside the surface tile. */
-        gl_FragColor = color * texture2D(texSampler, texCoord) * tileMask;
+        /* Composite each surface texture over the surface textures before it, in the same manner as the premultiplied
+           alpha blending used when each surface texture is drawn separately. */
+        vec4 result = surfaceColor(color[0], texSampler[0], texCoord[0]);
+        if (texCount > 1) {
+            vec4 src = surfaceColor(color[1], texSampler[1], texCoord[1]);
+            result = src + result * (1.0 - src.a);
+        }
+        if (texCount > 2) {
+            vec4 src = surfaceColor(color[2], texSampler[2], texCoord[2]);
+            result = src + result * (1.0 - src.a);
+        }
+        if (texCount > 3) {
+            vec4 src = surfaceColor(color[3], texSampler[3], texCoord[3]);
+            result = src + result * (1.0 - src.a);
+        }
+        gl_FragColor = result;
     } else {
         /* Modulate the RGBA color by the tile mask to suppress fragments outside the surface tile. */
-        gl_FragColor = color * tileMask;
+        gl_FragColor = color[0] * tileMask(texCoord[0]);
     }
 }
\ No newline at end of file
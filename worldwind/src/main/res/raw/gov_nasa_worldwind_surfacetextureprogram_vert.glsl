@@ -5,22 +5,24 @@
 
 uniform bool enableTexture;
 uniform mat4 mvpMatrix;
-uniform mat3 texCoordMatrix[2];
+uniform mat3 texCoordMatrix[8];
 
 attribute vec4 vertexPoint;
 attribute vec2 vertexTexCoord;
 
-varying vec2 texCoord;
-varying vec2 tileCoord;
+varying vec4 texCoord[4];
 
 void main() {
     /* Transform the vertex position by the modelview-projection matrix. */
     gl_Position = mvpMatrix * vertexPoint;
 
-    /* Transform the vertex tex coord by the tex coord matrices. */
+    /* Transform the vertex tex coord by each surface texture's pair of tex coord matrices. The first matrix computes
+       the texture coordinate in the ST components, and the second computes the tile coordinate in the PQ components. */
     if (enableTexture) {
         vec3 texCoord3 = vec3(vertexTexCoord, 1.0);
-        texCoord = (texCoordMatrix[0] * texCoord3).st;
-        tileCoord = (texCoordMatrix[1] * texCoord3).st;
+        texCoord[0] = vec4((texCoordMatrix[0] * texCoord3).st, (texCoordMatrix[1] * texCoord3).st);
+        texCoord[1] = vec4((texCoordMatrix[2] * texCoord3).st, (texCoordMatrix[3] * texCoord3).st);
+        texCoord[2] = vec4((texCoordMatrix[4] * texCoord3).st, (texCoordMatrix[5] * texCoord3).st);
+        texCoord[3] = vec4((texCoordMatrix[6] * texCoord3).st, (texCoordMatrix[7] * texCoord3).st);
     }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.draw;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.*;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class SurfaceShapeTextureCacheTest {
+
+    private static final Sector SECTOR_A = new Sector(0, 0, 1, 1);
+
+    private static final Sector SECTOR_B = new Sector(0, 1, 1, 1);
+
+    private static final Sector SECTOR_C = new Sector(0, 2, 1, 1);
+
+    private DrawContext dc;
+
+    @Before
+    public void setUp() throws Exception {
+        // Mock all the static methods in Logger
+        PowerMockito.mockStatic(Logger.class);
+        this.dc = new DrawContext();
+    }
+
+    /**
+     * Returns a cache with room for the specified number of textures.
+     */
+    private static SurfaceShapeTextureCache newCache(int textureCount) {
+        SurfaceShapeTextureCache cache = new SurfaceShapeTextureCache(4, 1);
+        int textureByteCount = cache.obtainEntry(SECTOR_A, 0).texture.getByteCount();
+        cache.contextLost();
+        cache.setCapacity(textureByteCount * textureCount);
+        return cache;
+    }
+
+    @Test
+    public void testObtainEntry_SameSectorAndBatch() throws Exception {
+        SurfaceShapeTextureCache cache = newCache(2);
+
+        SurfaceShapeTextureCache.Entry entry = cache.obtainEntry(SECTOR_A, 0);
+
+        assertSame("same frame", entry, cache.obtainEntry(SECTOR_A, 0));
+        cache.endFrame(this.dc);
+        assertSame("next frame", entry, cache.obtainEntry(SECTOR_A, 0));
+        assertEquals("entry count", 1, cache.getEntryCount());
+    }
+
+    @Test
+    public void testObtainEntry_DistinctBatch() throws Exception {
+        SurfaceShapeTextureCache cache = newCache(2);
+
+        SurfaceShapeTextureCache.Entry first = cache.obtainEntry(SECTOR_A, 0);
+        SurfaceShapeTextureCache.Entry second = cache.obtainEntry(SECTOR_A, 1);
+
+        assertNotSame("batch", first, second);
+        assertEquals("entry count", 2, cache.getEntryCount());
+        assertEquals("used capacity", cache.getCapacity(), cache.getUsedCapacity());
+    }
+
+    @Test
+    public void testObtainEntry_FullInCurrentFrame() throws Exception {
+        SurfaceShapeTextureCache cache = newCache(2);
+
+        cache.obtainEntry(SECTOR_A, 0);
+        cache.obtainEntry(SECTOR_B, 0);
+
+        assertNull("full", cache.obtainEntry(SECTOR_C, 0));
+        assertEquals("entry count", 2, cache.getEntryCount());
+    }
+
+    @Test
+    public void testObtainEntry_ReassignsLeastRecentlyUsed() throws Exception {
+        SurfaceShapeTextureCache cache = newCache(2);
+        ArrayList<Object> contents = new ArrayList<>();
+        contents.add(new Object());
+
+        SurfaceShapeTextureCache.Entry entryA = cache.obtainEntry(SECTOR_A, 0);
+        entryA.setContents(contents, 1);
+        cache.endFrame(this.dc);
+        SurfaceShapeTextureCache.Entry entryB = cache.obtainEntry(SECTOR_B, 0);
+        cache.endFrame(this.dc);
+
+        SurfaceShapeTextureCache.Entry entryC = cache.obtainEntry(SECTOR_C, 0);
+
+        assertSame("least recently used", entryA, entryC);
+        assertFalse("contents cleared", entryC.hasContents(contents, 1));
+        assertSame("retained", entryB, cache.obtainEntry(SECTOR_B, 0));
+        assertNotSame("reassigned", entryA, cache.obtainEntry(SECTOR_A, 0));
+    }
+
+    @Test
+    public void testEndFrame_ReleasesStaleEntries() throws Exception {
+        SurfaceShapeTextureCache cache = newCache(2);
+        cache.setMaxAge(2);
+
+        cache.obtainEntry(SECTOR_A, 0);
+        cache.obtainEntry(SECTOR_B, 0);
+        cache.endFrame(this.dc);
+        cache.obtainEntry(SECTOR_B, 0);
+        cache.endFrame(this.dc);
+
+        assertEquals("undrawn for one frame", 2, cache.getEntryCount());
+
+        cache.obtainEntry(SECTOR_B, 0);
+        cache.endFrame(this.dc);
+
+        assertEquals("entry count", 1, cache.getEntryCount());
+        assertEquals("used capacity", cache.getCapacity() / 2, cache.getUsedCapacity());
+    }
+
+    @Test
+    public void testEndFrame_ReleasesEntriesOverCapacity() throws Exception {
+        SurfaceShapeTextureCache cache = newCache(2);
+
+        cache.obtainEntry(SECTOR_A, 0);
+        cache.obtainEntry(SECTOR_B, 0);
+        cache.setCapacity(cache.getCapacity() / 2);
+        cache.endFrame(this.dc);
+        cache.endFrame(this.dc);
+
+        assertEquals("entry count", 1, cache.getEntryCount());
+        assertTrue("used capacity", cache.getUsedCapacity() <= cache.getCapacity());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.globe;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.util.Tile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BasicTessellatorTest {
+
+    private Globe globe;
+
+    private TerrainTile tile;
+
+    @Before
+    public void setUp() throws Exception {
+        this.globe = new Globe(WorldWind.WGS84_ELLIPSOID, new ProjectionWgs84());
+
+        // A tile of about 1 km with 9x9 vertices, hilly terrain and a skirt reaching far below the terrain.
+        LevelSet levelSet = new LevelSet(new Sector().setFullSphere(), 0.01, 1, 9, 9);
+        this.tile = new TerrainTile(new Sector(10, 20, 0.01, 0.01), levelSet.firstLevel(), 0, 0);
+
+        int tileWidth = this.tile.level.tileWidth;
+        int tileHeight = this.tile.level.tileHeight;
+        float[] heights = new float[tileWidth * tileHeight];
+        for (int idx = 0; idx < heights.length; idx++) {
+            heights[idx] = 100 + 50 * (idx % 3);
+        }
+
+        int rowStride = (tileWidth + 2) * 3;
+        float[] points = new float[(tileWidth + 2) * (tileHeight + 2) * 3];
+        Vec3 origin = this.globe.geographicToCartesian(10.005, 20.005, 0, new Vec3());
+        this.globe.geographicToCartesianGrid(this.tile.sector, tileWidth, tileHeight, heights, 1, origin, points, rowStride + 3, rowStride);
+        this.globe.geographicToCartesianBorder(this.tile.sector, tileWidth + 2, tileHeight + 2, -Short.MAX_VALUE, origin, points);
+        this.tile.setOrigin(origin);
+        this.tile.setPoints(points);
+    }
+
+    @Test
+    public void testQuantizeTilePoints() throws Exception {
+        BasicTessellator tessellator = new BasicTessellator();
+        tessellator.quantizeTilePoints(this.tile);
+
+        short[] quantized = this.tile.getQuantizedPoints();
+        float[] points = this.tile.getPoints();
+        Vec3 offset = this.tile.getQuantizedOffset();
+        Vec3 scale = this.tile.getQuantizedScale();
+        int numLat = this.tile.level.tileHeight + 2;
+        int numLon = this.tile.level.tileWidth + 2;
+
+        assertNotNull("quantized points", quantized);
+        assertEquals("quantized length", points.length, quantized.length);
+        assertEquals("buffer byte count", points.length * 2, this.tile.getPointBufferByteCount());
+        assertTrue("precision", Math.max(scale.x, Math.max(scale.y, scale.z)) < 0.1);
+
+        Vec3 origin = this.tile.getOrigin();
+        Vec3 center = new Vec3(-origin.x, -origin.y, -origin.z); // the globe's center relative to the tile's origin
+        for (int row = 0, idx = 0; row < numLat; row++) {
+            for (int col = 0; col < numLon; col++, idx += 3) {
+                double x = offset.x + scale.x * (quantized[idx] & 0xFFFF);
+                double y = offset.y + scale.y * (quantized[idx + 1] & 0xFFFF);
+                double z = offset.z + scale.z * (quantized[idx + 2] & 0xFFFF);
+
+                if (row > 0 && row < numLat - 1 && col > 0 && col < numLon - 1) {
+                    assertEquals("x " + idx, points[idx], x, scale.x);
+                    assertEquals("y " + idx, points[idx + 1], y, scale.y);
+                    assertEquals("z " + idx, points[idx + 2], z, scale.z);
+                } else {
+                    // Skirt points are shortened, but remain below the adjacent edge point.
+                    int edgeRow = Math.min(Math.max(row, 1), numLat - 2);
+                    int edgeCol = Math.min(Math.max(col, 1), numLon - 2);
+                    int edgeIdx = (edgeRow * numLon + edgeCol) * 3;
+                    Vec3 edge = new Vec3(points[edgeIdx], points[edgeIdx + 1], points[edgeIdx + 2]);
+                    Vec3 skirt = new Vec3(x, y, z);
+                    assertTrue("skirt " + idx, skirt.distanceTo(center) < edge.distanceTo(center) - 100);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testQuantizeTilePoints_ShortSkirt() throws Exception {
+        // A skirt just below the terrain fits within the tile's bounds without being shortened.
+        float[] points = this.tile.getPoints();
+        int numLat = this.tile.level.tileHeight + 2;
+        int numLon = this.tile.level.tileWidth + 2;
+        this.globe.geographicToCartesianBorder(this.tile.sector, numLon, numLat, 0, this.tile.getOrigin(), points);
+
+        BasicTessellator tessellator = new BasicTessellator();
+        tessellator.quantizeTilePoints(this.tile);
+
+        short[] quantized = this.tile.getQuantizedPoints();
+        Vec3 offset = this.tile.getQuantizedOffset();
+        Vec3 scale = this.tile.getQuantizedScale();
+
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+        for (int idx = 0; idx < points.length; idx += 3) {
+            minX = Math.min(minX, points[idx]);
+            maxX = Math.max(maxX, points[idx]);
+        }
+        assertEquals("precision", (maxX - minX) / 0xFFFF, scale.x, 1e-6);
+
+        for (int idx = 0; idx < points.length; idx += 3) {
+            assertEquals("x " + idx, points[idx], offset.x + scale.x * (quantized[idx] & 0xFFFF), scale.x);
+            assertEquals("y " + idx, points[idx + 1], offset.y + scale.y * (quantized[idx + 1] & 0xFFFF), scale.y);
+            assertEquals("z " + idx, points[idx + 2], offset.z + scale.z * (quantized[idx + 2] & 0xFFFF), scale.z);
+        }
+    }
+
+    @Test
+    public void testRecycleRemovedTiles() throws Exception {
+        BasicTessellator tessellator = new BasicTessellator();
+        float[] heights = new float[81];
+        float[] points = this.tile.getPoints();
+        this.tile.setHeights(heights);
+
+        tessellator.tileCache.put("group", new Tile[]{this.tile}, 1);
+        tessellator.tileCache.remove("group");
+        assertNotNull("arrays retained until the next frame", this.tile.getPoints());
+
+        tessellator.recycleRemovedTiles();
+
+        assertNull("heights", this.tile.getHeights());
+        assertNull("points", this.tile.getPoints());
+        assertSame("recycled heights", heights, tessellator.acquireArray(tessellator.heightsPool, 81));
+        assertSame("recycled points", points, tessellator.acquireArray(tessellator.pointsPool, points.length));
+        assertNotSame("empty pool", points, tessellator.acquireArray(tessellator.pointsPool, points.length));
+    }
+}
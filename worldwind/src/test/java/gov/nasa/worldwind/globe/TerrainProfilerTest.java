@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.globe;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Location;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TerrainProfilerTest {
+
+    private static final double RIDGE_LONGITUDE = 0.05;
+
+    private Globe globe;
+
+    private int heightGridCount;
+
+    private double missingLongitude = Double.NEGATIVE_INFINITY;
+
+    @Before
+    public void setUp() throws Exception {
+        this.globe = new Globe(WorldWind.WGS84_ELLIPSOID, new ProjectionWgs84());
+        // Flat terrain with a 500 meter ridge running north-south within 0.01 degrees of the ridge longitude. Heights
+        // west of the missing longitude are not assigned.
+        this.globe.setElevationModel(new ElevationModel() {
+            @Override
+            public void getHeightGrid(Sector gridSector, int gridWidth, int gridHeight, float[] result) {
+                heightGridCount++;
+                double deltaLon = gridSector.deltaLongitude() / (gridWidth - 1);
+                for (int row = 0, idx = 0; row < gridHeight; row++) {
+                    for (int col = 0; col < gridWidth; col++, idx++) {
+                        double lon = gridSector.minLongitude() + col * deltaLon;
+                        if (lon >= missingLongitude) {
+                            result[idx] = Math.abs(lon - RIDGE_LONGITUDE) < 0.01 ? 500 : 0;
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testGetElevationProfile() throws Exception {
+        TerrainProfiler profiler = new TerrainProfiler(this.globe);
+        float[] profile = profiler.getElevationProfile(
+            new Location(0, 0), new Location(0, 0.1), WorldWind.GREAT_CIRCLE, 11, new float[11]);
+
+        assertEquals("west", 0, profile[2], 0);
+        assertEquals("ridge", 500, profile[5], 0);
+        assertEquals("east", 0, profile[8], 0);
+    }
+
+    @Test
+    public void testIsLineOfSight() throws Exception {
+        TerrainProfiler profiler = new TerrainProfiler(this.globe);
+
+        assertTrue("same side", profiler.isLineOfSight(new Position(0, 0, 10), new Position(0, 0.03, 10)));
+        assertFalse("across ridge", profiler.isLineOfSight(new Position(0, 0, 10), new Position(0, 0.1, 10)));
+        assertTrue("over ridge", profiler.isLineOfSight(new Position(0, 0, 1000), new Position(0, 0.1, 1000)));
+    }
+
+    @Test
+    public void testIsLineOfSight_Batch() throws Exception {
+        TerrainProfiler profiler = new TerrainProfiler(this.globe);
+        profiler.setThreadCount(2);
+        List<Position> begins = new ArrayList<>();
+        List<Position> ends = new ArrayList<>();
+        for (int idx = 0; idx < 100; idx++) {
+            double lat = idx * 0.001;
+            begins.add(new Position(lat, 0, 10));
+            ends.add(new Position(lat, idx % 2 == 0 ? 0.03 : 0.1, 10));
+        }
+
+        boolean[] result = profiler.isLineOfSight(begins, ends, null);
+        int count = this.heightGridCount;
+        profiler.isLineOfSight(begins, ends, result);
+
+        for (int idx = 0; idx < 100; idx++) {
+            assertEquals("segment " + idx, idx % 2 == 0, result[idx]);
+        }
+        assertEquals("height tiles retained", count, this.heightGridCount);
+    }
+
+    @Test
+    public void testIsLineOfSight_MissingHeights() throws Exception {
+        TerrainProfiler profiler = new TerrainProfiler(this.globe);
+        this.missingLongitude = 0.1; // the ridge is missing
+
+        assertTrue("missing ridge", profiler.isLineOfSight(new Position(0, 0, 10), new Position(0, 0.1, 10)));
+        assertTrue("missing count", profiler.getMissingHeightCount() > 0);
+        assertTrue("beyond missing heights", profiler.isLineOfSight(new Position(0, 0.12, 10), new Position(0, 0.15, 10)));
+        assertEquals("no missing heights", 0, profiler.getMissingHeightCount());
+    }
+
+    @Test
+    public void testIsLineOfSight_BatchExceedsCapacity() throws Exception {
+        TerrainProfiler profiler = new TerrainProfiler(this.globe);
+        List<Position> begins = new ArrayList<>();
+        List<Position> ends = new ArrayList<>();
+        for (int idx = 0; idx < 200; idx++) {
+            double lat = idx * 0.02; // each segment in a different row of height tiles
+            begins.add(new Position(lat, 0, 10));
+            ends.add(new Position(lat, idx % 2 == 0 ? 0.03 : 0.2, 10));
+        }
+
+        boolean[] result = profiler.isLineOfSight(begins, ends, null);
+
+        for (int idx = 0; idx < 200; idx++) {
+            assertEquals("segment " + idx, idx % 2 == 0, result[idx]);
+        }
+        assertEquals("missing count", 0, profiler.getMissingHeightCount());
+        assertTrue("height tiles bounded", this.heightGridCount > TerrainProfiler.MAX_TILES);
+        assertTrue("height tiles bounded", profiler.heightTiles.size() <= TerrainProfiler.MAX_TILES);
+    }
+}
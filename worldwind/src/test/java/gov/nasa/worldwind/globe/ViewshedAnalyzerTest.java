@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.globe;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gov.nasa.worldwind.geom.Sector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ViewshedAnalyzerTest {
+
+    private static final int SIZE = 101;
+
+    /**
+     * A sector about 11 km on each side at the equator, with grid posts about 111 meters apart.
+     */
+    private static final Sector SECTOR = new Sector(0, 0, 0.1, 0.1);
+
+    @Test
+    public void testAnalyze_FlatTerrain() throws Exception {
+        ViewshedAnalyzer analyzer = new ViewshedAnalyzer();
+        float[] heights = new float[SIZE * SIZE];
+        List<ViewshedAnalyzer.Observer> observers = new ArrayList<>();
+        observers.add(new ViewshedAnalyzer.Observer(0.05, 0.05, 10, 3000));
+
+        Viewshed viewshed = analyzer.analyze(heights, SECTOR, SIZE, SIZE, observers);
+
+        assertEquals("missing heights", 0, viewshed.getMissingHeightCount());
+        assertTrue("observer post", viewshed.isVisible(50, 50));
+        assertTrue("nearby post", viewshed.isVisible(60, 45));
+        assertEquals("in range", 1, viewshed.getRangeCount(70, 50));
+        assertTrue("post in range", viewshed.isVisible(70, 50));
+        assertEquals("post out of range", 0, viewshed.getRangeCount(90, 50));
+        assertFalse("post out of range", viewshed.isVisible(90, 50));
+    }
+
+    @Test
+    public void testAnalyze_Ridge() throws Exception {
+        ViewshedAnalyzer analyzer = new ViewshedAnalyzer();
+        float[] heights = new float[SIZE * SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            heights[row * SIZE + 55] = 200; // a north-south ridge east of the observer
+        }
+        List<ViewshedAnalyzer.Observer> observers = new ArrayList<>();
+        observers.add(new ViewshedAnalyzer.Observer(0.05, 0.05, 2, 4000));
+
+        Viewshed viewshed = analyzer.analyze(heights, SECTOR, SIZE, SIZE, observers);
+
+        assertTrue("ridge", viewshed.isVisible(55, 50));
+        assertTrue("west of observer", viewshed.isVisible(30, 50));
+        for (int col = 57; col < 80; col++) {
+            assertFalse("behind ridge " + col, viewshed.isVisible(col, 50));
+            assertEquals("in range " + col, 1, viewshed.getRangeCount(col, 50));
+        }
+    }
+
+    @Test
+    public void testAnalyze_MultipleObservers() throws Exception {
+        ViewshedAnalyzer analyzer = new ViewshedAnalyzer();
+        analyzer.setThreadCount(2);
+        float[] heights = new float[SIZE * SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            heights[row * SIZE + 50] = 500; // a north-south wall dividing the grid
+        }
+        List<ViewshedAnalyzer.Observer> observers = new ArrayList<>();
+        observers.add(new ViewshedAnalyzer.Observer(0.05, 0.03, 2, 5000));
+        observers.add(new ViewshedAnalyzer.Observer(0.05, 0.07, 2, 5000));
+        observers.add(new ViewshedAnalyzer.Observer(0.05, 0.2, 2, 5000)); // outside the grid
+
+        Viewshed viewshed = analyzer.analyze(heights, SECTOR, SIZE, SIZE, observers);
+
+        assertEquals("observer count", 3, viewshed.getObserverCount());
+        assertEquals("west", 1, viewshed.getVisibleCount(40, 50));
+        assertEquals("east", 1, viewshed.getVisibleCount(60, 50));
+        assertEquals("wall", 2, viewshed.getVisibleCount(50, 50));
+        assertEquals("wall range", 2, viewshed.getRangeCount(50, 50));
+    }
+
+    @Test
+    public void testAnalyze_MissingHeights() throws Exception {
+        ViewshedAnalyzer analyzer = new ViewshedAnalyzer();
+        float[] heights = new float[SIZE * SIZE];
+        Arrays.fill(heights, 0, SIZE, Float.NaN);
+        List<ViewshedAnalyzer.Observer> observers = new ArrayList<>();
+        observers.add(new ViewshedAnalyzer.Observer(0.05, 0.05, 10, 1000));
+
+        Viewshed viewshed = analyzer.analyze(heights, SECTOR, SIZE, SIZE, observers);
+        boolean[] grid = viewshed.getVisibilityGrid(null);
+
+        assertEquals("missing heights", SIZE, viewshed.getMissingHeightCount());
+        assertTrue("heights unmodified", Float.isNaN(heights[0]));
+        assertEquals("grid size", SIZE * SIZE, grid.length);
+        assertTrue("observer post", grid[50 * SIZE + 50]);
+    }
+
+    @Test
+    public void testAnalyze_ElevationModel() throws Exception {
+        ViewshedAnalyzer analyzer = new ViewshedAnalyzer();
+        ElevationModel elevationModel = new ElevationModel(); // no coverages; every height is missing
+        List<ViewshedAnalyzer.Observer> observers = new ArrayList<>();
+        observers.add(new ViewshedAnalyzer.Observer(0.05, 0.05, 10, 1000));
+
+        Viewshed viewshed = analyzer.analyze(elevationModel, SECTOR, SIZE, SIZE, observers);
+
+        assertEquals("missing heights", SIZE * SIZE, viewshed.getMissingHeightCount());
+        assertEquals("elevation timestamp", elevationModel.getTimestamp(), viewshed.getElevationTimestamp());
+        assertTrue("observer post", viewshed.isVisible(50, 50));
+    }
+}
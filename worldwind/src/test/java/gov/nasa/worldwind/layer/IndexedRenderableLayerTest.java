@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.shape.Path;
+import gov.nasa.worldwind.shape.Placemark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedRenderableLayerTest {
+
+    @Test
+    public void testComputeSector_GreatCircle() throws Exception {
+        IndexedRenderableLayer layer = new IndexedRenderableLayer();
+        Path path = new Path(Arrays.asList(new Position(45, -10, 0), new Position(45, 0, 0)));
+        Sector sector = new Sector();
+
+        layer.computeSector(path, sector);
+
+        // The great circle between the positions reaches its highest latitude midway between them.
+        assertEquals("max latitude", 45.109, sector.maxLatitude(), 1.0e-3);
+        assertEquals("min latitude", 45, sector.minLatitude(), 0);
+        assertEquals("min longitude", -10, sector.minLongitude(), 0);
+        assertEquals("max longitude", 0, sector.maxLongitude(), 0);
+    }
+
+    @Test
+    public void testComputeSector_RhumbLine() throws Exception {
+        IndexedRenderableLayer layer = new IndexedRenderableLayer();
+        Path path = new Path(Arrays.asList(new Position(45, -10, 0), new Position(45, 0, 0)));
+        path.setPathType(WorldWind.RHUMB_LINE);
+        Sector sector = new Sector();
+
+        layer.computeSector(path, sector);
+
+        assertEquals("min latitude", 45, sector.minLatitude(), 0);
+        assertTrue("no latitude extent", Double.isNaN(sector.maxLatitude()));
+    }
+
+    @Test
+    public void testComputeSector_Meridian() throws Exception {
+        IndexedRenderableLayer layer = new IndexedRenderableLayer();
+        Path path = new Path(Arrays.asList(new Position(0, 0, 0), new Position(10, 0, 0), new Position(5, 0, 0)));
+        Sector sector = new Sector();
+
+        layer.computeSector(path, sector);
+
+        assertEquals("min latitude", 0, sector.minLatitude(), 0);
+        assertEquals("max latitude", 10, sector.maxLatitude(), 0);
+    }
+
+    @Test
+    public void testRemoveRenderable_Duplicate() throws Exception {
+        IndexedRenderableLayer layer = new IndexedRenderableLayer();
+        Placemark placemark = new Placemark(new Position(10, 20, 0));
+        layer.addRenderable(placemark);
+        layer.addRenderable(placemark);
+
+        layer.removeRenderable(placemark);
+        assertTrue("indexed after first removal", layer.index.contains(placemark));
+
+        layer.removeRenderable(placemark);
+        assertFalse("indexed after last removal", layer.index.contains(placemark));
+        assertTrue("occurrences", layer.occurrences.isEmpty());
+    }
+}
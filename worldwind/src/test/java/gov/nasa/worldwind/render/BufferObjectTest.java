@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import android.opengl.GLES20;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.util.BasicPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BufferObjectTest {
+
+    private DrawContext dc;
+
+    /**
+     * A buffer object that records the contents it loads rather than loading them into OpenGL.
+     */
+    private static class BufferObjectImpl extends BufferObject {
+
+        public ArrayList<Buffer> loaded = new ArrayList<>();
+
+        public BufferObjectImpl(int size, Buffer buffer) {
+            super(GLES20.GL_ARRAY_BUFFER, size, buffer);
+        }
+
+        @Override
+        protected void createBufferObject(DrawContext dc) {
+            this.bufferId[0] = 1;
+        }
+
+        @Override
+        protected void loadBufferObjectData(DrawContext dc, int size, Buffer buffer) {
+            this.loaded.add(buffer);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        this.dc = new DrawContext();
+    }
+
+    @Test
+    public void testSetBuffer() throws Exception {
+        Buffer initial = ByteBuffer.allocate(8);
+        Buffer replaced = ByteBuffer.allocate(16);
+        BufferObjectImpl bufferObject = new BufferObjectImpl(8, initial);
+
+        int version = bufferObject.setBuffer(16, replaced);
+
+        assertEquals("version", 1, version);
+        assertEquals("getVersion", 1, bufferObject.getVersion());
+        assertEquals("byte count", 16, bufferObject.getBufferByteCount());
+        assertTrue("bind initial", bufferObject.bindBuffer(this.dc, 0));
+        assertTrue("bind replaced", bufferObject.bindBuffer(this.dc, 1));
+        assertEquals("loaded count", 2, bufferObject.loaded.size());
+        assertSame("loaded initial", initial, bufferObject.loaded.get(0));
+        assertSame("loaded replaced", replaced, bufferObject.loaded.get(1));
+    }
+
+    @Test
+    public void testBindBuffer_LoadsOnce() throws Exception {
+        BufferObjectImpl bufferObject = new BufferObjectImpl(8, ByteBuffer.allocate(8));
+
+        assertTrue("first bind", bufferObject.bindBuffer(this.dc, 0));
+        assertTrue("second bind", bufferObject.bindBuffer(this.dc, 0));
+        assertEquals("loaded count", 1, bufferObject.loaded.size());
+    }
+
+    @Test
+    public void testBindBuffer_SupersededVersion() throws Exception {
+        // A frame queued before the contents were replaced binds the previous contents, but once a later frame loads
+        // the new contents the previous contents are no longer available.
+        BufferObjectImpl bufferObject = new BufferObjectImpl(8, ByteBuffer.allocate(8));
+        bufferObject.setBuffer(8, ByteBuffer.allocate(8));
+        bufferObject.setBuffer(8, ByteBuffer.allocate(8));
+
+        assertTrue("queued frame", bufferObject.bindBuffer(this.dc, 1));
+        assertTrue("current frame", bufferObject.bindBuffer(this.dc, 2));
+        assertFalse("superseded frame", bufferObject.bindBuffer(this.dc, 1));
+        assertFalse("skipped version", bufferObject.bindBuffer(this.dc, 0));
+        assertEquals("loaded count", 2, bufferObject.loaded.size());
+    }
+
+    @Test
+    public void testBindBuffer_Latest() throws Exception {
+        BufferObjectImpl bufferObject = new BufferObjectImpl(8, ByteBuffer.allocate(8));
+        Buffer latest = ByteBuffer.allocate(8);
+        bufferObject.setBuffer(8, latest);
+
+        assertTrue("bind", bufferObject.bindBuffer(this.dc));
+        assertEquals("loaded count", 1, bufferObject.loaded.size());
+        assertSame("loaded latest", latest, bufferObject.loaded.get(0));
+    }
+
+    @Test
+    public void testSetBufferPool() throws Exception {
+        BasicPool<Buffer> pool = new BasicPool<>();
+        Buffer buffer = ByteBuffer.allocate(8);
+        BufferObjectImpl bufferObject = new BufferObjectImpl(8, buffer);
+        bufferObject.setBufferPool(pool);
+
+        bufferObject.bindBuffer(this.dc, 0);
+
+        assertSame("released to pool", buffer, pool.acquire());
+    }
+
+    @Test
+    public void testSetBuffer_DiscardsOldestPending() throws Exception {
+        BasicPool<Buffer> pool = new BasicPool<>();
+        Buffer oldest = ByteBuffer.allocate(8);
+        BufferObjectImpl bufferObject = new BufferObjectImpl(8, oldest);
+        bufferObject.setBufferPool(pool);
+
+        for (int idx = 0; idx < BufferObject.MAX_PENDING_CONTENTS; idx++) {
+            bufferObject.setBuffer(8, ByteBuffer.allocate(8));
+        }
+
+        assertSame("oldest released to pool", oldest, pool.acquire());
+        assertFalse("oldest discarded", bufferObject.bindBuffer(this.dc, 0));
+        assertTrue("newest", bufferObject.bindBuffer(this.dc, BufferObject.MAX_PENDING_CONTENTS));
+    }
+
+    @Test
+    public void testRelease() throws Exception {
+        BasicPool<Buffer> pool = new BasicPool<>();
+        Buffer buffer = ByteBuffer.allocate(8);
+        BufferObjectImpl bufferObject = new BufferObjectImpl(8, buffer);
+        bufferObject.setBufferPool(pool);
+
+        bufferObject.release(this.dc);
+
+        assertSame("released to pool", buffer, pool.acquire());
+        assertFalse("bind after release", bufferObject.bindBuffer(this.dc, 0));
+    }
+}
@@ -5,16 +5,114 @@
 
 package gov.nasa.worldwind.render;
 
-import org.junit.Ignore;
 import org.junit.Test;
 
+import gov.nasa.worldwind.FrameMetrics;
+import gov.nasa.worldwind.draw.DrawableScreenTexture;
+import gov.nasa.worldwind.layer.RenderableLayer;
+
 import static org.junit.Assert.*;
 
 public class FrameMetricsTest {
-    @Ignore("not implemented")
+
     @Test
     public void testConstructor_default() throws Exception {
-        fail("The test case is a stub");
+        FrameMetrics metrics = new FrameMetrics();
+
+        assertEquals("draw count", 0, metrics.getDrawCount());
+        assertEquals("draw percentile", 0, metrics.getDrawTimePercentile(50), 0);
+        assertTrue("draw stages", metrics.getDrawStageNames().isEmpty());
+        assertTrue("render stages", metrics.getRenderStageNames().isEmpty());
     }
-}
 
+    @Test
+    public void testRecordDrawStage() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+
+        metrics.beginDrawing(null);
+        metrics.recordDrawStage(DrawableScreenTexture.class, 1000000);
+        metrics.recordDrawStage(DrawableScreenTexture.class, 500000); // accumulates within the frame
+        metrics.recordDrawStage(FrameMetrics.DRAW_DRAWABLES_STAGE, 2000000);
+        metrics.endDrawing(null);
+
+        assertEquals("stage names", 2, metrics.getDrawStageNames().size());
+        assertEquals("class stage time", 1.5, metrics.getDrawStageTime("draw:DrawableScreenTexture"), 1.0e-9);
+        assertEquals("class stage count", 1, metrics.getDrawStageCount("draw:DrawableScreenTexture"));
+        assertEquals("named stage time", 2.0, metrics.getDrawStageTime(FrameMetrics.DRAW_DRAWABLES_STAGE), 1.0e-9);
+        assertEquals("unknown stage time", 0, metrics.getDrawStageTime("unknown"), 0);
+    }
+
+    @Test
+    public void testRecordStage_LayerRenamed() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        RenderableLayer layer = new RenderableLayer("Before");
+
+        metrics.beginDrawing(null);
+        metrics.recordDrawStage(layer, 1000000);
+        metrics.endDrawing(null);
+        layer.setDisplayName("After");
+        metrics.beginDrawing(null);
+        metrics.recordDrawStage(layer, 2000000);
+        metrics.endDrawing(null);
+
+        assertEquals("stage names", 2, metrics.getDrawStageNames().size());
+        assertEquals("before", 1.0, metrics.getDrawStageTime("layer:Before"), 1.0e-9);
+        assertEquals("after", 2.0, metrics.getDrawStageTime("layer:After"), 1.0e-9);
+    }
+
+    @Test
+    public void testDrawStagePercentile() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+
+        // Record stage times of 1ms to 100ms in an arbitrary order.
+        for (int idx = 0; idx < 100; idx++) {
+            metrics.beginDrawing(null);
+            metrics.recordDrawStage(FrameMetrics.DRAW_DRAWABLES_STAGE, ((idx * 37) % 100 + 1) * 1000000L);
+            metrics.endDrawing(null);
+        }
+
+        assertEquals("p50", 50, metrics.getDrawStageTimePercentile(FrameMetrics.DRAW_DRAWABLES_STAGE, 50), 1.0e-9);
+        assertEquals("p95", 95, metrics.getDrawStageTimePercentile(FrameMetrics.DRAW_DRAWABLES_STAGE, 95), 1.0e-9);
+        assertEquals("p99", 99, metrics.getDrawStageTimePercentile(FrameMetrics.DRAW_DRAWABLES_STAGE, 99), 1.0e-9);
+        assertEquals("p100", 100, metrics.getDrawStageTimePercentile(FrameMetrics.DRAW_DRAWABLES_STAGE, 100), 1.0e-9);
+        assertEquals("average", 50.5, metrics.getDrawStageTimeAverage(FrameMetrics.DRAW_DRAWABLES_STAGE), 1.0e-9);
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+
+        metrics.beginDrawing(null);
+        metrics.recordDrawStage(FrameMetrics.DRAW_DRAWABLES_STAGE, 1000000);
+        metrics.endDrawing(null);
+        metrics.reset();
+
+        assertEquals("draw count", 0, metrics.getDrawCount());
+        assertEquals("stage count", 0, metrics.getDrawStageCount(FrameMetrics.DRAW_DRAWABLES_STAGE));
+        assertEquals("stage percentile", 0, metrics.getDrawStageTimePercentile(FrameMetrics.DRAW_DRAWABLES_STAGE, 50), 0);
+    }
+
+    @Test
+    public void testRecordDrawCounter() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+
+        metrics.beginDrawing(null);
+        metrics.recordDrawCounter(FrameMetrics.SURFACE_TEXTURE_DRAW_CALL_COUNTER, 3);
+        metrics.recordDrawCounter(FrameMetrics.SURFACE_TEXTURE_DRAW_CALL_COUNTER, 2); // accumulates within the frame
+        metrics.endDrawing(null);
+
+        assertEquals("counter names", 1, metrics.getDrawCounterNames().size());
+        assertEquals("counter value", 5, metrics.getDrawCounter(FrameMetrics.SURFACE_TEXTURE_DRAW_CALL_COUNTER));
+
+        metrics.beginDrawing(null); // a frame that doesn't record the counter
+        metrics.endDrawing(null);
+
+        assertEquals("unrecorded value", 0, metrics.getDrawCounter(FrameMetrics.SURFACE_TEXTURE_DRAW_CALL_COUNTER));
+        assertEquals("average", 2.5, metrics.getDrawCounterAverage(FrameMetrics.SURFACE_TEXTURE_DRAW_CALL_COUNTER), 1.0e-9);
+        assertEquals("unknown counter", 0, metrics.getDrawCounter("unknown"));
+
+        metrics.reset();
+
+        assertEquals("reset average", 0, metrics.getDrawCounterAverage(FrameMetrics.SURFACE_TEXTURE_DRAW_CALL_COUNTER), 0);
+    }
+}
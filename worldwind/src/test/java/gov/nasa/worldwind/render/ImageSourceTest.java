@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ImageSourceTest {
+
+    @Test
+    public void testFromComposite_Equals() throws Exception {
+        ImageSource first = ImageSource.fromUrl("http://worldwind.example/a.png");
+        ImageSource second = ImageSource.fromUrl("http://worldwind.example/b.png");
+
+        ImageSource composite = ImageSource.fromComposite(new ImageSource[]{first, second}, new float[]{1, 0.5f});
+        ImageSource same = ImageSource.fromComposite(
+            new ImageSource[]{ImageSource.fromUrl("http://worldwind.example/a.png"), ImageSource.fromUrl("http://worldwind.example/b.png")},
+            new float[]{1, 0.5f});
+
+        assertTrue("composite", composite.isComposite());
+        assertEquals("equals", composite, same);
+        assertEquals("hash code", composite.hashCode(), same.hashCode());
+    }
+
+    @Test
+    public void testFromComposite_NotEquals() throws Exception {
+        ImageSource first = ImageSource.fromUrl("http://worldwind.example/a.png");
+        ImageSource second = ImageSource.fromUrl("http://worldwind.example/b.png");
+
+        ImageSource composite = ImageSource.fromComposite(new ImageSource[]{first, second}, new float[]{1, 0.5f});
+        ImageSource opacity = ImageSource.fromComposite(new ImageSource[]{first, second}, new float[]{1, 0.25f});
+        ImageSource order = ImageSource.fromComposite(new ImageSource[]{second, first}, new float[]{0.5f, 1});
+        ImageSource subset = ImageSource.fromComposite(new ImageSource[]{first}, new float[]{1});
+
+        assertNotEquals("opacity", composite, opacity);
+        assertNotEquals("order", composite, order);
+        assertNotEquals("subset", composite, subset);
+        assertNotEquals("source", composite, first);
+    }
+
+    @Test
+    public void testFromComposite_CopiesArrays() throws Exception {
+        ImageSource first = ImageSource.fromUrl("http://worldwind.example/a.png");
+        ImageSource second = ImageSource.fromUrl("http://worldwind.example/b.png");
+        ImageSource[] sources = {first, second};
+        float[] opacities = {1, 0.5f};
+
+        ImageSource composite = ImageSource.fromComposite(sources, opacities);
+        int hashCode = composite.hashCode();
+        sources[0] = second;
+        opacities[1] = 0.25f;
+
+        assertSame("source", first, composite.asComposite().getSource(0));
+        assertEquals("opacity", 0.5f, composite.asComposite().getOpacity(1), 0);
+        assertEquals("hash code", hashCode, composite.hashCode());
+    }
+}
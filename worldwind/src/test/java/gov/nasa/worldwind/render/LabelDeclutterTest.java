@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nasa.worldwind.geom.Viewport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LabelDeclutterTest {
+
+    private RenderContext rc;
+
+    private List<Candidate> rendered;
+
+    @Before
+    public void setUp() throws Exception {
+        this.rc = new RenderContext();
+        this.rc.viewport.set(0, 0, 100, 100);
+        this.rendered = new ArrayList<>();
+    }
+
+    @Test
+    public void testDeclutter_Overlap() throws Exception {
+        LabelDeclutter declutter = new LabelDeclutter();
+        Candidate near = new Candidate();
+        Candidate far = new Candidate();
+        Candidate separate = new Candidate();
+
+        declutter.offerCandidate(this.rc, far, new Viewport(10, 10, 20, 10), 0, 2000);
+        declutter.offerCandidate(this.rc, near, new Viewport(15, 12, 20, 10), 0, 1000);
+        declutter.offerCandidate(this.rc, separate, new Viewport(60, 60, 20, 10), 0, 3000);
+        declutter.declutter(this.rc);
+
+        assertEquals("rendered count", 2, this.rendered.size());
+        assertTrue("near candidate", this.rendered.contains(near));
+        assertTrue("separate candidate", this.rendered.contains(separate));
+        assertTrue("near placed", declutter.wasPlaced(near));
+        assertFalse("far suppressed", declutter.wasPlaced(far));
+    }
+
+    @Test
+    public void testDeclutter_Priority() throws Exception {
+        LabelDeclutter declutter = new LabelDeclutter();
+        Candidate near = new Candidate();
+        Candidate important = new Candidate();
+
+        declutter.offerCandidate(this.rc, near, new Viewport(10, 10, 20, 10), 0, 1000);
+        declutter.offerCandidate(this.rc, important, new Viewport(10, 10, 20, 10), 1, 5000);
+        declutter.declutter(this.rc);
+
+        assertEquals("rendered count", 1, this.rendered.size());
+        assertTrue("important candidate", this.rendered.contains(important));
+    }
+
+    @Test
+    public void testDeclutter_FrameCoherence() throws Exception {
+        LabelDeclutter declutter = new LabelDeclutter();
+        Candidate a = new Candidate();
+        Candidate b = new Candidate();
+
+        declutter.offerCandidate(this.rc, a, new Viewport(10, 10, 20, 10), 0, 1000);
+        declutter.offerCandidate(this.rc, b, new Viewport(15, 10, 20, 10), 0, 1001);
+        declutter.declutter(this.rc);
+
+        // The camera moves so that b is slightly nearer than a. The previously placed candidate a remains displayed.
+        this.rendered.clear();
+        declutter.offerCandidate(this.rc, a, new Viewport(10, 10, 20, 10), 0, 1001);
+        declutter.offerCandidate(this.rc, b, new Viewport(15, 10, 20, 10), 0, 1000);
+        declutter.declutter(this.rc);
+
+        assertEquals("rendered count", 1, this.rendered.size());
+        assertTrue("previously placed candidate", this.rendered.contains(a));
+    }
+
+    @Test
+    public void testDeclutter_PickMode() throws Exception {
+        LabelDeclutter declutter = new LabelDeclutter();
+        Candidate a = new Candidate();
+        Candidate b = new Candidate();
+
+        declutter.offerCandidate(this.rc, a, new Viewport(10, 10, 20, 10), 0, 1000);
+        declutter.offerCandidate(this.rc, b, new Viewport(15, 10, 20, 10), 0, 2000);
+        declutter.declutter(this.rc);
+
+        // A pick frame in which only the suppressed candidate is offered renders nothing and keeps the placement.
+        this.rendered.clear();
+        this.rc.pickMode = true;
+        declutter.offerCandidate(this.rc, b, new Viewport(15, 10, 20, 10), 0, 2000);
+        declutter.declutter(this.rc);
+
+        assertTrue("nothing rendered", this.rendered.isEmpty());
+        assertTrue("placement retained", declutter.wasPlaced(a));
+    }
+
+    private class Candidate implements LabelDeclutter.Candidate {
+
+        @Override
+        public void renderDecluttered(RenderContext rc) {
+            rendered.add(this);
+        }
+    }
+}
@@ -13,7 +13,12 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.util.Logger;
 
@@ -186,4 +191,127 @@ public class AbstractShapeTest {
 
         assertEquals(123, shape.maximumIntermediatePoints);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIsEnableAsyncAssembly() throws Exception {
+        AbstractShape shape = new AbstractShapeImpl();
+        shape.enableAsyncAssembly = true;
+
+        boolean result = shape.isEnableAsyncAssembly();
+
+        assertTrue(result);
+    }
+
+    @Test
+    public void testSetEnableAsyncAssembly() throws Exception {
+        AbstractShape shape = new AbstractShapeImpl();
+
+        shape.setEnableAsyncAssembly(true);
+
+        assertTrue(shape.enableAsyncAssembly);
+    }
+
+    @Test
+    public void testGetAssemblyLatency() throws Exception {
+        AbstractShape shape = new AbstractShapeImpl();
+
+        assertEquals("unassembled", -1, shape.getAssemblyLatency(), 0);
+
+        shape.assemblyLatency = 2500000; // nanoseconds
+
+        assertEquals("assembled", 2.5, shape.getAssemblyLatency(), 1e-9);
+    }
+
+    @Test
+    public void testSnapshotPositions() throws Exception {
+        List<Position> positions = Arrays.asList(new Position(1, 2, 3), new Position(4, 5, 6));
+
+        ArrayList<Position> result = AbstractShape.snapshotPositions(positions, null);
+
+        assertEquals("size", 2, result.size());
+        assertEquals("first", positions.get(0), result.get(0));
+        assertEquals("second", positions.get(1), result.get(1));
+        assertNotSame("copy", positions.get(0), result.get(0));
+    }
+
+    @Test
+    public void testSnapshotPositions_ReuseResult() throws Exception {
+        ArrayList<Position> snapshot = new ArrayList<>();
+        snapshot.add(new Position());
+        snapshot.add(new Position());
+        snapshot.add(new Position());
+        Position reused = snapshot.get(0);
+        List<Position> positions = Arrays.asList(new Position(1, 2, 3), new Position(4, 5, 6));
+
+        ArrayList<Position> result = AbstractShape.snapshotPositions(positions, snapshot);
+
+        assertSame("result", snapshot, result);
+        assertEquals("size", 2, result.size());
+        assertSame("reused position", reused, result.get(0));
+        assertEquals("first", positions.get(0), result.get(0));
+        assertEquals("second", positions.get(1), result.get(1));
+    }
+
+    @Test
+    public void testGetSimplificationTolerance() throws Exception {
+        AbstractShape shape = new AbstractShapeImpl();
+
+        assertEquals("default", 0, shape.getSimplificationTolerance(), 0);
+        shape.setSimplificationTolerance(2);
+        assertEquals("tolerance", 2, shape.getSimplificationTolerance(), 0);
+    }
+
+    @Test
+    public void testComputeSimplificationErrors_Collinear() throws Exception {
+        List<Position> positions = Arrays.asList(new Position(0, 0, 0), new Position(0, 0.001, 0),
+            new Position(0, 0.002, 0), new Position(0, 0.003, 0));
+
+        double[] errors = AbstractShape.computeSimplificationErrors(positions, false, null);
+
+        assertEquals("length", 4, errors.length);
+        assertEquals("first", Double.POSITIVE_INFINITY, errors[0], 0);
+        assertEquals("second", 0, errors[1], 1e-9);
+        assertEquals("third", 0, errors[2], 1e-9);
+        assertEquals("last", Double.POSITIVE_INFINITY, errors[3], 0);
+    }
+
+    @Test
+    public void testComputeSimplificationErrors_Nested() throws Exception {
+        List<Position> positions = Arrays.asList(new Position(0, 0, 0), new Position(0.0001, 0.001, 0),
+            new Position(0, 0.002, 0), new Position(0.00001, 0.003, 0), new Position(0, 0.004, 0));
+
+        double[] errors = AbstractShape.computeSimplificationErrors(positions, false, null);
+
+        // The peak's distance from the chord between the endpoints is 0.0001 degrees of latitude, about 11 meters
+        assertEquals("peak", 11.13, errors[1], 0.01);
+        assertTrue("nested", errors[2] <= errors[1] && errors[3] <= errors[2]);
+    }
+
+    @Test
+    public void testComputeSimplificationErrors_HighLatitude() throws Exception {
+        List<Position> positions = Arrays.asList(new Position(0, 10, 0), new Position(59.999, 10, 0),
+            new Position(60, 10.001, 0), new Position(60.001, 10, 0));
+
+        double[] errors = AbstractShape.computeSimplificationErrors(positions, false, null);
+
+        // The offset of 0.001 degrees of longitude is about 56 meters at 60 degrees latitude, not 111 meters as at the
+        // first position's latitude
+        assertEquals("offset", 55.66, errors[2], 0.01);
+    }
+
+    @Test
+    public void testComputeSimplificationErrors_ClosedRing() throws Exception {
+        List<Position> positions = Arrays.asList(new Position(0, 0, 0), new Position(0, 1, 0),
+            new Position(1, 1, 0), new Position(1, 0, 0), new Position(0, 0, 0));
+
+        double[] errors = AbstractShape.computeSimplificationErrors(positions, true, null);
+
+        int anchors = 0;
+        for (int idx = 0; idx < errors.length - 1; idx++) {
+            if (errors[idx] == Double.POSITIVE_INFINITY) {
+                anchors++;
+            }
+        }
+        assertTrue("ring keeps a triangle", anchors >= 3);
+    }
+}
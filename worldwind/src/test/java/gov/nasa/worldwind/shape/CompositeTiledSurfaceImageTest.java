@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.shape;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Tile;
+import gov.nasa.worldwind.util.TileFactory;
+
+import static org.junit.Assert.*;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class CompositeTiledSurfaceImageTest {
+
+    private static class TileFactoryImpl implements TileFactory {
+
+        @Override
+        public Tile createTile(Sector sector, Level level, int row, int column) {
+            return null;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // Mock all the static methods in Logger
+        PowerMockito.mockStatic(Logger.class);
+    }
+
+    @Test
+    public void testSetOpacity() throws Exception {
+        CompositeTiledSurfaceImage image = new CompositeTiledSurfaceImage();
+        image.addTileFactory(new TileFactoryImpl());
+        int version = image.compositeVersion;
+
+        image.setOpacity(0, 0.5f);
+
+        assertEquals("opacity", 0.5f, image.getOpacity(0), 0);
+        assertEquals("version", version + 1, image.compositeVersion);
+    }
+
+    @Test
+    public void testSetOpacity_Unchanged() throws Exception {
+        CompositeTiledSurfaceImage image = new CompositeTiledSurfaceImage();
+        image.addTileFactory(new TileFactoryImpl());
+        int version = image.compositeVersion;
+
+        image.setOpacity(0, 1);
+
+        assertEquals("version", version, image.compositeVersion);
+    }
+
+    @Test
+    public void testMoveTileFactory() throws Exception {
+        CompositeTiledSurfaceImage image = new CompositeTiledSurfaceImage();
+        TileFactory first = new TileFactoryImpl();
+        TileFactory second = new TileFactoryImpl();
+        image.addTileFactory(first);
+        image.addTileFactory(1, second, 0.5f);
+        int version = image.compositeVersion;
+
+        image.moveTileFactory(1, 0);
+
+        assertSame("first", second, image.getTileFactory(0));
+        assertEquals("first opacity", 0.5f, image.getOpacity(0), 0);
+        assertSame("second", first, image.getTileFactory(1));
+        assertEquals("version", version + 1, image.compositeVersion);
+
+        image.moveTileFactory(1, 1);
+
+        assertEquals("unmoved version", version + 1, image.compositeVersion);
+    }
+
+    @Test
+    public void testSetTileFactory() throws Exception {
+        CompositeTiledSurfaceImage image = new CompositeTiledSurfaceImage();
+        TileFactory tileFactory = image.getTileFactory();
+
+        image.setTileFactory(new TileFactoryImpl());
+
+        assertSame("ignored", tileFactory, image.getTileFactory());
+    }
+}
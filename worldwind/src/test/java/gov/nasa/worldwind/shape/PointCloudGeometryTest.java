@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.shape;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Frustum;
+import gov.nasa.worldwind.geom.Plane;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.geom.Viewport;
+import gov.nasa.worldwind.globe.Globe;
+import gov.nasa.worldwind.globe.ProjectionWgs84;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PointCloudGeometryTest {
+
+    private static final int POINT_COUNT = 1000;
+
+    private Globe globe;
+
+    private PointCloud cloud;
+
+    @Before
+    public void setUp() {
+        this.globe = new Globe(WorldWind.WGS84_ELLIPSOID, new ProjectionWgs84());
+
+        // Half of the points in the western hemisphere and half in the eastern hemisphere, interleaved.
+        double[] latitudes = new double[POINT_COUNT];
+        double[] longitudes = new double[POINT_COUNT];
+        double[] altitudes = new double[POINT_COUNT];
+        int[] colors = new int[POINT_COUNT];
+        for (int idx = 0; idx < POINT_COUNT; idx++) {
+            latitudes[idx] = -10 + (idx % 20);
+            longitudes[idx] = (idx % 2 == 0) ? -40 - (idx % 20) : 40 + (idx % 20);
+            altitudes[idx] = idx;
+            colors[idx] = idx;
+        }
+
+        this.cloud = new PointCloud();
+        this.cloud.setPoints(latitudes, longitudes, altitudes, POINT_COUNT);
+        this.cloud.setColors(colors);
+    }
+
+    @Test
+    public void testAssemble_Chunks() throws Exception {
+        PointCloudGeometry geometry = new PointCloudGeometry();
+        geometry.assemble(this.cloud, this.globe, 1, 300);
+
+        List<PointCloudGeometry.Chunk> chunks = geometry.getChunks();
+        assertEquals("vertex count", POINT_COUNT, geometry.getVertexCount());
+        assertEquals("vertex buffer size", POINT_COUNT * PointCloudGeometry.VERTEX_STRIDE, geometry.getVertexBuffer().remaining());
+        assertEquals("chunk count", 4, chunks.size());
+        assertEquals("last chunk first", 900, chunks.get(3).first);
+        assertEquals("last chunk count", 100, chunks.get(3).count);
+    }
+
+    @Test
+    public void testAssemble_Vertices() throws Exception {
+        PointCloudGeometry geometry = new PointCloudGeometry();
+        geometry.assemble(this.cloud, this.globe, 2, 128);
+
+        boolean[] visited = new boolean[POINT_COUNT];
+        Vec3 expected = new Vec3();
+        Vec3 actual = new Vec3();
+        for (PointCloudGeometry.Chunk chunk : geometry.getChunks()) {
+            for (int vertex = chunk.first; vertex < chunk.first + chunk.count; vertex++) {
+                int index = geometry.getPointIndex(vertex);
+                visited[index] = true;
+
+                this.globe.geographicToCartesian(this.cloud.getLatitudes()[index], this.cloud.getLongitudes()[index],
+                    this.cloud.getAltitudes()[index] * 2, expected);
+                geometry.getVertexPoint(chunk, vertex, actual);
+                assertEquals("vertex point", 0, expected.distanceTo(actual), 1.0);
+                assertEquals("vertex size", this.cloud.getPointSize(), geometry.getVertexSize(vertex), 0);
+
+                int offset = vertex * PointCloudGeometry.VERTEX_STRIDE;
+                assertEquals("vertex color blue", index & 0xFF, geometry.getVertexBuffer().get(offset + 18) & 0xFF);
+            }
+        }
+
+        for (int idx = 0; idx < POINT_COUNT; idx++) {
+            assertTrue("point " + idx + " assembled", visited[idx]);
+        }
+    }
+
+    @Test
+    public void testCull() throws Exception {
+        // Chunks of half the points separate the hemispheres, since points are sorted along a curve whose most
+        // significant bit is the longitude's.
+        PointCloudGeometry geometry = new PointCloudGeometry();
+        geometry.assemble(this.cloud, this.globe, 1, POINT_COUNT / 2);
+
+        // Frustum containing the half space X > 0, which contains the eastern hemisphere.
+        double far = 1.0e8;
+        Frustum frustum = new Frustum(new Plane(1, 0, 0, 0), new Plane(-1, 0, 0, far), new Plane(0, 1, 0, far),
+            new Plane(0, -1, 0, far), new Plane(0, 0, 1, far), new Plane(0, 0, -1, far), new Viewport(0, 0, 1, 1));
+        List<PointCloudGeometry.Chunk> visible = geometry.cull(frustum, new ArrayList<PointCloudGeometry.Chunk>());
+
+        assertEquals("visible chunk count", 1, visible.size());
+        PointCloudGeometry.Chunk chunk = visible.get(0);
+        for (int vertex = chunk.first; vertex < chunk.first + chunk.count; vertex++) {
+            assertTrue("eastern point", this.cloud.getLongitudes()[geometry.getPointIndex(vertex)] > 0);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+
+import gov.nasa.worldwind.geom.Viewport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClusterGridTest {
+
+    @Test
+    public void testAdd() throws Exception {
+        ClusterGrid grid = new ClusterGrid();
+        grid.reset(new Viewport(0, 0, 100, 50), 25);
+
+        assertTrue("first cell", grid.add(0, 1, 1));
+        assertTrue("first cell", grid.add(1, 24, 24));
+        assertTrue("last cell", grid.add(2, 99, 49));
+        assertFalse("outside left", grid.add(3, -1, 10));
+        assertFalse("outside top", grid.add(4, 10, 50));
+
+        assertEquals("cell count", 8, grid.getCellCount());
+        assertEquals("first cell items", 2, grid.getItemCount(0));
+        assertEquals("last cell items", 1, grid.getItemCount(7));
+        assertEquals("empty cell items", 0, grid.getItemCount(1));
+        assertEquals("empty cell first item", -1, grid.getFirstItem(1));
+
+        HashSet<Integer> ids = new HashSet<>();
+        for (int item = grid.getFirstItem(0); item != -1; item = grid.getNextItem(item)) {
+            ids.add(grid.getItemId(item));
+        }
+        assertEquals("first cell ids", 2, ids.size());
+        assertTrue("first cell ids", ids.contains(0) && ids.contains(1));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        ClusterGrid grid = new ClusterGrid();
+        grid.reset(new Viewport(0, 0, 100, 100), 10);
+        for (int idx = 0; idx < 100; idx++) {
+            grid.add(idx, idx, idx);
+        }
+
+        grid.reset(new Viewport(-20, -20, 40, 40), 20);
+
+        assertEquals("cell count", 4, grid.getCellCount());
+        for (int cell = 0; cell < grid.getCellCount(); cell++) {
+            assertEquals("empty cell", 0, grid.getItemCount(cell));
+        }
+        assertTrue("negative origin", grid.add(0, -20, -20));
+        assertEquals("negative origin cell", 1, grid.getItemCount(0));
+    }
+
+    @Test
+    public void testGetCentralItem() throws Exception {
+        ClusterGrid grid = new ClusterGrid();
+        grid.reset(new Viewport(0, 0, 100, 100), 100);
+        grid.add(10, 0, 0);
+        grid.add(20, 40, 40);
+        grid.add(30, 90, 90);
+
+        int central = grid.getCentralItem(0);
+
+        assertEquals("central item", 20, grid.getItemId(central));
+    }
+}
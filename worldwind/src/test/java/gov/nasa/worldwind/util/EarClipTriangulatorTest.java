@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EarClipTriangulatorTest {
+
+    /**
+     * Adds a contour of interleaved X and Y coordinates, indexing its vertices from the specified first index.
+     */
+    private static void addContour(EarClipTriangulator triangulator, double[] coords, int firstIndex) {
+        triangulator.beginContour();
+        for (int idx = 0; idx < coords.length; idx += 2) {
+            triangulator.addVertex(coords[idx], coords[idx + 1], 0, firstIndex + idx / 2);
+        }
+        triangulator.endContour();
+    }
+
+    /**
+     * Computes the total area of a set of triangles, failing if any triangle is clockwise.
+     */
+    private static double triangleArea(ShortArray triangles, double[] coords) {
+        double area = 0;
+        for (int idx = 0; idx < triangles.size(); idx += 3) {
+            int a = triangles.get(idx) * 2, b = triangles.get(idx + 1) * 2, c = triangles.get(idx + 2) * 2;
+            double cross = (coords[b] - coords[a]) * (coords[c + 1] - coords[a + 1]) -
+                (coords[b + 1] - coords[a + 1]) * (coords[c] - coords[a]);
+            assertTrue("counter-clockwise triangle", cross >= 0);
+            area += cross * 0.5;
+        }
+
+        return area;
+    }
+
+    @Test
+    public void testTriangulate_Square() throws Exception {
+        EarClipTriangulator triangulator = new EarClipTriangulator();
+        double[] coords = {0, 0, 1, 0, 1, 1, 0, 1};
+        addContour(triangulator, coords, 0);
+        ShortArray result = new ShortArray();
+
+        assertTrue("triangulated", triangulator.triangulate(result));
+        assertEquals("triangle count", 2, result.size() / 3);
+        assertEquals("area", 1, triangleArea(result, coords), 1e-9);
+    }
+
+    @Test
+    public void testTriangulate_ClockwiseClosedContour() throws Exception {
+        EarClipTriangulator triangulator = new EarClipTriangulator();
+        double[] coords = {0, 0, 0, 2, 2, 2, 2, 0, 0, 0};
+        addContour(triangulator, coords, 0);
+        ShortArray result = new ShortArray();
+
+        assertTrue("triangulated", triangulator.triangulate(result));
+        assertEquals("vertex count", 4, triangulator.getVertexCount());
+        assertEquals("triangle count", 2, result.size() / 3);
+        assertEquals("area", 4, triangleArea(result, coords), 1e-9);
+    }
+
+    @Test
+    public void testTriangulate_CoincidentVertices() throws Exception {
+        EarClipTriangulator triangulator = new EarClipTriangulator();
+        double[] coords = {0, 0, 1, 0, 1, 0, 1, 1, 0, 1};
+        addContour(triangulator, coords, 0);
+        ShortArray result = new ShortArray();
+
+        assertTrue("triangulated", triangulator.triangulate(result));
+        assertEquals("vertex count", 4, triangulator.getVertexCount());
+        assertEquals("area", 1, triangleArea(result, coords), 1e-9);
+    }
+
+    @Test
+    public void testTriangulate_Hole() throws Exception {
+        EarClipTriangulator triangulator = new EarClipTriangulator();
+        double[] outer = {0, 0, 10, 0, 10, 10, 0, 10};
+        double[] hole = {2, 2, 2, 4, 4, 4, 4, 2};
+        addContour(triangulator, outer, 0);
+        addContour(triangulator, hole, 4);
+        ShortArray result = new ShortArray();
+
+        double[] coords = new double[16];
+        System.arraycopy(outer, 0, coords, 0, 8);
+        System.arraycopy(hole, 0, coords, 8, 8);
+
+        assertTrue("triangulated", triangulator.triangulate(result));
+        assertEquals("triangle count", 8, result.size() / 3);
+        assertEquals("area", 96, triangleArea(result, coords), 1e-9);
+    }
+
+    @Test
+    public void testTriangulate_CollinearVertices() throws Exception {
+        EarClipTriangulator triangulator = new EarClipTriangulator();
+        double[] coords = {0, 0, 1, 0, 2, 0, 2, 1, 2, 2, 1, 2, 0, 2, 0, 1};
+        addContour(triangulator, coords, 0);
+        ShortArray result = new ShortArray();
+
+        assertTrue("triangulated", triangulator.triangulate(result));
+        assertEquals("triangle count", 6, result.size() / 3);
+        assertEquals("area", 4, triangleArea(result, coords), 1e-9);
+    }
+
+    @Test
+    public void testTriangulate_LargeStarPolygon() throws Exception {
+        EarClipTriangulator triangulator = new EarClipTriangulator();
+        Random random = new Random(123);
+        int count = 1000;
+        double[] coords = new double[count * 2];
+        double expectedArea = 0;
+        for (int idx = 0; idx < count; idx++) {
+            double angle = 2 * Math.PI * idx / count;
+            double radius = 5 + random.nextDouble();
+            coords[idx * 2] = radius * Math.cos(angle);
+            coords[idx * 2 + 1] = radius * Math.sin(angle);
+        }
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            expectedArea += (coords[j * 2] * coords[i * 2 + 1] - coords[i * 2] * coords[j * 2 + 1]) * 0.5;
+        }
+        addContour(triangulator, coords, 0);
+        ShortArray result = new ShortArray();
+
+        assertTrue("triangulated", triangulator.triangulate(result));
+        assertEquals("triangle count", count - 2, result.size() / 3);
+        assertEquals("area", expectedArea, triangleArea(result, coords), 1e-9);
+    }
+
+    @Test
+    public void testTriangulate_SelfIntersecting() throws Exception {
+        EarClipTriangulator triangulator = new EarClipTriangulator();
+        addContour(triangulator, new double[]{0, 0, 1, 1, 1, 0, 0, 1}, 0);
+        ShortArray result = new ShortArray();
+
+        assertFalse("triangulated", triangulator.triangulate(result));
+        assertEquals("result unmodified", 0, result.size());
+    }
+
+    @Test
+    public void testTriangulate_HoleOutsideBoundary() throws Exception {
+        EarClipTriangulator triangulator = new EarClipTriangulator();
+        addContour(triangulator, new double[]{0, 0, 1, 0, 1, 1, 0, 1}, 0);
+        addContour(triangulator, new double[]{2, 2, 3, 2, 3, 3}, 4);
+        ShortArray result = new ShortArray();
+
+        assertFalse("triangulated", triangulator.triangulate(result));
+    }
+
+    @Test
+    public void testTriangulate_NestedHoles() throws Exception {
+        EarClipTriangulator triangulator = new EarClipTriangulator();
+        addContour(triangulator, new double[]{0, 0, 10, 0, 10, 10, 0, 10}, 0);
+        addContour(triangulator, new double[]{1, 1, 9, 1, 9, 9, 1, 9}, 4);
+        addContour(triangulator, new double[]{2, 2, 3, 2, 3, 3}, 8);
+        ShortArray result = new ShortArray();
+
+        assertFalse("triangulated", triangulator.triangulate(result));
+    }
+
+    @Test
+    public void testTriangulate_DegenerateContour() throws Exception {
+        EarClipTriangulator triangulator = new EarClipTriangulator();
+        addContour(triangulator, new double[]{0, 0, 1, 1}, 0);
+        ShortArray result = new ShortArray();
+
+        assertFalse("triangulated", triangulator.triangulate(result));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        EarClipTriangulator triangulator = new EarClipTriangulator();
+        addContour(triangulator, new double[]{0, 0, 1, 1, 1, 0, 0, 1}, 0);
+        triangulator.reset();
+        double[] coords = {0, 0, 1, 0, 0, 1};
+        addContour(triangulator, coords, 0);
+        ShortArray result = new ShortArray();
+
+        assertEquals("contour count", 1, triangulator.getContourCount());
+        assertTrue("triangulated", triangulator.triangulate(result));
+        assertEquals("area", 0.5, triangleArea(result, coords), 1e-9);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntSetTest {
+
+    @Test
+    public void testAdd() throws Exception {
+        IntSet set = new IntSet();
+
+        assertTrue("first add", set.add(7));
+        assertFalse("duplicate add", set.add(7));
+        assertTrue("second add", set.add(-3));
+
+        assertEquals("size", 2, set.size());
+        assertEquals("first value", 7, set.get(0));
+        assertEquals("second value", -3, set.get(1));
+    }
+
+    @Test
+    public void testAdd_Zero() throws Exception {
+        IntSet set = new IntSet();
+
+        assertFalse("contains before add", set.contains(0));
+        assertTrue("first add", set.add(0));
+        assertFalse("duplicate add", set.add(0));
+
+        assertTrue("contains after add", set.contains(0));
+        assertEquals("size", 1, set.size());
+        assertEquals("value", 0, set.get(0));
+    }
+
+    @Test
+    public void testAdd_Growth() throws Exception {
+        IntSet set = new IntSet(1);
+        HashSet<Integer> expected = new HashSet<>();
+        Random random = new Random(123);
+
+        for (int idx = 0; idx < 10000; idx++) {
+            int value = random.nextInt(5000);
+            assertEquals("add " + value, expected.add(value), set.add(value));
+        }
+
+        assertEquals("size", expected.size(), set.size());
+        for (int value : expected) {
+            assertTrue("contains " + value, set.contains(value));
+        }
+
+        assertFalse("absent value", set.contains(5001));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        IntSet set = new IntSet();
+        set.add(0);
+        set.add(1);
+        set.add(2);
+
+        set.clear();
+
+        assertTrue("empty", set.isEmpty());
+        assertFalse("contains 0", set.contains(0));
+        assertFalse("contains 1", set.contains(1));
+        assertTrue("add after clear", set.add(1));
+        assertEquals("size after clear", 1, set.size());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gov.nasa.worldwind.geom.Sector;
+
+import static org.junit.Assert.assertEquals;
+
+public class SectorGridTest {
+
+    @Test
+    public void testQuery_Boundary() throws Exception {
+        SectorGrid grid = new SectorGrid();
+        grid.add(new Sector(10, 20, 1, 1));
+        grid.add(new Sector(-10, 20, 1, 1));
+        grid.add(new Sector(15, 25, 1, 1));
+        grid.build();
+
+        int count = grid.query(new Sector(5, 15, 10, 10));
+
+        assertEquals("count", 2, count);
+        assertEquals("inside sector", 0, grid.getResult(0));
+        assertEquals("adjacent sector", 2, grid.getResult(1));
+    }
+
+    @Test
+    public void testQuery_EmptySector() throws Exception {
+        SectorGrid grid = new SectorGrid();
+        grid.add(new Sector());
+        grid.add(new Sector(0, 0, 1, 1));
+        grid.add(new Sector(0, 0, 0, 0)); // a zero-size sector has undefined maximum bounds
+        grid.build();
+
+        assertEquals("empty query", 0, grid.query(new Sector()));
+        assertEquals("empty sector excluded", 1, grid.query(new Sector(-90, -180, 180, 360)));
+        assertEquals("result", 1, grid.getResult(0));
+    }
+
+    @Test
+    public void testQuery_Clear() throws Exception {
+        SectorGrid grid = new SectorGrid();
+        grid.add(new Sector(0, 0, 1, 1));
+        grid.build();
+        grid.clear();
+
+        assertEquals("item count", 0, grid.getItemCount());
+        assertEquals("cleared query", 0, grid.query(new Sector(-1, -1, 3, 3)));
+    }
+
+    @Test
+    public void testQuery_Random() throws Exception {
+        SectorGrid grid = new SectorGrid();
+        Random random = new Random(123);
+        List<Sector> sectors = new ArrayList<>();
+
+        // Fill and query the grid twice, verifying that a rebuilt grid returns the same results as a new grid.
+        for (int pass = 0; pass < 2; pass++) {
+            grid.clear();
+            sectors.clear();
+
+            for (int idx = 0; idx < 2000; idx++) {
+                double size = (idx % 100 == 0) ? 60 * random.nextDouble() : random.nextDouble();
+                Sector sector = new Sector(30 * random.nextDouble(), 60 * random.nextDouble(), size, size);
+                sectors.add(sector);
+                assertEquals("identifier", idx, grid.add(sector));
+            }
+
+            grid.build();
+
+            for (int queryIdx = 0; queryIdx < 200; queryIdx++) {
+                double size = 10 * random.nextDouble();
+                Sector query = new Sector(40 * random.nextDouble() - 5, 70 * random.nextDouble() - 5, size, size);
+
+                List<Integer> expected = new ArrayList<>();
+                for (int idx = 0; idx < sectors.size(); idx++) {
+                    if (sectors.get(idx).intersectsOrNextTo(query)) {
+                        expected.add(idx);
+                    }
+                }
+
+                int count = grid.query(query);
+                List<Integer> actual = new ArrayList<>();
+                for (int idx = 0; idx < count; idx++) {
+                    actual.add(grid.getResult(idx));
+                }
+
+                assertEquals("query " + query, expected, actual);
+            }
+        }
+    }
+}
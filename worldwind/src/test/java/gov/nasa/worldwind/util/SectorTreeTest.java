@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import gov.nasa.worldwind.geom.Sector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SectorTreeTest {
+
+    @Test
+    public void testQuery_Points() throws Exception {
+        SectorTree<String> tree = new SectorTree<>();
+        tree.put("inside", new Sector(10, 20, 0, 0));
+        tree.put("boundary", new Sector(15, 25, 0, 0));
+        tree.put("outside", new Sector(-10, 20, 0, 0));
+
+        List<String> result = tree.query(new Sector(5, 15, 10, 10), new ArrayList<String>());
+
+        assertEquals("count", 3, tree.count());
+        assertEquals("result size", 2, result.size());
+        assertTrue("inside point", result.contains("inside"));
+        assertTrue("boundary point", result.contains("boundary"));
+    }
+
+    @Test
+    public void testQuery_EmptySector() throws Exception {
+        SectorTree<String> tree = new SectorTree<>();
+        tree.put("point", new Sector(0, 0, 0, 0));
+
+        List<String> result = tree.query(new Sector(), new ArrayList<String>());
+
+        assertTrue("empty result", result.isEmpty());
+    }
+
+    @Test
+    public void testPut_Move() throws Exception {
+        SectorTree<String> tree = new SectorTree<>();
+        tree.put("object", new Sector(10, 10, 1, 1));
+        tree.put("object", new Sector(-50, -50, 1, 1));
+
+        assertEquals("count", 1, tree.count());
+        assertTrue("old location", tree.query(new Sector(9, 9, 3, 3), new ArrayList<String>()).isEmpty());
+        assertEquals("new location", 1, tree.query(new Sector(-51, -51, 3, 3), new ArrayList<String>()).size());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        SectorTree<String> tree = new SectorTree<>();
+        tree.put("a", new Sector(10, 10, 1, 1));
+        tree.put("b", new Sector(10, 10, 1, 1));
+
+        assertTrue("remove", tree.remove("a"));
+        assertFalse("remove twice", tree.remove("a"));
+        assertFalse("contains removed", tree.contains("a"));
+
+        List<String> result = tree.query(new Sector().setFullSphere(), new ArrayList<String>());
+        assertEquals("result size", 1, result.size());
+        assertEquals("remaining object", "b", result.get(0));
+    }
+
+    @Test
+    public void testQuery_ManyObjects() throws Exception {
+        // Compare the tree's query results against a brute force search with enough objects to split nodes several
+        // levels deep, including objects that span node boundaries and objects that are moved and removed. The tree
+        // identifies objects by reference, so each object is boxed once.
+        SectorTree<Integer> tree = new SectorTree<>();
+        Integer[] objects = new Integer[2000];
+        Sector[] sectors = new Sector[objects.length];
+        Random random = new Random(123);
+
+        for (int idx = 0; idx < objects.length; idx++) {
+            objects[idx] = idx;
+            sectors[idx] = this.randomSector(random);
+            tree.put(objects[idx], sectors[idx]);
+        }
+
+        for (int idx = 0; idx < objects.length; idx += 3) {
+            sectors[idx] = this.randomSector(random);
+            tree.put(objects[idx], sectors[idx]);
+        }
+
+        for (int idx = 0; idx < objects.length; idx += 7) {
+            sectors[idx] = null;
+            tree.remove(objects[idx]);
+        }
+
+        assertEquals("count", objects.length - (objects.length + 6) / 7, tree.count());
+
+        for (int qidx = 0; qidx < 50; qidx++) {
+            Sector query = this.randomSector(random);
+            HashSet<Integer> expected = new HashSet<>();
+            for (int idx = 0; idx < sectors.length; idx++) {
+                Sector s = sectors[idx];
+                if (s != null && s.minLatitude() <= query.maxLatitude() && query.minLatitude() <= this.maxLatitude(s) &&
+                    s.minLongitude() <= query.maxLongitude() && query.minLongitude() <= this.maxLongitude(s)) {
+                    expected.add(idx);
+                }
+            }
+
+            List<Integer> result = tree.query(query, new ArrayList<Integer>());
+            assertEquals("result size", expected.size(), result.size());
+            assertEquals("result contents", expected, new HashSet<>(result));
+        }
+    }
+
+    protected double maxLatitude(Sector sector) {
+        return Double.isNaN(sector.maxLatitude()) ? sector.minLatitude() : sector.maxLatitude(); // single location
+    }
+
+    protected double maxLongitude(Sector sector) {
+        return Double.isNaN(sector.maxLongitude()) ? sector.minLongitude() : sector.maxLongitude(); // single location
+    }
+
+    protected Sector randomSector(Random random) {
+        double delta = random.nextBoolean() ? 0 : random.nextDouble() * 20;
+        double lat = -90 + random.nextDouble() * (180 - delta);
+        double lon = -180 + random.nextDouble() * (360 - delta);
+        return new Sector(lat, lon, delta, delta);
+    }
+}
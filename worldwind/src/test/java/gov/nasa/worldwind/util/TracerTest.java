@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class TracerTest {
+
+    @Test
+    public void testDisabled() throws Exception {
+        Tracer tracer = new Tracer();
+
+        tracer.begin(Tracer.FRAME, "renderFrame");
+        tracer.end(Tracer.FRAME, "renderFrame");
+
+        assertEquals("event count", 0, tracer.getEventCount());
+    }
+
+    @Test
+    public void testWriteTrace() throws Exception {
+        Tracer tracer = new Tracer();
+        tracer.setEnabled(true);
+
+        tracer.begin(Tracer.FRAME, "renderFrame");
+        tracer.instant(Tracer.CACHE, "key \"quoted\"");
+        tracer.end(Tracer.FRAME, "renderFrame");
+
+        StringWriter writer = new StringWriter();
+        tracer.writeTrace(writer);
+        String json = writer.toString();
+
+        assertEquals("event count", 3, tracer.getEventCount());
+        assertTrue("trace events", json.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+        assertTrue("thread name", json.contains("\"name\":\"thread_name\""));
+        assertTrue("begin event", json.contains("{\"name\":\"renderFrame\",\"cat\":\"frame\",\"ph\":\"B\""));
+        assertTrue("end event", json.contains("{\"name\":\"renderFrame\",\"cat\":\"frame\",\"ph\":\"E\""));
+        assertTrue("escaped instant event", json.contains("{\"name\":\"key \\\"quoted\\\"\",\"cat\":\"cache\",\"ph\":\"i\""));
+    }
+
+    @Test
+    public void testCapacity() throws Exception {
+        Tracer tracer = new Tracer();
+        tracer.setCapacity(3);
+        tracer.setEnabled(true);
+
+        tracer.begin(Tracer.LAYER, "overwritten");
+        tracer.begin(Tracer.LAYER, "inner");
+        tracer.end(Tracer.LAYER, "inner");
+        tracer.end(Tracer.LAYER, "overwritten");
+
+        StringWriter writer = new StringWriter();
+        tracer.writeTrace(writer);
+        String json = writer.toString();
+
+        // The oldest event is overwritten, and its unmatched end event is omitted from the trace.
+        assertEquals("event count", 3, tracer.getEventCount());
+        assertFalse("overwritten event", json.contains("overwritten"));
+        assertTrue("inner event", json.contains("inner"));
+    }
+
+    @Test
+    public void testRecordRetainsStrings() throws Exception {
+        Tracer tracer = new Tracer();
+        tracer.setEnabled(true);
+        Object key = new Object() {
+            @Override
+            public String toString() {
+                return "imageSource";
+            }
+        };
+
+        tracer.instant(Tracer.CACHE, key);
+
+        // The tracer retains the key's string representation and the thread's id and name, not the objects themselves.
+        assertEquals("name", "imageSource", tracer.names[0]);
+        assertNotSame("key", key, tracer.names[0]);
+        assertEquals("thread id", Thread.currentThread().getId(), tracer.threadIds[0]);
+        assertEquals("thread name", Thread.currentThread().getName(), tracer.threadNames[0]);
+    }
+}